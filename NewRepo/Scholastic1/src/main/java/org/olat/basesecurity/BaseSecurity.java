@@ -21,10 +21,12 @@
 
 package org.olat.basesecurity;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 import org.olat.core.id.Identity;
 import org.olat.core.id.OLATResourceable;
@@ -73,6 +75,16 @@ public interface BaseSecurity {
 	 */
 	public boolean isIdentityPermittedOnResourceable(Identity identity, String permission, OLATResourceable olatResourceable, boolean checkTypeRight);
 
+	/**
+	 * Bulk variant of isIdentityPermittedOnResourceable (with type rights) for list views: all permissions the identity has on each of the resourceables, resolved with
+	 * at most one database query.
+	 * 
+	 * @param identity
+	 * @param olatResourceables
+	 * @return the given resourceables (as keys) with the set of permissions on each of them, the set is empty if the identity has no permission
+	 */
+	public Map<OLATResourceable, Set<String>> getPermissionsFor(Identity identity, Collection<? extends OLATResourceable> olatResourceables);
+
 	/**
 	 * use only if really needed. Normally better use isIdentityPermittedOnResourceable!
 	 * 
@@ -0,0 +1,121 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) since 2004 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.basesecurity;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Description:<br>
+ * All grants (permission on resource type name and resource id) an identity has over the policies of its security groups. A resource id of 0 stands for the type right,
+ * which grants the permission on all resources of the type. Instances are immutable once built and are kept in the permission cache of the BaseSecurityManager.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+class PermissionGrants implements Serializable {
+
+	private static final long serialVersionUID = -2178734629584023619L;
+	private static final Long TYPE_RIGHT_ID = new Long(0);
+
+	// resource type name : resource id -> permissions
+	private final Map<String, Set<String>> grants = new HashMap<String, Set<String>>();
+	private final boolean loadingMarker;
+
+	PermissionGrants() {
+		this(false);
+	}
+
+	private PermissionGrants(final boolean loadingMarker) {
+		this.loadingMarker = loadingMarker;
+	}
+
+	/**
+	 * @return an instance without grants which stands in the cache while the grants are loaded. the loader puts its grants only if the very same instance is still in the
+	 *         cache, i.e. if the grants were not invalidated meanwhile.
+	 */
+	static PermissionGrants createLoadingMarker() {
+		return new PermissionGrants(true);
+	}
+
+	boolean isLoadingMarker() {
+		return loadingMarker;
+	}
+
+	/**
+	 * only used while building the grants
+	 */
+	void addGrant(final String permission, final String resName, final Long resId) {
+		final String resKey = getResourceKey(resName, resId);
+		Set<String> permissions = grants.get(resKey);
+		if (permissions == null) {
+			permissions = new HashSet<String>(4);
+			grants.put(resKey, permissions);
+		}
+		permissions.add(permission);
+	}
+
+	/**
+	 * same semantic as the database query of BaseSecurityManager.isIdentityPermittedOnResourceable()
+	 * 
+	 * @param permission
+	 * @param resName
+	 * @param resId the resource id or null for the type
+	 * @param checkTypeRight true: a permission on the type (resource id 0) grants the permission on the resource too
+	 * @return true if permitted
+	 */
+	boolean isPermitted(final String permission, final String resName, final Long resId, final boolean checkTypeRight) {
+		if (contains(permission, resName, resId)) { return true; }
+		return checkTypeRight && contains(permission, resName, TYPE_RIGHT_ID);
+	}
+
+	/**
+	 * @param resName
+	 * @param resId the resource id or null for the type
+	 * @return all permissions on the resource including the ones granted by a type right, never null
+	 */
+	Set<String> getPermissions(final String resName, final Long resId) {
+		final Set<String> instancePermissions = grants.get(getResourceKey(resName, resId));
+		final Set<String> typePermissions = grants.get(getResourceKey(resName, TYPE_RIGHT_ID));
+		if (instancePermissions == null && typePermissions == null) { return Collections.emptySet(); }
+		final Set<String> permissions = new HashSet<String>();
+		if (instancePermissions != null) {
+			permissions.addAll(instancePermissions);
+		}
+		if (typePermissions != null) {
+			permissions.addAll(typePermissions);
+		}
+		return permissions;
+	}
+
+	private boolean contains(final String permission, final String resName, final Long resId) {
+		final Set<String> permissions = grants.get(getResourceKey(resName, resId));
+		return permissions != null && permissions.contains(permission);
+	}
+
+	private static String getResourceKey(final String resName, final Long resId) {
+		return resName + ":" + (resId == null ? TYPE_RIGHT_ID : resId);
+	}
+}
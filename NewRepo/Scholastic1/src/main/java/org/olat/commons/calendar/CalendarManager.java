@@ -255,6 +255,16 @@ public interface CalendarManager extends UserDataDeletable {
 	 */
 	public List<KalendarRecurEvent> getRecurringDatesInPeriod(Date periodStart, Date periodEnd, KalendarEvent kEvent);
 
+	/**
+	 * Get the events and the recurrences of events of a calendar which take place in the given period.
+	 * 
+	 * @param calendar
+	 * @param periodStart
+	 * @param periodEnd
+	 * @return list with <code>KalendarEvent</code> and <code>KalendarRecurEvent</code>
+	 */
+	public List<KalendarEvent> getEventsInPeriod(Kalendar calendar, Date periodStart, Date periodEnd);
+
 	/**
 	 * Build a Calendar object from String object.
 	 * 
@@ -0,0 +1,518 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.commons.calendar;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.fortuna.ical4j.data.CalendarBuilder;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Component;
+import net.fortuna.ical4j.model.component.VEvent;
+
+import org.olat.commons.calendar.model.Kalendar;
+import org.olat.commons.calendar.model.KalendarEvent;
+import org.olat.core.id.OLATResourceable;
+import org.olat.core.logging.OLATRuntimeException;
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.Encoder;
+import org.olat.core.util.FileUtils;
+import org.olat.core.util.coordinate.CoordinatorManager;
+import org.olat.core.util.coordinate.SyncerCallback;
+import org.olat.core.util.resource.OresHelper;
+
+/**
+ * Description:<br>
+ * Calendar manager which stores every event of a calendar in its own small iCal file instead of one iCal file per calendar.
+ * <p>
+ * The events of a calendar are stored in the directory &lt;type&gt;/&lt;calendarID&gt;.events, one file per event (named by the MD5 of the event id) and a
+ * CalendarEventIndex journal which indexes the events by time range. Adding, changing or removing an event writes one event file and appends one line to the
+ * journal instead of rewriting the whole calendar. The events of a period (weekly view, portlet) are selected by the index instead of computing the recurrences of
+ * every event of the calendar. The iCal file of the whole calendar (WebDAV) is written when the calendar is migrated or imported and whenever the journal is
+ * compacted, and on demand after a change. A calendar is loaded from this file as long as it is up to date instead of parsing every event file. The iCal feed is built from the cached calendar.
+ * <p>
+ * Calendars still stored as one .ics file (existing calendars, uploaded or imported calendars) are migrated when loaded the first time, the .ics file is then
+ * renamed to .ics.migrated and deleted with the calendar. All calendars can be migrated at once with migrateAllCalendars().
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class ICalEventStoreCalendarManager extends ICalFileCalendarManager {
+
+	private static final OLog log = Tracing.createLoggerFor(ICalEventStoreCalendarManager.class);
+
+	private static final String EVENTS_DIR_SUFFIX = ".events";
+	private static final String JOURNAL_FILE = "index.journal";
+	private static final String EXPORT_FILE = "export.ics";
+	private static final String ICS_SUFFIX = ".ics";
+	private static final String MIGRATED_SUFFIX = ".migrated";
+	private static final String TMP_SUFFIX = ".tmp";
+	private static final int MAX_CACHED_INDEXES = 1000;
+
+	/** index per calendar, validated against the length of the journal before every use **/
+	private final Map<String, CalendarEventIndex> indexes = Collections.synchronizedMap(new LinkedHashMap<String, CalendarEventIndex>(64, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, CalendarEventIndex> eldest) {
+			return size() > MAX_CACHED_INDEXES;
+		}
+	});
+
+	protected ICalEventStoreCalendarManager(final File fStorageBase) {
+		super(fStorageBase);
+	}
+
+	/**
+	 * @see org.olat.commons.calendar.ICalFileCalendarManager#calendarExists(java.lang.String, java.lang.String)
+	 */
+	@Override
+	public boolean calendarExists(final String calendarType, final String calendarID) {
+		return getJournalFile(calendarType, calendarID).exists() || isStoredAsFile(calendarType, calendarID);
+	}
+
+	/**
+	 * Load the calendar from the event store. A calendar still stored as .ics file is migrated first, the .ics file is always newer than the event store since it is
+	 * only written by the import of calendars.
+	 * 
+	 * @see org.olat.commons.calendar.ICalFileCalendarManager#loadOrCreateCalendar(java.lang.String, java.lang.String)
+	 */
+	@Override
+	protected Kalendar loadOrCreateCalendar(final String callType, final String callCalendarID) {
+		if (isStoredAsFile(callType, callCalendarID)) {
+			migrateCalendar(callType, callCalendarID);
+		}
+		final Kalendar kalendar = loadCalendarFromStore(callType, callCalendarID);
+		return kalendar == null ? createCalendar(callType, callCalendarID) : kalendar;
+	}
+
+	/**
+	 * Read the calendar as iCal calendar, built from the cached calendar (iCal feed). Calendars which are still stored as .ics file (e.g. an uploaded calendar
+	 * before it is imported) are read from the file.
+	 * 
+	 * @see org.olat.commons.calendar.ICalFileCalendarManager#readCalendar(java.lang.String, java.lang.String)
+	 */
+	@Override
+	public Calendar readCalendar(final String type, final String calendarID) {
+		if (isStoredAsFile(type, calendarID)) { return super.readCalendar(type, calendarID); }
+		if (!getJournalFile(type, calendarID).exists()) { throw new OLATRuntimeException("Not found: " + getEventStoreDirectory(type, calendarID), null); }
+		return buildCalendar(getCalendar(type, calendarID));
+	}
+
+	/**
+	 * Replace all events of the calendar. Used by the import of calendars.
+	 * 
+	 * @see org.olat.commons.calendar.ICalFileCalendarManager#persistCalendar(org.olat.commons.calendar.model.Kalendar)
+	 */
+	@Override
+	public boolean persistCalendar(final Kalendar kalendar) {
+		final boolean success = writeStore(kalendar);
+		updateCachedCalendar(kalendar);
+		return success;
+	}
+
+	/**
+	 * @see org.olat.commons.calendar.ICalFileCalendarManager#persistEvent(org.olat.commons.calendar.model.Kalendar,
+	 *      org.olat.commons.calendar.model.KalendarEvent)
+	 */
+	@Override
+	protected boolean persistEvent(final Kalendar loadedCal, final KalendarEvent kalendarEvent) {
+		final File storeDir = getEventStoreDirectory(loadedCal.getType(), loadedCal.getCalendarID());
+		final File journal = new File(storeDir, JOURNAL_FILE);
+		boolean success = false;
+		try {
+			final CalendarEventIndex index = getOrCreateIndex(loadedCal.getType(), loadedCal.getCalendarID());
+			if (writeEventFile(storeDir, kalendarEvent)) {
+				index.put(kalendarEvent.getID(), kalendarEvent.getBegin().getTime(), kalendarEvent.getEnd().getTime(), getRecurrenceEnd(kalendarEvent));
+				index.appendPut(journal, kalendarEvent.getID());
+				compactIfNeeded(loadedCal, index, journal);
+				loadedCal.setIndexVersion(index.getVersion());
+				success = true;
+			}
+		} catch (final IOException e) {
+			log.error("Cannot persist event " + kalendarEvent.getID() + " of " + loadedCal, e);
+		}
+		updateCachedCalendar(loadedCal);
+		return success;
+	}
+
+	/**
+	 * @see org.olat.commons.calendar.ICalFileCalendarManager#persistEventRemoval(org.olat.commons.calendar.model.Kalendar,
+	 *      org.olat.commons.calendar.model.KalendarEvent)
+	 */
+	@Override
+	protected boolean persistEventRemoval(final Kalendar loadedCal, final KalendarEvent kalendarEvent) {
+		final File storeDir = getEventStoreDirectory(loadedCal.getType(), loadedCal.getCalendarID());
+		final File journal = new File(storeDir, JOURNAL_FILE);
+		boolean success = false;
+		try {
+			final CalendarEventIndex index = getOrCreateIndex(loadedCal.getType(), loadedCal.getCalendarID());
+			if (index.contains(kalendarEvent.getID())) {
+				index.remove(kalendarEvent.getID());
+				index.appendRemove(journal, kalendarEvent.getID());
+				compactIfNeeded(loadedCal, index, journal);
+			}
+			getEventFile(storeDir, kalendarEvent.getID()).delete();
+			loadedCal.setIndexVersion(index.getVersion());
+			success = true;
+		} catch (final IOException e) {
+			log.error("Cannot remove event " + kalendarEvent.getID() + " of " + loadedCal, e);
+		}
+		updateCachedCalendar(loadedCal);
+		return success;
+	}
+
+	/**
+	 * Delete the calendar file, the file left by the migration and the event store.
+	 * 
+	 * @see org.olat.commons.calendar.ICalFileCalendarManager#deleteCalendar(java.lang.String, java.lang.String)
+	 */
+	@Override
+	public boolean deleteCalendar(final String type, final String calendarID) {
+		final boolean fileDeleted = super.deleteCalendar(type, calendarID);
+		getMigratedFile(type, calendarID).delete();
+		indexes.remove(getKeyFor(type, calendarID));
+		final File storeDir = getEventStoreDirectory(type, calendarID);
+		if (!storeDir.exists()) { return fileDeleted; }
+		return FileUtils.deleteDirsAndFiles(storeDir, true, true) || fileDeleted;
+	}
+
+	/**
+	 * Generate the iCal file of the calendar, if it has changed since it was generated the last time.
+	 * 
+	 * @see org.olat.commons.calendar.ICalFileCalendarManager#getCalendarICalFile(java.lang.String, java.lang.String)
+	 */
+	@Override
+	public File getCalendarICalFile(final String type, final String calendarID) {
+		if (isStoredAsFile(type, calendarID)) { return super.getCalendarICalFile(type, calendarID); }
+		final OLATResourceable calOres = OresHelper.createOLATResourceableType(getKeyFor(type, calendarID));
+		return CoordinatorManager.getInstance().getCoordinator().getSyncer().doInSync(calOres, new SyncerCallback<File>() {
+			@Override
+			public File execute() {
+				final File storeDir = getEventStoreDirectory(type, calendarID);
+				final File journal = new File(storeDir, JOURNAL_FILE);
+				if (!journal.exists()) { return null; }
+				final File exportFile = new File(storeDir, EXPORT_FILE);
+				if (!exportFile.exists() || exportFile.lastModified() <= journal.lastModified()) {
+					final Kalendar kalendar = getCalendarFromCache(type, calendarID);
+					if (!writeExportFile(storeDir, kalendar)) {
+						log.error("Cannot write iCal file of calendar " + kalendar);
+						return null;
+					}
+				}
+				return exportFile;
+			}
+		});
+	}
+
+	/**
+	 * Select the events of the period with the time range index of the calendar, only the selected events are checked for recurrences.
+	 * 
+	 * @see org.olat.commons.calendar.ICalFileCalendarManager#getEventsInPeriod(org.olat.commons.calendar.model.Kalendar, java.util.Date, java.util.Date)
+	 */
+	@Override
+	public List<KalendarEvent> getEventsInPeriod(final Kalendar calendar, final Date periodStart, final Date periodEnd) {
+		final CalendarEventIndex index = getIndex(calendar.getType(), calendar.getCalendarID());
+		if (index == null || calendar.getIndexVersion() != index.getVersion()) {
+			// not (yet) stored or the calendar is not the state of the index (e.g. an old copy, or loaded on another cluster node)
+			return super.getEventsInPeriod(calendar, periodStart, periodEnd);
+		}
+		final List<KalendarEvent> candidates = new ArrayList<KalendarEvent>();
+		for (final String eventId : index.getEventIdsInPeriod(periodStart.getTime(), periodEnd.getTime())) {
+			final KalendarEvent event = calendar.getEvent(eventId);
+			if (event != null) {
+				candidates.add(event);
+			}
+		}
+		return getEventsInPeriod(candidates, periodStart, periodEnd);
+	}
+
+	/**
+	 * Migrate all calendars which are still stored as one .ics file to the event store. Uploaded calendars which are not yet imported are not migrated. Every
+	 * calendar is migrated in a doInSync block of the calendar, the system can be running.
+	 * 
+	 * @return the number of migrated calendars
+	 */
+	public int migrateAllCalendars() {
+		int counter = 0;
+		final String[] types = new String[] { TYPE_USER, TYPE_GROUP, TYPE_COURSE };
+		for (final String type : types) {
+			final File typeDir = getCalendarFile(type, "dummy").getParentFile();
+			final String[] files = typeDir.list(new FilenameFilter() {
+				@Override
+				public boolean accept(final File dir, final String name) {
+					return name.endsWith(ICS_SUFFIX);
+				}
+			});
+			if (files == null) {
+				continue;
+			}
+			for (final String filename : files) {
+				final String calendarID = filename.substring(0, filename.length() - ICS_SUFFIX.length());
+				if (ImportCalendarManager.isTempCalendarID(calendarID)) {
+					continue;
+				}
+				final OLATResourceable calOres = OresHelper.createOLATResourceableType(getKeyFor(type, calendarID));
+				final Boolean migrated = CoordinatorManager.getInstance().getCoordinator().getSyncer().doInSync(calOres, new SyncerCallback<Boolean>() {
+					@Override
+					public Boolean execute() {
+						if (!isStoredAsFile(type, calendarID)) { return Boolean.FALSE; }
+						return Boolean.valueOf(migrateCalendar(type, calendarID));
+					}
+				});
+				if (migrated.booleanValue()) {
+					counter++;
+					if (counter % 100 == 0) {
+						log.audit("Migrated " + counter + " calendars to the event store");
+					}
+				}
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * Move the events of a calendar stored as one .ics file into the event store and rename the .ics file. Must be called from a synchronized block.
+	 * 
+	 * @return true if migrated
+	 */
+	protected boolean migrateCalendar(final String type, final String calendarID) {
+		final File calendarFile = getCalendarFile(type, calendarID);
+		final Kalendar kalendar;
+		try {
+			kalendar = createKalendar(type, calendarID, super.readCalendar(type, calendarID));
+		} catch (final OLATRuntimeException e) {
+			log.error("Cannot migrate calendar file " + calendarFile + " to the event store", e);
+			return false;
+		}
+		if (!writeStore(kalendar)) {
+			log.error("Cannot migrate calendar file " + calendarFile + " to the event store");
+			return false;
+		}
+		final File migratedFile = getMigratedFile(type, calendarID);
+		if (!rename(calendarFile, migratedFile)) {
+			log.error("Cannot rename migrated calendar file " + calendarFile);
+			return false;
+		}
+		log.info("Migrated calendar file " + calendarFile + " with " + kalendar.getEvents().size() + " events to the event store");
+		return true;
+	}
+
+	/**
+	 * Write all events of the calendar to the event store, remove the events which are no longer in the calendar, rewrite the journal and the iCal file of the
+	 * calendar.
+	 */
+	private boolean writeStore(final Kalendar kalendar) {
+		final File storeDir = getEventStoreDirectory(kalendar.getType(), kalendar.getCalendarID());
+		final File journal = new File(storeDir, JOURNAL_FILE);
+		try {
+			final CalendarEventIndex oldIndex = getOrCreateIndex(kalendar.getType(), kalendar.getCalendarID());
+			final CalendarEventIndex index = new CalendarEventIndex();
+			for (final Iterator<KalendarEvent> iter = kalendar.getEvents().iterator(); iter.hasNext();) {
+				final KalendarEvent event = iter.next();
+				if (!writeEventFile(storeDir, event)) { return false; }
+				index.put(event.getID(), event.getBegin().getTime(), event.getEnd().getTime(), getRecurrenceEnd(event));
+			}
+			for (final String eventId : oldIndex.getEventIds()) {
+				if (!index.contains(eventId)) {
+					getEventFile(storeDir, eventId).delete();
+				}
+			}
+			index.writeCompacted(journal);
+			indexes.put(getKeyFor(kalendar.getType(), kalendar.getCalendarID()), index);
+			kalendar.setIndexVersion(index.getVersion());
+			if (!writeExportFile(storeDir, kalendar)) {
+				log.warn("Cannot write iCal file of calendar " + kalendar + ", the calendar is loaded from the event files");
+			}
+			return true;
+		} catch (final IOException e) {
+			log.error("Cannot write the event store of " + kalendar, e);
+			return false;
+		}
+	}
+
+	/**
+	 * Load all events of a calendar from the event store: from the generated iCal file of the calendar if it is up to date, else from the event files.
+	 * 
+	 * @return the calendar or null if the calendar is not in the event store
+	 */
+	private Kalendar loadCalendarFromStore(final String type, final String calendarID) {
+		final CalendarEventIndex index = getIndex(type, calendarID);
+		if (index == null) { return null; }
+		final File storeDir = getEventStoreDirectory(type, calendarID);
+		final File exportFile = new File(storeDir, EXPORT_FILE);
+		if (exportFile.exists() && exportFile.lastModified() > getJournalFile(type, calendarID).lastModified()) {
+			final Calendar calendar = parseCalendarFile(exportFile);
+			if (calendar != null) {
+				final Kalendar kalendar = createKalendar(type, calendarID, calendar);
+				if (kalendar.getEvents().size() == index.size()) {
+					kalendar.setIndexVersion(index.getVersion());
+					return kalendar;
+				}
+			}
+		}
+		final Kalendar kalendar = new Kalendar(calendarID, type);
+		for (final String eventId : index.getEventIds()) {
+			final KalendarEvent event = readEventFile(storeDir, eventId);
+			if (event != null) {
+				kalendar.addEvent(event);
+			}
+		}
+		kalendar.setIndexVersion(index.getVersion());
+		return kalendar;
+	}
+
+	/**
+	 * @return the index of the calendar, reread if the journal has been changed by another cluster node, or null if the calendar is not in the event store
+	 */
+	private CalendarEventIndex getIndex(final String type, final String calendarID) {
+		final String key = getKeyFor(type, calendarID);
+		final File journal = getJournalFile(type, calendarID);
+		if (!journal.exists()) {
+			indexes.remove(key);
+			return null;
+		}
+		CalendarEventIndex index = indexes.get(key);
+		if (index == null || index.getJournalLength() != journal.length()) {
+			try {
+				index = CalendarEventIndex.read(journal);
+			} catch (final IOException e) {
+				throw new OLATRuntimeException("Cannot read calendar journal: " + journal, e);
+			}
+			if (index != null) {
+				indexes.put(key, index);
+			}
+		}
+		return index;
+	}
+
+	private CalendarEventIndex getOrCreateIndex(final String type, final String calendarID) throws IOException {
+		final CalendarEventIndex index = getIndex(type, calendarID);
+		if (index != null) { return index; }
+		final File storeDir = getEventStoreDirectory(type, calendarID);
+		if (!storeDir.exists() && !storeDir.mkdirs()) { throw new IOException("Cannot create directory: " + storeDir); }
+		final CalendarEventIndex newIndex = new CalendarEventIndex();
+		newIndex.writeCompacted(new File(storeDir, JOURNAL_FILE));
+		indexes.put(getKeyFor(type, calendarID), newIndex);
+		return newIndex;
+	}
+
+	/**
+	 * Rewrite the journal if it has too many obsolete lines. The iCal file of the calendar is written after the compacted journal, so that the calendar is loaded
+	 * from the iCal file (see loadCalendarFromStore) until the next change instead of from every event file.
+	 * 
+	 * @param loadedCal the calendar which already contains the change
+	 */
+	private void compactIfNeeded(final Kalendar loadedCal, final CalendarEventIndex index, final File journal) throws IOException {
+		if (index.needsCompaction()) {
+			index.writeCompacted(journal);
+			if (!writeExportFile(journal.getParentFile(), loadedCal)) {
+				log.warn("Cannot write iCal file of calendar " + loadedCal + ", the calendar is loaded from the event files");
+			}
+		}
+	}
+
+	/**
+	 * Write the iCal file of the whole calendar. The file is up to date as long as it is newer than the journal.
+	 */
+	private boolean writeExportFile(final File storeDir, final Kalendar kalendar) {
+		final File tmp = new File(storeDir, EXPORT_FILE + TMP_SUFFIX);
+		return writeCalendarFile(buildCalendar(kalendar), tmp) && rename(tmp, new File(storeDir, EXPORT_FILE));
+	}
+
+	private boolean writeEventFile(final File storeDir, final KalendarEvent event) {
+		final List<KalendarEvent> events = Collections.singletonList(event);
+		final File eventFile = getEventFile(storeDir, event.getID());
+		final File tmp = new File(storeDir, eventFile.getName() + TMP_SUFFIX);
+		return writeCalendarFile(buildCalendar(events), tmp) && rename(tmp, eventFile);
+	}
+
+	private KalendarEvent readEventFile(final File storeDir, final String eventId) {
+		final File eventFile = getEventFile(storeDir, eventId);
+		final Calendar calendar = parseCalendarFile(eventFile);
+		if (calendar == null) { return null; }
+		final Component comp = calendar.getComponent(Component.VEVENT);
+		if (comp != null) { return getKalendarEvent((VEvent) comp); }
+		log.warn("No event in calendar event file: " + eventFile);
+		return null;
+	}
+
+	/**
+	 * @return the parsed file or null if it cannot be read
+	 */
+	private Calendar parseCalendarFile(final File file) {
+		InputStream in = null;
+		try {
+			in = new BufferedInputStream(new FileInputStream(file));
+			return new CalendarBuilder().build(in);
+		} catch (final Exception e) {
+			log.error("Cannot read calendar file: " + file, e);
+			return null;
+		} finally {
+			FileUtils.closeSafely(in);
+		}
+	}
+
+	private long getRecurrenceEnd(final KalendarEvent event) {
+		final String recurrenceRule = event.getRecurrenceRule();
+		if (recurrenceRule == null || recurrenceRule.equals("")) { return CalendarEventIndex.NOT_RECURRING; }
+		final Date recurrenceEnd = CalendarUtils.getRecurrenceEndDate(recurrenceRule);
+		return recurrenceEnd == null ? CalendarEventIndex.RECURRING_FOREVER : recurrenceEnd.getTime();
+	}
+
+	private boolean isStoredAsFile(final String type, final String calendarID) {
+		return super.calendarExists(type, calendarID);
+	}
+
+	private File getEventStoreDirectory(final String type, final String calendarID) {
+		return new File(getCalendarFile(type, calendarID).getParentFile(), calendarID + EVENTS_DIR_SUFFIX);
+	}
+
+	private File getJournalFile(final String type, final String calendarID) {
+		return new File(getEventStoreDirectory(type, calendarID), JOURNAL_FILE);
+	}
+
+	private File getMigratedFile(final String type, final String calendarID) {
+		final File calendarFile = getCalendarFile(type, calendarID);
+		return new File(calendarFile.getParentFile(), calendarFile.getName() + MIGRATED_SUFFIX);
+	}
+
+	private File getEventFile(final File storeDir, final String eventId) {
+		return new File(storeDir, Encoder.encrypt(eventId) + ICS_SUFFIX);
+	}
+
+	private boolean rename(final File from, final File to) {
+		if (from.renameTo(to)) { return true; }
+		// not atomic on every platform, e.g. on windows
+		to.delete();
+		return from.renameTo(to);
+	}
+}
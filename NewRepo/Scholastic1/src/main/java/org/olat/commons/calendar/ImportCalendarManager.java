@@ -57,6 +57,7 @@ public class ImportCalendarManager extends BasicManager {
 	private static final OLog log = Tracing.createLoggerFor(ImportCalendarManager.class);
 
 	public static String PROP_CATEGORY = "Imported-Calendar";
+	private static final String TEMP_CALENDAR_SUFFIX = "_import_tmp";
 
 	/**
 	 * Save the imported calendar 1. make an entry in the database 2. save the calendar file
@@ -192,7 +193,15 @@ public class ImportCalendarManager extends BasicManager {
 	 * @return
 	 */
 	public static String getTempCalendarIDForUpload(final UserRequest ureq) {
-		return ureq.getIdentity().getName() + "_import_tmp";
+		return ureq.getIdentity().getName() + TEMP_CALENDAR_SUFFIX;
+	}
+
+	/**
+	 * @param calendarID
+	 * @return true if the calendarID is a temporary calendarID for upload
+	 */
+	public static boolean isTempCalendarID(final String calendarID) {
+		return calendarID.endsWith(TEMP_CALENDAR_SUFFIX);
 	}
 
 	/**
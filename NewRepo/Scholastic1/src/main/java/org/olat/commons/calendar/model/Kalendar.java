@@ -31,6 +31,8 @@ public class Kalendar implements Serializable {
 	private final String calendarID;
 	private final String type;
 	private final Map<String, KalendarEvent> events;
+	/** version of the event index this calendar was loaded or last persisted with, 0 if unknown (only used by the event store) **/
+	private transient long indexVersion;
 
 	public Kalendar(final String calendarID, final String type) {
 		this.calendarID = calendarID;
@@ -89,6 +91,14 @@ public class Kalendar implements Serializable {
 		return type;
 	}
 
+	public long getIndexVersion() {
+		return indexVersion;
+	}
+
+	public void setIndexVersion(final long indexVersion) {
+		this.indexVersion = indexVersion;
+	}
+
 	@Override
 	public String toString() {
 		return "Kalendar[type=" + getType() + ", id=" + getCalendarID() + "]";
@@ -201,6 +201,27 @@ public class ClusterAdminControllerCluster extends BasicController {
 		nodeInfoVc.contextPut("thisNodeId", clusBus.clusterConfig.getNodeId());
 		mainVc.contextPut("eventBusListener", clusBus.toString());
 		mainVc.contextPut("busListenerInfos", clusBus.busInfos.getAsString());
+		updateDispatchInfos();
+	}
+
+	void updateDispatchInfos() {
+		final ClusterEventDispatcher dispatcher = clusBus.getDispatcher();
+		final int[] depths = dispatcher.getWorkerQueueDepths();
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < depths.length; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(depths[i]);
+		}
+		mainVc.contextPut("dispatchWorkers", dispatcher.getNumOfWorkers());
+		mainVc.contextPut("dispatchQueueSize", dispatcher.getQueueSize());
+		mainVc.contextPut("dispatchOverflowPolicy", dispatcher.getOverflowPolicy().name());
+		mainVc.contextPut("dispatchQueueDepth", dispatcher.getQueueDepth());
+		mainVc.contextPut("dispatchWorkerDepths", sb.toString());
+		mainVc.contextPut("dispatchMaxQueueDepth", dispatcher.getMaxQueueDepth());
+		mainVc.contextPut("dispatchCount", dispatcher.getDispatchedCount());
+		mainVc.contextPut("dispatchDropped", dispatcher.getDroppedCount());
 	}
 
 	void updatePerfInfos() {
@@ -0,0 +1,135 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) since 2004 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+package org.olat.commons.coordinate.cluster.jms;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.olat.core.id.OLATResourceable;
+import org.olat.core.util.cache.n.impl.cluster.ClusterCacheWrapperEvent;
+import org.olat.core.util.event.MultiUserEvent;
+
+/**
+ * Description:<br>
+ * binary encoding of a batch of cluster events, sent as one JMS BytesMessage. Layout:
+ * 
+ * <pre>
+ * byte version, int nodeId, int count, count * { long msgId, UTF resType, boolean hasResId, [long resId], byte eventType, event }
+ * </pre>
+ * 
+ * cache invalidation events (the bulk of the cluster traffic) are written field by field, all other events are java serialized and length prefixed. The events are
+ * decoded in the order they were encoded.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+class JMSBatchCodec {
+
+	private static final byte VERSION = 1;
+	private static final byte EVENT_SERIALIZED = 0;
+	private static final byte EVENT_CACHE_INVALIDATION = 1;
+
+	private JMSBatchCodec() {
+		// static helper only
+	}
+
+	/**
+	 * @param nodeId the sending node
+	 * @param firstMsgId the msgId of the first event, the following events get consecutive ids
+	 * @param events the events in sending order
+	 * @return the encoded batch
+	 * @throws IOException
+	 */
+	static byte[] encode(final Integer nodeId, final long firstMsgId, final List<JMSBatchPublisher.PendingEvent> events) throws IOException {
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream(64 * events.size());
+		final DataOutputStream out = new DataOutputStream(bos);
+		out.writeByte(VERSION);
+		out.writeInt(nodeId.intValue());
+		out.writeInt(events.size());
+		long msgId = firstMsgId;
+		for (final JMSBatchPublisher.PendingEvent pending : events) {
+			final OLATResourceable ores = pending.getOres();
+			out.writeLong(msgId++);
+			out.writeUTF(ores.getResourceableTypeName());
+			final Long resId = ores.getResourceableId();
+			out.writeBoolean(resId != null);
+			if (resId != null) {
+				out.writeLong(resId.longValue());
+			}
+			final MultiUserEvent event = pending.getEvent();
+			if (event instanceof ClusterCacheWrapperEvent) {
+				out.writeByte(EVENT_CACHE_INVALIDATION);
+				((ClusterCacheWrapperEvent) event).writeCompact(out);
+			} else {
+				out.writeByte(EVENT_SERIALIZED);
+				final ByteArrayOutputStream eventBytes = new ByteArrayOutputStream(256);
+				final ObjectOutputStream oos = new ObjectOutputStream(eventBytes);
+				oos.writeObject(event);
+				oos.close();
+				out.writeInt(eventBytes.size());
+				eventBytes.writeTo(out);
+			}
+		}
+		out.flush();
+		return bos.toByteArray();
+	}
+
+	/**
+	 * @param data an encoded batch
+	 * @return the unpacked events in the order they were sent
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	static List<JMSWrapper> decode(final byte[] data) throws IOException, ClassNotFoundException {
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+		final byte version = in.readByte();
+		if (version != VERSION) { throw new IOException("unknown cluster event batch version: " + version); }
+		final Integer nodeId = Integer.valueOf(in.readInt());
+		final int count = in.readInt();
+		final List<JMSWrapper> wrappers = new ArrayList<JMSWrapper>(count);
+		for (int i = 0; i < count; i++) {
+			final long msgId = in.readLong();
+			final String resType = in.readUTF();
+			final Long resId = in.readBoolean() ? Long.valueOf(in.readLong()) : null;
+			final byte eventType = in.readByte();
+			final MultiUserEvent event;
+			if (eventType == EVENT_CACHE_INVALIDATION) {
+				event = ClusterCacheWrapperEvent.readCompact(in);
+			} else if (eventType == EVENT_SERIALIZED) {
+				final byte[] eventBytes = new byte[in.readInt()];
+				in.readFully(eventBytes);
+				final ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(eventBytes));
+				event = (MultiUserEvent) ois.readObject();
+				ois.close();
+			} else {
+				throw new IOException("unknown event type in cluster event batch: " + eventType);
+			}
+			wrappers.add(new JMSWrapper(nodeId, msgId, resType, resId, event));
+		}
+		return wrappers;
+	}
+}
@@ -20,8 +20,10 @@
  */
 package org.olat.commons.coordinate.cluster.lock;
 
+import java.util.Date;
 import java.util.List;
 
+import org.hibernate.FlushMode;
 import org.hibernate.Hibernate;
 import org.olat.basesecurity.BaseSecurityManager;
 import org.olat.core.commons.persistence.DBFactory;
@@ -89,6 +91,46 @@ public class ClusterLockManager extends BasicManager {
 		Tracing.logInfo("deleteLock: " + li + " END", getClass());
 	}
 
+	/**
+	 * The lease expiry of the locks is computed with the time of the database, the clocks of the nodes may differ. HQL can only ask for the current time within a
+	 * select from a table, hence a row in oc_lock is needed: the callers only need the time when they have one at hand.
+	 * 
+	 * @return the current time of the database or null if there are no locks at all
+	 */
+	Date getDatabaseTime() {
+		final DBQuery q = DBFactory.getInstance().createQuery("select current_timestamp() from org.olat.commons.coordinate.cluster.lock.LockImpl as alock");
+		q.setMaxResults(1);
+		final List res = q.list();
+		return res.isEmpty() ? null : (Date) res.get(0);
+	}
+
+	/**
+	 * Renews the leases of all locks held by the given node with one statement.
+	 * 
+	 * @param nodeId
+	 * @param leaseExpires
+	 * @return the number of renewed locks
+	 */
+	int renewLeases(final String nodeId, final Date leaseExpires) {
+		final DBQuery q = DBFactory.getInstance().createQuery(
+				"update org.olat.commons.coordinate.cluster.lock.LockImpl as alock set alock.leaseExpires = :leaseExpires where alock.nodeId = :nodeId");
+		q.setTimestamp("leaseExpires", leaseExpires);
+		q.setString("nodeId", nodeId);
+		return q.executeUpdate(FlushMode.AUTO);
+	}
+
+	/**
+	 * @param nodeId
+	 * @return the assets of all locks held by the given node
+	 */
+	@SuppressWarnings("unchecked")
+	List<String> findLeasedAssets(final String nodeId) {
+		final DBQuery q = DBFactory.getInstance().createQuery(
+				"select alock.asset from org.olat.commons.coordinate.cluster.lock.LockImpl as alock where alock.nodeId = :nodeId");
+		q.setString("nodeId", nodeId);
+		return q.list();
+	}
+
 	@SuppressWarnings("unchecked")
 	List<LockImpl> getAllLocks() {
 		Tracing.logInfo("getAllLocks START", getClass());
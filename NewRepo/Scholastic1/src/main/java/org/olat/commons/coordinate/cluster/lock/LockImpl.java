@@ -21,6 +21,8 @@
 
 package org.olat.commons.coordinate.cluster.lock;
 
+import java.util.Date;
+
 import org.olat.core.commons.persistence.PersistentObject;
 import org.olat.core.id.Identity;
 import org.olat.core.logging.AssertException;
@@ -37,6 +39,7 @@ public class LockImpl extends PersistentObject {
 	private Identity owner;
 	private String asset;
 	private String nodeId;
+	private Date leaseExpires;
 
 	/**
 	 * Constructor needed for Hibernate.
@@ -53,7 +56,7 @@ public class LockImpl extends PersistentObject {
 
 	@Override
 	public String toString() {
-		return "Lock[owner=" + (owner == null ? "null" : owner.getName()) + ",asset=" + asset + ",nodeId=" + nodeId + "]";
+		return "Lock[owner=" + (owner == null ? "null" : owner.getName()) + ",asset=" + asset + ",nodeId=" + nodeId + ",leaseExpires=" + leaseExpires + "]";
 	}
 
 	public String getAsset() {
@@ -85,4 +88,23 @@ public class LockImpl extends PersistentObject {
 		this.nodeId = nodeId;
 	}
 
+	/**
+	 * @return the time until which the node holding this lock has renewed its lease, null if the lock never expires
+	 */
+	Date getLeaseExpires() {
+		return leaseExpires;
+	}
+
+	void setLeaseExpires(final Date leaseExpires) {
+		this.leaseExpires = leaseExpires;
+	}
+
+	/**
+	 * @param now the current time of the database
+	 * @return true if the node holding this lock has not renewed its lease in time, e.g. since it has been shut down or crashed
+	 */
+	boolean isLeaseExpired(final long now) {
+		return leaseExpires != null && leaseExpires.getTime() < now;
+	}
+
 }
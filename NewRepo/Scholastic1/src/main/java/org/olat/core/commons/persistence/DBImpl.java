@@ -25,6 +25,7 @@ import java.sql.Connection;
 import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Hashtable;
@@ -166,7 +167,8 @@ public class DBImpl extends LogDelegator implements DB, Destroyable {
 				// nobody to be notified
 				return;
 			}
-			for (Iterator<ITransactionListener> it = transactionListeners_.iterator(); it.hasNext();) {
+			// iterate over a copy, listeners may remove themselves when notified
+			for (Iterator<ITransactionListener> it = new ArrayList<ITransactionListener>(transactionListeners_).iterator(); it.hasNext();) {
 				ITransactionListener listener = it.next();
 				try {
 					listener.handleCommit(db);
@@ -181,7 +183,8 @@ public class DBImpl extends LogDelegator implements DB, Destroyable {
 				// nobody to be notified
 				return;
 			}
-			for (Iterator<ITransactionListener> it = transactionListeners_.iterator(); it.hasNext();) {
+			// iterate over a copy, listeners may remove themselves when notified
+			for (Iterator<ITransactionListener> it = new ArrayList<ITransactionListener>(transactionListeners_).iterator(); it.hasNext();) {
 				ITransactionListener listener = it.next();
 				try {
 					listener.handleRollback(db);
@@ -58,6 +58,7 @@ public class SearchModule extends AbstractOLATModule {
 	private static final String CONF_RESTART_WINDOW_START = "restartWindowStart";
 	private static final String CONF_RESTART_WINDOW_END = "restartWindowEnd";
 	private static final String CONF_UPDATE_INTERVAL = "updateInterval";
+	private static final String CONF_INCREMENTAL_INDEX_INTERVAL = "incrementalIndexInterval";
 	private static final String CONF_DOCUMENTS_PER_INTERVAL = "documentsPerInterval";
 	private static final String CONF_RESTART_DAY_OF_WEEK = "restartDayOfWeek";
 	private static final String CONF_PPT_FILE_ENABLED = "pptFileEnabled";
@@ -66,6 +67,11 @@ public class SearchModule extends AbstractOLATModule {
 	private static final String CONF_SPELL_CHECK_ENABLED = "spellCheckEnabled";
 	private static final String CONF_TEMP_PDF_TEXT_BUF_PATH = "pdfTextBufferPath";
 	private static final String CONF_MAX_FILE_SIZE = "maxFileSize";
+	private static final String CONF_TEXT_CACHE_PATH = "textCachePath";
+	private static final String CONF_TEXT_CACHE_MAX_SIZE = "textCacheMaxSize";
+	private static final String CONF_TEXT_CACHE_CONTENT_HASH = "textCacheContentHash";
+	private static final String CONF_EXTRACTION_TIMEOUT = "extractionTimeout";
+	private static final String CONF_EXTRACTION_THREADS = "extractionThreads";
 	private static final String CONF_RAM_BUFFER_SIZE_MB = "ramBufferSizeMb";
 	private static final String CONF_USE_COMPOUND_FILE = "useCompoundFile";
 
@@ -79,7 +85,9 @@ public class SearchModule extends AbstractOLATModule {
 	private static final int DEFAULT_RESTART_WINDOW_START = 0;
 	private static final int DEFAULT_RESTART_WINDOW_END = 24;
 	private static final int DEFAULT_UPDATE_INTERVAL = 0;
+	private static final int DEFAULT_INCREMENTAL_INDEX_INTERVAL = 0;
 	private static final int DEFAULT_DOCUMENTS_PER_INTERVAL = 4;
+	private static final int DEFAULT_EXTRACTION_THREADS = 12;
 	private static final int DEFAULT_RESTART_DAY_OF_WEEK = 8;
 	private static final String DEFAULT_RAM_BUFFER_SIZE_MB = "48";
 
@@ -98,6 +106,7 @@ public class SearchModule extends AbstractOLATModule {
 	private int restartWindowStart;
 	private int restartWindowEnd;
 	private long updateInterval;
+	private long incrementalIndexInterval;
 	private int documentsPerInterval;
 	private int restartDayOfWeek;
 	private boolean pptFileEnabled;
@@ -105,6 +114,11 @@ public class SearchModule extends AbstractOLATModule {
 	private boolean pdfTextBuffering;
 	private boolean isSpellCheckEnabled;
 	private String fullTempPdfTextBufferPath;
+	private String fullTextCachePath;
+	private long textCacheMaxSize;
+	private boolean textCacheContentHash;
+	private long extractionTimeout;
+	private int extractionThreads;
 	private List<String> fileSizeSuffixes;
 
 	private long maxFileSize;
@@ -160,6 +174,8 @@ public class SearchModule extends AbstractOLATModule {
 		fullTempIndexPath = FolderConfig.getCanonicalTmpDir() + File.separator + tempIndexPath;
 		fullTempSpellCheckPath = FolderConfig.getCanonicalTmpDir() + File.separator + tempSpellCheckPath;
 		fullTempPdfTextBufferPath = FolderConfig.getCanonicalTmpDir() + File.separator + tempPdfTextBufferPath;
+		String textCachePath = getStringConfigParameter(CONF_TEXT_CACHE_PATH, "temp_text_cache", false);
+		fullTextCachePath = FolderConfig.getCanonicalTmpDir() + File.separator + textCachePath;
 
 		generateAtStartup = getBooleanConfigParameter(CONF_GENERATE_AT_STARTUP, true);
 		restartInterval = getIntConfigParameter(CONF_RESTART_INTERVAL, DEFAULT_RESTART_INTERVAL);
@@ -171,6 +187,7 @@ public class SearchModule extends AbstractOLATModule {
 		restartWindowStart = getIntConfigParameter(CONF_RESTART_WINDOW_START, DEFAULT_RESTART_WINDOW_START);
 		restartWindowEnd = getIntConfigParameter(CONF_RESTART_WINDOW_END, DEFAULT_RESTART_WINDOW_END);
 		updateInterval = getIntConfigParameter(CONF_UPDATE_INTERVAL, DEFAULT_UPDATE_INTERVAL);
+		incrementalIndexInterval = getIntConfigParameter(CONF_INCREMENTAL_INDEX_INTERVAL, DEFAULT_INCREMENTAL_INDEX_INTERVAL);
 		documentsPerInterval = getIntConfigParameter(CONF_DOCUMENTS_PER_INTERVAL, DEFAULT_DOCUMENTS_PER_INTERVAL);
 		restartDayOfWeek = getIntConfigParameter(CONF_RESTART_DAY_OF_WEEK, DEFAULT_RESTART_DAY_OF_WEEK);
 		pptFileEnabled = getBooleanConfigParameter(CONF_PPT_FILE_ENABLED, true);
@@ -178,6 +195,10 @@ public class SearchModule extends AbstractOLATModule {
 		pdfTextBuffering = getBooleanConfigParameter(CONF_PDF_TEXT_BUFFERING, true);
 		isSpellCheckEnabled = getBooleanConfigParameter(CONF_SPELL_CHECK_ENABLED, true);
 		maxFileSize = Integer.parseInt(getStringConfigParameter(CONF_MAX_FILE_SIZE, "0", false));
+		textCacheMaxSize = Long.parseLong(getStringConfigParameter(CONF_TEXT_CACHE_MAX_SIZE, "0", false));
+		textCacheContentHash = getBooleanConfigParameter(CONF_TEXT_CACHE_CONTENT_HASH, false);
+		extractionTimeout = getIntConfigParameter(CONF_EXTRACTION_TIMEOUT, 0);
+		extractionThreads = getIntConfigParameter(CONF_EXTRACTION_THREADS, DEFAULT_EXTRACTION_THREADS);
 		ramBufferSizeMB = Double.parseDouble(getStringConfigParameter(CONF_RAM_BUFFER_SIZE_MB, DEFAULT_RAM_BUFFER_SIZE_MB, false));
 		useCompoundFile = getBooleanConfigParameter(CONF_USE_COMPOUND_FILE, false);
 	}
@@ -280,6 +301,13 @@ public class SearchModule extends AbstractOLATModule {
 		return updateInterval;
 	}
 
+	/**
+	 * @return Time in millisecond between two runs of the incremental indexer on the live index (0=incremental indexing disabled).
+	 */
+	public long getIncrementalIndexInterval() {
+		return incrementalIndexInterval;
+	}
+
 	/**
 	 * @return Number of indexed documents before sleeping during indexing.
 	 */
@@ -326,6 +354,41 @@ public class SearchModule extends AbstractOLATModule {
 		return fullTempPdfTextBufferPath;
 	}
 
+	/**
+	 * @return Directory of the cache with the extracted text of files.
+	 */
+	public String getTextCachePath() {
+		return fullTextCachePath;
+	}
+
+	/**
+	 * @return Max size in bytes of the cache with the extracted text of files (0=cache disabled).
+	 */
+	public long getTextCacheMaxSize() {
+		return textCacheMaxSize;
+	}
+
+	/**
+	 * @return TRUE: reuse the cached text of a file with a new modification date if the MD5 of its content is unchanged.
+	 */
+	public boolean getTextCacheContentHash() {
+		return textCacheContentHash;
+	}
+
+	/**
+	 * @return Time in millisecond after which the text extraction of one file is aborted (0=no timeout, extract in the indexer thread).
+	 */
+	public long getExtractionTimeout() {
+		return extractionTimeout;
+	}
+
+	/**
+	 * @return Max number of threads extracting text with an extractionTimeout.
+	 */
+	public int getExtractionThreads() {
+		return extractionThreads;
+	}
+
 	public List<String> getFileSizeSuffixes() {
 		return fileSizeSuffixes;
 	}
@@ -606,9 +606,13 @@ public class UserActivityLoggerImpl implements IUserActivityLogger {
 		// start creating the LoggingObject
 		final LoggingObject logObj = new LoggingObject(sessionId, identityKey, identityName, crudAction.name().substring(0, 1), actionVerb.name(), actionObject);
 
+		// with the write-behind sink the simpleDuration of the last action is handed to the writer along with this action
+		final ActivityLogWriter activityLogWriter = ActivityLogWriter.getInstance();
+		Object lastLog = session_.getEntry(USESS_KEY_USER_ACTIVITY_LOGGING_LAST_LOG);
+
 		// do simpleDuration calculation & storing
-		LoggingObject lastLogObj = (LoggingObject) session_.getEntry(USESS_KEY_USER_ACTIVITY_LOGGING_LAST_LOG);
-		if (lastLogObj != null) {
+		if (activityLogWriter == null && lastLog instanceof LoggingObject) {
+			LoggingObject lastLogObj = (LoggingObject) lastLog;
 			// lastLogObj = (LoggingObject) DBFactory.getInstance().loadObject(lastLogObj);
 			// DBFactory.getInstance().updateObject(lastLogObj);
 			// Implementation Note:
@@ -664,7 +668,9 @@ public class UserActivityLoggerImpl implements IUserActivityLogger {
 		}
 
 		// store the current logging object in the session - for duration calculation at next log
-		session_.putEntry(USESS_KEY_USER_ACTIVITY_LOGGING_LAST_LOG, logObj);
+		if (activityLogWriter == null) {
+			session_.putEntry(USESS_KEY_USER_ACTIVITY_LOGGING_LAST_LOG, logObj);
+		}
 
 		if (resourceInfos != null && resourceInfos.size() != 0) {
 			// this should be the normal case - we do have LoggingResourceables which we can log
@@ -732,6 +738,12 @@ public class UserActivityLoggerImpl implements IUserActivityLogger {
 		logObj.setUserProperties(tmpUserProperties);
 
 		// and store it
+		if (activityLogWriter != null) {
+			// write-behind: the request thread does not wait for the database
+			ActivityLogRecord record = activityLogWriter.enqueue(logObj, lastLog instanceof ActivityLogRecord ? (ActivityLogRecord) lastLog : null);
+			session_.putEntry(USESS_KEY_USER_ACTIVITY_LOGGING_LAST_LOG, record);
+			return;
+		}
 		DB db = DBFactory.getInstanceForClosing();
 		if (db != null && db.isError()) {
 			// then we would run into an ERROR when we'd do more with this DB
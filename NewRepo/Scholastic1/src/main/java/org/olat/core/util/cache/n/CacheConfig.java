@@ -49,6 +49,7 @@ public class CacheConfig {
 	private int timeToLive = 120;
 	private int timeToIdle = 120;
 	private int diskExpiryThreadIntervalSeconds = 120;
+	private boolean concurrent = false;
 
 	private Map<String, CacheConfig> childrenConfig;
 
@@ -69,6 +70,7 @@ public class CacheConfig {
 		this.timeToLive = config.timeToLive;
 		this.timeToIdle = config.timeToIdle;
 		this.diskExpiryThreadIntervalSeconds = config.diskExpiryThreadIntervalSeconds;
+		this.concurrent = config.concurrent;
 
 		// no need to deep clone, since read-only config.
 		this.childrenConfig = config.childrenConfig;
@@ -140,6 +142,41 @@ public class CacheConfig {
 		this.diskExpiryThreadIntervalSeconds = diskExpiryThreadIntervalSeconds;
 	}
 
+	/**
+	 * Set whether the single vm cacher should back this cache with the lock-free in-memory store instead of an ehcache. Overflow to disk and disk persistence are
+	 * not supported by that store and are ignored. The default is "false".
+	 */
+	public void setConcurrent(boolean concurrent) {
+		this.concurrent = concurrent;
+	}
+
+	/**
+	 * @return true if this cache is backed by the lock-free in-memory store
+	 */
+	public boolean isConcurrent() {
+		return concurrent;
+	}
+
+	public int getMaxElementsInMemory() {
+		return maxElementsInMemory;
+	}
+
+	public MemoryStoreEvictionPolicy getMemoryStoreEvictionPolicy() {
+		return memoryStoreEvictionPolicy;
+	}
+
+	public boolean isEternal() {
+		return eternal;
+	}
+
+	public int getTimeToLive() {
+		return timeToLive;
+	}
+
+	public int getTimeToIdle() {
+		return timeToIdle;
+	}
+
 	/**
 	 * [used by spring]
 	 * 
@@ -89,6 +89,13 @@ public interface CacheWrapper {
 	 */
 	public void remove(String key);
 
+	/**
+	 * removes several values at once from the cache. same as repeatably calling remove(key), but in cluster mode only one invalidation is sent for all keys.
+	 * 
+	 * @param keys the array of keys
+	 */
+	public void removeMulti(String[] keys);
+
 	/**
 	 * this method is thread safe. creates a child cachewrapper that represents the cachewrapper for the given olatresourceable within this parent cachewrapper(the 'this'
 	 * object)
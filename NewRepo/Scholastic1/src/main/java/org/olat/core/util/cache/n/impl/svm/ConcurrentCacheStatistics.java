@@ -0,0 +1,77 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+package org.olat.core.util.cache.n.impl.svm;
+
+/**
+ * Description:<br>
+ * immutable snapshot of the counters of one lock-free cache
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class ConcurrentCacheStatistics {
+	private final String cacheName;
+	private final int size;
+	private final long hitCount;
+	private final long missCount;
+	private final long expirationCount;
+	private final long evictionCount;
+
+	ConcurrentCacheStatistics(String cacheName, int size, long hitCount, long missCount, long expirationCount, long evictionCount) {
+		this.cacheName = cacheName;
+		this.size = size;
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.expirationCount = expirationCount;
+		this.evictionCount = evictionCount;
+	}
+
+	public String getCacheName() {
+		return cacheName;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * @return the number of misses, including the ones caused by expired entries
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+
+	public long getExpirationCount() {
+		return expirationCount;
+	}
+
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	@Override
+	public String toString() {
+		return cacheName + ": size=" + size + ", hits=" + hitCount + ", misses=" + missCount + ", expired=" + expirationCount + ", evicted=" + evictionCount;
+	}
+}
@@ -0,0 +1,305 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+package org.olat.core.util.cache.n.impl.svm;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sf.ehcache.store.MemoryStoreEvictionPolicy;
+
+import org.olat.core.id.OLATResourceable;
+import org.olat.core.util.cache.n.CacheConfig;
+import org.olat.core.util.cache.n.CacheWrapper;
+import org.olat.core.util.resource.OresHelper;
+
+/**
+ * Description:<br>
+ * this class is threadsafe. lock-free singleVM implementation of the cachewrapper. the entries are kept in a segmented concurrent hash map, so that reads never block and
+ * writes only contend within the same segment. the size is bounded by maxElementsInMemory of the cache config: when a put exceeds the bound, a small sample of entries is
+ * inspected and the expired ones plus the least valuable one (according to the LRU, LFU or FIFO policy) are evicted. time-to-live and time-to-idle are checked on access.
+ * <p>
+ * select it per cache by setting the "concurrent" property of the CacheConfig. overflow to disk is not supported.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class ConcurrentCacheWrapperImpl implements CacheWrapper {
+	// number of entries inspected to find an eviction victim
+	private static final int EVICTION_SAMPLE_SIZE = 16;
+	private static final ConcurrentMap<String, ConcurrentCacheWrapperImpl> allCaches = new ConcurrentHashMap<String, ConcurrentCacheWrapperImpl>();
+
+	private final String cacheName; // the fully qualified name of the cache
+	private final CacheConfig config;
+	private final int maxElements;
+	private final long timeToLiveMillis;
+	private final long timeToIdleMillis;
+	private final MemoryStoreEvictionPolicy evictionPolicy;
+
+	private final ConcurrentMap<String, CacheEntry> entries = new ConcurrentHashMap<String, CacheEntry>();
+	private final AtomicInteger size = new AtomicInteger();
+	private final ConcurrentMap<String, CacheWrapper> children = new ConcurrentHashMap<String, CacheWrapper>();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong expirations = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	protected ConcurrentCacheWrapperImpl(String cacheName, CacheConfig config) {
+		this.cacheName = cacheName;
+		this.config = config;
+		this.maxElements = config.getMaxElementsInMemory();
+		this.evictionPolicy = config.getMemoryStoreEvictionPolicy();
+		// 0 means "forever" as in ehcache
+		this.timeToLiveMillis = config.isEternal() ? 0 : config.getTimeToLive() * 1000L;
+		this.timeToIdleMillis = config.isEternal() ? 0 : config.getTimeToIdle() * 1000L;
+		allCaches.put(cacheName, this);
+	}
+
+	/**
+	 * creates a new child instance.
+	 * 
+	 * @param childName
+	 * @param aconfig
+	 * @return
+	 */
+	protected CacheWrapper createChildCacheWrapper(String childName, CacheConfig aconfig) {
+		if (aconfig.isConcurrent()) { return new ConcurrentCacheWrapperImpl(childName, aconfig); }
+		return new CacheWrapperImpl(childName, aconfig);
+	}
+
+	@Override
+	public CacheWrapper getOrCreateChildCacheWrapper(OLATResourceable ores) {
+		String childName = OresHelper.createStringRepresenting(ores).replace(":", "_");
+		CacheWrapper cwChild = children.get(childName);
+		if (cwChild == null) {
+			// two threads may create the same child concurrently, but only the first one is ever published
+			CacheWrapper created = createChildCacheWrapper(cacheName + "@" + childName, config.createConfigFor(ores));
+			cwChild = children.putIfAbsent(childName, created);
+			if (cwChild == null) {
+				cwChild = created;
+			} else if (created instanceof ConcurrentCacheWrapperImpl && cwChild instanceof ConcurrentCacheWrapperImpl) {
+				// the unpublished instance registered itself in the constructor, keep the published one in the registry
+				allCaches.replace(((ConcurrentCacheWrapperImpl) created).cacheName, (ConcurrentCacheWrapperImpl) created, (ConcurrentCacheWrapperImpl) cwChild);
+			}
+		}
+		return cwChild;
+	}
+
+	// ---- cache get, set, remove
+	@Override
+	public Serializable get(String key) {
+		CacheEntry entry = entries.get(key);
+		if (entry == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		long now = System.currentTimeMillis();
+		if (isExpired(entry, now)) {
+			if (removeEntry(key, entry)) {
+				expirations.incrementAndGet();
+			}
+			misses.incrementAndGet();
+			return null;
+		}
+		entry.touch(now);
+		hits.incrementAndGet();
+		return entry.value;
+	}
+
+	@Override
+	public void remove(String key) {
+		if (entries.remove(key) != null) {
+			size.decrementAndGet();
+		}
+	}
+
+	@Override
+	public void removeMulti(String[] keys) {
+		for (int i = 0; i < keys.length; i++) {
+			remove(keys[i]);
+		}
+	}
+
+	@Override
+	public void update(String key, Serializable value) {
+		// update is the same as put for the singlevm mode
+		doPut(key, value);
+	}
+
+	@Override
+	public void put(String key, Serializable value) {
+		// put is the same as update for the singlevm mode
+		doPut(key, value);
+	}
+
+	@Override
+	public void updateMulti(String[] keys, Serializable[] values) {
+		int len = keys.length;
+		for (int i = 0; i < len; i++) {
+			doPut(keys[i], values[i]);
+		}
+	}
+
+	private void doPut(String key, Serializable value) {
+		CacheEntry previous = entries.put(key, new CacheEntry(value, System.currentTimeMillis()));
+		if (previous == null && size.incrementAndGet() > maxElements && maxElements > 0) {
+			evict(key);
+		}
+	}
+
+	/**
+	 * removes expired entries and the least valuable entry out of a sample, but never the entry which has just been put.
+	 */
+	private void evict(String justPut) {
+		long now = System.currentTimeMillis();
+		String victimKey = null;
+		CacheEntry victim = null;
+		int inspected = 0;
+		for (Iterator<Map.Entry<String, CacheEntry>> it = entries.entrySet().iterator(); it.hasNext() && inspected < EVICTION_SAMPLE_SIZE; inspected++) {
+			Map.Entry<String, CacheEntry> candidate = it.next();
+			String key = candidate.getKey();
+			CacheEntry entry = candidate.getValue();
+			if (key.equals(justPut)) {
+				continue;
+			}
+			if (isExpired(entry, now)) {
+				if (removeEntry(key, entry)) {
+					expirations.incrementAndGet();
+				}
+			} else if (victim == null || isLessValuable(entry, victim)) {
+				victimKey = key;
+				victim = entry;
+			}
+		}
+		if (size.get() > maxElements && victim != null && removeEntry(victimKey, victim)) {
+			evictions.incrementAndGet();
+		}
+	}
+
+	private boolean isLessValuable(CacheEntry entry, CacheEntry other) {
+		if (evictionPolicy == MemoryStoreEvictionPolicy.LFU) {
+			return entry.hitCount < other.hitCount;
+		} else if (evictionPolicy == MemoryStoreEvictionPolicy.FIFO) {
+			return entry.created < other.created;
+		}
+		return entry.lastAccess < other.lastAccess;
+	}
+
+	private boolean isExpired(CacheEntry entry, long now) {
+		if (timeToLiveMillis > 0 && now - entry.created > timeToLiveMillis) { return true; }
+		if (timeToIdleMillis > 0 && now - entry.lastAccess > timeToIdleMillis) { return true; }
+		return false;
+	}
+
+	private boolean removeEntry(String key, CacheEntry entry) {
+		if (entries.remove(key, entry)) {
+			size.decrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	protected String getCacheName() {
+		return cacheName;
+	}
+
+	public int getSize() {
+		return size.get();
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public long getExpirationCount() {
+		return expirations.get();
+	}
+
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	/**
+	 * removes this cache and all its children from the registry of the statistics and drops the entries. the cache must not be used anymore afterwards.
+	 */
+	public void dispose() {
+		for (CacheWrapper child : children.values()) {
+			disposeCacheWrapper(child);
+		}
+		children.clear();
+		entries.clear();
+		size.set(0);
+		allCaches.remove(cacheName, this);
+	}
+
+	/**
+	 * disposes the given cache if it is one of the single vm caches, does nothing otherwise
+	 * 
+	 * @param cw
+	 */
+	static void disposeCacheWrapper(CacheWrapper cw) {
+		if (cw instanceof ConcurrentCacheWrapperImpl) {
+			((ConcurrentCacheWrapperImpl) cw).dispose();
+		} else if (cw instanceof CacheWrapperImpl) {
+			((CacheWrapperImpl) cw).dispose();
+		}
+	}
+
+	/**
+	 * @return a snapshot of the counters of all lock-free caches of this vm, one per cache name
+	 */
+	public static List<ConcurrentCacheStatistics> getStatistics() {
+		List<ConcurrentCacheStatistics> stats = new ArrayList<ConcurrentCacheStatistics>(allCaches.size());
+		for (ConcurrentCacheWrapperImpl cw : allCaches.values()) {
+			stats.add(new ConcurrentCacheStatistics(cw.cacheName, cw.getSize(), cw.getHitCount(), cw.getMissCount(), cw.getExpirationCount(), cw.getEvictionCount()));
+		}
+		return stats;
+	}
+
+	private static class CacheEntry {
+		private final Serializable value;
+		private final long created;
+		// access info is only used as an eviction hint, lost updates do not matter
+		private volatile long lastAccess;
+		private volatile int hitCount;
+
+		CacheEntry(Serializable value, long created) {
+			this.value = value;
+			this.created = created;
+			this.lastAccess = created;
+		}
+
+		void touch(long now) {
+			lastAccess = now;
+			hitCount++;
+		}
+	}
+}
@@ -36,7 +36,7 @@ import org.olat.core.util.resource.OresHelper;
  * @author Felix Jost, http://www.goodsolutions.ch
  */
 public class SingleVMCacher implements Cacher {
-	private CacheWrapperImpl rootCacheWrapperImpl;
+	private CacheWrapper rootCacheWrapper;
 	private CacheConfig rootConfig;
 
 	public SingleVMCacher() {
@@ -45,13 +45,27 @@ public class SingleVMCacher implements Cacher {
 
 	public void init() {
 		if (rootConfig == null) { throw new AssertException("rootConfig property must not be null!"); }
-		rootCacheWrapperImpl = new CacheWrapperImpl(this.getClass().getName(), rootConfig);
+		if (rootConfig.isConcurrent()) {
+			rootCacheWrapper = new ConcurrentCacheWrapperImpl(this.getClass().getName(), rootConfig);
+		} else {
+			rootCacheWrapper = new CacheWrapperImpl(this.getClass().getName(), rootConfig);
+		}
+	}
+
+	/**
+	 * [used by spring]
+	 */
+	public void destroy() {
+		if (rootCacheWrapper != null) {
+			ConcurrentCacheWrapperImpl.disposeCacheWrapper(rootCacheWrapper);
+			rootCacheWrapper = null;
+		}
 	}
 
 	@Override
 	public CacheWrapper getOrCreateCache(Class ownerClass, String name) {
 		OLATResourceable ores = OresHelper.createOLATResourceableInstanceWithoutCheck(CacheConfig.getCacheName(ownerClass, name), new Long(0));
-		return rootCacheWrapperImpl.getOrCreateChildCacheWrapper(ores);
+		return rootCacheWrapper.getOrCreateChildCacheWrapper(ores);
 	}
 
 	/**
@@ -21,6 +21,7 @@
 
 package org.olat.core.util.vfs;
 
+import java.io.File;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
@@ -29,6 +30,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.olat.core.CoreSpringFactory;
 import org.olat.core.commons.modules.bc.FilesInfoMBean;
+import org.olat.core.gui.media.LocalFileDelivery;
 import org.olat.core.gui.media.MediaResource;
 import org.olat.core.util.WebappHelper;
 
@@ -82,6 +84,19 @@ public class VFSMediaResource implements MediaResource {
 		return vfsLeaf.getInputStream();
 	}
 
+	/**
+	 * Used instead of getInputStream() to deliver the file without streaming it through the heap. Counts as download like getInputStream().
+	 * 
+	 * @return the file on the local file system or null if the leaf is not a local file
+	 */
+	public File getLocalFile() {
+		File file = LocalFileDelivery.getLocalFile(vfsLeaf);
+		if (file != null) {
+			filesInfoMBean.logDownload(getSize());
+		}
+		return file;
+	}
+
 	@Override
 	public Long getLastModified() {
 		long size = vfsLeaf.getLastModified();
@@ -0,0 +1,204 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.course;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+
+import org.olat.core.helpers.Settings;
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.FileUtils;
+
+/**
+ * Description:<br>
+ * Compiled form of the run structure of a course. The runstructure.xml stays the source of truth, the compiled file next to it is a java serialized copy of the
+ * structure which is produced when the run structure is saved (at publish) and loads an order of magnitude faster than the XStream XML.
+ * <p>
+ * The compiled file is stamped with the length and modification date of the runstructure.xml it was compiled from and with the build of OLAT which wrote it. If
+ * the xml was changed without a compilation (import, manual repair, other version) or the file can't be read, the snapshot is ignored and the caller falls back to
+ * the xml. Every read returns a new, private object graph, so it can be used without synchronizing on the course which holds the shared instance.
+ * <p>
+ * The condition expressions of the nodes are stored as strings, they are not precompiled in the snapshot. They are compiled at their first evaluation by the
+ * ConditionExpressionCache of the course environment, for snapshot and xml loads alike.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+final class CompiledRunStructure {
+
+	static final String FILE_NAME = "runstructure.bin";
+	/** marks a run structure which can't be serialized, see write **/
+	static final String FAILED_FILE_NAME = "runstructure.bin.failed";
+
+	private static final OLog log = Tracing.createLoggerFor(CompiledRunStructure.class);
+	/** "OLRS" **/
+	private static final int MAGIC = 0x4f4c5253;
+	private static final int FORMAT_VERSION = 1;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private CompiledRunStructure() {
+		// static helper only
+	}
+
+	/**
+	 * Compiles the structure. The file is written under a temporary name and renamed, readers never see a half written snapshot. A structure which can't be serialized
+	 * leaves a marker stamped like the snapshot, it is not compiled again before the runstructure.xml changes.
+	 * 
+	 * @param courseBase the base folder of the course
+	 * @param structure the run structure
+	 * @param sourceXml the runstructure.xml which was just written from the same structure
+	 * @return true if the snapshot was written
+	 */
+	static boolean write(final File courseBase, final Structure structure, final File sourceXml) {
+		final File target = new File(courseBase, FILE_NAME);
+		final File failed = new File(courseBase, FAILED_FILE_NAME);
+		if (isStampedFor(failed, sourceXml)) {
+			if (log.isDebug()) {
+				log.debug("Run structure in " + courseBase + " can't be compiled, the course is loaded from " + sourceXml.getName());
+			}
+			return false;
+		}
+		File tmp = null;
+		DataOutputStream out = null;
+		try {
+			// a unique name, two nodes or threads may compile the same course
+			tmp = File.createTempFile(FILE_NAME, ".tmp", courseBase);
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), BUFFER_SIZE));
+			writeStamp(out, sourceXml);
+			final ObjectOutputStream oos = new ObjectOutputStream(out);
+			oos.writeObject(structure);
+			oos.close();
+			out = null;
+			// renameTo does not overwrite on all platforms
+			target.delete();
+			if (!tmp.renameTo(target)) { throw new IOException("Cannot rename " + tmp + " to " + target); }
+			failed.delete();
+			return true;
+		} catch (final ObjectStreamException e) {
+			// e.g. a course node with a field which is not serializable, the course is loaded from the xml
+			log.warn("Cannot compile run structure in " + courseBase + ", the course will be loaded from " + sourceXml.getName(), e);
+			FileUtils.closeSafely(out);
+			delete(tmp);
+			target.delete();
+			markAsFailed(failed, sourceXml);
+			return false;
+		} catch (final IOException e) {
+			log.warn("Cannot write compiled run structure in " + courseBase + ", the course will be loaded from " + sourceXml.getName() + ": " + e);
+			FileUtils.closeSafely(out);
+			delete(tmp);
+			target.delete();
+			return false;
+		}
+	}
+
+	/**
+	 * @param courseBase the base folder of the course
+	 * @param sourceXml the runstructure.xml
+	 * @return a new copy of the run structure or null if there is no up to date snapshot
+	 */
+	static Structure read(final File courseBase, final File sourceXml) {
+		final File file = new File(courseBase, FILE_NAME);
+		if (!file.exists()) { return null; }
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+			if (!isStamp(in, sourceXml)) {
+				if (log.isDebug()) {
+					log.debug("Compiled run structure in " + courseBase + " is older than " + sourceXml.getName() + " or from another build");
+				}
+				return null;
+			}
+			final Object obj = new ObjectInputStream(in).readObject();
+			if (obj instanceof Structure) { return (Structure) obj; }
+			return null;
+		} catch (final Exception e) {
+			// stale classes or a broken file, compiled again from the xml
+			log.warn("Cannot read compiled run structure in " + courseBase + ", the course is loaded from " + sourceXml.getName() + ": " + e);
+			return null;
+		} finally {
+			FileUtils.closeSafely(in);
+		}
+	}
+
+	private static void writeStamp(final DataOutputStream out, final File sourceXml) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+		out.writeUTF(getBuild());
+		out.writeLong(sourceXml.length());
+		out.writeLong(sourceXml.lastModified());
+	}
+
+	private static boolean isStamp(final DataInputStream in, final File sourceXml) throws IOException {
+		return in.readInt() == MAGIC && in.readInt() == FORMAT_VERSION && getBuild().equals(in.readUTF()) && in.readLong() == sourceXml.length()
+				&& in.readLong() == sourceXml.lastModified();
+	}
+
+	/**
+	 * @return true if the file exists and is stamped with the current build and the given runstructure.xml
+	 */
+	private static boolean isStampedFor(final File file, final File sourceXml) {
+		if (!file.exists()) { return false; }
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			return isStamp(in, sourceXml);
+		} catch (final IOException e) {
+			return false;
+		} finally {
+			FileUtils.closeSafely(in);
+		}
+	}
+
+	private static void markAsFailed(final File failed, final File sourceXml) {
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(failed)));
+			writeStamp(out, sourceXml);
+		} catch (final IOException e) {
+			log.warn("Cannot write " + failed + ": " + e);
+		} finally {
+			FileUtils.closeSafely(out);
+		}
+	}
+
+	private static void delete(final File file) {
+		if (file != null) {
+			file.delete();
+		}
+	}
+
+	/**
+	 * @return version and build, classes of the course nodes may have changed with another build
+	 */
+	private static String getBuild() {
+		return Settings.getFullVersionInfo();
+	}
+}
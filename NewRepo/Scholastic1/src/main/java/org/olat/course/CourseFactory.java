@@ -440,12 +440,14 @@ public class CourseFactory extends BasicManager {
 
 		final File fTargetCourseBasePath = targetCourse.getCourseBaseContainer().getBasefile();
 
+		// the copy of the run structure comes from the compiled run structure and needs no lock on the shared source course
+		targetCourse.setRunStructure(sourceCourse.copyRunStructure());
+
 		synchronized (sourceCourse) { // o_clusterNOK - cannot be solved with doInSync since could take too long (leads to error: "Lock wait timeout exceeded")
 			// copy configuration
 			final CourseConfig courseConf = CourseConfigManagerImpl.getInstance().copyConfigOf(sourceCourse);
 			targetCourse.setCourseConfig(courseConf);
 			// save structures
-			targetCourse.setRunStructure((Structure) XStreamHelper.xstreamClone(sourceCourse.getRunStructure()));
 			targetCourse.saveRunStructure();
 			targetCourse.setEditorTreeModel((CourseEditorTreeModel) XStreamHelper.xstreamClone(sourceCourse.getEditorTreeModel()));
 			targetCourse.saveEditorTreeModel();
@@ -22,9 +22,12 @@
 package org.olat.course.assessment;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import org.olat.core.gui.components.table.BooleanColumnDescriptor;
 import org.olat.core.gui.components.table.ColumnDescriptor;
@@ -35,6 +38,7 @@ import org.olat.core.gui.translator.Translator;
 import org.olat.core.id.Identity;
 import org.olat.core.util.Util;
 import org.olat.course.nodes.AssessableCourseNode;
+import org.olat.course.nodes.STCourseNode;
 import org.olat.course.nodes.ta.StatusForm;
 import org.olat.course.nodes.ta.StatusManager;
 import org.olat.course.properties.CoursePropertyManager;
@@ -65,6 +69,9 @@ public class AssessedIdentitiesTableDataModel extends DefaultTableDataModel {
 	private final List<UserPropertyHandler> userPropertyHandlers;
 	private static final String usageIdentifyer = AssessedIdentitiesTableDataModel.class.getCanonicalName();
 	private final Translator translator;
+	/** Score and passed of all identities by identity key, null when they are evaluated by the score accounting of each user */
+	private final Map<Long, Float> scores;
+	private final Map<Long, Boolean> passed;
 
 	/**
 	 * @param objects List of wrapped identities (AssessedIdentityWrapper)
@@ -107,6 +114,48 @@ public class AssessedIdentitiesTableDataModel extends DefaultTableDataModel {
 				colMapping.add(colCount++, COL_PASSED);
 			}
 		}
+
+		if (isStoredByAssessmentManager(courseNode) && !objects.isEmpty()) {
+			// read the values of all rows with one call each instead of one evaluation per row and column
+			scores = new HashMap<Long, Float>();
+			passed = new HashMap<Long, Boolean>();
+			final List<Identity> identities = new ArrayList<Identity>(objects.size());
+			for (final Object object : objects) {
+				identities.add(((AssessedIdentityWrapper) object).getIdentity());
+			}
+			loadNodeValues(identities);
+		} else {
+			scores = null;
+			passed = null;
+		}
+	}
+
+	/**
+	 * @return true if the score and passed of the course node are the values stored by the assessment manager, structure nodes calculate them
+	 */
+	private static boolean isStoredByAssessmentManager(final AssessableCourseNode courseNode) {
+		return courseNode != null && !(courseNode instanceof STCourseNode);
+	}
+
+	private void loadNodeValues(final List<Identity> identities) {
+		final AssessmentManager am = getWrappedIdentity(0).getUserCourseEnvironment().getCourseEnvironment().getAssessmentManager();
+		if (courseNode.hasScoreConfigured()) {
+			scores.putAll(am.getScores(identities, courseNode));
+		}
+		if (courseNode.hasPassedConfigured()) {
+			passed.putAll(am.getPassed(identities, courseNode));
+		}
+	}
+
+	/**
+	 * Reload the score and passed of an identity after its assessment has been changed.
+	 * 
+	 * @param identity
+	 */
+	public void reloadNodeValues(final Identity identity) {
+		if (scores != null && getRowCount() > 0) {
+			loadNodeValues(Collections.singletonList(identity));
+		}
 	}
 
 	/**
@@ -154,6 +203,7 @@ public class AssessedIdentitiesTableDataModel extends DefaultTableDataModel {
 		} else if (colName.equals(COL_ATTEMPTS)) {
 			return wrappedIdentity.getNodeAttempts();
 		} else if (colName.equals(COL_SCORE)) {
+			if (scores != null) { return AssessmentHelper.getRoundedScore(scores.get(identity.getKey())); }
 			ScoreEvaluation scoreEval = wrappedIdentity.getUserCourseEnvironment().getScoreAccounting().evalCourseNode(courseNode);
 			if (scoreEval == null) {
 				scoreEval = new ScoreEvaluation(null, null);
@@ -162,6 +212,7 @@ public class AssessedIdentitiesTableDataModel extends DefaultTableDataModel {
 		} else if (colName.equals(COL_STATUS)) {
 			return getStatusFor(courseNode, wrappedIdentity);
 		} else if (colName.equals(COL_PASSED)) {
+			if (passed != null) { return passed.get(identity.getKey()); }
 			ScoreEvaluation scoreEval = wrappedIdentity.getUserCourseEnvironment().getScoreAccounting().evalCourseNode(courseNode);
 			if (scoreEval == null) {
 				scoreEval = new ScoreEvaluation(null, null);
@@ -522,6 +522,7 @@ public class AssessmentMainController extends MainLayoutBasicController implemen
 						wrappers.remove(wrappedIdFromModel);
 						wrappedIdFromModel = AssessmentHelper.wrapIdentity(wrappedIdFromModel.getUserCourseEnvironment(), currentCourseNode);
 						wrappers.add(wrappedIdFromModel);
+						aitd.reloadNodeValues(wrappedIdFromModel.getIdentity());
 						userListCtr.modelChanged();
 					}
 				}
@@ -649,6 +650,8 @@ public class AssessmentMainController extends MainLayoutBasicController implemen
 		}
 		listenTo(userListCtr);
 
+		// load the assessment data of all listed identities with a few bulk queries instead of one query per identity while wrapping
+		course.getCourseEnvironment().getAssessmentManager().preloadCache(identities);
 		// Wrap identities with user course environment and user score view
 		final List<AssessedIdentityWrapper> wrappedIdentities = new ArrayList<AssessedIdentityWrapper>();
 		for (int i = 0; i < identities.size(); i++) {
@@ -21,6 +21,9 @@
 
 package org.olat.course.assessment;
 
+import java.util.Collection;
+import java.util.Map;
+
 import org.olat.core.id.Identity;
 import org.olat.core.id.OLATResourceable;
 import org.olat.core.util.event.GenericEventListener;
@@ -60,6 +63,13 @@ public interface AssessmentManager {
 	 */
 	public void preloadCache(Identity identity);
 
+	/**
+	 * Load the persisted assessment data of the given identities into a local cache if such a cache is available. Data which is already in the cache is not reloaded.
+	 * 
+	 * @param identities
+	 */
+	public void preloadCache(Collection<Identity> identities);
+
 	/**
 	 * Save the users attempts for this node. If there is already an attempts property available, it will be overwritten with the new value
 	 * 
@@ -141,6 +151,33 @@ public interface AssessmentManager {
 	 */
 	public Integer getNodeAttempts(CourseNode courseNode, Identity identity);
 
+	/**
+	 * Batch version of getNodeScore for table models listing many identities.
+	 * 
+	 * @param identities The identities
+	 * @param courseNode The course node
+	 * @return Map of identity key to the achieved score or null if no score available
+	 */
+	public Map<Long, Float> getScores(Collection<Identity> identities, CourseNode courseNode);
+
+	/**
+	 * Batch version of getNodePassed for table models listing many identities.
+	 * 
+	 * @param identities The identities
+	 * @param courseNode The course node
+	 * @return Map of identity key to whether passed or not, or null if there is no info yet
+	 */
+	public Map<Long, Boolean> getPassed(Collection<Identity> identities, CourseNode courseNode);
+
+	/**
+	 * Batch version of getNodeAttempts for table models listing many identities.
+	 * 
+	 * @param identities The identities
+	 * @param courseNode The course node
+	 * @return Map of identity key to the number of attempts, 0 if no Property is set
+	 */
+	public Map<Long, Integer> getAttempts(Collection<Identity> identities, CourseNode courseNode);
+
 	/**
 	 * Register the given event listener for all assessment changed events of this course
 	 * 
@@ -177,6 +214,19 @@ public interface AssessmentManager {
 	public void saveScoreEvaluation(CourseNode courseNode, Identity identity, Identity assessedIdentity, ScoreEvaluation scoreEvaluation,
 			UserCourseEnvironment userCourseEnvironment, boolean incrementUserAttempts);
 
+	/**
+	 * Save the users achieved ScoreEvaluation for this node, optionally without updating the users efficiency statement. Bulk actions save the scores of all users
+	 * first and update their efficiency statements afterwards with EfficiencyStatementManager.updateEfficiencyStatements.
+	 * 
+	 * @param courseNode
+	 * @param identity
+	 * @param assessedIdentity
+	 * @param scoreEvaluation
+	 * @param updateEfficiencyStatement false: the caller updates the efficiency statement
+	 */
+	public void saveScoreEvaluation(CourseNode courseNode, Identity identity, Identity assessedIdentity, ScoreEvaluation scoreEvaluation,
+			UserCourseEnvironment userCourseEnvironment, boolean incrementUserAttempts, boolean updateEfficiencyStatement);
+
 	/**
 	 * Provides an OLATResourceable for locking (of score/passed etc.) purposes (if doInSync is called on score/passed data) Or provides a lock token for assessment data
 	 * of the assessedIdentity.
@@ -112,63 +112,90 @@ public class EfficiencyStatementManager extends BasicManager implements UserData
 		final CourseConfig cc = userCourseEnv.getCourseEnvironment().getCourseConfig();
 		// write only when enabled for this course
 		if (cc.isEfficencyStatementEnabled()) {
-			final boolean logDebug = log.isDebug();
 			final Identity identity = userCourseEnv.getIdentityEnvironment().getIdentity();
-			final PropertyManager pm = PropertyManager.getInstance();
-			final String courseRepoEntryKey = getPropertyName(repoEntryKey);
-
-			final CourseNode rootNode = userCourseEnv.getCourseEnvironment().getRunStructure().getRootNode();
-			final List<Map<String, Object>> assessmentNodes = AssessmentHelper.addAssessableNodeAndDataToList(0, rootNode, userCourseEnv, true, true);
-
-			final EfficiencyStatement efficiencyStatement = new EfficiencyStatement();
-			efficiencyStatement.setAssessmentNodes(assessmentNodes);
-			efficiencyStatement.setCourseTitle(userCourseEnv.getCourseEnvironment().getCourseTitle());
-			efficiencyStatement.setCourseRepoEntryKey(repoEntryKey);
-			final User user = identity.getUser();
-			efficiencyStatement.setDisplayableUserInfo(user.getProperty(UserConstants.FIRSTNAME, null) + " " + user.getProperty(UserConstants.LASTNAME, null) + " ("
-					+ identity.getName() + ")");
-			efficiencyStatement.setLastUpdated(System.currentTimeMillis());
-
-			// save efficiency statement as xtream persisted list
-			final String efficiencyStatementX = XStreamHelper.toXML(efficiencyStatement);
-			Property efficiencyProperty = null;
-			if (checkForExistingProperty) {
-				efficiencyProperty = pm.findUserProperty(identity, PROPERTY_CATEGORY, courseRepoEntryKey);
-			}
-			if (assessmentNodes != null) {
-				if (efficiencyProperty == null) {
-					// create new
-					efficiencyProperty = pm.createUserPropertyInstance(identity, PROPERTY_CATEGORY, courseRepoEntryKey, null, null, null, efficiencyStatementX);
-					pm.saveProperty(efficiencyProperty);
-					if (logDebug) {
-						log.debug("creating new efficiency statement property::" + efficiencyProperty.getKey() + " for id::" + identity.getName() + " repoEntry::"
-								+ courseRepoEntryKey);
-					}
-				} else {
-					// update existing
-					if (logDebug) {
-						log.debug("updatting efficiency statement property::" + efficiencyProperty.getKey() + " for id::" + identity.getName() + " repoEntry::"
-								+ courseRepoEntryKey);
-					}
-					efficiencyProperty.setTextValue(efficiencyStatementX);
-					pm.updateProperty(efficiencyProperty);
+			final EfficiencyStatement efficiencyStatement = createEfficiencyStatement(userCourseEnv, repoEntryKey);
+			saveEfficiencyStatement(identity, efficiencyStatement, course, checkForExistingProperty);
+		}
+	}
+
+	/**
+	 * Saves the efficiency statement of a user, an efficiency statement without assessment nodes deletes the existing one. Must be called in a <code>doInSync</code>
+	 * block on the assessment data of the user.
+	 * 
+	 * @param identity
+	 * @param efficiencyStatement
+	 * @param course
+	 * @param checkForExistingProperty
+	 */
+	private void saveEfficiencyStatement(final Identity identity, final EfficiencyStatement efficiencyStatement, final ICourse course,
+			final boolean checkForExistingProperty) {
+		final boolean logDebug = log.isDebug();
+		final PropertyManager pm = PropertyManager.getInstance();
+		final String courseRepoEntryKey = getPropertyName(efficiencyStatement.getCourseRepoEntryKey());
+		final List<Map<String, Object>> assessmentNodes = efficiencyStatement.getAssessmentNodes();
+
+		// save efficiency statement as xtream persisted list
+		final String efficiencyStatementX = XStreamHelper.toXML(efficiencyStatement);
+		Property efficiencyProperty = null;
+		if (checkForExistingProperty) {
+			efficiencyProperty = pm.findUserProperty(identity, PROPERTY_CATEGORY, courseRepoEntryKey);
+		}
+		if (assessmentNodes != null) {
+			if (efficiencyProperty == null) {
+				// create new
+				efficiencyProperty = pm.createUserPropertyInstance(identity, PROPERTY_CATEGORY, courseRepoEntryKey, null, null, null, efficiencyStatementX);
+				pm.saveProperty(efficiencyProperty);
+				if (logDebug) {
+					log.debug("creating new efficiency statement property::" + efficiencyProperty.getKey() + " for id::" + identity.getName() + " repoEntry::"
+							+ courseRepoEntryKey);
 				}
 			} else {
-				if (efficiencyProperty != null) {
-					// remove existing since now empty empty efficiency statements
-					if (logDebug) {
-						log.debug("removing efficiency statement property::" + efficiencyProperty.getKey() + " for id::" + identity.getName() + " repoEntry::"
-								+ courseRepoEntryKey + " since empty");
-					}
-					pm.deleteProperty(efficiencyProperty);
+				// update existing
+				if (logDebug) {
+					log.debug("updatting efficiency statement property::" + efficiencyProperty.getKey() + " for id::" + identity.getName() + " repoEntry::"
+							+ courseRepoEntryKey);
 				}
-				// else nothing to create and nothing to delete
+				efficiencyProperty.setTextValue(efficiencyStatementX);
+				pm.updateProperty(efficiencyProperty);
 			}
-
-			// send modified event to everybody
-			final AssessmentChangedEvent ace = new AssessmentChangedEvent(AssessmentChangedEvent.TYPE_EFFICIENCY_STATEMENT_CHANGED, identity);
-			CoordinatorManager.getInstance().getCoordinator().getEventBus().fireEventToListenersOf(ace, course);
+		} else {
+			if (efficiencyProperty != null) {
+				// remove existing since now empty empty efficiency statements
+				if (logDebug) {
+					log.debug("removing efficiency statement property::" + efficiencyProperty.getKey() + " for id::" + identity.getName() + " repoEntry::"
+							+ courseRepoEntryKey + " since empty");
+				}
+				pm.deleteProperty(efficiencyProperty);
+			}
+			// else nothing to create and nothing to delete
 		}
+
+		// send modified event to everybody
+		final AssessmentChangedEvent ace = new AssessmentChangedEvent(AssessmentChangedEvent.TYPE_EFFICIENCY_STATEMENT_CHANGED, identity);
+		CoordinatorManager.getInstance().getCoordinator().getEventBus().fireEventToListenersOf(ace, course);
+	}
+
+	/**
+	 * Builds the efficiency statement of a user from the score accounting of the user course environment, without saving it.
+	 * 
+	 * @param userCourseEnv
+	 * @param repoEntryKey
+	 * @return the efficiency statement, the assessment nodes are null if the user has no assessment data
+	 */
+	private EfficiencyStatement createEfficiencyStatement(final UserCourseEnvironment userCourseEnv, final Long repoEntryKey) {
+		final Identity identity = userCourseEnv.getIdentityEnvironment().getIdentity();
+		final CourseNode rootNode = userCourseEnv.getCourseEnvironment().getRunStructure().getRootNode();
+		final List<Map<String, Object>> assessmentNodes = AssessmentHelper.addAssessableNodeAndDataToList(0, rootNode, userCourseEnv, true, true);
+
+		final EfficiencyStatement efficiencyStatement = new EfficiencyStatement();
+		efficiencyStatement.setAssessmentNodes(assessmentNodes);
+		efficiencyStatement.setCourseTitle(userCourseEnv.getCourseEnvironment().getCourseTitle());
+		efficiencyStatement.setCourseRepoEntryKey(repoEntryKey);
+		final User user = identity.getUser();
+		efficiencyStatement.setDisplayableUserInfo(user.getProperty(UserConstants.FIRSTNAME, null) + " " + user.getProperty(UserConstants.LASTNAME, null) + " ("
+				+ identity.getName() + ")");
+		efficiencyStatement.setLastUpdated(System.currentTimeMillis());
+		return efficiencyStatement;
 	}
 
 	/**
@@ -316,49 +343,85 @@ public class EfficiencyStatementManager extends BasicManager implements UserData
 	}
 
 	/**
-	 * Create or update all efficiency statment lists for the given list of identities and this course This is called from only one thread, since the course is locked at
-	 * editing (either CourseEdit or CourseDetails edit).
+	 * Computes the efficiency statements of a list of users of a course in one pass, without saving them. The repository entry and the assessment data of all users
+	 * are loaded once, the score dependencies and the compiled score and passed calculations of the course are shared by all users.
 	 * 
 	 * @param course
 	 * @param identities List of identities
-	 * @param checkForExistingRecord true: check if efficiency statement for this user exist; false: always create new one (be careful with this one!)
+	 * @return the efficiency statements in the order of the identities, empty if the course has no repository entry and shorter than the identities if the thread
+	 *         has been interrupted. The assessment nodes of a statement are null if the user has no assessment data.
 	 */
-	public void updateEfficiencyStatements(final OLATResourceable ores, final List<Identity> identities, final boolean checkForExistingProperty) {
+	public List<EfficiencyStatement> computeEfficiencyStatements(final ICourse course, final List<Identity> identities) {
+		final List<EfficiencyStatement> efficiencyStatements = new ArrayList<EfficiencyStatement>(identities.size());
 		if (identities.size() > 0) {
-			final ICourse course = CourseFactory.loadCourse(ores);
-			log.audit("Updating efficiency statements for course::" + course.getResourceableId() + ", this might produce temporary heavy load on the CPU");
 			final Long courseResId = course.getCourseEnvironment().getCourseResourceableId();
 			final RepositoryEntry re = RepositoryManager.getInstance().lookupRepositoryEntry(OresHelper.createOLATResourceableInstance(CourseModule.class, courseResId),
 					false);
+			if (re == null) {
+				log.warn("No repository entry found for course::" + course.getResourceableId() + ", no efficiency statements computed");
+				return efficiencyStatements;
+			}
 
 			// preload cache to speed up things
-			final AssessmentManager am = course.getCourseEnvironment().getAssessmentManager();
 			final long start = System.currentTimeMillis();
-			am.preloadCache();
+			course.getCourseEnvironment().getAssessmentManager().preloadCache();
+			final long between = System.currentTimeMillis();
+
+			for (final Identity identity : identities) {
+				// create temporary user course env
+				final UserCourseEnvironment uce = AssessmentHelper.createAndInitUserCourseEnvironment(identity, course);
+				efficiencyStatements.add(createEfficiencyStatement(uce, re.getKey()));
+				if (Thread.currentThread().isInterrupted()) {
+					break;
+				}
+			}
+			if (log.isDebug()) {
+				log.debug("Computed efficiency statements for course::" + course.getResourceableId() + ". Prepare cache: " + (between - start)
+						+ "ms; Computing statements: " + (System.currentTimeMillis() - between) + "ms; Users: " + identities.size());
+			}
+		}
+		return efficiencyStatements;
+	}
+
+	/**
+	 * Create or update all efficiency statment lists for the given list of identities and this course. The statements are computed with
+	 * computeEfficiencyStatements, only the saving of each statement is done in a <code>doInSync</code> block on the assessment data of the user.
+	 * 
+	 * @param course
+	 * @param identities List of identities
+	 * @param checkForExistingRecord true: check if efficiency statement for this user exist; false: always create new one (be careful with this one!)
+	 */
+	public void updateEfficiencyStatements(final OLATResourceable ores, final List<Identity> identities, final boolean checkForExistingProperty) {
+		if (identities.size() > 0) {
+			final ICourse course = CourseFactory.loadCourse(ores);
+			// write only when enabled for this course
+			if (!course.getCourseEnvironment().getCourseConfig().isEfficencyStatementEnabled()) { return; }
+			log.audit("Updating efficiency statements for course::" + course.getResourceableId() + ", this might produce temporary heavy load on the CPU");
+
+			final long start = System.currentTimeMillis();
+			final List<EfficiencyStatement> efficiencyStatements = computeEfficiencyStatements(course, identities);
 			final long between = System.currentTimeMillis();
 
+			final AssessmentManager am = course.getCourseEnvironment().getAssessmentManager();
 			final Iterator<Identity> iter = identities.iterator();
-			while (iter.hasNext()) {
+			for (final EfficiencyStatement efficiencyStatement : efficiencyStatements) {
 				final Identity identity = iter.next();
 				// o_clusterOK: by ld
 				final OLATResourceable efficiencyStatementResourceable = am.createOLATResourceableForLocking(identity);
 				CoordinatorManager.getInstance().getCoordinator().getSyncer().doInSync(efficiencyStatementResourceable, new SyncerExecutor() {
 					@Override
 					public void execute() {
-						// create temporary user course env
-						final UserCourseEnvironment uce = AssessmentHelper.createAndInitUserCourseEnvironment(identity, course);
-						updateUserEfficiencyStatement(uce, re.getKey(), course, checkForExistingProperty);
+						saveEfficiencyStatement(identity, efficiencyStatement, course, checkForExistingProperty);
 					}
 				});
 				if (Thread.interrupted()) {
 					break;
 				}
 			}
-			// }
 			final long end = System.currentTimeMillis();
 			if (log.isDebug()) {
-				log.debug("Updated efficiency statements for course::" + course.getResourceableId() + ". Prepare cache: " + (between - start)
-						+ "ms; Updating statements: " + (end - between) + "ms; Users: " + identities.size());
+				log.debug("Updated efficiency statements for course::" + course.getResourceableId() + ". Computing statements: " + (between - start)
+						+ "ms; Saving statements: " + (end - between) + "ms; Users: " + identities.size());
 			}
 		}
 	}
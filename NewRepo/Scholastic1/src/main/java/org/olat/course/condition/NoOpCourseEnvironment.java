@@ -26,6 +26,7 @@ import org.olat.core.util.vfs.VFSContainer;
 import org.olat.course.Structure;
 import org.olat.course.assessment.AssessmentManager;
 import org.olat.course.auditing.UserNodeAuditManager;
+import org.olat.course.condition.interpreter.ConditionExpressionCache;
 import org.olat.course.config.CourseConfig;
 import org.olat.course.groupsandrights.CourseGroupManager;
 import org.olat.course.properties.CoursePropertyManager;
@@ -142,4 +143,14 @@ public class NoOpCourseEnvironment implements CourseEnvironment {
 		throw new UnsupportedOperationException("never to be called in No Op (syntax validating) mode");
 	}
 
+	/**
+	 * syntax validation compiles every expression
+	 * 
+	 * @see org.olat.course.run.environment.CourseEnvironment#getConditionExpressionCache()
+	 */
+	@Override
+	public ConditionExpressionCache getConditionExpressionCache() {
+		return null;
+	}
+
 }
@@ -0,0 +1,89 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.course.condition.interpreter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import com.neemsoft.jmep.Expression;
+
+/**
+ * Description:<br>
+ * The compiled condition and calculation expressions of one course, shared by all users of the course. The expressions are compiled by the ConditionInterpreter
+ * against an environment whose variables and functions are bound to the user at evaluation time, so one compiled expression can be evaluated for every user.
+ * <p>
+ * A compiled expression is used by one evaluation at a time: it is borrowed from the cache, evaluated and given back. Concurrent evaluations of the same condition
+ * compile their own expression, at most MAX_IDLE_PER_EXPRESSION of them are kept. The cache is cleared when the course is published.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class ConditionExpressionCache {
+
+	/** compiled expressions kept per expression string, about the number of concurrent evaluations of the same condition **/
+	static final int MAX_IDLE_PER_EXPRESSION = 8;
+
+	private final ConcurrentMap<String, ConcurrentLinkedQueue<Expression>> idleExpressions = new ConcurrentHashMap<String, ConcurrentLinkedQueue<Expression>>();
+
+	/**
+	 * @param key the expression string and the kind of interpreter which compiled it
+	 * @return a compiled expression which is not used by someone else or null if there is none
+	 */
+	Expression borrow(final String key) {
+		final ConcurrentLinkedQueue<Expression> idle = idleExpressions.get(key);
+		return idle == null ? null : idle.poll();
+	}
+
+	/**
+	 * Give a compiled expression back after its evaluation
+	 * 
+	 * @param key the expression string and the kind of interpreter which compiled it
+	 * @param expression
+	 */
+	void release(final String key, final Expression expression) {
+		ConcurrentLinkedQueue<Expression> idle = idleExpressions.get(key);
+		if (idle == null) {
+			final ConcurrentLinkedQueue<Expression> newIdle = new ConcurrentLinkedQueue<Expression>();
+			idle = idleExpressions.putIfAbsent(key, newIdle);
+			if (idle == null) {
+				idle = newIdle;
+			}
+		}
+		if (idle.size() < MAX_IDLE_PER_EXPRESSION) {
+			idle.offer(expression);
+		}
+	}
+
+	/**
+	 * @return the number of different expressions in the cache
+	 */
+	public int size() {
+		return idleExpressions.size();
+	}
+
+	/**
+	 * Removes all compiled expressions, e.g. when the course is published
+	 */
+	public void clear() {
+		idleExpressions.clear();
+	}
+}
@@ -22,6 +22,10 @@
 package org.olat.course.condition.interpreter;
 
 import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.olat.core.gui.translator.PackageTranslator;
 import org.olat.core.logging.AssertException;
@@ -39,6 +43,8 @@ import org.olat.course.run.userview.UserCourseEnvironment;
 
 import com.neemsoft.jmep.Environment;
 import com.neemsoft.jmep.Expression;
+import com.neemsoft.jmep.FunctionCB;
+import com.neemsoft.jmep.VariableCB;
 import com.neemsoft.jmep.XExpression;
 import com.neemsoft.jmep.XIllegalOperation;
 import com.neemsoft.jmep.XIllegalStatus;
@@ -66,6 +72,14 @@ public class ConditionInterpreter {
 	protected PackageTranslator translator = null;
 	protected UserCourseEnvironment uce;
 
+	/** the variables and functions of env, bound to the user course environment **/
+	private final Map<String, VariableCB> variables = new HashMap<String, VariableCB>();
+	private final Map<String, FunctionCB> functions = new HashMap<String, FunctionCB>();
+	/** environments to compile shareable expressions: one per kind of interpreter, with the same names as env but bound at evaluation time **/
+	private static final ConcurrentMap<String, Environment> bindingEnvironments = new ConcurrentHashMap<String, Environment>();
+	/** the interpreter which evaluates an expression compiled against a binding environment in this thread **/
+	private static final ThreadLocal<ConditionInterpreter> evaluatingInterpreter = new ThreadLocal<ConditionInterpreter>();
+
 	protected ConditionInterpreter() {
 
 	}
@@ -90,62 +104,80 @@ public class ConditionInterpreter {
 		env.addConstant("false", 0);
 
 		// variables
-		env.addVariable(NowVariable.name, new NowVariable(userCourseEnv));
-		env.addVariable(NeverVariable.name, new NeverVariable(userCourseEnv));
+		addVariable(NowVariable.name, new NowVariable(userCourseEnv));
+		addVariable(NeverVariable.name, new NeverVariable(userCourseEnv));
 
 		// functions
-		env.addFunction(DateFunction.name, new DateFunction(userCourseEnv));
-		env.addFunction("inGroup", new InLearningGroupFunction(userCourseEnv, "inGroup")); // legacy
-		env.addFunction("inLearningGroup", new InLearningGroupFunction(userCourseEnv, "inLearningGroup"));
-		env.addFunction("isLearningGroupFull", new IsLearningGroupFullFunction(userCourseEnv, "isLearningGroupFull"));
-		env.addFunction(InRightGroupFunction.name, new InRightGroupFunction(userCourseEnv));
-		env.addFunction(InLearningAreaFunction.name, new InLearningAreaFunction(userCourseEnv));
-		env.addFunction(IsUserFunction.name, new IsUserFunction(userCourseEnv));
-		env.addFunction(IsGuestFunction.name, new IsGuestFunction(userCourseEnv));
-		env.addFunction(IsGlobalAuthorFunction.name, new IsGlobalAuthorFunction(userCourseEnv));
+		addFunction(DateFunction.name, new DateFunction(userCourseEnv));
+		addFunction("inGroup", new InLearningGroupFunction(userCourseEnv, "inGroup")); // legacy
+		addFunction("inLearningGroup", new InLearningGroupFunction(userCourseEnv, "inLearningGroup"));
+		addFunction("isLearningGroupFull", new IsLearningGroupFullFunction(userCourseEnv, "isLearningGroupFull"));
+		addFunction(InRightGroupFunction.name, new InRightGroupFunction(userCourseEnv));
+		addFunction(InLearningAreaFunction.name, new InLearningAreaFunction(userCourseEnv));
+		addFunction(IsUserFunction.name, new IsUserFunction(userCourseEnv));
+		addFunction(IsGuestFunction.name, new IsGuestFunction(userCourseEnv));
+		addFunction(IsGlobalAuthorFunction.name, new IsGlobalAuthorFunction(userCourseEnv));
 		EvalAttributeFunction eaf;
 		eaf = new EvalAttributeFunction(userCourseEnv, EvalAttributeFunction.FUNCTION_TYPE_HAS_ATTRIBUTE);
-		env.addFunction(eaf.name, eaf);
+		addFunction(eaf.name, eaf);
 		eaf = new EvalAttributeFunction(userCourseEnv, EvalAttributeFunction.FUNCTION_TYPE_IS_IN_ATTRIBUTE);
-		env.addFunction(eaf.name, eaf);
+		addFunction(eaf.name, eaf);
 		eaf = new EvalAttributeFunction(userCourseEnv, EvalAttributeFunction.FUNCTION_TYPE_HAS_NOT_ATTRIBUTE);
-		env.addFunction(eaf.name, eaf);
+		addFunction(eaf.name, eaf);
 		eaf = new EvalAttributeFunction(userCourseEnv, EvalAttributeFunction.FUNCTION_TYPE_IS_NOT_IN_ATTRIBUTE);
-		env.addFunction(eaf.name, eaf);
+		addFunction(eaf.name, eaf);
 		eaf = new EvalAttributeFunction(userCourseEnv, EvalAttributeFunction.FUNCTION_TYPE_ATTRIBUTE_ENDS_WITH);
-		env.addFunction(eaf.name, eaf);
+		addFunction(eaf.name, eaf);
 		eaf = new EvalAttributeFunction(userCourseEnv, EvalAttributeFunction.FUNCTION_TYPE_ATTRIBUTE_STARTS_WITH);
-		env.addFunction(eaf.name, eaf);
-		env.addFunction(GetUserPropertyFunction.name, new GetUserPropertyFunction(userCourseEnv));
-		env.addFunction(HasLanguageFunction.name, new HasLanguageFunction(userCourseEnv));
-		env.addFunction(InInstitutionFunction.name, new InInstitutionFunction(userCourseEnv));
-		env.addFunction(IsCourseCoachFunction.name, new IsCourseCoachFunction(userCourseEnv));
-		env.addFunction(IsCourseAdministratorFunction.name, new IsCourseAdministratorFunction(userCourseEnv));
+		addFunction(eaf.name, eaf);
+		addFunction(GetUserPropertyFunction.name, new GetUserPropertyFunction(userCourseEnv));
+		addFunction(HasLanguageFunction.name, new HasLanguageFunction(userCourseEnv));
+		addFunction(InInstitutionFunction.name, new InInstitutionFunction(userCourseEnv));
+		addFunction(IsCourseCoachFunction.name, new IsCourseCoachFunction(userCourseEnv));
+		addFunction(IsCourseAdministratorFunction.name, new IsCourseAdministratorFunction(userCourseEnv));
 
-		env.addFunction(GetInitialCourseLaunchDateFunction.name, new GetInitialCourseLaunchDateFunction(userCourseEnv));
-		env.addFunction(GetRecentCourseLaunchDateFunction.name, new GetRecentCourseLaunchDateFunction(userCourseEnv));
+		addFunction(GetInitialCourseLaunchDateFunction.name, new GetInitialCourseLaunchDateFunction(userCourseEnv));
+		addFunction(GetRecentCourseLaunchDateFunction.name, new GetRecentCourseLaunchDateFunction(userCourseEnv));
 
-		env.addFunction(GetAttemptsFunction.name, new GetAttemptsFunction(userCourseEnv));
+		addFunction(GetAttemptsFunction.name, new GetAttemptsFunction(userCourseEnv));
 
 		// enrollment building block specific functions
-		env.addFunction(GetInitialEnrollmentDateFunction.name, new GetInitialEnrollmentDateFunction(userCourseEnv));
-		env.addFunction(GetRecentEnrollmentDateFunction.name, new GetRecentEnrollmentDateFunction(userCourseEnv));
+		addFunction(GetInitialEnrollmentDateFunction.name, new GetInitialEnrollmentDateFunction(userCourseEnv));
+		addFunction(GetRecentEnrollmentDateFunction.name, new GetRecentEnrollmentDateFunction(userCourseEnv));
 
 		// functions to calculate score
-		env.addFunction(GetPassedFunction.name, new GetPassedFunction(userCourseEnv));
-		env.addFunction(GetScoreFunction.name, new GetScoreFunction(userCourseEnv));
-		env.addFunction(GetPassedWithCourseIdFunction.name, new GetPassedWithCourseIdFunction(userCourseEnv));
-		env.addFunction(GetScoreWithCourseIdFunction.name, new GetScoreWithCourseIdFunction(userCourseEnv));
+		addFunction(GetPassedFunction.name, new GetPassedFunction(userCourseEnv));
+		addFunction(GetScoreFunction.name, new GetScoreFunction(userCourseEnv));
+		addFunction(GetPassedWithCourseIdFunction.name, new GetPassedWithCourseIdFunction(userCourseEnv));
+		addFunction(GetScoreWithCourseIdFunction.name, new GetScoreWithCourseIdFunction(userCourseEnv));
 
-		env.addFunction(GetOnyxTestOutcomeNumFunction.name, new GetOnyxTestOutcomeNumFunction(userCourseEnv));
-		env.addFunction(GetOnyxTestOutcomeAnumFunction.name, new GetOnyxTestOutcomeAnumFunction(userCourseEnv));
+		addFunction(GetOnyxTestOutcomeNumFunction.name, new GetOnyxTestOutcomeNumFunction(userCourseEnv));
+		addFunction(GetOnyxTestOutcomeAnumFunction.name, new GetOnyxTestOutcomeAnumFunction(userCourseEnv));
 
 		// units
-		env.addUnit("min", new MinuteUnit());
-		env.addUnit("h", new HourUnit());
-		env.addUnit("d", new DayUnit());
-		env.addUnit("w", new WeekUnit());
-		env.addUnit("m", new MonthUnit());
+		addUnits(env);
+	}
+
+	/**
+	 * Adds a variable to the environment of this interpreter
+	 * 
+	 * @param name
+	 * @param variable
+	 */
+	protected void addVariable(final String name, final VariableCB variable) {
+		env.addVariable(name, variable);
+		variables.put(name, variable);
+	}
+
+	/**
+	 * Adds a function to the environment of this interpreter
+	 * 
+	 * @param name
+	 * @param function
+	 */
+	protected void addFunction(final String name, final FunctionCB function) {
+		env.addFunction(name, function);
+		functions.put(name, function);
 	}
 
 	/**
@@ -263,8 +295,6 @@ public class ConditionInterpreter {
 	public boolean evaluateCondition(final String condition) {
 		boolean ok = false;
 		try {
-			// TODO: lookup in Map: key = c -> cached Expression
-			// if not null then: ok = evaluateCondition(Expression cachedExpression)
 			ok = doEvaluateCondition(condition);
 		} catch (final ParseException e) {
 			log.info("ParseException in evaluateCondition:" + e);
@@ -292,8 +322,7 @@ public class ConditionInterpreter {
 
 	private float doEvaluateCalculation(final String calculation) throws ParseException {
 		try {
-			final Expression exp = new Expression(calculation, env);
-			final Object result = exp.evaluate();
+			final Object result = evaluate(calculation);
 			if (result instanceof Double) {
 				return ((Double) result).floatValue();
 			} else if (result instanceof Integer) {
@@ -315,8 +344,7 @@ public class ConditionInterpreter {
 	 */
 	private boolean doEvaluateCondition(final String condition) throws ParseException {
 		try {
-			final Expression exp = new Expression(condition, env);
-			final Object result = exp.evaluate();
+			final Object result = evaluate(condition);
 			if (result instanceof Double) {
 				return (((Double) result).doubleValue() == 1.0) ? true : false;
 			} else if (result instanceof Integer) {
@@ -329,6 +357,124 @@ public class ConditionInterpreter {
 		}
 	}
 
+	/**
+	 * Evaluates the expression, with the compiled expression of the course if the course has an expression cache. Only the editor and the syntax check compile the
+	 * expression against env every time.
+	 * 
+	 * @param expression
+	 * @return the result of the expression
+	 * @throws XExpression
+	 */
+	private Object evaluate(final String expression) throws XExpression {
+		final ConditionExpressionCache cache = getExpressionCache();
+		if (cache == null) { return new Expression(expression, env).evaluate(); }
+
+		final String key = getClass().getName() + ":" + expression;
+		Expression exp = cache.borrow(key);
+		if (exp == null) {
+			exp = new Expression(expression, getBindingEnvironment());
+		}
+		final ConditionInterpreter previous = evaluatingInterpreter.get();
+		evaluatingInterpreter.set(this);
+		final Object result;
+		try {
+			result = exp.evaluate();
+		} finally {
+			// functions may evaluate conditions of other users or courses
+			if (previous == null) {
+				evaluatingInterpreter.remove();
+			} else {
+				evaluatingInterpreter.set(previous);
+			}
+		}
+		cache.release(key, exp);
+		return result;
+	}
+
+	/**
+	 * @return the expression cache of the course, null in the editor or if the course has none
+	 */
+	private ConditionExpressionCache getExpressionCache() {
+		if (uce == null || uce.getCourseEditorEnv() != null || uce.getCourseEnvironment() == null) { return null; }
+		return uce.getCourseEnvironment().getConditionExpressionCache();
+	}
+
+	/**
+	 * @return the environment with the same constants, units, variables and functions as env, but where variables and functions call the ones of the interpreter
+	 *         which evaluates the expression
+	 */
+	private Environment getBindingEnvironment() {
+		final String kind = getClass().getName();
+		Environment bindingEnv = bindingEnvironments.get(kind);
+		if (bindingEnv == null) {
+			bindingEnv = new Environment();
+			bindingEnv.addConstant("true", 1);
+			bindingEnv.addConstant("false", 0);
+			for (final String name : variables.keySet()) {
+				bindingEnv.addVariable(name, new BoundVariable(name));
+			}
+			for (final String name : functions.keySet()) {
+				bindingEnv.addFunction(name, new BoundFunction(name));
+			}
+			// units do not depend on the user
+			addUnits(bindingEnv);
+			final Environment existing = bindingEnvironments.putIfAbsent(kind, bindingEnv);
+			if (existing != null) {
+				bindingEnv = existing;
+			}
+		}
+		return bindingEnv;
+	}
+
+	/**
+	 * @param environment
+	 */
+	protected static void addUnits(final Environment environment) {
+		environment.addUnit("min", new MinuteUnit());
+		environment.addUnit("h", new HourUnit());
+		environment.addUnit("d", new DayUnit());
+		environment.addUnit("w", new WeekUnit());
+		environment.addUnit("m", new MonthUnit());
+	}
+
+	private static ConditionInterpreter getEvaluatingInterpreter() {
+		final ConditionInterpreter interpreter = evaluatingInterpreter.get();
+		if (interpreter == null) { throw new AssertException("compiled expression evaluated outside of ConditionInterpreter.evaluate()"); }
+		return interpreter;
+	}
+
+	/**
+	 * Variable of a compiled expression, returns the value of the variable of the evaluating interpreter
+	 */
+	private static class BoundVariable extends VariableCB {
+		private final String name;
+
+		BoundVariable(final String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Object getValue() {
+			return getEvaluatingInterpreter().variables.get(name).getValue();
+		}
+	}
+
+	/**
+	 * Function of a compiled expression, calls the function of the evaluating interpreter
+	 */
+	private static class BoundFunction extends FunctionCB {
+		private final String name;
+
+		BoundFunction(final String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Object call(final Object[] inStack) {
+			return getEvaluatingInterpreter().functions.get(name).call(inStack);
+		}
+	}
+
 	private boolean evaluateCondition(final Expression exp) throws ParseException {
 		try {
 			final Object result = exp.evaluate();
@@ -21,7 +21,9 @@
 
 package org.olat.course.run.preview;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Map;
 
 import org.olat.core.id.Identity;
 import org.olat.core.id.OLATResourceable;
@@ -150,6 +152,42 @@ final class PreviewAssessmentManager extends BasicManager implements AssessmentM
 		return (attempts == null ? new Integer(0) : attempts);
 	}
 
+	/**
+	 * @see org.olat.course.assessment.AssessmentManager#getScores(java.util.Collection, org.olat.course.nodes.CourseNode)
+	 */
+	@Override
+	public Map<Long, Float> getScores(final Collection<Identity> identities, final CourseNode courseNode) {
+		final Map<Long, Float> scores = new HashMap<Long, Float>();
+		for (final Identity identity : identities) {
+			scores.put(identity.getKey(), getNodeScore(courseNode, identity));
+		}
+		return scores;
+	}
+
+	/**
+	 * @see org.olat.course.assessment.AssessmentManager#getPassed(java.util.Collection, org.olat.course.nodes.CourseNode)
+	 */
+	@Override
+	public Map<Long, Boolean> getPassed(final Collection<Identity> identities, final CourseNode courseNode) {
+		final Map<Long, Boolean> passed = new HashMap<Long, Boolean>();
+		for (final Identity identity : identities) {
+			passed.put(identity.getKey(), getNodePassed(courseNode, identity));
+		}
+		return passed;
+	}
+
+	/**
+	 * @see org.olat.course.assessment.AssessmentManager#getAttempts(java.util.Collection, org.olat.course.nodes.CourseNode)
+	 */
+	@Override
+	public Map<Long, Integer> getAttempts(final Collection<Identity> identities, final CourseNode courseNode) {
+		final Map<Long, Integer> attempts = new HashMap<Long, Integer>();
+		for (final Identity identity : identities) {
+			attempts.put(identity.getKey(), getNodeAttempts(courseNode, identity));
+		}
+		return attempts;
+	}
+
 	/**
 	 * @see org.olat.course.assessment.AssessmentManager#registerForAssessmentChangeEvents(org.olat.core.util.event.GenericEventListener, org.olat.core.id.Identity)
 	 */
@@ -182,6 +220,14 @@ final class PreviewAssessmentManager extends BasicManager implements AssessmentM
 		throw new AssertException("Not implemented for preview.");
 	}
 
+	/**
+	 * @see org.olat.course.assessment.AssessmentManager#preloadCache(java.util.Collection)
+	 */
+	@Override
+	public void preloadCache(final Collection<Identity> identities) {
+		throw new AssertException("Not implemented for preview.");
+	}
+
 	/**
 	 * @see org.olat.course.assessment.AssessmentManager#saveAssessmentID(org.olat.course.nodes.CourseNode, org.olat.core.id.Identity, java.lang.String)
 	 */
@@ -215,6 +261,17 @@ final class PreviewAssessmentManager extends BasicManager implements AssessmentM
 		}
 	}
 
+	/**
+	 * @see org.olat.course.assessment.AssessmentManager#saveScoreEvaluation(org.olat.course.nodes.CourseNode, org.olat.core.id.Identity, org.olat.core.id.Identity,
+	 *      org.olat.course.run.scoring.ScoreEvaluation, org.olat.course.run.userview.UserCourseEnvironment, boolean, boolean)
+	 */
+	@Override
+	public void saveScoreEvaluation(final CourseNode courseNode, final Identity identity, final Identity assessedIdentity, final ScoreEvaluation scoreEvaluation,
+			final UserCourseEnvironment userCourseEnvironment, final boolean incrementUserAttempts, final boolean updateEfficiencyStatement) {
+		// there are no efficiency statements in the preview
+		saveScoreEvaluation(courseNode, identity, assessedIdentity, scoreEvaluation, userCourseEnvironment, incrementUserAttempts);
+	}
+
 	@Override
 	public OLATResourceable createOLATResourceableForLocking(final Identity assessedIdentity) {
 		throw new AssertException("Not implemented for preview.");
@@ -0,0 +1,165 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.course.run.scoring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.olat.core.util.nodes.INode;
+import org.olat.core.util.tree.TreeVisitor;
+import org.olat.core.util.tree.Visitor;
+import org.olat.course.nodes.AssessableCourseNode;
+import org.olat.course.nodes.CourseNode;
+import org.olat.course.nodes.STCourseNode;
+
+/**
+ * Description:<br>
+ * The dependency graph of the score and passed calculations of a run structure. Every course node that is referenced in the score or passed expression of a
+ * structure node (e.g. getScore("1234") or getPassed("1234") in easy and expert mode) has the structure node as a dependent. When the score of one node changes,
+ * only the node itself and the nodes that depend on it directly or indirectly must be calculated again.
+ * <p>
+ * A reference is any string literal of the expression that is the ident of a course node of the structure. This also covers functions like getAttempts("1234"),
+ * calculations are never missed, at worst a node is calculated once too often.
+ * <p>
+ * The graph is built once per run structure and is read only afterwards, it is shared by the score accountings of all users of the course.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class ScoreDependencies {
+
+	private static final Pattern STRING_LITERAL = Pattern.compile("\"([^\"]*)\"");
+
+	private final List<AssessableCourseNode> evaluationOrder = new ArrayList<AssessableCourseNode>();
+	private final Map<String, AssessableCourseNode> assessableNodes = new HashMap<String, AssessableCourseNode>();
+	/** node ident -> the assessable nodes that reference the node in their calculation **/
+	private final Map<String, List<AssessableCourseNode>> dependents = new HashMap<String, List<AssessableCourseNode>>();
+
+	/**
+	 * @param rootNode the root node of the run structure
+	 */
+	public ScoreDependencies(final CourseNode rootNode) {
+		final Set<String> idents = new LinkedHashSet<String>();
+		// depth first, see ScoreAccounting.evaluateAll()
+		final TreeVisitor tv = new TreeVisitor(new Visitor() {
+			@Override
+			public void visit(final INode node) {
+				idents.add(node.getIdent());
+				if (node instanceof AssessableCourseNode) {
+					final AssessableCourseNode acn = (AssessableCourseNode) node;
+					evaluationOrder.add(acn);
+					assessableNodes.put(acn.getIdent(), acn);
+				}
+			}
+		}, rootNode, true);
+		tv.visitAll();
+
+		for (final AssessableCourseNode acn : evaluationOrder) {
+			if (acn instanceof STCourseNode) {
+				final STCourseNode stNode = (STCourseNode) acn;
+				if (stNode.hasScoreConfigured() || stNode.hasPassedConfigured()) {
+					final ScoreCalculator sc = stNode.getScoreCalculator();
+					final Set<String> referenced = new LinkedHashSet<String>();
+					referenced.addAll(getReferencedIdents(sc.getScoreExpression(), idents));
+					referenced.addAll(getReferencedIdents(sc.getPassedExpression(), idents));
+					for (final String ident : referenced) {
+						List<AssessableCourseNode> nodes = dependents.get(ident);
+						if (nodes == null) {
+							nodes = new ArrayList<AssessableCourseNode>(2);
+							dependents.put(ident, nodes);
+						}
+						nodes.add(acn);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param expression a score or passed expression, may be null
+	 * @param idents the idents of all nodes of the structure
+	 * @return the idents of the nodes referenced in the expression
+	 */
+	static Set<String> getReferencedIdents(final String expression, final Set<String> idents) {
+		if (expression == null) { return Collections.emptySet(); }
+		final Set<String> referenced = new LinkedHashSet<String>();
+		final Matcher m = STRING_LITERAL.matcher(expression);
+		while (m.find()) {
+			final String literal = m.group(1);
+			if (idents.contains(literal)) {
+				referenced.add(literal);
+			}
+		}
+		return referenced;
+	}
+
+	/**
+	 * @return all assessable nodes of the structure in the order of a depth first traversal
+	 */
+	public List<AssessableCourseNode> getEvaluationOrder() {
+		return evaluationOrder;
+	}
+
+	/**
+	 * @param ident
+	 * @return the assessable nodes with a calculation that references the given node directly
+	 */
+	public List<AssessableCourseNode> getDependents(final String ident) {
+		final List<AssessableCourseNode> nodes = dependents.get(ident);
+		if (nodes == null) { return Collections.emptyList(); }
+		return Collections.unmodifiableList(nodes);
+	}
+
+	/**
+	 * The nodes that must be calculated again when the score or passed of the given node changes: the node itself (if it is an assessable node of this structure) and
+	 * all nodes that depend on it directly or indirectly. Circular calculations end up in the result only once.
+	 * 
+	 * @param ident
+	 * @return the affected nodes, the changed node first
+	 */
+	public Set<AssessableCourseNode> getAffectedNodes(final String ident) {
+		final Set<AssessableCourseNode> affected = new LinkedHashSet<AssessableCourseNode>();
+		final AssessableCourseNode changed = assessableNodes.get(ident);
+		if (changed != null) {
+			affected.add(changed);
+		}
+		final List<String> pending = new ArrayList<String>();
+		pending.add(ident);
+		for (int i = 0; i < pending.size(); i++) {
+			final List<AssessableCourseNode> nodes = dependents.get(pending.get(i));
+			if (nodes != null) {
+				for (final AssessableCourseNode dependent : nodes) {
+					if (affected.add(dependent)) {
+						pending.add(dependent.getIdent());
+					}
+				}
+			}
+		}
+		return affected;
+	}
+}
@@ -0,0 +1,183 @@
+package org.olat.course.statistic;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Calendar;
+
+import org.olat.core.logging.AssertException;
+
+/**
+ * One dimension of the node-launch statistic, i.e. one o_stat_* table together with the rule which maps the creation date of a logging action to the key column of
+ * that table.
+ * <p>
+ * Used by the IncrementalStatisticUpdater which folds every logging action into all its dimensions in one pass. The dimensions are configured by name via spring:
+ * <ul>
+ * <li>daily: o_stat_daily, day = the date of the action (time set to midnight)</li>
+ * <li>weekly: o_stat_weekly, week = 'YYYY-WW' with the ISO-8601 week and the ISO week-based year, like to_char(creationdate,'IYYY') || '-' ||
+ * to_char(creationdate,'IW') of the sql based postgres updater - the first days of january may thus be in week 52 or 53 of the previous year and the last days
+ * of december in week 01 of the next year</li>
+ * <li>dayofweek: o_stat_dayofweek, day = 1 (sunday) to 7 (saturday)</li>
+ * <li>hourofday: o_stat_hourofday, hour = 0 to 23</li>
+ * </ul>
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public abstract class StatisticDimension {
+
+	public static final StatisticDimension DAILY = new StatisticDimension("daily", "o_stat_daily", "day", true) {
+		@Override
+		Object computeKey(final Calendar creationDate) {
+			final Calendar day = (Calendar) creationDate.clone();
+			day.set(Calendar.HOUR_OF_DAY, 0);
+			day.set(Calendar.MINUTE, 0);
+			day.set(Calendar.SECOND, 0);
+			day.set(Calendar.MILLISECOND, 0);
+			return new Timestamp(day.getTimeInMillis());
+		}
+
+		@Override
+		Object readKey(final ResultSet rs, final int column) throws SQLException {
+			return new Timestamp(rs.getTimestamp(column).getTime());
+		}
+	};
+
+	public static final StatisticDimension WEEKLY = new StatisticDimension("weekly", "o_stat_weekly", "week", true) {
+		@Override
+		Object computeKey(final Calendar creationDate) {
+			final Calendar iso = Calendar.getInstance(creationDate.getTimeZone());
+			iso.setFirstDayOfWeek(Calendar.MONDAY);
+			iso.setMinimalDaysInFirstWeek(4);
+			iso.setTimeInMillis(creationDate.getTimeInMillis());
+			final int week = iso.get(Calendar.WEEK_OF_YEAR);
+			// the week-based year: week 1 may start in december, week 52/53 may end in january
+			int year = iso.get(Calendar.YEAR);
+			if (week == 1 && iso.get(Calendar.MONTH) == Calendar.DECEMBER) {
+				year++;
+			} else if (week >= 52 && iso.get(Calendar.MONTH) == Calendar.JANUARY) {
+				year--;
+			}
+			return year + (week < 10 ? "-0" : "-") + week;
+		}
+
+		@Override
+		Object readKey(final ResultSet rs, final int column) throws SQLException {
+			return rs.getString(column);
+		}
+	};
+
+	public static final StatisticDimension DAY_OF_WEEK = new StatisticDimension("dayofweek", "o_stat_dayofweek", "day", false) {
+		@Override
+		Object computeKey(final Calendar creationDate) {
+			return Integer.valueOf(creationDate.get(Calendar.DAY_OF_WEEK));
+		}
+
+		@Override
+		Object readKey(final ResultSet rs, final int column) throws SQLException {
+			return Integer.valueOf(rs.getInt(column));
+		}
+	};
+
+	public static final StatisticDimension HOUR_OF_DAY = new StatisticDimension("hourofday", "o_stat_hourofday", "hour", false) {
+		@Override
+		Object computeKey(final Calendar creationDate) {
+			return Integer.valueOf(creationDate.get(Calendar.HOUR_OF_DAY));
+		}
+
+		@Override
+		Object readKey(final ResultSet rs, final int column) throws SQLException {
+			return Integer.valueOf(rs.getInt(column));
+		}
+	};
+
+	private static final StatisticDimension[] ALL = new StatisticDimension[] { DAILY, WEEKLY, DAY_OF_WEEK, HOUR_OF_DAY };
+
+	private final String name_;
+	private final String tableName_;
+	private final String keyColumn_;
+	private final boolean timeBound_;
+
+	StatisticDimension(final String name, final String tableName, final String keyColumn, final boolean timeBound) {
+		name_ = name;
+		tableName_ = tableName;
+		keyColumn_ = keyColumn;
+		timeBound_ = timeBound;
+	}
+
+	/**
+	 * @param name the configured name of a dimension, e.g. 'daily'
+	 * @return the dimension with the given name
+	 * @throws AssertException if there is no such dimension
+	 */
+	public static StatisticDimension forName(final String name) {
+		for (int i = 0; i < ALL.length; i++) {
+			if (ALL[i].name_.equalsIgnoreCase(name.trim())) { return ALL[i]; }
+		}
+		throw new AssertException("unknown statistic dimension: " + name);
+	}
+
+	/**
+	 * @param creationDate the creation date of a logging action
+	 * @return the value of the key column for the given creation date
+	 */
+	abstract Object computeKey(Calendar creationDate);
+
+	/**
+	 * @param rs
+	 * @param column the index of the key column in the result set
+	 * @return the value of the key column, comparable with the keys returned by computeKey
+	 */
+	abstract Object readKey(ResultSet rs, int column) throws SQLException;
+
+	/**
+	 * @return true if the keys of this dimension grow with time and old rows can be purged (daily, weekly) - the key of the oldest date to keep is then compared
+	 *         with '&lt;'
+	 */
+	boolean isTimeBound() {
+		return timeBound_;
+	}
+
+	String getName() {
+		return name_;
+	}
+
+	String getUpdateSql() {
+		return "update " + tableName_ + " set value=value+? where businesspath=? and " + keyColumn_ + "=?";
+	}
+
+	String getInsertSql() {
+		return "insert into " + tableName_ + " (businesspath,resid," + keyColumn_ + ",value) values (?,?,?,?)";
+	}
+
+	/**
+	 * @param numBusinessPaths the number of businesspath parameters
+	 * @param numKeys the number of key parameters
+	 * @return the select of businesspath and key of the existing rows with one of the given businesspaths and keys
+	 */
+	String getExistingRowsSql(final int numBusinessPaths, final int numKeys) {
+		final StringBuilder sb = new StringBuilder("select businesspath," + keyColumn_ + " from " + tableName_ + " where businesspath in (");
+		appendParameters(sb, numBusinessPaths);
+		sb.append(") and ").append(keyColumn_).append(" in (");
+		appendParameters(sb, numKeys);
+		return sb.append(")").toString();
+	}
+
+	private static void appendParameters(final StringBuilder sb, final int count) {
+		for (int i = 0; i < count; i++) {
+			sb.append(i == 0 ? "?" : ",?");
+		}
+	}
+
+	String getDeleteSql() {
+		return "delete from " + tableName_;
+	}
+
+	String getRetentionDeleteSql() {
+		return "delete from " + tableName_ + " where " + keyColumn_ + "<?";
+	}
+
+	@Override
+	public String toString() {
+		return "StatisticDimension[" + name_ + "]";
+	}
+}
@@ -594,4 +594,27 @@ public class AssessmentContext implements Serializable {
 	public Objectives getObjectives() {
 		return objectives;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @return the values which change while the user works on the assessment, used by the JournalingPersister
+	 */
+	public Object[] getJournalState() {
+		return new Object[] { Integer.valueOf(currentSectionContextPos), Long.valueOf(timeOfStart), Long.valueOf(timeOfStop), Long.valueOf(durationLimit), output,
+				Boolean.valueOf(feedbackavailable), switches };
+	}
+
+	/**
+	 * Restores the values which change while the user works on the assessment
+	 * 
+	 * @param state as returned by getJournalState()
+	 */
+	public void restoreJournalState(final Object[] state) {
+		currentSectionContextPos = ((Integer) state[0]).intValue();
+		timeOfStart = ((Long) state[1]).longValue();
+		timeOfStop = ((Long) state[2]).longValue();
+		durationLimit = ((Long) state[3]).longValue();
+		output = (Output) state[4];
+		feedbackavailable = ((Boolean) state[5]).booleanValue();
+		switches = (Switches) state[6];
+	}
+}
@@ -466,4 +466,29 @@ public class ItemContext implements Serializable {
 	public Item getQtiItem() {
 		return qtiItem;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @return the values which change while the user works on the item, used by the JournalingPersister
+	 */
+	public Object[] getJournalState() {
+		return new Object[] { variables, output, itemInput, Integer.valueOf(timesAnswered), Long.valueOf(timeOfStart), Long.valueOf(latestAnswerTime),
+				Long.valueOf(durationLimit), Boolean.valueOf(evalNeeded), Integer.valueOf(hintLevel) };
+	}
+
+	/**
+	 * Restores the values which change while the user works on the item
+	 * 
+	 * @param state as returned by getJournalState()
+	 */
+	public void restoreJournalState(final Object[] state) {
+		variables = (Variables) state[0];
+		output = (Output) state[1];
+		itemInput = (ItemInput) state[2];
+		timesAnswered = ((Integer) state[3]).intValue();
+		timeOfStart = ((Long) state[4]).longValue();
+		latestAnswerTime = ((Long) state[5]).longValue();
+		durationLimit = ((Long) state[6]).longValue();
+		evalNeeded = ((Boolean) state[7]).booleanValue();
+		hintLevel = ((Integer) state[8]).intValue();
+	}
+}
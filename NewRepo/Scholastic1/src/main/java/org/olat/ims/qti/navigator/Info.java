@@ -187,4 +187,27 @@ public class Info implements Serializable {
 		this.currentOutput = currentOutput;
 	}
 
+	/**
+	 * @return the state of the navigation, used by the JournalingPersister
+	 */
+	public Object[] getJournalState() {
+		return new Object[] { Integer.valueOf(status), Integer.valueOf(message), Integer.valueOf(error), Boolean.valueOf(renderItems), Boolean.valueOf(feedback),
+				Boolean.valueOf(hint), Boolean.valueOf(solution), currentOutput };
+	}
+
+	/**
+	 * Restores the state of the navigation
+	 * 
+	 * @param state as returned by getJournalState()
+	 */
+	public void restoreJournalState(final Object[] state) {
+		status = ((Integer) state[0]).intValue();
+		message = ((Integer) state[1]).intValue();
+		error = ((Integer) state[2]).intValue();
+		renderItems = ((Boolean) state[3]).booleanValue();
+		feedback = ((Boolean) state[4]).booleanValue();
+		hint = ((Boolean) state[5]).booleanValue();
+		solution = ((Boolean) state[6]).booleanValue();
+		currentOutput = (Output) state[7];
+	}
 }
@@ -25,6 +25,7 @@ import org.olat.core.id.Identity;
 import org.olat.core.logging.Tracing;
 import org.olat.core.util.CodeHelper;
 import org.olat.course.nodes.iq.IQEditController;
+import org.olat.ims.qti.QTIModule;
 import org.olat.modules.ModuleConfiguration;
 import org.olat.repository.RepositoryEntry;
 import org.olat.repository.RepositoryManager;
@@ -52,7 +53,11 @@ public class AssessmentFactory {
 
 		if (!preview) {
 			// try to resume the assessment instance
-			persister = new FilePersister(subj, resourcePathInfo);
+			if (QTIModule.isJournalingPersister()) {
+				persister = new JournalingPersister(subj, resourcePathInfo);
+			} else {
+				persister = new FilePersister(subj, resourcePathInfo);
+			}
 			ai = (AssessmentInstance) persister.toRAM();
 			if (ai == null) {
 				// nothing found => try with older V5.0 (shorter Repo-ID) as key
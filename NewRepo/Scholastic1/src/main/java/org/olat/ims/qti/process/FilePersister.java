@@ -50,7 +50,7 @@ import org.olat.ims.resources.IMSEntityResolver;
 public class FilePersister implements Persister {
 	private static final String QTI_SER = "qtiser";
 	private static final String RES_REPORTING = "resreporting";
-	private static final String QTI_FILE = "qti.ser";
+	protected static final String QTI_FILE = "qti.ser";
 	private final String subjectName;
 	private final String resourcePathInfo; // <Course_ID>/<Node_ID>
 
@@ -220,7 +220,7 @@ public class FilePersister implements Persister {
 	 * 
 	 * @return Full directory path
 	 */
-	private String getFullQtiPath() {
+	protected String getFullQtiPath() {
 		return WebappHelper.getUserDataRoot() + File.separator + QTI_SER + File.separator + resourcePathInfo + File.separator + subjectName;
 	}
 
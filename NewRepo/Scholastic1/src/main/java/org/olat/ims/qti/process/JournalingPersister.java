@@ -0,0 +1,346 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.ims.qti.process;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.olat.core.id.Identity;
+import org.olat.core.logging.OLATRuntimeException;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.FileUtils;
+import org.olat.ims.qti.container.AssessmentContext;
+import org.olat.ims.qti.container.ItemContext;
+import org.olat.ims.qti.container.SectionContext;
+
+/**
+ * Description:<br>
+ * Persister which does not serialize the whole test at every step. The qti.ser of the FilePersister is kept as snapshot and only the state of the items, sections,
+ * of the navigator and the marks and memos which changed since the last step is appended to a journal (qti.journal) next to it.
+ * <p>
+ * Every record of the journal is written as length, CRC32 and payload, the payload holds the changed parts as key and serialized state. The journal starts with the
+ * length and modification date of the snapshot it belongs to, a journal of another snapshot is ignored. When loading, the records are replayed onto the snapshot
+ * until the end of the file or the first broken record (the server crashed while writing it), which means a test is resumed with the last step which was written
+ * completely.
+ * <p>
+ * The snapshot is rewritten (and the journal started again) when the user enters another section or when the journal grows bigger than MAX_JOURNAL_SIZE. The
+ * structure of the test (sections, items, shuffling) never changes after the start, so the parts can be addressed by their position.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class JournalingPersister extends FilePersister {
+
+	static final String JOURNAL_FILE = "qti.journal";
+	/** "QJNL" **/
+	private static final int MAGIC = 0x514a4e4c;
+	/** compact the journal into a new snapshot if it gets bigger than this **/
+	static final long MAX_JOURNAL_SIZE = 1024 * 1024;
+
+	private static final String KEY_INSTANCE = "t";
+	private static final String KEY_ASSESSMENT = "a";
+	private static final String KEY_NAVIGATOR = "n";
+
+	/** CRC32 of the serialized state of every part as it is saved on disk **/
+	private final Map<String, Long> checksums = new HashMap<String, Long>();
+	/** the section which was current when the snapshot was written **/
+	private int snapshotSectionPos = -1;
+
+	/**
+	 * @param subj the user
+	 * @param resourcePathInfo path information e.g. <Course_ID>/<Node_ID>
+	 */
+	public JournalingPersister(final Identity subj, final String resourcePathInfo) {
+		super(subj, resourcePathInfo);
+	}
+
+	/**
+	 * Appends the parts of the test which changed since the last call to the journal, writes a new snapshot if needed.
+	 * 
+	 * @see org.olat.ims.qti.process.FilePersister#persist(java.lang.Object, java.lang.String)
+	 */
+	@Override
+	public void persist(final Object o, final String info) {
+		if (!(o instanceof AssessmentInstance)) {
+			super.persist(o, info);
+			return;
+		}
+		final AssessmentInstance ai = (AssessmentInstance) o;
+		final File fSerialDir = new File(getFullQtiPath());
+		final File journal = new File(fSerialDir, JOURNAL_FILE);
+		final int sectionPos = ai.getAssessmentContext().getCurrentSectionContextPos();
+		if (checksums.isEmpty() || sectionPos != snapshotSectionPos || !journal.exists() || journal.length() > MAX_JOURNAL_SIZE) {
+			writeSnapshot(ai, info);
+			return;
+		}
+
+		long start = -1;
+		final boolean debugOn = Tracing.isDebugEnabled(JournalingPersister.class);
+		if (debugOn) {
+			start = System.currentTimeMillis();
+		}
+		final Map<String, byte[]> parts = serializeParts(ai);
+		final Map<String, byte[]> changed = new LinkedHashMap<String, byte[]>();
+		final Map<String, Long> changedChecksums = new HashMap<String, Long>();
+		for (final Map.Entry<String, byte[]> part : parts.entrySet()) {
+			final Long checksum = Long.valueOf(crc(part.getValue(), 0, part.getValue().length));
+			if (!checksum.equals(checksums.get(part.getKey()))) {
+				changed.put(part.getKey(), part.getValue());
+				changedChecksums.put(part.getKey(), checksum);
+			}
+		}
+		if (changed.isEmpty()) { return; }
+
+		try {
+			appendRecord(journal, changed);
+		} catch (final IOException e) {
+			// the state on disk is not known anymore, the next step writes a new snapshot
+			checksums.clear();
+			throw new OLATRuntimeException(this.getClass(), "journal of test could not be saved to path:" + getFullQtiPath(), e);
+		}
+		checksums.putAll(changedChecksums);
+		if (debugOn) {
+			final long stop = System.currentTimeMillis();
+			Tracing.logDebug("time in ms to append " + changed.size() + " parts to ims qti journal:" + (stop - start), JournalingPersister.class);
+		}
+	}
+
+	/**
+	 * Loads the snapshot and replays the journal onto it.
+	 * 
+	 * @see org.olat.ims.qti.process.FilePersister#toRAM()
+	 */
+	@Override
+	public Object toRAM() {
+		final Object o = super.toRAM();
+		checksums.clear();
+		snapshotSectionPos = -1;
+		if (!(o instanceof AssessmentInstance)) { return o; }
+		final AssessmentInstance ai = (AssessmentInstance) o;
+		final File fSerialDir = new File(getFullQtiPath());
+		final File snapshot = new File(fSerialDir, QTI_FILE);
+		final File journal = new File(fSerialDir, JOURNAL_FILE);
+		if (journal.exists()) {
+			replay(ai, snapshot, journal);
+		}
+		// the in-memory state is now what is on disk, but the next step writes a new snapshot
+		// if the journal belonged to another snapshot or was broken
+		for (final Map.Entry<String, byte[]> part : serializeParts(ai).entrySet()) {
+			checksums.put(part.getKey(), Long.valueOf(crc(part.getValue(), 0, part.getValue().length)));
+		}
+		snapshotSectionPos = ai.getAssessmentContext().getCurrentSectionContextPos();
+		return ai;
+	}
+
+	private void writeSnapshot(final AssessmentInstance ai, final String info) {
+		checksums.clear();
+		final File fSerialDir = new File(getFullQtiPath());
+		final File snapshot = new File(fSerialDir, QTI_FILE);
+		final File journal = new File(fSerialDir, JOURNAL_FILE);
+		// a crash before the new journal is started must not leave the old one next to the new snapshot
+		journal.delete();
+		super.persist(ai, info);
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(FileUtils.getBos(new FileOutputStream(journal)));
+			out.writeInt(MAGIC);
+			out.writeLong(snapshot.length());
+			out.writeLong(snapshot.lastModified());
+			out.close();
+		} catch (final IOException e) {
+			FileUtils.closeSafely(out);
+			throw new OLATRuntimeException(this.getClass(), "journal of test could not be started at path:" + getFullQtiPath(), e);
+		}
+		for (final Map.Entry<String, byte[]> part : serializeParts(ai).entrySet()) {
+			checksums.put(part.getKey(), Long.valueOf(crc(part.getValue(), 0, part.getValue().length)));
+		}
+		snapshotSectionPos = ai.getAssessmentContext().getCurrentSectionContextPos();
+	}
+
+	static void appendRecord(final File journal, final Map<String, byte[]> changed) throws IOException {
+		final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+		final DataOutputStream pout = new DataOutputStream(payload);
+		pout.writeInt(changed.size());
+		for (final Map.Entry<String, byte[]> part : changed.entrySet()) {
+			pout.writeUTF(part.getKey());
+			pout.writeInt(part.getValue().length);
+			pout.write(part.getValue());
+		}
+		pout.close();
+		final byte[] bytes = payload.toByteArray();
+
+		final ByteArrayOutputStream record = new ByteArrayOutputStream(bytes.length + 12);
+		final DataOutputStream rout = new DataOutputStream(record);
+		rout.writeInt(bytes.length);
+		rout.writeLong(crc(bytes, 0, bytes.length));
+		rout.write(bytes);
+		rout.close();
+
+		final FileOutputStream fout = new FileOutputStream(journal, true);
+		try {
+			// one write per record, a crash leaves at most the last record incomplete
+			fout.write(record.toByteArray());
+		} finally {
+			fout.close();
+		}
+	}
+
+	private void replay(final AssessmentInstance ai, final File snapshot, final File journal) {
+		DataInputStream in = null;
+		int records = 0;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(journal)));
+			if (in.readInt() != MAGIC || in.readLong() != snapshot.length() || in.readLong() != snapshot.lastModified()) {
+				Tracing.logWarn("journal does not belong to the snapshot, ignored: " + journal.getAbsolutePath(), JournalingPersister.class);
+				return;
+			}
+			while (true) {
+				final Map<String, byte[]> parts = readRecord(in);
+				if (parts == null) {
+					break;
+				}
+				for (final Map.Entry<String, byte[]> part : parts.entrySet()) {
+					restorePart(ai, part.getKey(), (Object[]) deserialize(part.getValue()));
+				}
+				records++;
+			}
+		} catch (final Exception e) {
+			Tracing.logWarn("journal replayed up to record " + records + ", the rest is broken: " + journal.getAbsolutePath(), e, JournalingPersister.class);
+		} finally {
+			FileUtils.closeSafely(in);
+		}
+	}
+
+	/**
+	 * @param in
+	 * @return the parts of the next record or null at the end of the journal
+	 * @throws IOException if the record is truncated or its checksum is wrong
+	 */
+	static Map<String, byte[]> readRecord(final DataInputStream in) throws IOException {
+		final int length;
+		try {
+			length = in.readInt();
+		} catch (final EOFException e) {
+			return null;
+		}
+		final long checksum = in.readLong();
+		if (length < 0 || length > MAX_JOURNAL_SIZE * 4) { throw new IOException("invalid record length: " + length); }
+		final byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		if (crc(bytes, 0, length) != checksum) { throw new IOException("checksum of record does not match"); }
+
+		final DataInputStream pin = new DataInputStream(new ByteArrayInputStream(bytes));
+		final int count = pin.readInt();
+		final Map<String, byte[]> parts = new LinkedHashMap<String, byte[]>();
+		for (int i = 0; i < count; i++) {
+			final String key = pin.readUTF();
+			final byte[] part = new byte[pin.readInt()];
+			pin.readFully(part);
+			parts.put(key, part);
+		}
+		return parts;
+	}
+
+	/**
+	 * @param ai
+	 * @return the serialized journal state of every part of the test, keyed by "t" (marks, memos of the instance), "a" (assessment), "n" (navigator), "s<i>"
+	 *         (section) and "s<i>i<j>" (item)
+	 */
+	static Map<String, byte[]> serializeParts(final AssessmentInstance ai) {
+		final Map<String, byte[]> parts = new LinkedHashMap<String, byte[]>();
+		final AssessmentContext ac = ai.getAssessmentContext();
+		parts.put(KEY_INSTANCE, serialize(ai.getJournalState()));
+		parts.put(KEY_ASSESSMENT, serialize(ac.getJournalState()));
+		parts.put(KEY_NAVIGATOR, serialize(ai.getNavigator().getInfo().getJournalState()));
+		for (int i = 0; i < ac.getSectionContextCount(); i++) {
+			final SectionContext sc = ac.getSectionContext(i);
+			parts.put("s" + i, serialize(sc.getJournalState()));
+			for (int j = 0; j < sc.getItemContextCount(); j++) {
+				parts.put("s" + i + "i" + j, serialize(sc.getItemContext(j).getJournalState()));
+			}
+		}
+		return parts;
+	}
+
+	private static void restorePart(final AssessmentInstance ai, final String key, final Object[] state) {
+		final AssessmentContext ac = ai.getAssessmentContext();
+		if (KEY_INSTANCE.equals(key)) {
+			ai.restoreJournalState(state);
+		} else if (KEY_ASSESSMENT.equals(key)) {
+			ac.restoreJournalState(state);
+		} else if (KEY_NAVIGATOR.equals(key)) {
+			ai.getNavigator().getInfo().restoreJournalState(state);
+		} else {
+			final int itemSep = key.indexOf('i');
+			final int sectionPos = Integer.parseInt(itemSep < 0 ? key.substring(1) : key.substring(1, itemSep));
+			final SectionContext sc = ac.getSectionContext(sectionPos);
+			if (itemSep < 0) {
+				sc.restoreJournalState(state);
+			} else {
+				final ItemContext ic = sc.getItemContext(Integer.parseInt(key.substring(itemSep + 1)));
+				ic.restoreJournalState(state);
+			}
+		}
+	}
+
+	private static byte[] serialize(final Object[] state) {
+		try {
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+			final ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(state);
+			out.close();
+			return bytes.toByteArray();
+		} catch (final IOException e) {
+			throw new OLATRuntimeException(JournalingPersister.class, "state of test could not be serialized", e);
+		}
+	}
+
+	private static Object deserialize(final byte[] bytes) throws IOException, ClassNotFoundException {
+		final InputStream in = new ByteArrayInputStream(bytes);
+		final ObjectInputStream oin = new ObjectInputStream(in);
+		try {
+			return oin.readObject();
+		} finally {
+			oin.close();
+		}
+	}
+
+	private static long crc(final byte[] bytes, final int off, final int len) {
+		final CRC32 crc = new CRC32();
+		crc.update(bytes, off, len);
+		return crc.getValue();
+	}
+}
@@ -21,6 +21,7 @@
 
 package org.olat.ims.qti.process;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
@@ -37,7 +38,6 @@ import org.olat.core.util.ObjectCloner;
 import org.olat.core.util.cache.n.CacheWrapper;
 import org.olat.core.util.coordinate.CoordinatorManager;
 import org.olat.core.util.vfs.LocalFileImpl;
-import org.olat.core.util.vfs.LocalFolderImpl;
 import org.olat.core.util.xml.XMLParser;
 import org.olat.ims.qti.container.DecimalVariable;
 import org.olat.ims.qti.container.Variable;
@@ -76,6 +76,13 @@ public class QTIHelper {
 
 	private static CacheWrapper ehCachLoadedQTIDocs = CoordinatorManager.getInstance().getCoordinator().getCacher()
 			.getOrCreateCache(QTIHelper.class, "QTI_xml_Documents");
+	/** striped locks, so that not every user starting the same test parses the file **/
+	private static final Object[] DOCUMENT_LOAD_LOCKS = new Object[32];
+	static {
+		for (int i = 0; i < DOCUMENT_LOAD_LOCKS.length; i++) {
+			DOCUMENT_LOAD_LOCKS[i] = new Object();
+		}
+	}
 	/**
 	 * 
 	 */
@@ -385,26 +392,40 @@ public class QTIHelper {
 	}
 
 	/**
-	 * give the hint if the document should be cached or not.
+	 * Returns a private copy of the document, the caller may change it.
 	 * 
-	 * @see QTIHelper#getDocument(LocalFileImpl)
+	 * @see QTIHelper#getSharedDocument(LocalFileImpl)
 	 * @param pathToXml
-	 * @param useCache
-	 * @return
+	 * @return the parsed document or null if the file does not exist or could not be parsed
 	 */
 	public static Document getDocument(final LocalFileImpl pathToXml) {
+		final Document doc = getSharedDocument(pathToXml);
+		if (doc == null) { return null; }
+		// we do not know if the receiver is destructive -> protect the cached entry
+		return (Document) doc.clone();
+	}
 
-		final boolean isDebugEnabled = log.isDebugEnabled();
-		long debugEnabledTime = 0;
-
-		Document doc = null;
+	/**
+	 * Returns the parsed document shared by all users of this file on this node, e.g. all users starting the same test. The document is cached as long as the
+	 * file is not modified (last modification date and size), <b>it must be treated as read-only</b>: elements must not be changed, detached or added to other
+	 * documents (use createCopy()), use getDocument() to get a copy which may be changed.
+	 * <p>
+	 * When many users start the same test at the same time, only one of them parses the file, the others wait for it.
+	 * 
+	 * @param pathToXml
+	 * @return the parsed document or null if the file does not exist or could not be parsed
+	 */
+	public static Document getSharedDocument(final LocalFileImpl pathToXml) {
 		if (pathToXml == null) {
 			// xml file does not exist!
 			return null;
 		}
-		// get lastmodified to see if the file is newer than the cache entry and we thus need to reload it.
-		final Long lmf = Long.valueOf(pathToXml.getLastModified());
-		final String key = ((LocalFolderImpl) pathToXml.getParentContainer()).getBasefile().getAbsolutePath();
+		final boolean isDebugEnabled = log.isDebugEnabled();
+		long debugEnabledTime = 0;
+
+		final String key = getDocumentCacheKey(pathToXml.getBasefile());
+		// last modified and size to see if the file is newer than the cache entry and we thus need to reload it.
+		final String version = pathToXml.getLastModified() + "-" + pathToXml.getSize();
 
 		// debug info
 		if (isDebugEnabled) {
@@ -413,19 +434,13 @@ public class QTIHelper {
 			log.debug("[" + debugEnabledTime + "] getDocument(..) for [[" + key + "]]");
 			log.debug("[" + debugEnabledTime + "] file size is " + pathToXml.getSize());
 		}
-		// Object[] tuple = (Object[]) (EHCacheManager.getInstance().get(ehCachLoadedQTIDocs, key));
-		final Object[] tuple = (Object[]) (ehCachLoadedQTIDocs.get(key));
+		Document doc = getCachedDocument(key, version);
+		if (doc != null) { return doc; }
 
-		if (tuple != null && ((Long) tuple[0]).compareTo(lmf) == 0) {
-			// in cache and not modified
-			doc = (Document) tuple[1];
-			Tracing.logAudit("Document Cache Hit for [[" + key + "]]", QTIHelper.class);
-			if (isDebugEnabled) {
-				log.debug("[" + debugEnabledTime + "] Document comes from EHCache!");
-				log.debug("[" + debugEnabledTime + "] Document approx Mem usage " + ObjectCloner.getObjectSize(doc));
-			}
-
-		} else {
+		// only one thread per file parses it, the others find it in the cache afterwards
+		synchronized (DOCUMENT_LOAD_LOCKS[(key.hashCode() & 0x7fffffff) % DOCUMENT_LOAD_LOCKS.length]) {
+			doc = getCachedDocument(key, version);
+			if (doc != null) { return doc; }
 			// load it: either not in cache anymore or modified in the meantime
 			doc = getDocument(pathToXml.getInputStream());
 			if (doc == null) {
@@ -433,23 +448,55 @@ public class QTIHelper {
 				log.debug("[" + debugEnabledTime + "] Document could not be parsed, return null!");
 				return null;
 			}
+			// the lists of dom4j are created lazily at the first read, create them now so
+			// that readers of the shared document never write into it
+			initLazyLists(doc.getRootElement());
 			// add or replace the document in the cache
-			// EHCacheManager.getInstance().putInCache(ehCachLoadedQTIDocs, key, new Object[] { lmf, doc });
+			ehCachLoadedQTIDocs.put(key, new Object[] { version, doc });
+		}
+		Tracing.logAudit("load, parse and cache Document for [[" + key + "]]", QTIHelper.class);
+		if (isDebugEnabled) {
+			log.debug("[" + debugEnabledTime + "] Document loaded, parsed and put into cache!");
+			log.debug("[" + debugEnabledTime + "] Document approx Mem usage " + ObjectCloner.getObjectSize(doc));
+		}
+		return doc;
+	}
 
-			// we use a putSilent here (no invalidation notifications to other cluster nodes), since
-			// we did not generate new data, but simply asked to reload it.
-			ehCachLoadedQTIDocs.put(key, new Object[] { lmf, doc });
-			Tracing.logAudit("load, parse and cache Document for [[" + key + "]]", QTIHelper.class);
+	/**
+	 * Removes the parsed document of this file from the cache of all cluster nodes, to be called when the file is replaced (e.g. when the QTI editor saves the
+	 * package). Modified files are detected anyway, but the old document would stay in the cache until it expires.
+	 * 
+	 * @param xmlFile
+	 */
+	public static void removeCachedDocument(final File xmlFile) {
+		ehCachLoadedQTIDocs.remove(getDocumentCacheKey(xmlFile));
+	}
+
+	private static String getDocumentCacheKey(final File xmlFile) {
+		return xmlFile.getAbsolutePath();
+	}
 
-			if (isDebugEnabled) {
-				log.debug("[" + debugEnabledTime + "] Document loaded, parsed and put into cache!");
-				log.debug("[" + debugEnabledTime + "] Document approx Mem usage " + ObjectCloner.getObjectSize(doc));
+	private static Document getCachedDocument(final String key, final String version) {
+		final Object[] tuple = (Object[]) (ehCachLoadedQTIDocs.get(key));
+		if (tuple != null && version.equals(tuple[0])) {
+			// in cache and not modified
+			if (log.isDebugEnabled()) {
+				log.debug("Document Cache Hit for [[" + key + "]]");
 			}
+			return (Document) tuple[1];
+		}
+		return null;
+	}
 
+	private static void initLazyLists(final Element element) {
+		element.attributes();
+		final List content = element.content();
+		for (final Iterator iter = content.iterator(); iter.hasNext();) {
+			final Object node = iter.next();
+			if (node instanceof Element) {
+				initLazyLists((Element) node);
+			}
 		}
-		// we do not know if the receiver is destructive -> protect the cached entry
-		// return the uncached doc if it is not chached.
-		return (Document) ObjectCloner.deepCopy(doc);
 	}
 
 	/**
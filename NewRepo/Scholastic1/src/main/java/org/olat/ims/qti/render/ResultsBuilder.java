@@ -95,8 +95,9 @@ public class ResultsBuilder {
 			final int itemcnt = sc.getItemContextCount();
 			for (int j = 0; j < itemcnt; j++) {
 				final ItemContext it = sc.getItemContext(j);
+				// the item may belong to the document shared by all users of the test
 				final Element el_item = it.getEl_item();
-				extension_result.add(el_item);
+				extension_result.add(el_item.getParent() == null ? el_item : el_item.createCopy());
 			}
 		}
 
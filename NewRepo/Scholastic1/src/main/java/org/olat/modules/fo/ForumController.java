@@ -1341,11 +1341,7 @@ public class ForumController extends BasicController implements GenericEventList
 	}
 
 	private Set<Long> getReadSet(final Identity s) {
-		// FIXME:fj:c put the whole readset of 1 user / 1 forum in one property
-		// only: 234,45646,2343,23432 etc.
-		// Problem now is that a lot of rows are generated: number of users x
-		// visited messages of all forums = e.g. 5000 x 300 = 1.5 million etc.
-
+		// one ForumReadState per user and forum, see ForumManager
 		return ForumManager.getInstance().getReadSet(s, forum);
 	}
 
@@ -24,10 +24,11 @@ package org.olat.modules.fo;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import org.hibernate.Hibernate;
@@ -43,6 +44,7 @@ import org.olat.core.id.Identity;
 import org.olat.core.id.OLATResourceable;
 import org.olat.core.logging.AssertException;
 import org.olat.core.manager.BasicManager;
+import org.olat.core.util.cache.n.CacheWrapper;
 import org.olat.core.util.coordinate.CoordinatorManager;
 import org.olat.core.util.resource.OresHelper;
 import org.olat.core.util.vfs.VFSContainer;
@@ -57,8 +59,14 @@ import org.springframework.stereotype.Service;
 public class ForumManager extends BasicManager {
 
 	private static ForumManager INSTANCE;
+	/** messages younger than this are never covered by the high-water mark of a ForumReadState **/
+	private static final long READ_STATE_SAFETY_MARGIN = 10 * 60 * 1000;
+	/** a ForumReadState is compacted every time this number of read keys above its high-water mark is reached **/
+	private static final int READ_STATE_COMPACTION_INTERVAL = 32;
 	@Autowired
 	private TextService txtService;
+	private CacheWrapper readStateCache;
+	private final Object readStateCacheLock = new Object();
 
 	/**
 	 * [spring]
@@ -153,17 +161,14 @@ public class ForumManager extends BasicManager {
 	}
 
 	/**
-	 * Implementation with one entry per message.
+	 * Served from the ForumReadState of the identity and the forum.
 	 * 
 	 * @param identity
 	 * @param forumkey
 	 * @return number of read messages
 	 */
 	public int countReadMessagesByUserAndForum(final Identity identity, final Long forumkey) {
-		final List<ReadMessage> itemList = DBFactory.getInstance().find(
-				"select msg from msg in class org.olat.modules.fo.ReadMessageImpl where msg.identity = ? and msg.forum = ?",
-				new Object[] { identity.getKey(), forumkey }, new Type[] { Hibernate.LONG, Hibernate.LONG });
-		return itemList.size();
+		return getReadSet(identity.getKey(), forumkey).size();
 	}
 
 	/**
@@ -230,6 +235,7 @@ public class ForumManager extends BasicManager {
 		final DB db = DBFactory.getInstance();
 		// delete read messsages
 		db.delete("from readMsg in class org.olat.modules.fo.ReadMessageImpl where readMsg.forum = ? ", forumKey, Hibernate.LONG);
+		db.delete("from readState in class org.olat.modules.fo.ReadMessageStateImpl where readState.forumKey = ? ", forumKey, Hibernate.LONG);
 		// delete messages
 		db.delete("from message in class org.olat.modules.fo.MessageImpl where message.forum = ?", forumKey, Hibernate.LONG);
 		// delete forum
@@ -564,21 +570,40 @@ public class ForumManager extends BasicManager {
 	 * @return a set with the read messages keys for the input identity and forum.
 	 */
 	public Set<Long> getReadSet(final Identity identity, final Forum forum) {
-		final List<ReadMessage> itemList = DBFactory.getInstance().find(
-				"select msg from msg in class org.olat.modules.fo.ReadMessageImpl where msg.identity = ? and msg.forum = ?",
-				new Object[] { identity.getKey(), forum.getKey() }, new Type[] { Hibernate.LONG, Hibernate.LONG });
+		return getReadSet(identity.getKey(), forum.getKey());
+	}
 
-		final Set<Long> readSet = new HashSet<Long>();
-		final Iterator<ReadMessage> listIterator = itemList.iterator();
-		while (listIterator.hasNext()) {
-			final Long msgKey = listIterator.next().getMessage().getKey();
-			readSet.add(msgKey);
+	/**
+	 * Compute the read set from the ForumReadState and the keys and creation dates of the messages of the forum (no message is loaded as hibernate object).
+	 */
+	private Set<Long> getReadSet(final Long identityKey, final Long forumKey) {
+		final List<Object[]> keysAndDates = getMessageKeysAndDates(forumKey);
+		final long[] messageKeys = new long[keysAndDates.size()];
+		final long[] creationTimes = new long[keysAndDates.size()];
+		fillKeysAndTimes(keysAndDates, messageKeys, creationTimes);
+		return getReadState(identityKey, forumKey).getReadSet(messageKeys, creationTimes);
+	}
+
+	private void fillKeysAndTimes(final List<Object[]> keysAndDates, final long[] messageKeys, final long[] creationTimes) {
+		for (int i = 0; i < messageKeys.length; i++) {
+			final Object[] keyAndDate = keysAndDates.get(i);
+			messageKeys[i] = ((Long) keyAndDate[0]).longValue();
+			creationTimes[i] = ((Date) keyAndDate[1]).getTime();
 		}
-		return readSet;
 	}
 
 	/**
-	 * Implementation with one entry per forum message. Adds a new entry into the ReadMessage for the input message and identity.
+	 * @return key and creation date of the messages of the forum, ordered by creation date
+	 */
+	private List<Object[]> getMessageKeysAndDates(final Long forumKey) {
+		return DBFactory.getInstance().find(
+				"select msg.key, msg.creationDate from org.olat.modules.fo.MessageImpl as msg where msg.forum.key = ? order by msg.creationDate, msg.key", forumKey,
+				Hibernate.LONG);
+	}
+
+	/**
+	 * Marks the message as read in the ForumReadState of the identity and the forum. Every READ_STATE_COMPACTION_INTERVAL read keys the state is compacted with
+	 * the messages of the forum before it is saved.
 	 * 
 	 * @param msg
 	 * @param identity
@@ -587,12 +612,162 @@ public class ForumManager extends BasicManager {
 		// Check if the message was not already deleted
 		final Message retrievedMessage = findMessage(msg.getKey());
 		if (retrievedMessage != null) {
-			final ReadMessageImpl readMessage = new ReadMessageImpl();
-			readMessage.setIdentity(identity);
-			readMessage.setMessage(msg);
-			readMessage.setForum(msg.getForum());
-			DBFactory.getInstance().saveObject(readMessage);
+			final Long forumKey = retrievedMessage.getForum().getKey();
+			final ForumReadState state = getReadState(identity.getKey(), forumKey);
+			if (state.markRead(retrievedMessage.getKey().longValue(), retrievedMessage.getCreationDate().getTime())) {
+				if (state.getReadKeysCount() % READ_STATE_COMPACTION_INTERVAL == 0) {
+					compactReadState(forumKey, state);
+				}
+				saveReadState(identity.getKey(), forumKey, state);
+			}
+		}
+	}
+
+	private void compactReadState(final Long forumKey, final ForumReadState state) {
+		final List<Object[]> keysAndDates = getMessageKeysAndDates(forumKey);
+		final long[] messageKeys = new long[keysAndDates.size()];
+		final long[] creationTimes = new long[keysAndDates.size()];
+		fillKeysAndTimes(keysAndDates, messageKeys, creationTimes);
+		state.compact(messageKeys, creationTimes, System.currentTimeMillis() - READ_STATE_SAFETY_MARGIN);
+	}
+
+	/**
+	 * @return the cached read state or the persisted one or a new one
+	 */
+	private ForumReadState getReadState(final Long identityKey, final Long forumKey) {
+		final String cacheKey = getReadStateCacheKey(identityKey, forumKey);
+		ForumReadState state = (ForumReadState) getReadStateCache().get(cacheKey);
+		if (state == null) {
+			state = loadReadState(identityKey, forumKey);
+			getReadStateCache().put(cacheKey, state);
+		}
+		return state;
+	}
+
+	ForumReadState loadReadState(final Long identityKey, final Long forumKey) {
+		final ReadMessageStateImpl row = loadReadStateRow(identityKey, forumKey);
+		return row == null ? new ForumReadState() : row.toReadState();
+	}
+
+	/**
+	 * @return the row of the read state, rows created concurrently on two cluster nodes are merged into the first one. Null if there is no row.
+	 */
+	private ReadMessageStateImpl loadReadStateRow(final Long identityKey, final Long forumKey) {
+		final DB db = DBFactory.getInstance();
+		final List<ReadMessageStateImpl> rows = db.find(
+				"select state from org.olat.modules.fo.ReadMessageStateImpl as state where state.identityKey = ? and state.forumKey = ? order by state.key",
+				new Object[] { identityKey, forumKey }, new Type[] { Hibernate.LONG, Hibernate.LONG });
+		if (rows.isEmpty()) { return null; }
+		final ReadMessageStateImpl row = rows.get(0);
+		if (rows.size() > 1) {
+			final ForumReadState state = row.toReadState();
+			for (int i = 1; i < rows.size(); i++) {
+				state.merge(rows.get(i).toReadState());
+				db.deleteObject(rows.get(i));
+			}
+			updateReadStateRow(row, state);
+		}
+		return row;
+	}
+
+	/**
+	 * Merge the persisted read state into the given one and write the result to the row (or create it), then update the cache. The given state may be an older
+	 * copy (e.g. cached before another cluster node saved the row), the messages read meanwhile are kept.
+	 */
+	void saveReadState(final Long identityKey, final Long forumKey, final ForumReadState state) {
+		final DB db = DBFactory.getInstance();
+		ReadMessageStateImpl row = null;
+		if (state.getKey() != null) {
+			row = (ReadMessageStateImpl) db.findObject(ReadMessageStateImpl.class, state.getKey());
+		}
+		if (row == null) {
+			// not saved yet by this state, or the row was merged into another one
+			row = loadReadStateRow(identityKey, forumKey);
+		}
+		if (row == null) {
+			row = new ReadMessageStateImpl(identityKey, forumKey);
+			row.setHighWaterMark(state.getHighWaterMark());
+			row.setReadKeys(state.encodeReadKeys());
+			row.setLastModified(new Date());
+			db.saveObject(row);
+		} else {
+			state.merge(row.toReadState());
+			updateReadStateRow(row, state);
+		}
+		state.setKey(row.getKey());
+		getReadStateCache().update(getReadStateCacheKey(identityKey, forumKey), state);
+	}
+
+	private void updateReadStateRow(final ReadMessageStateImpl row, final ForumReadState state) {
+		row.setHighWaterMark(state.getHighWaterMark());
+		row.setReadKeys(state.encodeReadKeys());
+		row.setLastModified(new Date());
+		DBFactory.getInstance().updateObject(row);
+	}
+
+	private String getReadStateCacheKey(final Long identityKey, final Long forumKey) {
+		return identityKey + "_" + forumKey;
+	}
+
+	private CacheWrapper getReadStateCache() {
+		synchronized (readStateCacheLock) { // cluster_ok only the handle to the cluster wide cache
+			if (readStateCache == null) {
+				readStateCache = CoordinatorManager.getInstance().getCoordinator().getCacher().getOrCreateCache(ForumManager.class, "readstate");
+			}
+			return readStateCache;
+		}
+	}
+
+	/**
+	 * Fold the ReadMessage rows (one row per identity and read message) of a forum into the ForumReadState of every identity and delete the rows. Can be called
+	 * more than once for the same forum.
+	 * 
+	 * @param forumKey
+	 * @return the number of folded rows
+	 */
+	public int foldReadMessages(final Long forumKey) {
+		final DB db = DBFactory.getInstance();
+		final List<Object[]> readMessages = db.find(
+				"select readMsg.identity.key, readMsg.message.key from org.olat.modules.fo.ReadMessageImpl as readMsg where readMsg.forum.key = ?", forumKey,
+				Hibernate.LONG);
+		if (readMessages.isEmpty()) { return 0; }
+
+		final List<Object[]> keysAndDates = getMessageKeysAndDates(forumKey);
+		final Map<Long, Long> creationTimes = new HashMap<Long, Long>();
+		for (final Object[] keyAndDate : keysAndDates) {
+			creationTimes.put((Long) keyAndDate[0], Long.valueOf(((Date) keyAndDate[1]).getTime()));
 		}
+		final Map<Long, ForumReadState> states = new HashMap<Long, ForumReadState>();
+		for (final Object[] readMessage : readMessages) {
+			final Long identityKey = (Long) readMessage[0];
+			final Long messageKey = (Long) readMessage[1];
+			final Long creationTime = creationTimes.get(messageKey);
+			if (creationTime == null) {
+				// message deleted
+				continue;
+			}
+			ForumReadState state = states.get(identityKey);
+			if (state == null) {
+				state = loadReadState(identityKey, forumKey);
+				states.put(identityKey, state);
+			}
+			state.markRead(messageKey.longValue(), creationTime.longValue());
+		}
+
+		final long[] messageKeys = new long[keysAndDates.size()];
+		final long[] messageTimes = new long[keysAndDates.size()];
+		for (int i = 0; i < messageKeys.length; i++) {
+			messageKeys[i] = ((Long) keysAndDates.get(i)[0]).longValue();
+			messageTimes[i] = ((Date) keysAndDates.get(i)[1]).getTime();
+		}
+		final long maxHighWaterMark = System.currentTimeMillis() - READ_STATE_SAFETY_MARGIN;
+		for (final Map.Entry<Long, ForumReadState> entry : states.entrySet()) {
+			final ForumReadState state = entry.getValue();
+			state.compact(messageKeys, messageTimes, maxHighWaterMark);
+			saveReadState(entry.getKey(), forumKey, state);
+		}
+		db.delete("from readMsg in class org.olat.modules.fo.ReadMessageImpl where readMsg.forum = ? ", forumKey, Hibernate.LONG);
+		return readMessages.size();
 	}
 
 	/**
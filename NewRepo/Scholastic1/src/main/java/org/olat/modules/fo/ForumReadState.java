@@ -0,0 +1,241 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.modules.fo;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Description:<br>
+ * Compact read state of one identity in one forum, replaces the ReadMessage rows with one row per identity and forum.
+ * <p>
+ * All messages created until the high-water mark are read. The messages created after the high-water mark which are read are kept as sorted set of message
+ * keys, persisted delta encoded (base 36). The high-water mark is a creation time and not a message key since the hilo generated keys of a cluster are not in
+ * creation order. When the state is compacted (by the ForumManager when a message is marked as read, every few read keys) the high-water mark is moved forward
+ * over the oldest messages which are all read and their keys are removed from the set, keys of deleted messages are dropped. The high-water mark is never
+ * moved over messages younger than a safety margin, a message created by a cluster node with a slightly different clock or committed late must not be
+ * considered as read.
+ * <p>
+ * The state is cached per identity and forum and is thread-safe.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class ForumReadState implements Serializable {
+
+	private static final long serialVersionUID = 4281934672104539917L;
+
+	private static final long[] NO_KEYS = new long[0];
+	private static final char SEPARATOR = ',';
+	private static final int RADIX = Character.MAX_RADIX;
+
+	/** key of the persisted ReadMessageStateImpl, null if not yet persisted **/
+	private Long key;
+	private long highWaterMark;
+	private long[] readKeys;
+
+	public ForumReadState() {
+		this(null, 0, NO_KEYS);
+	}
+
+	ForumReadState(final Long key, final long highWaterMark, final long[] readKeys) {
+		this.key = key;
+		this.highWaterMark = highWaterMark;
+		this.readKeys = readKeys;
+	}
+
+	synchronized Long getKey() {
+		return key;
+	}
+
+	synchronized void setKey(final Long key) {
+		this.key = key;
+	}
+
+	/**
+	 * @return the creation time until which all messages are read
+	 */
+	public synchronized long getHighWaterMark() {
+		return highWaterMark;
+	}
+
+	/**
+	 * @return the number of keys of read messages above the high-water mark
+	 */
+	public synchronized int getReadKeysCount() {
+		return readKeys.length;
+	}
+
+	/**
+	 * @param messageKey
+	 * @param creationTime
+	 * @return true if the message has been read
+	 */
+	public synchronized boolean isRead(final long messageKey, final long creationTime) {
+		return creationTime <= highWaterMark || Arrays.binarySearch(readKeys, messageKey) >= 0;
+	}
+
+	/**
+	 * @param messageKey
+	 * @param creationTime
+	 * @return true if the state has changed, false if the message had already been read
+	 */
+	public synchronized boolean markRead(final long messageKey, final long creationTime) {
+		if (creationTime <= highWaterMark) { return false; }
+		final int pos = Arrays.binarySearch(readKeys, messageKey);
+		if (pos >= 0) { return false; }
+		final int insert = -pos - 1;
+		final long[] newKeys = new long[readKeys.length + 1];
+		System.arraycopy(readKeys, 0, newKeys, 0, insert);
+		newKeys[insert] = messageKey;
+		System.arraycopy(readKeys, insert, newKeys, insert + 1, readKeys.length - insert);
+		readKeys = newKeys;
+		return true;
+	}
+
+	/**
+	 * @param messageKeys the keys of all messages of the forum
+	 * @param creationTimes the creation times of the messages, same order as the keys
+	 * @return the keys of the read messages
+	 */
+	public synchronized Set<Long> getReadSet(final long[] messageKeys, final long[] creationTimes) {
+		final Set<Long> readSet = new HashSet<Long>();
+		for (int i = 0; i < messageKeys.length; i++) {
+			if (isRead(messageKeys[i], creationTimes[i])) {
+				readSet.add(Long.valueOf(messageKeys[i]));
+			}
+		}
+		return readSet;
+	}
+
+	/**
+	 * Move the high-water mark forward over the oldest messages which are all read and drop the keys which are below the high-water mark or belong to deleted
+	 * messages.
+	 * 
+	 * @param messageKeys the keys of all messages of the forum, ordered by creation time
+	 * @param creationTimes the creation times of the messages, ascending
+	 * @param maxHighWaterMark the high-water mark is not moved after this time
+	 * @return true if the state has changed
+	 */
+	public synchronized boolean compact(final long[] messageKeys, final long[] creationTimes, final long maxHighWaterMark) {
+		long newHighWaterMark = highWaterMark;
+		for (int i = 0; i < messageKeys.length; i++) {
+			final long creationTime = creationTimes[i];
+			if (creationTime <= highWaterMark) {
+				continue;
+			}
+			if (creationTime > maxHighWaterMark || Arrays.binarySearch(readKeys, messageKeys[i]) < 0) {
+				break;
+			}
+			// only after the last of the messages with the same creation time
+			if (i + 1 == messageKeys.length || creationTimes[i + 1] != creationTime) {
+				newHighWaterMark = creationTime;
+			}
+		}
+
+		final long[] existingKeys = new long[readKeys.length];
+		int count = 0;
+		for (int i = 0; i < messageKeys.length; i++) {
+			if (creationTimes[i] > newHighWaterMark && Arrays.binarySearch(readKeys, messageKeys[i]) >= 0) {
+				existingKeys[count++] = messageKeys[i];
+			}
+		}
+		if (newHighWaterMark == highWaterMark && count == readKeys.length) { return false; }
+		final long[] newKeys = new long[count];
+		System.arraycopy(existingKeys, 0, newKeys, 0, count);
+		Arrays.sort(newKeys);
+		highWaterMark = newHighWaterMark;
+		readKeys = newKeys;
+		return true;
+	}
+
+	/**
+	 * @return the read keys delta encoded, e.g. "2n9ix,1,3,a"
+	 */
+	public synchronized String encodeReadKeys() {
+		final StringBuilder sb = new StringBuilder(readKeys.length * 3);
+		long previous = 0;
+		for (int i = 0; i < readKeys.length; i++) {
+			if (i > 0) {
+				sb.append(SEPARATOR);
+			}
+			sb.append(Long.toString(readKeys[i] - previous, RADIX));
+			previous = readKeys[i];
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @param encoded as returned by encodeReadKeys()
+	 * @return the sorted keys
+	 */
+	public static long[] decodeReadKeys(final String encoded) {
+		if (encoded == null || encoded.length() == 0) { return NO_KEYS; }
+		int count = 1;
+		for (int i = 0; i < encoded.length(); i++) {
+			if (encoded.charAt(i) == SEPARATOR) {
+				count++;
+			}
+		}
+		final long[] keys = new long[count];
+		long previous = 0;
+		int start = 0;
+		for (int i = 0; i < count; i++) {
+			int end = encoded.indexOf(SEPARATOR, start);
+			if (end < 0) {
+				end = encoded.length();
+			}
+			previous += Long.parseLong(encoded.substring(start, end), RADIX);
+			keys[i] = previous;
+			start = end + 1;
+		}
+		return keys;
+	}
+
+	/**
+	 * Add the read messages of another state of the same identity and forum, used to merge duplicated rows.
+	 */
+	synchronized void merge(final ForumReadState other) {
+		final long otherHighWaterMark = other.getHighWaterMark();
+		final long[] otherKeys = decodeReadKeys(other.encodeReadKeys());
+		// both states are of the same identity: a message is read if it is read in one of them
+		highWaterMark = Math.max(highWaterMark, otherHighWaterMark);
+		final long[] merged = new long[readKeys.length + otherKeys.length];
+		System.arraycopy(readKeys, 0, merged, 0, readKeys.length);
+		System.arraycopy(otherKeys, 0, merged, readKeys.length, otherKeys.length);
+		Arrays.sort(merged);
+		int count = 0;
+		for (int i = 0; i < merged.length; i++) {
+			if (count == 0 || merged[count - 1] != merged[i]) {
+				merged[count++] = merged[i];
+			}
+		}
+		readKeys = new long[count];
+		System.arraycopy(merged, 0, readKeys, 0, count);
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "ForumReadState[key=" + key + ", highWaterMark=" + highWaterMark + ", readKeys=" + readKeys.length + "]";
+	}
+}
@@ -0,0 +1,135 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+package org.olat.modules.webFeed.managers;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.olat.modules.webFeed.models.Feed;
+import org.olat.modules.webFeed.models.Item;
+
+/**
+ * Description:<br>
+ * The item index of an internal feed: the metadata of the items of the feed, in the order of the feed, written to a single file next to the feed.xml. The
+ * content of an item is not part of the index, it is read from the item.xml when it is first accessed.
+ * <p>
+ * The index is stamped with the last modification date of the feed. Every change of the items updates the feed and the index entry of the item in the same
+ * cluster-synced block, an index whose stamp or item ids don't match is outdated and rebuilt from the item files.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+class FeedItemIndex {
+
+	private Date feedLastModified;
+	private List<Item> items;
+
+	FeedItemIndex(final Feed feed) {
+		this.feedLastModified = feed.getLastModified();
+		this.items = new ArrayList<Item>(feed.getItems());
+	}
+
+	/**
+	 * @return The items
+	 */
+	List<Item> getItems() {
+		return items;
+	}
+
+	/**
+	 * @param lastModified
+	 * @return true if the index has been written with the feed of this modification date
+	 */
+	boolean isStampedWith(final Date lastModified) {
+		if (items == null) { return false; }
+		return lastModified == null ? feedLastModified == null : feedLastModified != null && lastModified.getTime() == feedLastModified.getTime();
+	}
+
+	/**
+	 * @param feed
+	 * @return true if the index has been written with this version of the feed
+	 */
+	boolean isUpToDate(final Feed feed) {
+		return isStampedWith(feed.getLastModified()) && hasItemIdsOf(feed);
+	}
+
+	/**
+	 * Replaces the entry of the item or adds it if the item is not in the index yet.
+	 * 
+	 * @param item
+	 */
+	void putItem(final Item item) {
+		for (int i = 0; i < items.size(); i++) {
+			if (items.get(i).getGuid().equals(item.getGuid())) {
+				items.set(i, item);
+				return;
+			}
+		}
+		items.add(item);
+	}
+
+	/**
+	 * @param guid
+	 */
+	void removeItem(final String guid) {
+		for (final Iterator<Item> it = items.iterator(); it.hasNext();) {
+			if (it.next().getGuid().equals(guid)) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Orders the entries like the items of the feed and stamps the index with the last modification date of the feed.
+	 * 
+	 * @param feed
+	 * @return false if the entries don't match the items of the feed, the index must then be rewritten from the feed
+	 */
+	boolean restamp(final Feed feed) {
+		final List<String> itemIds = feed.getItemIds();
+		if (itemIds == null || itemIds.size() != items.size()) { return false; }
+		final Map<String, Item> itemsByGuid = new HashMap<String, Item>();
+		for (final Item item : items) {
+			itemsByGuid.put(item.getGuid(), item);
+		}
+		final List<Item> orderedItems = new ArrayList<Item>(itemIds.size());
+		for (final String itemId : itemIds) {
+			final Item item = itemsByGuid.get(itemId);
+			if (item == null) { return false; }
+			orderedItems.add(item);
+		}
+		items = orderedItems;
+		feedLastModified = feed.getLastModified();
+		return true;
+	}
+
+	private boolean hasItemIdsOf(final Feed feed) {
+		final List<String> itemIds = feed.getItemIds();
+		if (itemIds == null || itemIds.size() != items.size()) { return false; }
+		for (int i = 0; i < items.size(); i++) {
+			if (!itemIds.get(i).equals(items.get(i).getGuid())) { return false; }
+		}
+		return true;
+	}
+}
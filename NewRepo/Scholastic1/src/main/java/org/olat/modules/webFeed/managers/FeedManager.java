@@ -54,6 +54,8 @@ public abstract class FeedManager extends BasicManager implements CommentAndRati
 	public static final String ITEMS_DIR = "items";
 	protected static final String FEED_FILE_NAME = "feed.xml";
 	protected static final String ITEM_FILE_NAME = "item.xml";
+	// The metadata of all items of an internal feed, read instead of every item.xml
+	protected static final String ITEM_INDEX_FILE_NAME = "items.xml";
 	protected static final String MEDIA_DIR = "media";
 	public static final String RSS_FEED_NAME = "feed.rss";
 	public static final String RESOURCE_NAME = "feed";
@@ -336,6 +338,15 @@ public abstract class FeedManager extends BasicManager implements CommentAndRati
 
 	public abstract Item loadItem(VFSItem itemContainer);
 
+	/**
+	 * Reads the content of an item of the item index from the item file.
+	 * 
+	 * @param item
+	 * @param feed
+	 * @return The content of the item or null
+	 */
+	public abstract String loadItemContent(Item item, OLATResourceable feed);
+
 	@Override
 	public abstract CommentAndRatingService getCommentAndRatingService();
 
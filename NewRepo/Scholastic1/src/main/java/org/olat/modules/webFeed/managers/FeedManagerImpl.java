@@ -36,6 +36,7 @@ import org.olat.core.gui.media.MediaResource;
 import org.olat.core.id.Identity;
 import org.olat.core.id.OLATResourceable;
 import org.olat.core.logging.AssertException;
+import org.olat.core.logging.OLATRuntimeException;
 import org.olat.core.logging.OLog;
 import org.olat.core.util.CodeHelper;
 import org.olat.core.util.Formatter;
@@ -99,6 +100,7 @@ public abstract class FeedManagerImpl extends FeedManager {
 	private final FileResourceManager fileResourceManager;
 
 	private final XStream xstream;
+	private final XStream itemIndexXStream;
 
 	// Better performance when protected (apparently)
 	protected CacheWrapper feedCache;
@@ -116,6 +118,14 @@ public abstract class FeedManagerImpl extends FeedManager {
 		xstream = new XStream();
 		xstream.alias("feed", Feed.class);
 		xstream.alias("item", Item.class);
+		xstream.omitField(Item.class, "contentFeedType");
+		xstream.omitField(Item.class, "contentFeedId");
+		itemIndexXStream = new XStream();
+		itemIndexXStream.alias("itemindex", FeedItemIndex.class);
+		itemIndexXStream.alias("item", Item.class);
+		itemIndexXStream.omitField(Item.class, "content");
+		itemIndexXStream.omitField(Item.class, "contentFeedType");
+		itemIndexXStream.omitField(Item.class, "contentFeedId");
 		this.coordinator = coordinatorManager.getCoordinator();
 	}
 
@@ -227,7 +237,7 @@ public abstract class FeedManagerImpl extends FeedManager {
 				// Reset the feed id. (This is necessary for imported feeds.)
 				myFeed.setId(ores.getResourceableId());
 				// Load all items
-				getItems(myFeed);
+				getItems(myFeed, inSync);
 				// See if there are some version issues that need to be fixed now
 				fixFeedVersionIssues(myFeed);
 				// Get repository entry information
@@ -265,9 +275,10 @@ public abstract class FeedManagerImpl extends FeedManager {
 	 * Gets the items of the feed from the feed or load them from the files system.
 	 * 
 	 * @param feed
+	 * @param inSync
 	 * @return The items of the feed
 	 */
-	private List<Item> getItems(final Feed feed) {
+	private List<Item> getItems(final Feed feed, final boolean inSync) {
 		List<Item> items = new ArrayList<Item>();
 		if (feed.isExternal() && (feed.getItemIds() == null || feed.getItemIds().size() == 0)) {
 			items = getItemsFromFeed(feed);
@@ -277,7 +288,7 @@ public abstract class FeedManagerImpl extends FeedManager {
 				items = feed.getItems();
 			} else {
 				// reload all items
-				items = loadItems(feed);
+				items = loadItems(feed, inSync);
 			}
 		}
 		feed.setItems(items);
@@ -376,6 +387,7 @@ public abstract class FeedManagerImpl extends FeedManager {
 						episode.setDraft(false);
 						updateItemFileWithoutDoInSync(episode, feed);
 					}
+					writeItemIndex(feed);
 				}
 			}
 			// Set feed model to newest version and persist feed file on disk
@@ -395,20 +407,48 @@ public abstract class FeedManagerImpl extends FeedManager {
 	 */
 	@Override
 	public List<Item> loadItems(final Feed feed) {
+		return loadItems(feed, true);
+	}
+
+	/**
+	 * Load all items of the feed. An item index which is missing or outdated is rebuilt, in a cluster-synced block if inSync is true.
+	 * 
+	 * @param feed
+	 * @param inSync
+	 * @return The items of the feed
+	 */
+	private List<Item> loadItems(final Feed feed, final boolean inSync) {
 		List<Item> items = new ArrayList<Item>();
 
 		if (feed.isExternal()) {
 			items = getItemsFromFeed(feed);
 
 		} else if (feed.isInternal()) {
-			// Load from virtual file system
-			final VFSContainer itemsContainer = getItemsContainer(feed);
-
-			for (final String itemId : feed.getItemIds()) {
-				final VFSItem itemContainer = itemsContainer.resolve(itemId);
-				final Item item = loadItem(itemContainer);
-				if (item != null) {
-					items.add(item);
+			final List<Item> indexedItems = readItemIndex(feed);
+			if (indexedItems != null) {
+				items = indexedItems;
+			} else {
+				// Load from virtual file system
+				final VFSContainer itemsContainer = getItemsContainer(feed);
+
+				for (final String itemId : feed.getItemIds()) {
+					final VFSItem itemContainer = itemsContainer.resolve(itemId);
+					final Item item = loadItem(itemContainer);
+					if (item != null) {
+						items.add(item);
+					}
+				}
+				feed.setItems(items);
+				if (inSync) {
+					coordinator.getSyncer().doInSync(feed, new SyncerExecutor() {
+						@Override
+						@SuppressWarnings("synthetic-access")
+						public void execute() {
+							writeItemIndex(feed);
+						}
+					});
+				} else {
+					writeItemIndex(feed);
 				}
 			}
 		}
@@ -544,6 +584,110 @@ public abstract class FeedManagerImpl extends FeedManager {
 		return item;
 	}
 
+	/**
+	 * @see org.olat.modules.webFeed.managers.FeedManager#loadItemContent(org.olat.modules.webFeed.models.Item, org.olat.core.id.OLATResourceable)
+	 */
+	@Override
+	public String loadItemContent(final Item item, final OLATResourceable feed) {
+		final Item storedItem = loadItem(getItemsContainer(feed).resolve(item.getGuid()));
+		if (storedItem == null) {
+			log.warn("Item file of item::" + item.getGuid() + " of feed::" + feed.getResourceableId() + " could not be read, the item has no content");
+			return null;
+		}
+		return storedItem.getContent();
+	}
+
+	/**
+	 * Reads the items of an internal feed from the item index. The content of the items is read from the item files when it is first accessed.
+	 * 
+	 * @param feed
+	 * @return The items or null if the index is missing or outdated
+	 */
+	private List<Item> readItemIndex(final Feed feed) {
+		final FeedItemIndex index = readItemIndexFile(feed);
+		if (index == null || !index.isUpToDate(feed)) { return null; }
+		final List<Item> items = index.getItems();
+		for (final Item item : items) {
+			item.setContentNotLoaded(feed);
+		}
+		return items;
+	}
+
+	/**
+	 * @param feed
+	 * @return The item index or null if it is missing or can't be read
+	 */
+	private FeedItemIndex readItemIndexFile(final Feed feed) {
+		final VFSLeaf leaf = (VFSLeaf) getFeedContainer(feed).resolve(ITEM_INDEX_FILE_NAME);
+		if (leaf == null) { return null; }
+		try {
+			return (FeedItemIndex) XStreamHelper.readObject(itemIndexXStream, leaf);
+		} catch (final OLATRuntimeException e) {
+			log.warn("Item index of feed::" + feed.getResourceableId() + " could not be read, it will be rebuilt", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the item index of an internal feed. Must be called after the feed file has been written, with the same feed object.
+	 * 
+	 * @param feed
+	 */
+	private void writeItemIndex(final Feed feed) {
+		if (!feed.isInternal() || feed.getItems() == null) { return; }
+		writeItemIndexFile(feed, new FeedItemIndex(feed));
+	}
+
+	/**
+	 * Updates the entry of the changed or removed item in the item index of an internal feed. The index is rewritten from the feed if it doesn't hold the
+	 * items of the feed as it was before the change. Must be called after the feed file has been written, with the same feed object.
+	 * 
+	 * @param feed
+	 * @param indexedLastModified The last modification date of the feed before the change
+	 * @param changedItem The added or updated item or null
+	 * @param removedGuid The guid of the removed item or null
+	 */
+	private void updateItemIndex(final Feed feed, final Date indexedLastModified, final Item changedItem, final String removedGuid) {
+		if (!feed.isInternal() || feed.getItems() == null) { return; }
+		final FeedItemIndex index = readItemIndexFile(feed);
+		if (index == null || !index.isStampedWith(indexedLastModified)) {
+			writeItemIndex(feed);
+			return;
+		}
+		if (removedGuid != null) {
+			index.removeItem(removedGuid);
+		}
+		if (changedItem != null) {
+			index.putItem(changedItem);
+		}
+		if (index.restamp(feed)) {
+			writeItemIndexFile(feed, index);
+		} else {
+			writeItemIndex(feed);
+		}
+	}
+
+	private void writeItemIndexFile(final Feed feed, final FeedItemIndex index) {
+		final VFSContainer container = getFeedContainer(feed);
+		VFSLeaf leaf = (VFSLeaf) container.resolve(ITEM_INDEX_FILE_NAME);
+		if (leaf == null) {
+			leaf = container.createChildLeaf(ITEM_INDEX_FILE_NAME);
+		}
+		XStreamHelper.writeObject(itemIndexXStream, leaf, index);
+	}
+
+	/**
+	 * Writes the item.xml file.
+	 * 
+	 * @param itemFile
+	 * @param item
+	 */
+	private void writeItemFile(final VFSLeaf itemFile, final Item item) {
+		// an item read from the item index must load its content before it is written
+		item.getContent();
+		XStreamHelper.writeObject(xstream, itemFile, item);
+	}
+
 	/**
 	 * @see org.olat.modules.webFeed.managers.FeedManager#remove(org.olat.modules.webFeed.models.Item, org.olat.modules.webFeed.models.Feed)
 	 */
@@ -558,6 +702,7 @@ public abstract class FeedManagerImpl extends FeedManager {
 				// reload feed to prevent stale feed overwriting
 				@SuppressWarnings("synthetic-access")
 				final Feed reloadedFeed = getFeed(feed, false);
+				final Date indexedLastModified = reloadedFeed.getLastModified();
 				reloadedFeed.remove(item);
 				// If the last item has been removed, set the feed to undefined.
 				// The user can then newly decide whether to add items manually or from
@@ -575,7 +720,7 @@ public abstract class FeedManagerImpl extends FeedManager {
 
 				// Update feed
 				reloadedFeed.setLastModified(new Date());
-				update(reloadedFeed, false);
+				update(reloadedFeed, false, indexedLastModified, null, item.getGuid());
 
 				// Delete comments and ratings
 				final CommentAndRatingService commentAndRatingService = getCommentAndRatingService();
@@ -605,6 +750,7 @@ public abstract class FeedManagerImpl extends FeedManager {
 				public VFSLeaf execute() {
 					// reload feed to prevent stale feed overwriting
 					final Feed reloadedFeed = getFeed(feed, false);
+					final Date indexedLastModified = reloadedFeed.getLastModified();
 					// Set the current date as published date.
 					if (item.getPublishDate() == null) {
 						item.setPublishDate(new Date());
@@ -616,14 +762,14 @@ public abstract class FeedManagerImpl extends FeedManager {
 					// Write the item.xml file
 					final VFSContainer itemContainer = createItemContainer(feed, item);
 					final VFSLeaf itemFile = itemContainer.createChildLeaf(ITEM_FILE_NAME);
-					XStreamHelper.writeObject(xstream, itemFile, item);
+					writeItemFile(itemFile, item);
 
 					// finally add the item to the feed
 					reloadedFeed.add(item);
 					reloadedFeed.setLastModified(item.getLastModified());
 
 					// Save the feed (needed because of itemIds list)
-					update(reloadedFeed, false);
+					update(reloadedFeed, false, indexedLastModified, item, null);
 					return null;
 				}
 			});
@@ -638,6 +784,21 @@ public abstract class FeedManagerImpl extends FeedManager {
 	 * @param feed
 	 */
 	void update(final Feed feed, final boolean inSync) {
+		update(feed, inSync, feed.getLastModified(), null, null);
+	}
+
+	/**
+	 * Writes the feed file and updates the entry of the changed or removed item in the item index.
+	 * <p>
+	 * This method MUST be called from a cluster-synced block with the most recent feed object from the cluster feed cache!
+	 * 
+	 * @param feed
+	 * @param inSync
+	 * @param indexedLastModified The last modification date of the feed when it has been reloaded
+	 * @param changedItem The added or updated item or null
+	 * @param removedGuid The guid of the removed item or null
+	 */
+	private void update(final Feed feed, final boolean inSync, final Date indexedLastModified, final Item changedItem, final String removedGuid) {
 		feed.setLastModified(new Date());
 
 		// If the feed url has changed, the items must be reloaded.
@@ -646,7 +807,7 @@ public abstract class FeedManagerImpl extends FeedManager {
 			final String newFeed = feed.getExternalFeedUrl();
 			if (newFeed != null && !newFeed.equals("")) {
 				if (!newFeed.equals(oldFeed)) {
-					loadItems(feed);
+					loadItems(feed, false);
 				}
 			}
 		}
@@ -655,6 +816,8 @@ public abstract class FeedManagerImpl extends FeedManager {
 		final VFSContainer container = getFeedContainer(feed);
 		final VFSLeaf leaf = (VFSLeaf) container.resolve(FEED_FILE_NAME);
 		XStreamHelper.writeObject(xstream, leaf, feed);
+		// the item index must match the feed file
+		updateItemIndex(feed, indexedLastModified, changedItem, removedGuid);
 		initFeedCache().update(feed.getResourceableId().toString(), feed);
 		enrichRepositoryEntryByFeedInformation(feed);
 	}
@@ -905,7 +1068,13 @@ public abstract class FeedManagerImpl extends FeedManager {
 							setEnclosure(file, item, reloadedFeed);
 						}
 						updateItemFileWithoutDoInSync(item, reloadedFeed);
-						update(feed, false);
+						// the reloaded feed must hold the updated item
+						final List<Item> items = reloadedFeed.getItems();
+						final int index = items.indexOf(item);
+						if (index >= 0) {
+							items.set(index, item);
+						}
+						update(reloadedFeed, false, reloadedFeed.getLastModified(), item, null);
 					} else {
 						// do nothing, item was deleted by someone in the meantime
 					}
@@ -925,7 +1094,7 @@ public abstract class FeedManagerImpl extends FeedManager {
 	private void updateItemFileWithoutDoInSync(final Item item, final Feed feed) {
 		// Write the item.xml file
 		final VFSLeaf itemFile = (VFSLeaf) getItemContainer(item, feed).resolve(ITEM_FILE_NAME);
-		XStreamHelper.writeObject(xstream, itemFile, item);
+		writeItemFile(itemFile, item);
 	}
 
 	/**
@@ -1121,7 +1290,7 @@ public abstract class FeedManagerImpl extends FeedManager {
 				@Override
 				@SuppressWarnings("synthetic-access")
 				public Boolean execute() {
-					for (final Item item : getItems(feed)) {
+					for (final Item item : getItems(feed, false)) {
 						if (!item.isAuthorFallbackSet()) {
 							// get used authorKey first
 							final String author = item.getAuthor();
@@ -1132,11 +1301,13 @@ public abstract class FeedManagerImpl extends FeedManager {
 								final VFSContainer itemContainer = getItemContainer(item, feed);
 								if (itemContainer != null) {
 									final VFSLeaf itemFile = (VFSLeaf) itemContainer.resolve(ITEM_FILE_NAME);
-									XStreamHelper.writeObject(xstream, itemFile, item);
+									writeItemFile(itemFile, item);
 								}
 							}
 						}
 					}
+					// the author fallbacks are part of the item index
+					writeItemIndex(feed);
 					return Boolean.TRUE;
 				}
 			});
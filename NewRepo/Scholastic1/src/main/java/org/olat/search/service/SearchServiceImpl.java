@@ -27,6 +27,7 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
@@ -108,6 +109,13 @@ public class SearchServiceImpl implements SearchService {
 		indexUpdater.addToIndex(document);
 	}
 
+	@Override
+	public void addToIndex(final String resourceUrl, final Callable<Document> extraction) {
+		if (indexUpdater == null) { throw new AssertException("Try to call addToIndex() but indexUpdater is null!"); }
+		log.info("addToIndex resourceUrl=" + resourceUrl);
+		indexUpdater.addToIndex(resourceUrl, extraction);
+	}
+
 	@Override
 	public void startIndexing() {
 		if (indexer == null) { throw new AssertException("Try to call startIndexing() but indexer is null"); }
@@ -138,6 +146,7 @@ public class SearchServiceImpl implements SearchService {
 		log.info("        generateAtStartup=" + searchModuleConfig.getGenerateAtStartup());
 		log.info("        restartInterval=" + searchModuleConfig.getRestartInterval());
 		log.info("        indexInterval=" + searchModuleConfig.getIndexInterval());
+		log.info("        incrementalIndexInterval=" + searchModuleConfig.getIncrementalIndexInterval());
 
 		searchSpellChecker = new SearchSpellChecker();
 		searchSpellChecker.setIndexPath(searchModuleConfig.getFullIndexPath());
@@ -145,7 +154,7 @@ public class SearchServiceImpl implements SearchService {
 		searchSpellChecker.setSpellCheckEnabled(searchModuleConfig.getSpellCheckEnabled());
 
 		indexer = new Index(searchModuleConfig, searchSpellChecker, mainIndexer);
-		indexUpdater = new IndexUpdater(searchModuleConfig.getFullIndexPath(), searchModuleConfig.getUpdateInterval());
+		indexUpdater = new IndexUpdater(indexer, searchModuleConfig.getUpdateInterval());
 
 		indexPath = searchModuleConfig.getFullIndexPath();
 
@@ -158,6 +167,7 @@ public class SearchServiceImpl implements SearchService {
 		if (startingFullIndexingAllowed()) {
 			indexer.startFullIndex();
 		}
+		indexer.startIncrementalIndex();
 		log.info("init DONE");
 	}
 
@@ -172,24 +182,33 @@ public class SearchServiceImpl implements SearchService {
 	@Override
 	public SearchResults doSearch(final String queryString, final List<String> condQueries, final Identity identity, final Roles roles, final int firstResult,
 			final int maxResults, final boolean doHighlighting) throws ServiceNotAvailableException, ParseException {
+		IndexReader nrtReader = null;
 		try {
 			if (!existIndex()) {
 				log.warn("Index does not exist, can't search for queryString: " + queryString);
 				throw new ServiceNotAvailableException("Index does not exist");
 			}
-			synchronized (createIndexSearcherLock) {// o_clusterOK by:fj if service is only configured on one vm, which is recommended way
-				if (searcher == null) {
-					try {
-						createIndexSearcher(indexPath);
+			// the near-real-time reader of the incremental indexer sees the changes which are not committed yet
+			nrtReader = indexer.acquireIncrementalReader();
+			final Searcher activeSearcher;
+			if (nrtReader != null) {
+				activeSearcher = new IndexSearcher(nrtReader);
+			} else {
+				synchronized (createIndexSearcherLock) {// o_clusterOK by:fj if service is only configured on one vm, which is recommended way
+					if (searcher == null) {
+						try {
+							createIndexSearcher(indexPath);
+							checkIsIndexUpToDate();
+						} catch (final IOException ioEx) {
+							log.warn("Can not create searcher", ioEx);
+							throw new ServiceNotAvailableException("Index is not available");
+						}
+					}
+					if (hasNewerIndexFile()) {
+						reopenIndexSearcher();
 						checkIsIndexUpToDate();
-					} catch (final IOException ioEx) {
-						log.warn("Can not create searcher", ioEx);
-						throw new ServiceNotAvailableException("Index is not available");
 					}
-				}
-				if (hasNewerIndexFile()) {
-					reopenIndexSearcher();
-					checkIsIndexUpToDate();
+					activeSearcher = searcher;
 				}
 			}
 			log.info("queryString=" + queryString);
@@ -224,15 +243,15 @@ public class SearchServiceImpl implements SearchService {
 			// }
 			final long startTime = System.currentTimeMillis();
 			final int n = SearchServiceFactory.getService().getSearchModuleConfig().getMaxHits();
-			final TopDocs docs = searcher.search(query, n);
+			final TopDocs docs = activeSearcher.search(query, n);
 			final long queryTime = System.currentTimeMillis() - startTime;
 			if (log.isDebug()) {
 				log.debug("hits.length()=" + docs.totalHits);
 			}
-			final SearchResultsImpl searchResult = new SearchResultsImpl(mainIndexer, searcher, docs, query, analyzer, identity, roles, firstResult, maxResults,
+			final SearchResultsImpl searchResult = new SearchResultsImpl(mainIndexer, activeSearcher, docs, query, analyzer, identity, roles, firstResult, maxResults,
 					doHighlighting);
 			searchResult.setQueryTime(queryTime);
-			searchResult.setNumberOfIndexDocuments(searcher.maxDoc());
+			searchResult.setNumberOfIndexDocuments(activeSearcher.maxDoc());
 			queryCount++;
 			return searchResult;
 		} catch (final ServiceNotAvailableException naex) {
@@ -243,6 +262,10 @@ public class SearchServiceImpl implements SearchService {
 		} catch (final Exception ex) {
 			log.warn("Exception in search", ex);
 			throw new ServiceNotAvailableException(ex.getMessage());
+		} finally {
+			if (nrtReader != null) {
+				indexer.releaseIncrementalReader(nrtReader);
+			}
 		}
 	}
 
@@ -301,6 +324,10 @@ public class SearchServiceImpl implements SearchService {
 		if (statusStr.equals(FullIndexerStatus.STATUS_RUNNING)) {
 			stopIndexing();
 		}
+		indexer.stopIncrementalIndex();
+		if (indexUpdater != null) {
+			indexUpdater.stopUpdater();
+		}
 		try {
 			if (searcher != null) {
 				searcher.close();
@@ -0,0 +1,351 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.search.service.document.file;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.Encoder;
+import org.olat.core.util.FileUtils;
+import org.olat.core.util.vfs.VFSLeaf;
+
+/**
+ * Description:<br>
+ * Extracted text of files kept on the local disk between index runs. An entry is found by the path of the file and is valid as long as size and last
+ * modification date of the file are unchanged. With contentHash enabled a file with a new modification date but the same size is hashed and the text is
+ * reused if the content is unchanged (e.g. after a copy or a restore of the data directory).
+ * <p>
+ * A file whose text could not be extracted (broken file, extraction timeout) is kept as a failure entry, valid as long as size and last modification date are
+ * unchanged: the indexer skips the file instead of trying it again in every run.
+ * <p>
+ * Each entry is one file in a two level directory named after the MD5 of the file path. The last modification date of an entry file is its last use: when
+ * the cache grows over maxSize the least recently used entries are deleted until it is below 90% of maxSize.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class ExtractedTextCache {
+
+	private static final OLog log = Tracing.createLoggerFor(ExtractedTextCache.class);
+
+	private static final int VERSION = 2;
+	private static final String ENTRY_SUFFIX = ".txt";
+	private static final String HASH_ALGORITHM = "MD5";
+
+	private final File cacheDir;
+	private final long maxSize;
+	private final boolean contentHash;
+	private final AtomicLong size = new AtomicLong();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final Object evictionLock = new Object();
+
+	/**
+	 * @param cacheDir Directory of the cache, created if needed
+	 * @param maxSize Max size [bytes] of all entries
+	 * @param contentHash True to compare the MD5 of the content when only the modification date has changed
+	 */
+	public ExtractedTextCache(final File cacheDir, final long maxSize, final boolean contentHash) {
+		this.cacheDir = cacheDir;
+		this.maxSize = maxSize;
+		this.contentHash = contentHash;
+		cacheDir.mkdirs();
+		size.set(computeSize());
+		log.info("Extracted text cache in " + cacheDir + " uses " + size.get() + " of " + maxSize + " bytes");
+	}
+
+	/**
+	 * @param path Unique path of the file
+	 * @param leaf The file
+	 * @return The cached text or null if the file has changed, is not in the cache or its extraction failed
+	 */
+	public String get(final String path, final VFSLeaf leaf) {
+		final Entry entry = lookup(path, leaf);
+		if (entry == null || entry.text == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return entry.text;
+	}
+
+	/**
+	 * @param path Unique path of the file
+	 * @param leaf The file
+	 * @return True if the extraction of the text failed and the file is unchanged since
+	 */
+	public boolean isFailed(final String path, final VFSLeaf leaf) {
+		final Entry entry = lookup(path, leaf);
+		return entry != null && entry.text == null;
+	}
+
+	/**
+	 * @param path Unique path of the file
+	 * @param leaf The file
+	 * @return The entry of the file or null if the file has changed or is not in the cache
+	 */
+	private Entry lookup(final String path, final VFSLeaf leaf) {
+		final File entryFile = getEntryFile(path);
+		if (!entryFile.exists()) { return null; }
+		try {
+			final Entry entry = readEntry(entryFile);
+			if (!path.equals(entry.path)) {
+				// MD5 collision of two paths
+				return null;
+			}
+			boolean valid = entry.size == leaf.getSize() && entry.lastModified == leaf.getLastModified();
+			if (!valid && contentHash && entry.hash != null && entry.size == leaf.getSize()) {
+				final String hash = computeHash(leaf);
+				if (entry.hash.equals(hash)) {
+					// same content, remember the new modification date
+					put(path, leaf, hash, entry.text);
+					valid = true;
+				}
+			}
+			if (valid) {
+				entryFile.setLastModified(System.currentTimeMillis());
+				return entry;
+			}
+		} catch (final IOException e) {
+			log.warn("Cannot read extracted text cache entry " + entryFile + " of " + path, e);
+		}
+		return null;
+	}
+
+	/**
+	 * Store the extracted text of a file
+	 * 
+	 * @param path Unique path of the file
+	 * @param leaf The file
+	 * @param text The extracted text
+	 */
+	public void put(final String path, final VFSLeaf leaf, final String text) {
+		try {
+			put(path, leaf, contentHash ? computeHash(leaf) : null, text);
+		} catch (final IOException e) {
+			log.warn("Cannot hash " + path + " for the extracted text cache", e);
+		}
+	}
+
+	/**
+	 * Remember that the text of a file could not be extracted. The file is reported as failed until its size or modification date changes.
+	 * 
+	 * @param path Unique path of the file
+	 * @param leaf The file
+	 */
+	public void putFailure(final String path, final VFSLeaf leaf) {
+		put(path, leaf, null, null);
+	}
+
+	/**
+	 * @param text The extracted text or null for a failure entry
+	 */
+	private void put(final String path, final VFSLeaf leaf, final String hash, final String text) {
+		final File entryFile = getEntryFile(path);
+		final File tmpFile = new File(entryFile.getParentFile(), entryFile.getName() + "." + Thread.currentThread().getId() + ".tmp");
+		final long oldLength = entryFile.length();
+		DataOutputStream out = null;
+		try {
+			entryFile.getParentFile().mkdirs();
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+			out.writeInt(VERSION);
+			out.writeUTF(path);
+			out.writeLong(leaf.getSize());
+			out.writeLong(leaf.getLastModified());
+			out.writeUTF(hash == null ? "" : hash);
+			out.writeBoolean(text == null);
+			final byte[] textBytes = text == null ? new byte[0] : text.getBytes("utf-8");
+			out.writeInt(textBytes.length);
+			out.write(textBytes);
+			out.close();
+			out = null;
+			// renameTo does not replace an existing file on all platforms, hence the old entry is deleted first: this is not atomic,
+			// a concurrent reader sees the old entry, no entry (a miss) or the new one, but never a partly written entry
+			entryFile.delete();
+			if (!tmpFile.renameTo(entryFile)) {
+				log.warn("Cannot store extracted text cache entry " + entryFile + " of " + path);
+				tmpFile.delete();
+				size.addAndGet(-oldLength);
+				return;
+			}
+		} catch (final IOException e) {
+			log.warn("Cannot store extracted text cache entry " + entryFile + " of " + path, e);
+			FileUtils.closeSafely(out);
+			tmpFile.delete();
+			return;
+		}
+		if (size.addAndGet(entryFile.length() - oldLength) > maxSize) {
+			evict();
+		}
+	}
+
+	/**
+	 * Delete the least recently used entries until the cache is below 90% of the max size
+	 */
+	void evict() {
+		synchronized (evictionLock) {
+			if (size.get() <= maxSize) { return; }
+			// snapshot the time of the last use, it must not change while sorting
+			final List<UsedEntry> entries = new ArrayList<UsedEntry>();
+			long total = 0;
+			for (final File entryFile : listEntries()) {
+				final UsedEntry entry = new UsedEntry(entryFile);
+				entries.add(entry);
+				total += entry.length;
+			}
+			Collections.sort(entries, new Comparator<UsedEntry>() {
+				@Override
+				public int compare(final UsedEntry e1, final UsedEntry e2) {
+					return e1.lastUsed < e2.lastUsed ? -1 : (e1.lastUsed == e2.lastUsed ? 0 : 1);
+				}
+			});
+			final long target = maxSize / 10 * 9;
+			int evicted = 0;
+			for (final Iterator<UsedEntry> it = entries.iterator(); it.hasNext() && total > target;) {
+				final UsedEntry entry = it.next();
+				if (entry.file.delete()) {
+					total -= entry.length;
+					evicted++;
+				}
+			}
+			size.set(total);
+			log.info("Evicted " + evicted + " entries from the extracted text cache, size=" + total);
+		}
+	}
+
+	public long getSize() {
+		return size.get();
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	private File getEntryFile(final String path) {
+		final String name = Encoder.encrypt(path);
+		return new File(new File(cacheDir, name.substring(0, 2)), name + ENTRY_SUFFIX);
+	}
+
+	private long computeSize() {
+		long total = 0;
+		for (final File entryFile : listEntries()) {
+			total += entryFile.length();
+		}
+		return total;
+	}
+
+	private List<File> listEntries() {
+		final List<File> entries = new ArrayList<File>();
+		final File[] dirs = cacheDir.listFiles();
+		for (int i = 0; dirs != null && i < dirs.length; i++) {
+			final File[] files = dirs[i].listFiles();
+			for (int j = 0; files != null && j < files.length; j++) {
+				if (files[j].getName().endsWith(ENTRY_SUFFIX)) {
+					entries.add(files[j]);
+				}
+			}
+		}
+		return entries;
+	}
+
+	private Entry readEntry(final File entryFile) throws IOException {
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(entryFile)));
+			final int version = in.readInt();
+			if (version != VERSION && version != 1) { throw new IOException("Unknown version"); }
+			final Entry entry = new Entry();
+			entry.path = in.readUTF();
+			entry.size = in.readLong();
+			entry.lastModified = in.readLong();
+			final String hash = in.readUTF();
+			entry.hash = hash.length() == 0 ? null : hash;
+			// version 1 has no failure entries
+			final boolean failed = version > 1 && in.readBoolean();
+			final byte[] textBytes = new byte[in.readInt()];
+			in.readFully(textBytes);
+			entry.text = failed ? null : new String(textBytes, "utf-8");
+			return entry;
+		} finally {
+			FileUtils.closeSafely(in);
+		}
+	}
+
+	private String computeHash(final VFSLeaf leaf) throws IOException {
+		InputStream in = null;
+		try {
+			final MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+			in = new BufferedInputStream(leaf.getInputStream());
+			final byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+			return Encoder.md5Encoder.encode(digest.digest());
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IOException(HASH_ALGORITHM + " not supported");
+		} finally {
+			FileUtils.closeSafely(in);
+		}
+	}
+
+	private static class UsedEntry {
+		final File file;
+		final long length;
+		final long lastUsed;
+
+		UsedEntry(final File file) {
+			this.file = file;
+			this.length = file.length();
+			this.lastUsed = file.lastModified();
+		}
+	}
+
+	private static class Entry {
+		String path;
+		long size;
+		long lastModified;
+		String hash;
+		/** null for a failure entry **/
+		String text;
+	}
+}
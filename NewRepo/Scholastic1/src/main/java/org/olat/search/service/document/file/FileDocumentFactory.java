@@ -21,13 +21,26 @@
 
 package org.olat.search.service.document.file;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.lucene.document.Document;
 import org.olat.core.commons.services.search.SearchModule;
 import org.olat.core.logging.OLog;
 import org.olat.core.logging.Tracing;
+import org.olat.core.util.vfs.LocalImpl;
 import org.olat.core.util.vfs.VFSLeaf;
 import org.olat.search.service.SearchResourceContext;
 
@@ -42,6 +55,11 @@ import org.olat.search.service.SearchResourceContext;
  * <li>odt, ods, odp, odf, odg => OpenDocument document</li>
  * <li>htm, html, xhtml, xml => HTML document</li>
  * <li>txt, tex, README, csv => Text document</li>
+ * <p>
+ * The extracted text of pdf and office documents is kept in an ExtractedTextCache and only extracted again when the file has changed. With an
+ * extractionTimeout the text is extracted in a pool thread and the indexer thread stops waiting for it after this time, so a broken file does not block the
+ * indexer thread. The parsers do not react on interrupts, a thread hanging in a broken file keeps running: the pool is bounded by extractionThreads and files
+ * whose extraction timed out or failed are kept as failures in the ExtractedTextCache and skipped until they change.
  * 
  * @author Christian Guretzki
  */
@@ -80,6 +98,12 @@ public class FileDocumentFactory {
 
 	private final List<String> fileBlackList;
 
+	private final ExtractedTextCache textCache;
+	private final long extractionTimeout;
+	private final ExecutorService extractionPool;
+	private final AtomicInteger timedOutCount = new AtomicInteger();
+	private final AtomicInteger skippedCount = new AtomicInteger();
+
 	/**
 	 * [used by spring]
 	 * 
@@ -98,6 +122,21 @@ public class FileDocumentFactory {
 		}
 		checkFileSizeSuffixes = searchModule.getFileSizeSuffixes();
 		maxFileSize = searchModule.getMaxFileSize();
+		if (searchModule.getTextCacheMaxSize() > 0) {
+			textCache = new ExtractedTextCache(new File(searchModule.getTextCachePath()), searchModule.getTextCacheMaxSize(), searchModule.getTextCacheContentHash());
+		} else {
+			textCache = null;
+		}
+		extractionTimeout = searchModule.getExtractionTimeout();
+		if (extractionTimeout > 0) {
+			final int threads = Math.max(1, searchModule.getExtractionThreads());
+			final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+					new ExtractionThreadFactory());
+			pool.allowCoreThreadTimeOut(true);
+			extractionPool = pool;
+		} else {
+			extractionPool = null;
+		}
 	}
 
 	public static Document createDocument(final SearchResourceContext leafResourceContext, final VFSLeaf leaf) throws DocumentNotImplementedException, IOException,
@@ -146,6 +185,102 @@ public class FileDocumentFactory {
 		return UnkownDocument.createDocument(leafResourceContext, leaf);
 	}
 
+	/**
+	 * Read the text of the file from the cache or extract it with the document.
+	 * 
+	 * @param document The document which knows how to extract the text of the file
+	 * @param leaf
+	 * @return The text
+	 */
+	static String readContent(final FileDocument document, final VFSLeaf leaf) throws IOException, DocumentException, DocumentAccessException {
+		if (instance == null) { return document.readContent(leaf); }
+		return instance.readCachedContent(document, leaf);
+	}
+
+	private String readCachedContent(final FileDocument document, final VFSLeaf leaf) throws IOException, DocumentException, DocumentAccessException {
+		final String path = (textCache != null && document.isContentCached() && leaf instanceof LocalImpl) ? ((LocalImpl) leaf).getBasefile().getAbsolutePath() : null;
+		if (path != null) {
+			final String text = textCache.get(path, leaf);
+			if (text != null) { return text; }
+			if (textCache.isFailed(path, leaf)) {
+				skippedCount.incrementAndGet();
+				throw new DocumentException("Text extraction failed before, skipped until the file changes. File=" + leaf.getName());
+			}
+		}
+		final String text = extractContent(document, leaf, path);
+		if (path != null && text != null) {
+			textCache.put(path, leaf, text);
+		}
+		return text;
+	}
+
+	/**
+	 * @param document
+	 * @param leaf
+	 * @param path The path of the file in the ExtractedTextCache or null if the file is not cached
+	 * @return The text
+	 */
+	private String extractContent(final FileDocument document, final VFSLeaf leaf, final String path) throws IOException, DocumentException,
+			DocumentAccessException {
+		if (extractionPool == null) {
+			try {
+				return document.readContent(leaf);
+			} catch (final DocumentException e) {
+				recordFailure(path, leaf);
+				throw e;
+			} catch (final DocumentAccessException e) {
+				recordFailure(path, leaf);
+				throw e;
+			} catch (final RuntimeException e) {
+				recordFailure(path, leaf);
+				throw e;
+			}
+		}
+
+		final AtomicBoolean started = new AtomicBoolean();
+		final Future<String> future = extractionPool.submit(new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				started.set(true);
+				return document.readContent(leaf);
+			}
+		});
+		try {
+			return future.get(extractionTimeout, TimeUnit.MILLISECONDS);
+		} catch (final TimeoutException e) {
+			// the parsers ignore the interrupt, a hanging thread is only released when the parser gives up
+			future.cancel(true);
+			if (!started.get()) {
+				// all extraction threads are busy (or hang in broken files), the file is tried again in the next run
+				log.warn("No free text extraction thread within " + extractionTimeout + "ms. File=" + leaf.getName());
+				throw new DocumentException("No free text extraction thread within " + extractionTimeout + "ms. File=" + leaf.getName());
+			}
+			timedOutCount.incrementAndGet();
+			recordFailure(path, leaf);
+			throw new DocumentException("Text extraction aborted after " + extractionTimeout + "ms. File=" + leaf.getName());
+		} catch (final InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new DocumentException("Text extraction interrupted. File=" + leaf.getName());
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			// an IOException may be temporary (e.g. the file is being written), everything else fails again with the same file
+			if (cause instanceof IOException) { throw (IOException) cause; }
+			if (cause instanceof Error) { throw (Error) cause; }
+			recordFailure(path, leaf);
+			if (cause instanceof DocumentException) { throw (DocumentException) cause; }
+			if (cause instanceof DocumentAccessException) { throw (DocumentAccessException) cause; }
+			if (cause instanceof RuntimeException) { throw (RuntimeException) cause; }
+			throw new DocumentException(cause.getMessage(), cause);
+		}
+	}
+
+	private void recordFailure(final String path, final VFSLeaf leaf) {
+		if (path != null) {
+			textCache.putFailure(path, leaf);
+		}
+	}
+
 	private static String getSuffix(final String fileName) throws DocumentNotImplementedException {
 		final int dotpos = fileName.lastIndexOf('.');
 		if (dotpos < 0 || dotpos == fileName.length() - 1) {
@@ -206,4 +341,37 @@ public class FileDocumentFactory {
 		excludedFileSizeCount = 0;
 	}
 
+	/**
+	 * @return Number of files whose text extraction was aborted after the extractionTimeout since startup
+	 */
+	public int getTimedOutCount() {
+		return timedOutCount.get();
+	}
+
+	/**
+	 * @return Number of files skipped since startup because their text extraction failed before and they are unchanged
+	 */
+	public int getSkippedCount() {
+		return skippedCount.get();
+	}
+
+	/**
+	 * @return The cache of the extracted text or null if disabled
+	 */
+	public ExtractedTextCache getTextCache() {
+		return textCache;
+	}
+
+	private static class ExtractionThreadFactory implements ThreadFactory {
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(final Runnable r) {
+			final Thread thread = new Thread(r, "TextExtraction-" + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		}
+	}
+
 }
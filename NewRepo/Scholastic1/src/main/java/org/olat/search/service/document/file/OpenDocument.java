@@ -81,6 +81,11 @@ public class OpenDocument extends FileDocument {
 		return openDocument.getLuceneDocument();
 	}
 
+	@Override
+	protected boolean isContentCached() {
+		return true;
+	}
+
 	@Override
 	public String readContent(final VFSLeaf leaf) throws DocumentException {
 		final OpenDocumentHandler dh = new OpenDocumentHandler();
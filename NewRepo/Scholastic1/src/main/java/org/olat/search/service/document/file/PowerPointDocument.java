@@ -60,6 +60,11 @@ public class PowerPointDocument extends FileDocument {
 		return powerPointDocument.getLuceneDocument();
 	}
 
+	@Override
+	protected boolean isContentCached() {
+		return true;
+	}
+
 	@Override
 	public String readContent(final VFSLeaf leaf) throws IOException, DocumentException {
 		BufferedInputStream bis = null;
@@ -66,6 +66,14 @@ public abstract class AbstractIndexer implements Indexer {
 		}
 	}
 
+	/**
+	 * @param typeName The supported type name of the child indexer e.g. OresHelper.calculateTypeName(RepositoryEntry.class)
+	 * @return The child indexer for this type or null when no such indexer is configured
+	 */
+	public Indexer getChildIndexer(final String typeName) {
+		return childIndexers.get(typeName);
+	}
+
 	/**
 	 * Iterate over all child indexer define in indexer-list.
 	 * 
@@ -0,0 +1,207 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.search.service.indexer;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.olat.core.id.Identity;
+import org.olat.course.ICourse;
+import org.olat.course.run.userview.TreeEvaluation;
+import org.olat.group.BusinessGroup;
+import org.olat.group.BusinessGroupManager;
+import org.olat.group.BusinessGroupManagerImpl;
+
+/**
+ * Description:<br>
+ * Remembers the results of the access checks of one search for one identity. The search results are walked in the order of their score, hits of the same
+ * repository entry, course or group are spread over the result list: the repository entry permissions, the evaluated course tree and the group memberships are
+ * loaded at the first hit and reused for all the others.
+ * <p>
+ * The context is bound to the thread doing the search with open() and must be closed in a finally block. Indexers check getCurrent() for null and do their
+ * uncached check if no search is running, e.g. for the access checks of the portfolio.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class AccessCheckContext {
+
+	private static final ThreadLocal<AccessCheckContext> current = new ThreadLocal<AccessCheckContext>();
+
+	private final Identity identity;
+	private final Map<String, Boolean> resourceUrlAccess = new HashMap<String, Boolean>();
+	private final Map<Long, Indexer> repositoryEntryAccess = new HashMap<Long, Indexer>();
+	private final Map<Long, CourseAccess> courseAccess = new HashMap<Long, CourseAccess>();
+	private Set<Long> groupKeys;
+	private int checks = 0;
+	private int cacheHits = 0;
+	private int preFiltered = 0;
+
+	AccessCheckContext(final Identity identity) {
+		this.identity = identity;
+	}
+
+	/**
+	 * Bind a new context to the current thread.
+	 * 
+	 * @param identity The identity the search is made for
+	 * @return The new context
+	 */
+	public static AccessCheckContext open(final Identity identity) {
+		final AccessCheckContext context = new AccessCheckContext(identity);
+		current.set(context);
+		return context;
+	}
+
+	/**
+	 * Remove the context from the current thread
+	 */
+	public static void close() {
+		current.remove();
+	}
+
+	/**
+	 * @return The context of the search running in this thread or null
+	 */
+	public static AccessCheckContext getCurrent() {
+		return current.get();
+	}
+
+	public Identity getIdentity() {
+		return identity;
+	}
+
+	/**
+	 * @param resourceUrl
+	 * @return The result of an earlier check of the same resource url or null
+	 */
+	public Boolean getAccess(final String resourceUrl) {
+		checks++;
+		final Boolean access = resourceUrlAccess.get(resourceUrl);
+		if (access != null) {
+			cacheHits++;
+		}
+		return access;
+	}
+
+	public void putAccess(final String resourceUrl, final boolean access) {
+		resourceUrlAccess.put(resourceUrl, Boolean.valueOf(access));
+	}
+
+	/**
+	 * @param repositoryEntryKey
+	 * @return True if the repository entry was already checked
+	 */
+	public boolean isRepositoryEntryChecked(final Long repositoryEntryKey) {
+		return repositoryEntryAccess.containsKey(repositoryEntryKey);
+	}
+
+	/**
+	 * @param repositoryEntryKey
+	 * @return The indexer of the repository entry if the identity may launch it, null if not
+	 */
+	public Indexer getRepositoryEntryIndexer(final Long repositoryEntryKey) {
+		return repositoryEntryAccess.get(repositoryEntryKey);
+	}
+
+	/**
+	 * @param repositoryEntryKey
+	 * @param repositoryEntryIndexer The indexer of the entry or null if the identity has no access
+	 */
+	public void putRepositoryEntryIndexer(final Long repositoryEntryKey, final Indexer repositoryEntryIndexer) {
+		repositoryEntryAccess.put(repositoryEntryKey, repositoryEntryIndexer);
+	}
+
+	/**
+	 * @param repositoryEntryKey
+	 * @return The course and its tree evaluated for the identity or null
+	 */
+	public CourseAccess getCourseAccess(final Long repositoryEntryKey) {
+		return courseAccess.get(repositoryEntryKey);
+	}
+
+	public void putCourseAccess(final Long repositoryEntryKey, final ICourse course, final TreeEvaluation treeEval) {
+		courseAccess.put(repositoryEntryKey, new CourseAccess(course, treeEval));
+	}
+
+	/**
+	 * Loads the owned and attended groups of the identity at the first call.
+	 * 
+	 * @param groupKey
+	 * @return True if the identity is owner or participant of the group
+	 */
+	public boolean isInGroup(final Long groupKey) {
+		if (groupKeys == null) {
+			groupKeys = new HashSet<Long>();
+			final BusinessGroupManager bman = BusinessGroupManagerImpl.getInstance();
+			addGroupKeys(bman.findBusinessGroupsOwnedBy(null, identity, null));
+			addGroupKeys(bman.findBusinessGroupsAttendedBy(null, identity, null));
+		}
+		return groupKeys.contains(groupKey);
+	}
+
+	private void addGroupKeys(final List groups) {
+		for (final Iterator it = groups.iterator(); it.hasNext();) {
+			groupKeys.add(((BusinessGroup) it.next()).getKey());
+		}
+	}
+
+	/**
+	 * Count a hit which was skipped because of the fields stored in the index
+	 */
+	public void preFiltered() {
+		preFiltered++;
+	}
+
+	@Override
+	public String toString() {
+		return "AccessCheckContext[checks=" + checks + ", cacheHits=" + cacheHits + ", preFiltered=" + preFiltered + ", repositoryEntries="
+				+ repositoryEntryAccess.size() + ", courses=" + courseAccess.size() + "]";
+	}
+
+	/**
+	 * Description:<br>
+	 * A course with its run structure evaluated for the identity of the search.
+	 * <P>
+	 * Initial Date: 18.10.2026 <br>
+	 */
+	public static class CourseAccess {
+		private final ICourse course;
+		private final TreeEvaluation treeEval;
+
+		CourseAccess(final ICourse course, final TreeEvaluation treeEval) {
+			this.course = course;
+			this.treeEval = treeEval;
+		}
+
+		public ICourse getCourse() {
+			return course;
+		}
+
+		public TreeEvaluation getTreeEvaluation() {
+			return treeEval;
+		}
+	}
+}
@@ -23,8 +23,11 @@ package org.olat.search.service.indexer;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Date;
+import java.util.Map;
 
+import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
@@ -48,6 +51,7 @@ public class Index {
 	private final String tempIndexPath;
 
 	private final OlatFullIndexer fullIndexer;
+	private final IncrementalIndexer incrementalIndexer;
 	private final SearchSpellChecker spellChecker;
 
 	/**
@@ -62,6 +66,7 @@ public class Index {
 		this.tempIndexPath = searchModuleConfig.getFullTempIndexPath();
 
 		fullIndexer = new OlatFullIndexer(this, searchModuleConfig, mainIndexer);
+		incrementalIndexer = new IncrementalIndexer(this, searchModuleConfig, mainIndexer);
 	}
 
 	/**
@@ -82,6 +87,49 @@ public class Index {
 		fullIndexer.stopIndexing();
 	}
 
+	/**
+	 * Start incremental-index thread, when configured.
+	 */
+	public void startIncrementalIndex() {
+		// same as for the full index, not in test mode
+		if (!Settings.isJUnitTest()) {
+			incrementalIndexer.startIndexing();
+		}
+	}
+
+	/**
+	 * Stop incremental-index thread and close the live index writer.
+	 */
+	public void stopIncrementalIndex() {
+		incrementalIndexer.stopIndexing();
+	}
+
+	/**
+	 * @return The near-real-time reader of the live index or null when incremental indexing is not running. Must be released with releaseIncrementalReader.
+	 */
+	public IndexReader acquireIncrementalReader() {
+		return incrementalIndexer.acquireReader();
+	}
+
+	/**
+	 * @param reader Reader returned by acquireIncrementalReader
+	 */
+	public void releaseIncrementalReader(final IndexReader reader) {
+		incrementalIndexer.releaseReader(reader);
+	}
+
+	/**
+	 * Write a batch of updates and deletes to the live index with one commit.
+	 * 
+	 * @param updates New versions of documents by resourceUrl
+	 * @param deletes ResourceUrls of documents to delete
+	 * @return false when the index can not be written now, try again later
+	 * @throws IOException
+	 */
+	public boolean applyUpdates(final Map<String, Document> updates, final Collection<String> deletes) throws IOException {
+		return incrementalIndexer.applyUpdates(updates, deletes);
+	}
+
 	/**
 	 * Check if index exist.
 	 * 
@@ -104,8 +152,13 @@ public class Index {
 	 * @return true : Indexing is done.
 	 */
 	public void indexingIsDone() {
-		// Full indexing is done => move tempIndex to index dir
-		moveTempIndexToIndex(tempIndexPath, indexPath);
+		// Full indexing is done => move tempIndex to index dir, the live writer of the incremental indexer must not write into it meanwhile
+		incrementalIndexer.suspend();
+		try {
+			moveTempIndexToIndex(tempIndexPath, indexPath);
+		} finally {
+			incrementalIndexer.resume();
+		}
 		spellChecker.createSpellIndex();
 	}
 
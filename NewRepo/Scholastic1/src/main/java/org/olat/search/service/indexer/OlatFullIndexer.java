@@ -164,6 +164,8 @@ public class OlatFullIndexer implements Runnable {
 	 * @throws InterruptedException
 	 */
 	private void doIndex() throws InterruptedException {
+		// all changes until now will be in the new index, the incremental indexer continues from here
+		final long indexingStartTime = System.currentTimeMillis();
 		try {
 			final File tempIndexDir = new File(tempIndexPath);
 			final Directory indexPath = FSDirectory.open(new File(tempIndexDir, "main"));
@@ -227,6 +229,7 @@ public class OlatFullIndexer implements Runnable {
 			}
 			fullIndexerStatus.setIndexSize(indexWriter.maxDoc());
 			indexWriter.optimize();
+			indexWriter.commit(IncrementalIndexer.createCommitUserData(indexingStartTime));
 			indexWriter.close();
 		} catch (final IOException e) {
 			e.printStackTrace();
@@ -105,27 +105,7 @@ public class RepositoryIndexer implements Indexer {
 					Tracing.logDebug("Index repositoryEntry=" + repositoryEntry + "  counter=" + counter++ + " with ResourceableId="
 							+ repositoryEntry.getOlatResource().getResourceableId(), RepositoryIndexer.class);
 				}
-				if (!isOnBlacklist(repositoryEntry.getOlatResource().getResourceableId())) {
-					final SearchResourceContext searchResourceContext = new SearchResourceContext(parentResourceContext);
-					searchResourceContext.setBusinessControlFor(repositoryEntry);
-					final Document document = RepositoryEntryDocument.createDocument(searchResourceContext, repositoryEntry);
-					indexWriter.addDocument(document);
-					// Pass created-date & modified-date in context to child indexer because the child have no dates
-					// TODO:chg: Check ob courseNode keine Daten hat
-					searchResourceContext.setLastModified(repositoryEntry.getLastModified());
-					searchResourceContext.setCreatedDate(repositoryEntry.getCreationDate());
-					// go further with resource
-					final Indexer repositoryEntryIndexer = RepositoryEntryIndexerFactory.getInstance().getRepositoryEntryIndexer(repositoryEntry);
-					if (repositoryEntryIndexer != null) {
-						repositoryEntryIndexer.doIndex(searchResourceContext, repositoryEntry, indexWriter);
-					} else {
-						if (Tracing.isDebugEnabled(RepositoryIndexer.class)) {
-							Tracing.logDebug("No RepositoryEntryIndexer for " + repositoryEntry.getOlatResource(), RepositoryIndexer.class); // e.g. RepositoryEntry
-						}
-					}
-				} else {
-					Tracing.logWarn("RepositoryEntry is on black-list and excluded from search-index, repositoryEntry=" + repositoryEntry, RepositoryIndexer.class);
-				}
+				indexRepositoryEntry(parentResourceContext, repositoryEntry, indexWriter);
 			} catch (final Throwable ex) {
 				// create meaninfull debugging output to find repo entry that is somehow broken
 				String entryDebug = "NULL";
@@ -142,6 +122,41 @@ public class RepositoryIndexer implements Indexer {
 		}
 	}
 
+	/**
+	 * Index the meta data of one repository-entry and go further with the repository-indexer for its type. Used by the full indexer for every entry and by the
+	 * incremental indexer for the entries which changed since its last run.
+	 * 
+	 * @param parentResourceContext
+	 * @param repositoryEntry
+	 * @param indexWriter
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public void indexRepositoryEntry(final SearchResourceContext parentResourceContext, final RepositoryEntry repositoryEntry, final OlatFullIndexer indexWriter)
+			throws IOException, InterruptedException {
+		if (!isOnBlacklist(repositoryEntry.getOlatResource().getResourceableId())) {
+			final SearchResourceContext searchResourceContext = new SearchResourceContext(parentResourceContext);
+			searchResourceContext.setBusinessControlFor(repositoryEntry);
+			final Document document = RepositoryEntryDocument.createDocument(searchResourceContext, repositoryEntry);
+			indexWriter.addDocument(document);
+			// Pass created-date & modified-date in context to child indexer because the child have no dates
+			// TODO:chg: Check ob courseNode keine Daten hat
+			searchResourceContext.setLastModified(repositoryEntry.getLastModified());
+			searchResourceContext.setCreatedDate(repositoryEntry.getCreationDate());
+			// go further with resource
+			final Indexer repositoryEntryIndexer = RepositoryEntryIndexerFactory.getInstance().getRepositoryEntryIndexer(repositoryEntry);
+			if (repositoryEntryIndexer != null) {
+				repositoryEntryIndexer.doIndex(searchResourceContext, repositoryEntry, indexWriter);
+			} else {
+				if (Tracing.isDebugEnabled(RepositoryIndexer.class)) {
+					Tracing.logDebug("No RepositoryEntryIndexer for " + repositoryEntry.getOlatResource(), RepositoryIndexer.class); // e.g. RepositoryEntry
+				}
+			}
+		} else {
+			Tracing.logWarn("RepositoryEntry is on black-list and excluded from search-index, repositoryEntry=" + repositoryEntry, RepositoryIndexer.class);
+		}
+	}
+
 	private boolean isOnBlacklist(final Long key) {
 		return repositoryBlackList.contains(key);
 
@@ -186,6 +201,31 @@ public class RepositoryIndexer implements Indexer {
 			Tracing.logDebug("checkAccess for businessControl=" + businessControl + "  identity=" + identity + "  roles=" + roles, RepositoryIndexer.class);
 		}
 		final Long repositoryKey = contextEntry.getOLATResourceable().getResourceableId();
+		// the permissions on the repository entry are the same for all hits of the entry within one search
+		final AccessCheckContext accessContext = AccessCheckContext.getCurrent();
+		final Indexer repositoryEntryIndexer;
+		if (accessContext != null && accessContext.isRepositoryEntryChecked(repositoryKey)) {
+			repositoryEntryIndexer = accessContext.getRepositoryEntryIndexer(repositoryKey);
+		} else {
+			repositoryEntryIndexer = getRepositoryEntryIndexer(repositoryKey, identity, roles);
+			if (accessContext != null) {
+				accessContext.putRepositoryEntryIndexer(repositoryKey, repositoryEntryIndexer);
+			}
+		}
+		if (repositoryEntryIndexer != null) {
+			return repositoryEntryIndexer.checkAccess(contextEntry, businessControl, identity, roles);
+		} else {
+			return false;
+		}
+	}
+
+	/**
+	 * @param repositoryKey
+	 * @param identity
+	 * @param roles
+	 * @return The indexer of the repository entry if the identity is owner or allowed to launch it, null otherwise
+	 */
+	private Indexer getRepositoryEntryIndexer(final Long repositoryKey, final Identity identity, final Roles roles) {
 		final RepositoryEntry repositoryEntry = repositoryManager.lookupRepositoryEntry(repositoryKey);
 		if (repositoryEntry != null) {
 			final boolean isOwner = repositoryManager.isOwnerOfRepositoryEntry(identity, repositoryEntry);
@@ -193,7 +233,7 @@ public class RepositoryIndexer implements Indexer {
 			if (!isOwner) {
 				if (repositoryEntry.getOwnerGroup() == null) {
 					// FIXME:chg: Inconsistent RepositoryEntry without owner-group, should not exit => Workaround no access
-					return false;
+					return null;
 				}
 				isAllowedToLaunch = repositoryManager.isAllowedToLaunch(identity, roles, repositoryEntry);
 			}
@@ -205,18 +245,14 @@ public class RepositoryIndexer implements Indexer {
 				if (Tracing.isDebugEnabled(RepositoryIndexer.class)) {
 					Tracing.logDebug("repositoryEntryIndexer=" + repositoryEntryIndexer, RepositoryIndexer.class);
 				}
-				if (repositoryEntryIndexer != null) {
-					return repositoryEntryIndexer.checkAccess(contextEntry, businessControl, identity, roles);
-				} else {
-					// No Indexer => no access
-					return false;
-				}
+				// No Indexer => no access
+				return repositoryEntryIndexer;
 			} else {
-				return false;
+				return null;
 			}
 		} else {
 			Tracing.logWarn("Can not found RepositoryEntry with key=" + repositoryKey, RepositoryIndexer.class);
-			return false;
+			return null;
 		}
 	}
 
@@ -21,49 +21,67 @@
 
 package org.olat.search.service.update;
 
-import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Vector;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.IndexWriter;
-import org.apache.lucene.index.Term;
-import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.FSDirectory;
-import org.apache.lucene.util.Version;
+import org.olat.core.commons.persistence.DBFactory;
 import org.olat.core.commons.services.search.AbstractOlatDocument;
 import org.olat.core.logging.OLog;
 import org.olat.core.logging.Tracing;
+import org.olat.search.service.indexer.Index;
 
 /**
  * The IndexUpdater thread controls the update of existing search index. The update thread could be disabled with config parameter 'updateInterval=0'.
+ * <p>
+ * Changes are collected by resourceUrl during one updateInterval: a newer update of the same resourceUrl replaces the pending one and a delete cancels a pending
+ * update. At the end of the interval the documents which are still to extract are built by a small worker pool, then all deletes and updates are written to the
+ * index as one batch with one commit (through the live writer of the incremental indexer when it runs).
  * 
  * @author Christian Guretzki
  */
 public class IndexUpdater implements Runnable {
-	private static final int INDEX_MERGE_FACTOR = 1000;
 	private static OLog log = Tracing.createLoggerFor(IndexUpdater.class);
 
-	private final String indexPath;
+	/** Number of threads which extract the documents of a batch. */
+	private static final int EXTRACTION_POOL_SIZE = 2;
+
+	private final Index index;
 
 	private Thread updaterThread = null;
 	private final long updateInterval;
 
-	private boolean stopUpdater;
+	private volatile boolean stopUpdater;
+
+	/** Pending changes by resourceUrl in the order of their first change, guarded by pendingLock */
+	private Map<String, PendingChange> pendingChanges = new LinkedHashMap<String, PendingChange>();
+	private final Object pendingLock = new Object();
+	private ExecutorService extractionPool;
 
-	private final List<Document> updateQueue;
-	private final List<Document> deleteQueue;
+	private final AtomicLong changeCount = new AtomicLong();
+	private final AtomicLong coalescedCount = new AtomicLong();
+	private final AtomicLong appliedCount = new AtomicLong();
+	private final AtomicLong totalTimeToSearchable = new AtomicLong();
+	private volatile long lastTimeToSearchable;
+	private volatile long maxTimeToSearchable;
 
 	/**
-	 * @param indexPath Absolute file-path of existing index-directory which will be updated
-	 * @param updateInterval Updater sleeps this time [ms] between running again.
+	 * @param index The index to update, it knows if the live writer of the incremental indexer is open
+	 * @param updateInterval Updater sleeps this time [ms] between running again, the changes within this time are coalesced.
 	 */
-	public IndexUpdater(final String indexPath, final long updateInterval) {
-		this.indexPath = indexPath;
-		updateQueue = new Vector<Document>();
-		deleteQueue = new Vector<Document>();
+	public IndexUpdater(final Index index, final long updateInterval) {
+		this.index = index;
 		this.updateInterval = updateInterval;
 		stopUpdater = true;
 		if (updateInterval != 0) {
@@ -80,10 +98,18 @@ public class IndexUpdater implements Runnable {
 	 */
 	// o_clusterNOK: IndexUpdater is only prove of concept (with groups) and NOT designed for cluster !!!
 	public void addToIndex(final Document document) {
-		// The IndexUpdate is disabled with updateInterval == 0 => do not add documents
-		if (updateInterval != 0) {
-			updateQueue.add(document);
-		}
+		addChange(document.get(AbstractOlatDocument.RESOURCEURL_FIELD_NAME), new PendingChange(document, null));
+	}
+
+	/**
+	 * Add new or changed index document to update-queue, the document is extracted only when the update is written and only if no newer change of the same
+	 * resourceUrl replaced it in the meantime.
+	 * 
+	 * @param resourceUrl ResourceUrl of the document
+	 * @param extraction Builds the document, runs on the extraction worker pool
+	 */
+	public void addToIndex(final String resourceUrl, final Callable<Document> extraction) {
+		addChange(resourceUrl, new PendingChange(null, extraction));
 	}
 
 	/**
@@ -93,9 +119,20 @@ public class IndexUpdater implements Runnable {
 	 */
 	// o_clusterNOK: IndexUpdater is only prove of concept (with groups) and NOT designed for cluster !!!
 	public void deleteFromIndex(final Document document) {
+		addChange(document.get(AbstractOlatDocument.RESOURCEURL_FIELD_NAME), new PendingChange(null, null));
+	}
+
+	private void addChange(final String resourceUrl, final PendingChange change) {
 		// The IndexUpdate is disabled with updateInterval == 0 => do not add documents
-		if (updateInterval != 0) {
-			deleteQueue.add(document);
+		if (updateInterval == 0) { return; }
+		changeCount.incrementAndGet();
+		synchronized (pendingLock) {
+			final PendingChange replaced = pendingChanges.put(resourceUrl, change);
+			if (replaced != null) {
+				// the resource waits since the first change
+				change.firstChangeTime = replaced.firstChangeTime;
+				coalescedCount.incrementAndGet();
+			}
 		}
 	}
 
@@ -104,20 +141,18 @@ public class IndexUpdater implements Runnable {
 		boolean runAgain = true;
 		try {
 			while (runAgain && !this.stopUpdater) {
-				log.info("Updater starts...");
-				doUpdate();
-				log.info("Updater done ");
 				if (updateInterval == 0) {
 					log.debug("do not run again");
 					runAgain = false;
 				} else {
+					// collect the changes of one interval
 					if (log.isDebug()) {
 						log.debug("Updater sleep=" + updateInterval + "ms");
 					}
 					Thread.sleep(updateInterval);
-					if (log.isDebug()) {
-						log.debug("Restart updater");
-					}
+					log.debug("Updater starts...");
+					doUpdate();
+					log.debug("Updater done ");
 				}
 			}
 		} catch (final InterruptedException iex) {
@@ -128,77 +163,143 @@ public class IndexUpdater implements Runnable {
 	}
 
 	/**
-	 * Check update and delete-queue. Update existing index and writes new index file.
+	 * Take the pending changes, extract their documents and write them as one batch.
 	 */
-	private void doUpdate() {
-		if (!updateQueue.isEmpty() || !deleteQueue.isEmpty()) {
-			try {
-				log.info("updateQueue.size=" + updateQueue.size() + " deleteQueue.size" + deleteQueue.size());
-				// 0. make copy of queue's and delete it
-				List<Document> updateCopy;
-				synchronized (updateQueue) {
-					updateCopy = new Vector<Document>(updateQueue);
-					updateQueue.clear();
-				}
-				List<Document> deleteCopy;
-				synchronized (deleteQueue) {
-					deleteCopy = new Vector<Document>(deleteQueue);
-					deleteQueue.clear();
-				}
-				// 1. Open Index Reader
-				final File indexFile = new File(indexPath);
-				final Directory directory = FSDirectory.open(indexFile);
-				final IndexReader indexReader = IndexReader.open(directory);
-
-				log.info("befor delete: indexReader.numDocs()=" + indexReader.numDocs());
-				// 2. Delete old Document
-				// loop over all documents in updateQueue
-				for (int i = 0; i < updateCopy.size(); i++) {
-					final String resourceUrl = updateCopy.get(i).get(AbstractOlatDocument.RESOURCEURL_FIELD_NAME);
-					final Term term = new Term(AbstractOlatDocument.RESOURCEURL_FIELD_NAME, resourceUrl);
-					log.info("updateQueue:delete documents with resourceUrl=" + resourceUrl);
-					indexReader.deleteDocuments(term);
+	void doUpdate() throws InterruptedException {
+		final Map<String, PendingChange> batch = takePendingChanges();
+		if (batch.isEmpty()) {
+			log.debug("Queues are ampty.");
+			return;
+		}
+		final long startTime = System.currentTimeMillis();
+		// 1. extract the documents on the worker pool
+		final Map<String, Future<Document>> extractions = new HashMap<String, Future<Document>>();
+		for (final Map.Entry<String, PendingChange> entry : batch.entrySet()) {
+			if (entry.getValue().extraction != null) {
+				extractions.put(entry.getKey(), extractionPool.submit(new ExtractionTask(entry.getValue().extraction)));
+			}
+		}
+		final Map<String, Document> updates = new LinkedHashMap<String, Document>();
+		final List<String> deletes = new ArrayList<String>();
+		for (final Map.Entry<String, PendingChange> entry : batch.entrySet()) {
+			final String resourceUrl = entry.getKey();
+			final PendingChange change = entry.getValue();
+			if (change.isDelete()) {
+				deletes.add(resourceUrl);
+			} else if (change.document != null) {
+				updates.put(resourceUrl, change.document);
+			} else {
+				try {
+					final Document document = extractions.get(resourceUrl).get();
+					if (document != null) {
+						updates.put(resourceUrl, document);
+					}
+				} catch (final ExecutionException e) {
+					// keep the old version in the index
+					log.warn("Could not extract document for resourceUrl=" + resourceUrl, e.getCause());
 				}
-				// loop over all documents in deleteQueue
-				for (int i = 0; i < deleteCopy.size(); i++) {
-					final String resourceUrl = deleteCopy.get(i).get(AbstractOlatDocument.RESOURCEURL_FIELD_NAME);
-					final Term term = new Term(AbstractOlatDocument.RESOURCEURL_FIELD_NAME, resourceUrl);
-					log.info("deleteQueue:delete documents with resourceUrl='" + resourceUrl + "'");
-					indexReader.deleteDocuments(term);
+			}
+		}
+		// 2. write all changes with one commit
+		try {
+			if (!applyUpdates(updates, deletes)) {
+				log.info("Index can not be updated now, try again in " + updateInterval + "ms");
+				restorePendingChanges(batch);
+				return;
+			}
+		} catch (final Exception ex) {
+			log.warn("Exception during doUpdate, try again in " + updateInterval + "ms", ex);
+			restorePendingChanges(batch);
+			return;
+		}
+		// 3. metrics
+		final long searchableTime = System.currentTimeMillis();
+		long batchMaxTimeToSearchable = 0;
+		for (final PendingChange change : batch.values()) {
+			final long timeToSearchable = searchableTime - change.firstChangeTime;
+			totalTimeToSearchable.addAndGet(timeToSearchable);
+			batchMaxTimeToSearchable = Math.max(batchMaxTimeToSearchable, timeToSearchable);
+		}
+		appliedCount.addAndGet(batch.size());
+		lastTimeToSearchable = batchMaxTimeToSearchable;
+		maxTimeToSearchable = Math.max(maxTimeToSearchable, batchMaxTimeToSearchable);
+		log.info("IndexUpdater wrote " + updates.size() + " updates and " + deletes.size() + " deletes in " + (searchableTime - startTime)
+				+ "ms, time-to-searchable=" + batchMaxTimeToSearchable + "ms, coalesce ratio=" + getCoalesceRatio() + ", queue size=" + getQueueSize());
+	}
 
+	/**
+	 * Write one batch to the index, package-private to be overridden by tests.
+	 */
+	boolean applyUpdates(final Map<String, Document> updates, final List<String> deletes) throws IOException {
+		return index.applyUpdates(updates, deletes);
+	}
+
+	/**
+	 * @return The pending changes, the queue is empty afterwards
+	 */
+	Map<String, PendingChange> takePendingChanges() {
+		synchronized (pendingLock) {
+			final Map<String, PendingChange> batch = pendingChanges;
+			pendingChanges = new LinkedHashMap<String, PendingChange>();
+			return batch;
+		}
+	}
+
+	/**
+	 * Put a batch which could not be written back into the queue, changes made in the meantime are newer and win.
+	 */
+	private void restorePendingChanges(final Map<String, PendingChange> batch) {
+		synchronized (pendingLock) {
+			final Map<String, PendingChange> newer = pendingChanges;
+			pendingChanges = new LinkedHashMap<String, PendingChange>(batch);
+			for (final Map.Entry<String, PendingChange> entry : newer.entrySet()) {
+				final PendingChange replaced = pendingChanges.put(entry.getKey(), entry.getValue());
+				if (replaced != null) {
+					entry.getValue().firstChangeTime = replaced.firstChangeTime;
 				}
-				log.info("after delete: indexReader.numDocs()=" + indexReader.numDocs());
-				// 3. Close reader
-				indexReader.close();
-				directory.close();
-
-				// 4. open writer
-				final IndexWriter indexWriter = new IndexWriter(directory, new StandardAnalyzer(Version.LUCENE_CURRENT), false, IndexWriter.MaxFieldLength.UNLIMITED);
-				indexWriter.setMergeFactor(INDEX_MERGE_FACTOR); // for better performance
-				// 5. Add new Document
-				for (int i = 0; i < updateCopy.size(); i++) {
-					final Document document = updateCopy.get(i);
-					log.info("addDocument:" + document);
-					indexWriter.addDocument(document);
-				}
-				// 6. Close writer
-				long startOptimizeTime = 0;
-				if (log.isDebug()) {
-					startOptimizeTime = System.currentTimeMillis();
-				}
-				indexWriter.optimize();// TODO:chg: dauert ev. zulange oder nocht noetig
-				if (log.isDebug()) {
-					log.debug("Optimized in " + (System.currentTimeMillis() - startOptimizeTime) + "ms");
-				}
-				indexWriter.close();
-			} catch (final Exception ex) {
-				log.warn("Exception during doUpdate. ", ex);
 			}
-		} else {
-			log.debug("Queues are ampty.");
 		}
 	}
 
+	/**
+	 * @return Number of resourceUrls waiting to be written
+	 */
+	public int getQueueSize() {
+		synchronized (pendingLock) {
+			return pendingChanges.size();
+		}
+	}
+
+	/**
+	 * @return Part of all changes which were replaced by a newer change of the same resourceUrl before being written (0..1)
+	 */
+	public double getCoalesceRatio() {
+		final long changes = changeCount.get();
+		return changes == 0 ? 0 : (double) coalescedCount.get() / changes;
+	}
+
+	/**
+	 * @return Max time [ms] from the first change of a resourceUrl until it was searchable, of the last batch
+	 */
+	public long getLastTimeToSearchable() {
+		return lastTimeToSearchable;
+	}
+
+	/**
+	 * @return Max time [ms] from the first change of a resourceUrl until it was searchable since startup
+	 */
+	public long getMaxTimeToSearchable() {
+		return maxTimeToSearchable;
+	}
+
+	/**
+	 * @return Average time [ms] from the first change of a resourceUrl until it was searchable since startup
+	 */
+	public long getAverageTimeToSearchable() {
+		final long applied = appliedCount.get();
+		return applied == 0 ? 0 : totalTimeToSearchable.get() / applied;
+	}
+
 	/**
 	 * Start updater thread.
 	 */
@@ -207,6 +308,7 @@ public class IndexUpdater implements Runnable {
 		if ((updaterThread == null) || !updaterThread.isAlive()) {
 			log.info("start Updater thread...");
 			if (stopUpdater) {
+				extractionPool = Executors.newFixedThreadPool(EXTRACTION_POOL_SIZE, new ExtractionThreadFactory());
 				updaterThread = new Thread(this, "Updater");
 				stopUpdater = false;
 				// Set to lowest priority
@@ -225,13 +327,66 @@ public class IndexUpdater implements Runnable {
 	 * Stop update thread asynchron.
 	 */
 	public void stopUpdater() {
-		if (updaterThread.isAlive()) {
+		if (updaterThread != null && updaterThread.isAlive()) {
 			stopUpdater = true;
 			updaterThread.interrupt();
+			extractionPool.shutdownNow();
 			if (log.isDebug()) {
 				log.debug("stop Updater");
 			}
 		}
 	}
 
+	/**
+	 * A pending update or delete of one resourceUrl. An update has either the document or its extraction, a delete has none of them.
+	 */
+	static class PendingChange {
+		final Document document;
+		final Callable<Document> extraction;
+		long firstChangeTime = System.currentTimeMillis();
+
+		PendingChange(final Document document, final Callable<Document> extraction) {
+			this.document = document;
+			this.extraction = extraction;
+		}
+
+		boolean isDelete() {
+			return document == null && extraction == null;
+		}
+	}
+
+	/**
+	 * Runs an extraction on a worker thread, the db session of the worker is closed afterwards.
+	 */
+	private static class ExtractionTask implements Callable<Document> {
+		private final Callable<Document> extraction;
+
+		ExtractionTask(final Callable<Document> extraction) {
+			this.extraction = extraction;
+		}
+
+		@Override
+		public Document call() throws Exception {
+			try {
+				final Document document = extraction.call();
+				DBFactory.getInstance(false).commitAndCloseSession();
+				return document;
+			} catch (final Exception e) {
+				DBFactory.getInstance(false).rollbackAndCloseSession();
+				throw e;
+			}
+		}
+	}
+
+	private static class ExtractionThreadFactory implements ThreadFactory {
+		private int threadCount = 0;
+
+		@Override
+		public synchronized Thread newThread(final Runnable r) {
+			final Thread thread = new Thread(r, "IndexUpdaterExtraction-" + threadCount++);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
 }
@@ -0,0 +1,127 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+package org.olat.upgrade;
+
+import java.util.List;
+
+import org.olat.commons.calendar.CalendarManager;
+import org.olat.commons.calendar.CalendarManagerFactory;
+import org.olat.commons.calendar.ICalEventStoreCalendarManager;
+import org.olat.core.commons.persistence.DBFactory;
+import org.olat.modules.fo.ForumManager;
+
+/**
+ * Description:<br>
+ * Migrates the calendars stored as one .ics file to the event store, if the event store is configured (calendar.storage=eventstore). The task stays open as long
+ * as the calendars are stored as files, so the migration runs at the first startup after the event store has been switched on.
+ * <p>
+ * Folds the read messages of the forums (one row per identity and message) into the compact read state of every identity and forum.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class OLATUpgrade_7_2_0 extends OLATUpgrade {
+
+	private static final String TASK_MIGRATE_CALENDARS = "Migrate calendars to the event store";
+	private static final String TASK_FOLD_READ_MESSAGES = "Fold forum read messages into read states";
+
+	private static final String VERSION = "OLAT_7.2.0";
+
+	/**
+	 * @see org.olat.upgrade.OLATUpgrade#doPostSystemInitUpgrade(org.olat.upgrade.UpgradeManager)
+	 */
+	@Override
+	public boolean doPostSystemInitUpgrade(final UpgradeManager upgradeManager) {
+		UpgradeHistoryData uhd = upgradeManager.getUpgradesHistory(VERSION);
+		if (uhd == null) {
+			// has never been called, initialize
+			uhd = new UpgradeHistoryData();
+		} else {
+			if (uhd.isInstallationComplete()) { return false; }
+		}
+
+		foldReadMessages(upgradeManager, uhd);
+		migrateCalendars(upgradeManager, uhd);
+
+		if (uhd.getBooleanDataValue(TASK_FOLD_READ_MESSAGES) && uhd.getBooleanDataValue(TASK_MIGRATE_CALENDARS)) {
+			uhd.setInstallationComplete(true);
+			upgradeManager.setUpgradesHistory(uhd, VERSION);
+			log.audit("Finished OLATUpgrade_7_2_0 successfully!");
+		}
+		return true;
+	}
+
+	/**
+	 * @see org.olat.upgrade.OLATUpgrade#doPreSystemInitUpgrade(org.olat.upgrade.UpgradeManager)
+	 */
+	@Override
+	public boolean doPreSystemInitUpgrade(final UpgradeManager upgradeManager) {
+		return false;
+	}
+
+	private void foldReadMessages(final UpgradeManager upgradeManager, final UpgradeHistoryData uhd) {
+		if (!uhd.getBooleanDataValue(TASK_FOLD_READ_MESSAGES)) {
+			log.audit("+-----------------------------------------------------------------------------+");
+			log.audit("+... Fold the read messages of the forums into read states                  ...+");
+			log.audit("+-----------------------------------------------------------------------------+");
+			final ForumManager forumManager = ForumManager.getInstance();
+			final List<Long> forumKeys = forumManager.getAllForumKeys();
+			int counter = 0;
+			int rows = 0;
+			for (final Long forumKey : forumKeys) {
+				rows += forumManager.foldReadMessages(forumKey);
+				DBFactory.getInstance().intermediateCommit();
+				if (++counter % 100 == 0) {
+					log.audit("Folded read messages of " + counter + " of " + forumKeys.size() + " forums");
+				}
+			}
+			log.audit("**** Folded " + rows + " read messages of " + counter + " forums. ****");
+
+			uhd.setBooleanDataValue(TASK_FOLD_READ_MESSAGES, true);
+			upgradeManager.setUpgradesHistory(uhd, VERSION);
+		}
+	}
+
+	private void migrateCalendars(final UpgradeManager upgradeManager, final UpgradeHistoryData uhd) {
+		if (!uhd.getBooleanDataValue(TASK_MIGRATE_CALENDARS)) {
+			final CalendarManager calendarManager = CalendarManagerFactory.getInstance().getCalendarManager();
+			if (!(calendarManager instanceof ICalEventStoreCalendarManager)) {
+				log.audit("**** Calendars are stored as files: don't need to migrate calendars. ****");
+				return;
+			}
+			log.audit("+-----------------------------------------------------------------------------+");
+			log.audit("+... Migrate the calendar files to the event store                          ...+");
+			log.audit("+-----------------------------------------------------------------------------+");
+			final int counter = ((ICalEventStoreCalendarManager) calendarManager).migrateAllCalendars();
+			log.audit("**** Migrated " + counter + " calendars. ****");
+
+			uhd.setBooleanDataValue(TASK_MIGRATE_CALENDARS, true);
+			upgradeManager.setUpgradesHistory(uhd, VERSION);
+		}
+	}
+
+	/**
+	 * @see org.olat.upgrade.OLATUpgrade#getVersion()
+	 */
+	@Override
+	public String getVersion() {
+		return VERSION;
+	}
+}
@@ -29,3 +29,21 @@ alter table o_info_message add constraint FKF85553465A4FA5DC foreign key (fk_aut
 
 create index imsg_modifier_idx on o_info_message (fk_modifier_id);
 alter table o_info_message add constraint FKF85553465A4FA5EF foreign key (fk_modifier_id) references o_bs_identity (id);
+
+--cluster locks carry the node holding them and the lease of that node
+alter table oc_lock add (nodeid varchar2(16 char), leaseexpires date);
+
+--read state of the forums: one row per identity and forum instead of one row per read message, o_readmessage is folded into it by the upgrade OLAT_7.2.0
+CREATE TABLE o_forum_readstate (
+  id number(20) NOT NULL,
+  version number(20) NOT NULL,
+  creationdate date,
+  lastmodified date,
+  identity_id number(20) NOT NULL,
+  forum_id number(20) NOT NULL,
+  highwatermark number(20),
+  readkeys CLOB,
+  PRIMARY KEY (id)
+);
+create index  readstate_identity_forum_idx on o_forum_readstate (identity_id, forum_id);
+create index  readstate_forum_idx on o_forum_readstate (forum_id);
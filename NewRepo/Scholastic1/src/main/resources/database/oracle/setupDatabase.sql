@@ -528,6 +528,8 @@ CREATE TABLE oc_lock (
   creationdate date,
   identity_fk number(20) NOT NULL,
   asset varchar2(120 char) NOT NULL,
+  nodeid varchar2(16 char),
+  leaseexpires date,
   CONSTRAINT u_oc_lock UNIQUE (asset),
   PRIMARY KEY (lock_id)
 );
@@ -546,6 +548,22 @@ CREATE TABLE o_readmessage (
   PRIMARY KEY (id)
 );
 
+--
+-- Table: o_forum_readstate
+--;
+
+CREATE TABLE o_forum_readstate (
+  id number(20) NOT NULL,
+  version number(20) NOT NULL,
+  creationdate date,
+  lastmodified date,
+  identity_id number(20) NOT NULL,
+  forum_id number(20) NOT NULL,
+  highwatermark number(20),
+  readkeys CLOB,
+  PRIMARY KEY (id)
+);
+
 --
 -- Table: o_loggingtable
 --;
@@ -992,6 +1010,8 @@ create index  lc_type_idx on o_lifecycle (persistenttypename);
 create index  lc_action_idx on o_lifecycle (action);
 create index  readmessage_forum_idx on o_readmessage (forum_id);
 create index  readmessage_identity_idx on o_readmessage (identity_id);
+create index  readstate_identity_forum_idx on o_forum_readstate (identity_id, forum_id);
+create index  readstate_forum_idx on o_forum_readstate (forum_id);
 create index  opb_project_broker_idx on o_projectbroker_project (projectbroker_fk);
 -- create index  projectbroker_project_id_idx on o_projectbroker_project (project_id);
 create index  opb_customfields_idx on o_projectbroker_customfields (fk_project_id);
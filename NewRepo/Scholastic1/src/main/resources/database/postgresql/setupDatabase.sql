@@ -354,6 +354,8 @@ create table oc_lock (
 	creationdate timestamp, 
 	identity_fk int8 not null, 
 	asset varchar(120) not null unique, 
+	nodeid varchar(16), 
+	leaseexpires timestamp, 
 	primary key (lock_id)
 );
 create index ocl_asset_idx on oc_lock (asset);
@@ -367,6 +369,17 @@ create table o_readmessage (
 	forum_id int8 not null, 
 	message_id int8 not null, 
 	primary key (id));
+
+create table o_forum_readstate (
+	id int8 not null, 
+	version int4 not null,
+	creationdate timestamp,
+	lastmodified timestamp,
+	identity_id int8 not null, 
+	forum_id int8 not null, 
+	highwatermark int8,
+	readkeys text,
+	primary key (id));
 	
 create table o_loggingtable (
 	log_id int8 not null,
@@ -852,6 +865,8 @@ create index lc_type_idx on o_lifecycle (persistenttypename);
 create index lc_action_idx on o_lifecycle (action);
 create index readmessage_forum_idx on o_readmessage (forum_id);
 create index readmessage_identity_idx on o_readmessage (identity_id);
+create index readstate_identity_forum_idx on o_forum_readstate (identity_id, forum_id);
+create index readstate_forum_idx on o_forum_readstate (forum_id);
 create index projectbroker_project_broker_idx on o_projectbroker_project (projectbroker_fk);
 create index projectbroker_project_id_idx on o_projectbroker_project (project_id);
 create index o_projectbroker_customfields_idx on o_projectbroker_customfields (fk_project_id);
@@ -27,12 +27,14 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
 import org.junit.After;
@@ -203,6 +205,80 @@ public class SecurityManagerTest extends OlatTestCase {
 		assertTrue("Does not found policy", foundPolicy);
 	}
 
+	@Test
+	public void testPermissionCacheInvalidation() {
+		final SecurityGroup secGroup = sm.createAndPersistSecurityGroup();
+		sm.addIdentityToSecurityGroup(s2, secGroup);
+		assertFalse(sm.isIdentityPermittedOnResourceable(s2, Constants.PERMISSION_ACCESS, olatres2));
+
+		// new policy on a group of the identity
+		final Policy policy = sm.createAndPersistPolicy(secGroup, Constants.PERMISSION_ACCESS, olatres2);
+		assertTrue(sm.isIdentityPermittedOnResourceable(s2, Constants.PERMISSION_ACCESS, olatres2));
+		assertFalse(sm.isIdentityPermittedOnResourceable(s2, Constants.PERMISSION_ADMIN, olatres2));
+
+		// membership removed and added again
+		sm.removeIdentityFromSecurityGroup(s2, secGroup);
+		assertFalse(sm.isIdentityPermittedOnResourceable(s2, Constants.PERMISSION_ACCESS, olatres2));
+		sm.addIdentityToSecurityGroup(s2, secGroup);
+		assertTrue(sm.isIdentityPermittedOnResourceable(s2, Constants.PERMISSION_ACCESS, olatres2));
+
+		// policy deleted
+		sm.deletePolicy(secGroup, policy.getPermission(), olatres2);
+		assertFalse(sm.isIdentityPermittedOnResourceable(s2, Constants.PERMISSION_ACCESS, olatres2));
+		sm.deleteSecurityGroup(secGroup);
+	}
+
+	@Test
+	public void testPermissionCacheInvalidatedAfterCommit() {
+		final SecurityGroup secGroup = sm.createAndPersistSecurityGroup();
+		sm.addIdentityToSecurityGroup(s2, secGroup);
+		sm.createAndPersistPolicy(secGroup, Constants.PERMISSION_ACCESS, olatres2);
+		DBFactory.getInstance().closeSession();
+		// loaded from the committed state and cached
+		assertTrue(sm.isIdentityPermittedOnResourceable(s2, Constants.PERMISSION_ACCESS, olatres2));
+		assertTrue(sm.isIdentityPermittedOnResourceable(s2, Constants.PERMISSION_ACCESS, olatres2));
+
+		sm.removeIdentityFromSecurityGroup(s2, secGroup);
+		// the writing transaction sees its own change
+		assertFalse(sm.isIdentityPermittedOnResourceable(s2, Constants.PERMISSION_ACCESS, olatres2));
+		DBFactory.getInstance().closeSession();
+		// the cached grants were removed with the commit
+		assertFalse(sm.isIdentityPermittedOnResourceable(s2, Constants.PERMISSION_ACCESS, olatres2));
+
+		sm.deleteSecurityGroup(secGroup);
+		DBFactory.getInstance().closeSession();
+	}
+
+	@Test
+	public void testGetPermissionsFor() {
+		final SecurityGroup secGroup = sm.createAndPersistSecurityGroup();
+		sm.addIdentityToSecurityGroup(s2, secGroup);
+		sm.createAndPersistPolicy(secGroup, Constants.PERMISSION_ACCESS, olatres);
+		sm.createAndPersistPolicy(secGroup, Constants.PERMISSION_ADMIN, olatres);
+		// type right on all resources of the type of olatres2
+		final OLATResourceable olatres2Type = OresHelper.createOLATResourceableInstance(olatres2.getResourceableTypeName(), new Long(0));
+		sm.createAndPersistPolicy(secGroup, Constants.PERMISSION_READ, olatres2Type);
+
+		final OLATResourceable notPermitted = OresHelper.createOLATResourceableInstance("Kürs_3", new Long("125"));
+		final List<OLATResourceable> resources = new ArrayList<OLATResourceable>();
+		resources.add(olatres);
+		resources.add(olatres2);
+		resources.add(notPermitted);
+		final Map<OLATResourceable, Set<String>> permissions = sm.getPermissionsFor(s2, resources);
+		assertEquals(3, permissions.size());
+		assertEquals(2, permissions.get(olatres).size());
+		assertTrue(permissions.get(olatres).contains(Constants.PERMISSION_ACCESS));
+		assertTrue(permissions.get(olatres).contains(Constants.PERMISSION_ADMIN));
+		assertEquals(1, permissions.get(olatres2).size());
+		assertTrue(permissions.get(olatres2).contains(Constants.PERMISSION_READ));
+		assertTrue(permissions.get(notPermitted).isEmpty());
+
+		// must be the same as the single checks
+		assertTrue(sm.isIdentityPermittedOnResourceable(s2, Constants.PERMISSION_READ, olatres2));
+		assertFalse(sm.isIdentityPermittedOnResourceable(s2, Constants.PERMISSION_READ, olatres2, false));
+		sm.deleteSecurityGroup(secGroup);
+	}
+
 	@Test
 	public void testRemoveIdentityFromSecurityGroup() {
 		final SecurityGroup olatUsersGroup = sm.findSecurityGroupByName(Constants.GROUP_OLATUSERS);
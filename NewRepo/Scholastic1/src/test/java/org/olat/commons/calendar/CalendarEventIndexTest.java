@@ -0,0 +1,147 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.commons.calendar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Description:<br>
+ * Tests the time range queries, the journal replay and the compaction of the CalendarEventIndex.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class CalendarEventIndexTest {
+
+	private static final long HOUR = 60l * 60l * 1000l;
+	private static final long DAY = 24l * HOUR;
+
+	private File journal;
+
+	@Before
+	public void setUp() throws Exception {
+		journal = File.createTempFile("calendareventindextest", ".journal");
+		journal.delete();
+	}
+
+	@After
+	public void tearDown() {
+		journal.delete();
+	}
+
+	@Test
+	public void testEventsInPeriod() {
+		final CalendarEventIndex index = new CalendarEventIndex();
+		index.put("monday", 0, HOUR, CalendarEventIndex.NOT_RECURRING);
+		index.put("tuesday", DAY, DAY + HOUR, CalendarEventIndex.NOT_RECURRING);
+		// begins before the period and lasts into it
+		index.put("twoWeeks", -7 * DAY, 7 * DAY, CalendarEventIndex.NOT_RECURRING);
+		index.put("nextWeek", 8 * DAY, 8 * DAY + HOUR, CalendarEventIndex.NOT_RECURRING);
+		index.put("lastWeek", -6 * DAY, -6 * DAY + HOUR, CalendarEventIndex.NOT_RECURRING);
+		index.put("weekly", -30 * DAY, -30 * DAY + HOUR, CalendarEventIndex.RECURRING_FOREVER);
+		index.put("weeklyUntilLastWeek", -30 * DAY, -30 * DAY + HOUR, -5 * DAY);
+
+		final List<String> ids = index.getEventIdsInPeriod(0, 7 * DAY - 1);
+		assertEquals(4, ids.size());
+		assertEquals("twoWeeks", ids.get(0));
+		assertEquals("monday", ids.get(1));
+		assertEquals("tuesday", ids.get(2));
+		assertEquals("weekly", ids.get(3));
+
+		index.remove("twoWeeks");
+		index.put("monday", 2 * DAY, 2 * DAY + HOUR, CalendarEventIndex.NOT_RECURRING);
+		assertEquals(6, index.size());
+		assertEquals(3, index.getEventIdsInPeriod(0, 7 * DAY - 1).size());
+		assertEquals("tuesday", index.getEventIdsInPeriod(0, 7 * DAY - 1).get(0));
+	}
+
+	@Test
+	public void testJournalReplay() throws Exception {
+		assertNull(CalendarEventIndex.read(journal));
+
+		final CalendarEventIndex index = new CalendarEventIndex();
+		index.writeCompacted(journal);
+		index.put("a\tb", 0, HOUR, CalendarEventIndex.NOT_RECURRING);
+		index.appendPut(journal, "a\tb");
+		index.put("c", DAY, DAY + HOUR, CalendarEventIndex.RECURRING_FOREVER);
+		index.appendPut(journal, "c");
+		index.put("c", 2 * DAY, 2 * DAY + HOUR, CalendarEventIndex.NOT_RECURRING);
+		index.appendPut(journal, "c");
+		index.put("d", 3 * DAY, 3 * DAY + HOUR, CalendarEventIndex.NOT_RECURRING);
+		index.appendPut(journal, "d");
+		index.remove("d");
+		index.appendRemove(journal, "d");
+		assertEquals(journal.length(), index.getJournalLength());
+
+		// simulate a crash in the middle of the next line
+		final FileOutputStream out = new FileOutputStream(journal, true);
+		out.write("P\te".getBytes("UTF-8"));
+		out.close();
+
+		final CalendarEventIndex replayed = CalendarEventIndex.read(journal);
+		assertEquals(2, replayed.size());
+		assertTrue(replayed.contains("a\tb"));
+		assertFalse(replayed.contains("d"));
+		assertEquals(1, replayed.getEventIdsInPeriod(2 * DAY, 2 * DAY + 1).size());
+		assertEquals(0, replayed.getEventIdsInPeriod(DAY, DAY + 1).size());
+
+		// the next append starts on a new line
+		replayed.put("f", 0, HOUR, CalendarEventIndex.NOT_RECURRING);
+		replayed.appendPut(journal, "f");
+		assertEquals(3, CalendarEventIndex.read(journal).size());
+	}
+
+	@Test
+	public void testCompaction() throws Exception {
+		final CalendarEventIndex index = new CalendarEventIndex();
+		index.writeCompacted(journal);
+		for (int i = 0; i < 100; i++) {
+			index.put("event", i * DAY, i * DAY + HOUR, CalendarEventIndex.NOT_RECURRING);
+			index.appendPut(journal, "event");
+		}
+		index.put("other", 0, HOUR, CalendarEventIndex.NOT_RECURRING);
+		index.appendPut(journal, "other");
+		assertTrue(index.needsCompaction());
+
+		final long length = journal.length();
+		index.writeCompacted(journal);
+		assertFalse(index.needsCompaction());
+		assertTrue(journal.length() < length);
+
+		final CalendarEventIndex replayed = CalendarEventIndex.read(journal);
+		assertEquals(2, replayed.size());
+		assertEquals("event", replayed.getEventIdsInPeriod(99 * DAY, 99 * DAY + 1).get(0));
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) since 2004 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.commons.coordinate.cluster.jms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Description:<br>
+ * Tests ordering and overflow handling of the inbound dispatch pipeline of the cluster event bus
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class ClusterEventDispatcherTest {
+
+	@Test
+	public void testOrderPerKey() throws Exception {
+		final ClusterEventDispatcher dispatcher = new ClusterEventDispatcher(4, 1000, ClusterEventDispatcher.OverflowPolicy.BLOCK);
+		dispatcher.start();
+		final int keys = 10;
+		final int eventsPerKey = 200;
+		final List<List<Integer>> served = new ArrayList<List<Integer>>();
+		for (int k = 0; k < keys; k++) {
+			served.add(Collections.synchronizedList(new ArrayList<Integer>()));
+		}
+		final CountDownLatch done = new CountDownLatch(keys * eventsPerKey);
+		for (int i = 0; i < eventsPerKey; i++) {
+			for (int k = 0; k < keys; k++) {
+				final List<Integer> list = served.get(k);
+				final int seq = i;
+				dispatcher.dispatch("key" + k, new Runnable() {
+					@Override
+					public void run() {
+						list.add(Integer.valueOf(seq));
+						done.countDown();
+					}
+				});
+			}
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		for (final List<Integer> list : served) {
+			assertEquals(eventsPerKey, list.size());
+			for (int i = 0; i < eventsPerKey; i++) {
+				assertEquals(Integer.valueOf(i), list.get(i));
+			}
+		}
+		assertEquals(keys * eventsPerKey, dispatcher.getDispatchedCount());
+		dispatcher.stop();
+	}
+
+	@Test
+	public void testDiscardOnOverflow() throws Exception {
+		final ClusterEventDispatcher dispatcher = new ClusterEventDispatcher(1, 2, ClusterEventDispatcher.OverflowPolicy.DISCARD);
+		dispatcher.start();
+		final CountDownLatch blocker = new CountDownLatch(1);
+		final CountDownLatch started = new CountDownLatch(1);
+		// keep the only worker busy
+		assertTrue(dispatcher.dispatch("key", new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					blocker.await();
+				} catch (final InterruptedException e) {
+					// ignore
+				}
+			}
+		}));
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		final Runnable noop = new Runnable() {
+			@Override
+			public void run() {
+				// nothing
+			}
+		};
+		assertTrue(dispatcher.dispatch("key", noop));
+		assertTrue(dispatcher.dispatch("key", noop));
+		assertFalse(dispatcher.dispatch("key", noop));
+		assertEquals(2, dispatcher.getQueueDepth());
+		assertEquals(1, dispatcher.getDroppedCount());
+		blocker.countDown();
+		dispatcher.stop();
+	}
+}
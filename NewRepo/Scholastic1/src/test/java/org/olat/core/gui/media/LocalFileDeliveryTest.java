@@ -0,0 +1,189 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.core.gui.media;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mockito;
+
+/**
+ * Description:<br>
+ * Tests the range parsing, the If-Range and ETag matching and the channel based transfer of the LocalFileDelivery.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class LocalFileDeliveryTest {
+
+	private File file;
+	private byte[] content;
+
+	@Before
+	public void setUp() throws Exception {
+		content = new byte[10000];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) (i % 251);
+		}
+		file = File.createTempFile("localfiledeliverytest", ".bin");
+		final FileOutputStream out = new FileOutputStream(file);
+		out.write(content);
+		out.close();
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Test
+	public void testParseRanges() {
+		assertRanges(new long[][] { { 0, 499 } }, LocalFileDelivery.parseRanges("bytes=0-499", 10000));
+		assertRanges(new long[][] { { 9500, 9999 } }, LocalFileDelivery.parseRanges("bytes=9500-", 10000));
+		assertRanges(new long[][] { { 9500, 9999 } }, LocalFileDelivery.parseRanges("bytes=-500", 10000));
+		// suffix longer than the file and end after the file are cut
+		assertRanges(new long[][] { { 0, 9999 } }, LocalFileDelivery.parseRanges("bytes=-20000", 10000));
+		assertRanges(new long[][] { { 9000, 9999 } }, LocalFileDelivery.parseRanges("bytes=9000-20000", 10000));
+		assertRanges(new long[][] { { 0, 0 }, { 100, 199 }, { 9999, 9999 } }, LocalFileDelivery.parseRanges("bytes=0-0, 100-199,-1", 10000));
+	}
+
+	@Test
+	public void testParseInvalidRanges() {
+		// malformed headers are ignored, the whole file is sent
+		assertNull(LocalFileDelivery.parseRanges("items=0-499", 10000));
+		assertNull(LocalFileDelivery.parseRanges("bytes=499-0", 10000));
+		assertNull(LocalFileDelivery.parseRanges("bytes=abc-", 10000));
+		assertNull(LocalFileDelivery.parseRanges("bytes=100", 10000));
+		// well formed but not satisfiable
+		assertEquals(0, LocalFileDelivery.parseRanges("bytes=10000-", 10000).length);
+		assertEquals(0, LocalFileDelivery.parseRanges("bytes=-0", 10000).length);
+		// the satisfiable ones survive
+		assertRanges(new long[][] { { 5, 9 } }, LocalFileDelivery.parseRanges("bytes=20000-30000,5-9", 10000));
+	}
+
+	@Test
+	public void testETag() {
+		final String eTag = LocalFileDelivery.getETag(file.length(), file.lastModified());
+		assertEquals("W/\"10000-" + file.lastModified() + "\"", eTag);
+		assertTrue(LocalFileDelivery.matchesETag(eTag, eTag));
+		assertTrue(LocalFileDelivery.matchesETag("\"abc\", " + eTag, eTag));
+		assertTrue(LocalFileDelivery.matchesETag("*", eTag));
+		assertFalse(LocalFileDelivery.matchesETag("W/\"10000-1\"", eTag));
+	}
+
+	@Test
+	public void testIfRange() {
+		final long lastModified = 1000000000000L;
+		final String weakETag = LocalFileDelivery.getETag(10000, lastModified);
+		// the ranges are only honoured with a strong match or an unchanged date
+		assertRanges(new long[][] { { 0, 9 } }, LocalFileDelivery.getRanges(mockRangeRequest("\"abc\"", -1), "\"abc\"", lastModified, 10000));
+		assertNull(LocalFileDelivery.getRanges(mockRangeRequest("\"xyz\"", -1), "\"abc\"", lastModified, 10000));
+		assertNull("weak validators never match", LocalFileDelivery.getRanges(mockRangeRequest(weakETag, -1), weakETag, lastModified, 10000));
+		assertNull(LocalFileDelivery.getRanges(mockRangeRequest("\"10000-" + lastModified + "\"", -1), weakETag, lastModified, 10000));
+		assertRanges(new long[][] { { 0, 9 } }, LocalFileDelivery.getRanges(mockRangeRequest("Sun, 09 Sep 2001 01:46:40 GMT", lastModified), weakETag, lastModified,
+				10000));
+		assertNull(LocalFileDelivery.getRanges(mockRangeRequest("Sun, 09 Sep 2001 01:46:40 GMT", lastModified - 5000), weakETag, lastModified, 10000));
+	}
+
+	private HttpServletRequest mockRangeRequest(final String ifRange, final long ifRangeDate) {
+		final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+		Mockito.when(request.getHeader("Range")).thenReturn("bytes=0-9");
+		Mockito.when(request.getHeader("If-Range")).thenReturn(ifRange);
+		Mockito.when(request.getDateHeader("If-Range")).thenReturn(ifRangeDate);
+		return request;
+	}
+
+	@Test
+	public void testTransfer() throws Exception {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		LocalFileDelivery.transfer(file, 0, content.length - 1, out);
+		assertArrayEquals(content, out.toByteArray());
+
+		out.reset();
+		LocalFileDelivery.transfer(file, 100, 199, out);
+		assertArrayEquals(slice(100, 199), out.toByteArray());
+	}
+
+	@Test
+	public void testTransferToFile() throws Exception {
+		final File target = File.createTempFile("localfiledeliverytest", ".out");
+		try {
+			final FileOutputStream out = new FileOutputStream(target);
+			LocalFileDelivery.transfer(file, 5000, 9999, out);
+			out.close();
+			final byte[] copied = new byte[(int) target.length()];
+			final FileInputStream in = new FileInputStream(target);
+			in.read(copied);
+			in.close();
+			assertArrayEquals(slice(5000, 9999), copied);
+		} finally {
+			target.delete();
+		}
+	}
+
+	@Test(expected = java.io.IOException.class)
+	public void testTransferBeyondEndOfFile() throws Exception {
+		LocalFileDelivery.transfer(file, 9000, 10999, new ByteArrayOutputStream());
+	}
+
+	@Test
+	public void testTransferRanges() throws Exception {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		LocalFileDelivery.transferRanges(file, new long[][] { { 0, 9 }, { 9990, 9999 } }, "video/mp4", out);
+
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		expected.write(("\r\n--" + LocalFileDelivery.MIME_BOUNDARY + "\r\nContent-Type: video/mp4\r\nContent-Range: bytes 0-9/10000\r\n\r\n").getBytes("US-ASCII"));
+		expected.write(slice(0, 9));
+		expected.write(("\r\n--" + LocalFileDelivery.MIME_BOUNDARY + "\r\nContent-Type: video/mp4\r\nContent-Range: bytes 9990-9999/10000\r\n\r\n").getBytes("US-ASCII"));
+		expected.write(slice(9990, 9999));
+		expected.write(("\r\n--" + LocalFileDelivery.MIME_BOUNDARY + "--\r\n").getBytes("US-ASCII"));
+		assertArrayEquals(expected.toByteArray(), out.toByteArray());
+	}
+
+	private byte[] slice(final int start, final int end) {
+		final byte[] part = new byte[end - start + 1];
+		System.arraycopy(content, start, part, 0, part.length);
+		return part;
+	}
+
+	private void assertRanges(final long[][] expected, final long[][] ranges) {
+		assertEquals(expected.length, ranges.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertArrayEquals(expected[i], ranges[i]);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.core.logging.activity;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.junit.Test;
+import org.olat.core.CoreSpringFactory;
+import org.olat.core.commons.persistence.DB;
+import org.olat.test.OlatTestCase;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Description:<br>
+ * Tests the jdbc batches of the ActivityLogWriter against the o_loggingtable, the writer thread is not started.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class ActivityLogWriterDBTest extends OlatTestCase {
+
+	@Autowired
+	private DB dbInstance;
+
+	@Test
+	public void testWriteToDatabase() {
+		final String sessionId = "alw-" + System.currentTimeMillis();
+		final ActivityLogWriter writer = new ActivityLogWriter();
+		writer.setSessionFactory((SessionFactory) CoreSpringFactory.getBean("sessionFactory"));
+
+		final long now = System.currentTimeMillis();
+		final ActivityLogRecord launch = new ActivityLogRecord(1, now, newLoggingObject(sessionId, "launch"));
+		final ActivityLogRecord close = new ActivityLogRecord(2, now + 42, newLoggingObject(sessionId, "close"));
+		// the duration of a record of the same batch goes into the insert
+		final List<Serializable> first = new ArrayList<Serializable>();
+		first.add(launch);
+		first.add(close);
+		first.add(new ActivityLogRecord.DurationUpdate(1, 42));
+		writer.writeToDatabase(first);
+		// the duration of a record of an earlier batch is an update
+		final List<Serializable> second = new ArrayList<Serializable>();
+		second.add(new ActivityLogRecord.DurationUpdate(2, 17));
+		writer.writeToDatabase(second);
+		assertEquals(2, writer.getWrittenCount());
+
+		final List<?> rows = dbInstance.find("from org.olat.core.logging.activity.LoggingObject as log where log.sessionId = ? order by log.key", sessionId,
+				Hibernate.STRING);
+		assertEquals(2, rows.size());
+		final LoggingObject launchRow = (LoggingObject) rows.get(0);
+		assertEquals("launch", launchRow.getActionVerb());
+		assertEquals("[RepositoryEntry:1][CourseNode:2]", launchRow.getBusinessPath());
+		assertEquals(42, launchRow.getSimpleDuration());
+		final LoggingObject closeRow = (LoggingObject) rows.get(1);
+		assertEquals("close", closeRow.getActionVerb());
+		assertEquals(17, closeRow.getSimpleDuration());
+		dbInstance.closeSession();
+	}
+
+	private LoggingObject newLoggingObject(final String sessionId, final String verb) {
+		final LoggingObject logObj = new LoggingObject(sessionId, Long.valueOf(1), "author", "r", verb, "node");
+		logObj.setBusinessPath("[RepositoryEntry:1][CourseNode:2]");
+		return logObj;
+	}
+}
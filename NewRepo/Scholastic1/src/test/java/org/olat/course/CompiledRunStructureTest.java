@@ -0,0 +1,146 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.course;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Description:<br>
+ * Tests writing, reading and the stale detection of the compiled run structure.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class CompiledRunStructureTest {
+
+	private File courseBase;
+	private File xml;
+
+	@Before
+	public void setUp() throws Exception {
+		courseBase = File.createTempFile("compiledrunstructuretest", "");
+		courseBase.delete();
+		courseBase.mkdirs();
+		xml = new File(courseBase, "runstructure.xml");
+		writeXml("<org.olat.course.Structure/>");
+	}
+
+	@After
+	public void tearDown() {
+		final File[] files = courseBase.listFiles();
+		for (int i = 0; files != null && i < files.length; i++) {
+			files[i].delete();
+		}
+		courseBase.delete();
+	}
+
+	private void writeXml(final String content) throws Exception {
+		final FileOutputStream out = new FileOutputStream(xml);
+		out.write(content.getBytes("UTF-8"));
+		out.close();
+	}
+
+	private Structure newStructure(final int version) {
+		final Structure structure = new Structure();
+		structure.setVersion(version);
+		return structure;
+	}
+
+	@Test
+	public void testWriteAndRead() {
+		final Structure structure = newStructure(42);
+		assertTrue(CompiledRunStructure.write(courseBase, structure, xml));
+		assertEquals("no temporary file left", 2, courseBase.list().length);
+
+		final Structure read = CompiledRunStructure.read(courseBase, xml);
+		assertNotNull(read);
+		assertEquals(42, read.getVersion());
+		assertTrue("every read is a private copy", read != structure && read != CompiledRunStructure.read(courseBase, xml));
+	}
+
+	@Test
+	public void testMissing() {
+		assertNull(CompiledRunStructure.read(courseBase, xml));
+	}
+
+	@Test
+	public void testStaleWhenXmlChanged() throws Exception {
+		assertTrue(CompiledRunStructure.write(courseBase, newStructure(2), xml));
+		// e.g. an import or a manual repair of the xml
+		writeXml("<org.olat.course.Structure><version>2</version></org.olat.course.Structure>");
+		assertNull(CompiledRunStructure.read(courseBase, xml));
+		// compiled again
+		assertTrue(CompiledRunStructure.write(courseBase, newStructure(3), xml));
+		assertEquals(3, CompiledRunStructure.read(courseBase, xml).getVersion());
+	}
+
+	@Test
+	public void testUnserializableStructureIsMarked() throws Exception {
+		assertFalse(CompiledRunStructure.write(courseBase, new UnserializableStructure(), xml));
+		assertFalse(new File(courseBase, CompiledRunStructure.FILE_NAME).exists());
+		assertTrue(new File(courseBase, CompiledRunStructure.FAILED_FILE_NAME).exists());
+		assertEquals("no temporary file left", 2, courseBase.list().length);
+		// not compiled again for the same xml
+		assertFalse(CompiledRunStructure.write(courseBase, newStructure(2), xml));
+		assertNull(CompiledRunStructure.read(courseBase, xml));
+
+		// until the xml changes, e.g. at the next publish
+		writeXml("<org.olat.course.Structure><version>3</version></org.olat.course.Structure>");
+		assertTrue(CompiledRunStructure.write(courseBase, newStructure(3), xml));
+		assertFalse(new File(courseBase, CompiledRunStructure.FAILED_FILE_NAME).exists());
+		assertEquals(3, CompiledRunStructure.read(courseBase, xml).getVersion());
+	}
+
+	@Test
+	public void testBrokenFile() throws Exception {
+		assertTrue(CompiledRunStructure.write(courseBase, newStructure(2), xml));
+		final File compiled = new File(courseBase, CompiledRunStructure.FILE_NAME);
+		final RandomAccessFile raf = new RandomAccessFile(compiled, "rw");
+		raf.setLength(compiled.length() - 10);
+		raf.close();
+		assertNull(CompiledRunStructure.read(courseBase, xml));
+
+		final FileOutputStream out = new FileOutputStream(compiled);
+		out.write(new byte[] { 1, 2, 3 });
+		out.close();
+		assertNull(CompiledRunStructure.read(courseBase, xml));
+	}
+
+	private static class UnserializableStructure extends Structure {
+		@SuppressWarnings("unused")
+		private final Object notSerializable = new Object();
+	}
+}
@@ -179,6 +179,24 @@ public class AssessmentManagerTest extends OlatTestCase {
 		assertEquals(coachComment, assessmentManager.getNodeCoachComment(assessableCourseNode, student));
 		assertEquals(userComment, assessmentManager.getNodeComment(assessableCourseNode, student));
 
+		// the batch getters deliver the same values when loaded by the bulk query, the tutor has no assessment data
+		final List<Identity> assessedIdentities = new ArrayList<Identity>();
+		assessedIdentities.add(student);
+		assessedIdentities.add(tutor);
+		((NewCachePersistingAssessmentManager) assessmentManager).clearCacheFor(assessedIdentities);
+		assessmentManager.preloadCache();
+		assertEquals(score, assessmentManager.getNodeScore(assessableCourseNode, student));
+		((NewCachePersistingAssessmentManager) assessmentManager).clearCacheFor(assessedIdentities);
+		final Map<Long, Float> scores = assessmentManager.getScores(assessedIdentities, assessableCourseNode);
+		assertEquals(score, scores.get(student.getKey()));
+		assertNull(scores.get(tutor.getKey()));
+		final Map<Long, Boolean> passedMap = assessmentManager.getPassed(assessedIdentities, assessableCourseNode);
+		assertEquals(passed, passedMap.get(student.getKey()));
+		assertNull(passedMap.get(tutor.getKey()));
+		final Map<Long, Integer> attemptsMap = assessmentManager.getAttempts(assessedIdentities, assessableCourseNode);
+		assertEquals(attempts, attemptsMap.get(student.getKey()));
+		assertEquals(Integer.valueOf(0), attemptsMap.get(tutor.getKey()));
+
 		System.out.println("Finish testing AssessmentManager read/write methods");
 
 		checkEfficiencyStatementManager();
@@ -215,6 +233,18 @@ public class AssessmentManagerTest extends OlatTestCase {
 		efficiencyStatementManager.updateEfficiencyStatements(course, identitiyList, checkForExistingProperty);
 		DBFactory.getInstance().closeSession();
 
+		// the batch computation delivers the statements in the order of the identities without saving them, the tutor has no assessment data
+		final List<Identity> batchList = new ArrayList<Identity>();
+		batchList.add(tutor);
+		batchList.add(student);
+		final List<EfficiencyStatement> computedStatements = efficiencyStatementManager.computeEfficiencyStatements(course, batchList);
+		DBFactory.getInstance().closeSession();
+		assertEquals(2, computedStatements.size());
+		assertNull(computedStatements.get(0).getAssessmentNodes());
+		assertEquals(new Double(score), efficiencyStatementManager.getScore(assessableCourseNode.getIdent(), computedStatements.get(1)));
+		assertNull(efficiencyStatementManager.getUserEfficiencyStatement(courseRepositoryEntry.getKey(), tutor));
+		DBFactory.getInstance().closeSession();
+
 		// archive the efficiencyStatement into a temporary dir
 		try {
 			final File archiveDir = File.createTempFile("junit", "output");
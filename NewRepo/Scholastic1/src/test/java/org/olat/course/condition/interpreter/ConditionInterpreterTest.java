@@ -0,0 +1,253 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.course.condition.interpreter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.olat.core.commons.modules.bc.vfs.OlatRootFolderImpl;
+import org.olat.core.id.IdentityEnvironment;
+import org.olat.core.util.vfs.VFSContainer;
+import org.olat.course.Structure;
+import org.olat.course.assessment.AssessmentManager;
+import org.olat.course.auditing.UserNodeAuditManager;
+import org.olat.course.config.CourseConfig;
+import org.olat.course.editor.CourseEditorEnv;
+import org.olat.course.groupsandrights.CourseGroupManager;
+import org.olat.course.properties.CoursePropertyManager;
+import org.olat.course.run.environment.CourseEnvironment;
+import org.olat.course.run.scoring.ScoreAccounting;
+import org.olat.course.run.userview.UserCourseEnvironment;
+
+/**
+ * Description:<br>
+ * Tests that compiled expressions are shared by the users of a course but evaluated with the variables and functions of each user.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class ConditionInterpreterTest {
+
+	private static final String AFTER_2020 = "now > date(\"01.01.2020 00:00\")";
+
+	private static long time(final String date) throws Exception {
+		return new SimpleDateFormat("dd.MM.yyyy HH:mm").parse(date).getTime();
+	}
+
+	@Test
+	public void testSharedExpressionBoundPerUser() throws Exception {
+		final ConditionExpressionCache cache = new ConditionExpressionCache();
+		final ConditionInterpreter in2019 = new ConditionInterpreter(new TestUserCourseEnvironment(new TestCourseEnvironment(time("01.06.2019 12:00"), cache)));
+		final ConditionInterpreter in2021 = new ConditionInterpreter(new TestUserCourseEnvironment(new TestCourseEnvironment(time("01.06.2021 12:00"), cache)));
+
+		for (int i = 0; i < 3; i++) {
+			assertFalse(in2019.evaluateCondition(AFTER_2020));
+			assertTrue(in2021.evaluateCondition(AFTER_2020));
+		}
+		assertTrue(in2021.evaluateCondition("now < date(\"01.01.2020 00:00\") + 104w"));
+		assertEquals("one compiled expression per condition", 2, cache.size());
+		assertEquals(2.0f, in2019.evaluateCalculation("1 + 1"), 0.0001f);
+		assertEquals(3, cache.size());
+
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertTrue(in2021.evaluateCondition(AFTER_2020));
+	}
+
+	@Test
+	public void testUncachedEnvironment() throws Exception {
+		final ConditionInterpreter ci = new ConditionInterpreter(new TestUserCourseEnvironment(new TestCourseEnvironment(time("01.06.2021 12:00"), null)));
+		assertTrue(ci.evaluateCondition(AFTER_2020));
+		assertTrue(ci.evaluateCondition("(1 < 2) & !(3 < 2)"));
+	}
+
+	@Test
+	public void testConcurrentEvaluation() throws Exception {
+		final ConditionExpressionCache cache = new ConditionExpressionCache();
+		final List<Thread> threads = new ArrayList<Thread>();
+		final List<Throwable> failures = new ArrayList<Throwable>();
+		for (int t = 0; t < 8; t++) {
+			final boolean after = t % 2 == 0;
+			final ConditionInterpreter ci = new ConditionInterpreter(new TestUserCourseEnvironment(new TestCourseEnvironment(time(after ? "01.06.2021 12:00"
+					: "01.06.2019 12:00"), cache)));
+			final Thread thread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int i = 0; i < 500; i++) {
+							assertEquals(after, ci.evaluateCondition(AFTER_2020));
+						}
+					} catch (final Throwable e) {
+						synchronized (failures) {
+							failures.add(e);
+						}
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+		}
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(failures.toString(), failures.isEmpty());
+		assertEquals(1, cache.size());
+	}
+
+	/**
+	 * User course environment which only offers the course environment
+	 */
+	static class TestUserCourseEnvironment implements UserCourseEnvironment {
+		private final CourseEnvironment courseEnvironment;
+		private final ConditionInterpreter conditionInterpreter;
+		private final Map<String, Map> tempMaps = new HashMap<String, Map>();
+
+		TestUserCourseEnvironment(final CourseEnvironment courseEnvironment) {
+			this.courseEnvironment = courseEnvironment;
+			this.conditionInterpreter = new ConditionInterpreter(this);
+		}
+
+		@Override
+		public CourseEnvironment getCourseEnvironment() {
+			return courseEnvironment;
+		}
+
+		@Override
+		public CourseEditorEnv getCourseEditorEnv() {
+			return null;
+		}
+
+		@Override
+		public ConditionInterpreter getConditionInterpreter() {
+			return conditionInterpreter;
+		}
+
+		@Override
+		public IdentityEnvironment getIdentityEnvironment() {
+			return null;
+		}
+
+		@Override
+		public ScoreAccounting getScoreAccounting() {
+			return null;
+		}
+
+		@Override
+		public Map getTempMap(final Class owner, final String key) {
+			final String mapKey = owner.getName() + ":" + key;
+			Map map = tempMaps.get(mapKey);
+			if (map == null) {
+				map = new HashMap();
+				tempMaps.put(mapKey, map);
+			}
+			return map;
+		}
+	}
+
+	/**
+	 * Course environment with a fixed time and the given expression cache
+	 */
+	static class TestCourseEnvironment implements CourseEnvironment {
+		private final long time;
+		private final ConditionExpressionCache cache;
+
+		TestCourseEnvironment(final long time, final ConditionExpressionCache cache) {
+			this.time = time;
+			this.cache = cache;
+		}
+
+		@Override
+		public long getCurrentTimeMillis() {
+			return time;
+		}
+
+		@Override
+		public boolean isNoOpMode() {
+			return false;
+		}
+
+		@Override
+		public CourseGroupManager getCourseGroupManager() {
+			return null;
+		}
+
+		@Override
+		public Long getCourseResourceableId() {
+			return Long.valueOf(1);
+		}
+
+		@Override
+		public CoursePropertyManager getCoursePropertyManager() {
+			return null;
+		}
+
+		@Override
+		public AssessmentManager getAssessmentManager() {
+			return null;
+		}
+
+		@Override
+		public UserNodeAuditManager getAuditManager() {
+			return null;
+		}
+
+		@Override
+		public VFSContainer getCourseFolderContainer() {
+			return null;
+		}
+
+		@Override
+		public OlatRootFolderImpl getCourseBaseContainer() {
+			return null;
+		}
+
+		@Override
+		public Structure getRunStructure() {
+			return null;
+		}
+
+		@Override
+		public String getCourseTitle() {
+			return "test";
+		}
+
+		@Override
+		public CourseConfig getCourseConfig() {
+			return null;
+		}
+
+		@Override
+		public ConditionExpressionCache getConditionExpressionCache() {
+			return cache;
+		}
+	}
+}
@@ -0,0 +1,315 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.course.run.scoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.olat.core.commons.modules.bc.vfs.OlatRootFolderImpl;
+import org.olat.core.id.IdentityEnvironment;
+import org.olat.core.util.vfs.VFSContainer;
+import org.olat.course.Structure;
+import org.olat.course.assessment.AssessmentManager;
+import org.olat.course.auditing.UserNodeAuditManager;
+import org.olat.course.condition.interpreter.ConditionExpressionCache;
+import org.olat.course.condition.interpreter.ConditionInterpreter;
+import org.olat.course.config.CourseConfig;
+import org.olat.course.editor.CourseEditorEnv;
+import org.olat.course.groupsandrights.CourseGroupManager;
+import org.olat.course.nodes.AssessableCourseNode;
+import org.olat.course.nodes.STCourseNode;
+import org.olat.course.properties.CoursePropertyManager;
+import org.olat.course.run.environment.CourseEnvironment;
+import org.olat.course.run.userview.UserCourseEnvironment;
+
+/**
+ * Description:<br>
+ * Tests the dependency graph of the structure node calculations and that a changed score only evaluates the nodes depending on it again.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class ScoreAccountingTest {
+
+	private Structure structure;
+	private TestNode root, st1, st2, t1, t2, t3;
+
+	/**
+	 * root: st1 + t3<br>
+	 * st1: t1 + t2, passed with 10 points<br>
+	 * st2: passed of t3
+	 */
+	@Before
+	public void setUp() {
+		t1 = new TestNode("t1", new ScoreEvaluation(new Float(3.0f), null));
+		t2 = new TestNode("t2", new ScoreEvaluation(new Float(4.0f), null));
+		t3 = new TestNode("t3", new ScoreEvaluation(new Float(5.0f), Boolean.TRUE));
+		st1 = new TestNode("st1", "getScore(\"t1\") + getScore(\"t2\")", "getScore(\"t1\") + getScore(\"t2\") >= 10");
+		st2 = new TestNode("st2", null, "getPassed(\"t3\")");
+		root = new TestNode("root", "getScore(\"st1\") + getScore(\"t3\")", null);
+		st1.addChild(t1);
+		st1.addChild(t2);
+		root.addChild(st1);
+		root.addChild(t3);
+		root.addChild(st2);
+		structure = new Structure();
+		structure.setRootNode(root);
+	}
+
+	@Test
+	public void testAffectedNodes() {
+		final ScoreDependencies dependencies = structure.getScoreDependencies();
+		assertSame(dependencies, structure.getScoreDependencies());
+		assertEquals(Arrays.asList(new AssessableCourseNode[] { t1, t2, st1, t3, st2, root }), dependencies.getEvaluationOrder());
+
+		assertEquals(Arrays.asList(new AssessableCourseNode[] { t1, st1, root }), new ArrayList<AssessableCourseNode>(dependencies.getAffectedNodes("t1")));
+		assertEquals(new HashSet<AssessableCourseNode>(Arrays.asList(new AssessableCourseNode[] { t3, st2, root })), dependencies.getAffectedNodes("t3"));
+		assertEquals(Arrays.asList(new AssessableCourseNode[] { root }), new ArrayList<AssessableCourseNode>(dependencies.getAffectedNodes("root")));
+		assertTrue(dependencies.getAffectedNodes("unknown").isEmpty());
+		assertEquals(2, dependencies.getDependents("t3").size());
+
+		// a published structure gets a new graph
+		structure.setRootNode(root);
+		assertNotSame(dependencies, structure.getScoreDependencies());
+	}
+
+	@Test
+	public void testReferencedIdents() {
+		final Set<String> idents = new HashSet<String>(Arrays.asList(new String[] { "t1", "t2", "t3" }));
+		final Set<String> referenced = ScoreDependencies.getReferencedIdents("getScore(\"t1\") + getAttempts(\"t2\") + getScore(\"gone\") + getScore(\"t1\")", idents);
+		assertEquals(new HashSet<String>(Arrays.asList(new String[] { "t1", "t2" })), referenced);
+		assertTrue(ScoreDependencies.getReferencedIdents(null, idents).isEmpty());
+	}
+
+	@Test
+	public void testCircularCalculation() {
+		final TestNode a = new TestNode("a", "getScore(\"b\")", null);
+		final TestNode b = new TestNode("b", "getScore(\"a\")", null);
+		a.addChild(b);
+		final ScoreDependencies dependencies = new ScoreDependencies(a);
+		assertEquals(new HashSet<AssessableCourseNode>(Arrays.asList(new AssessableCourseNode[] { a, b })), dependencies.getAffectedNodes("a"));
+	}
+
+	@Test
+	public void testScoreInfoChanged() {
+		final TestUserCourseEnvironment uce = new TestUserCourseEnvironment(structure);
+		final ScoreAccounting sa = uce.getScoreAccounting();
+		sa.evaluateAll();
+		assertEquals(12.0f, sa.evalCourseNode(root).getScore().floatValue(), 0.0001f);
+		assertEquals(Boolean.FALSE, sa.evalCourseNode(st1).getPassed());
+		assertEvaluations(new int[] { 1, 1, 1, 1, 1, 1 });
+
+		t1.evaluation = new ScoreEvaluation(new Float(8.0f), null);
+		sa.scoreInfoChanged(t1, t1.evaluation);
+		// only t1 and the nodes calculated from it
+		assertEvaluations(new int[] { 2, 1, 2, 1, 1, 2 });
+		assertEquals(17.0f, sa.evalCourseNode(root).getScore().floatValue(), 0.0001f);
+		assertEquals(Boolean.TRUE, sa.evalCourseNode(st1).getPassed());
+		assertEquals(Boolean.TRUE, sa.evalCourseNode(st2).getPassed());
+		// memoized
+		assertEvaluations(new int[] { 2, 1, 2, 1, 1, 2 });
+
+		t3.evaluation = new ScoreEvaluation(new Float(1.0f), Boolean.FALSE);
+		sa.scoreInfoChanged(t3, t3.evaluation);
+		assertEvaluations(new int[] { 2, 1, 2, 2, 2, 3 });
+		assertEquals(13.0f, sa.evalCourseNode(root).getScore().floatValue(), 0.0001f);
+		assertEquals(Boolean.FALSE, sa.evalCourseNode(st2).getPassed());
+		assertFalse(sa.isError());
+	}
+
+	@Test
+	public void testScoreInfoChangedBeforeEvaluation() {
+		final ScoreAccounting sa = new TestUserCourseEnvironment(structure).getScoreAccounting();
+		sa.scoreInfoChanged(t2, t2.evaluation);
+		assertEvaluations(new int[] { 1, 1, 1, 1, 1, 1 });
+		assertEquals(12.0f, sa.evalCourseNode(root).getScore().floatValue(), 0.0001f);
+	}
+
+	private void assertEvaluations(final int[] expected) {
+		final TestNode[] nodes = new TestNode[] { t1, t2, st1, t3, st2, root };
+		for (int i = 0; i < nodes.length; i++) {
+			assertEquals("evaluations of " + nodes[i].getIdent(), expected[i], nodes[i].evaluations);
+		}
+	}
+
+	/**
+	 * Structure node that counts its evaluations, with a fixed evaluation it stands for a test or a task
+	 */
+	private static class TestNode extends STCourseNode {
+		ScoreEvaluation evaluation;
+		int evaluations;
+
+		TestNode(final String ident, final ScoreEvaluation evaluation) {
+			setIdent(ident);
+			this.evaluation = evaluation;
+		}
+
+		TestNode(final String ident, final String scoreExpression, final String passedExpression) {
+			setIdent(ident);
+			setScoreCalculator(new ScoreCalculator(scoreExpression, passedExpression));
+		}
+
+		@Override
+		public ScoreEvaluation getUserScoreEvaluation(final UserCourseEnvironment userCourseEnv) {
+			evaluations++;
+			if (evaluation != null) { return evaluation; }
+			return super.getUserScoreEvaluation(userCourseEnv);
+		}
+	}
+
+	private static class TestUserCourseEnvironment implements UserCourseEnvironment {
+		private final CourseEnvironment courseEnvironment;
+		private final ConditionInterpreter conditionInterpreter;
+		private final ScoreAccounting scoreAccounting;
+		private final Map<String, Map> tempMaps = new HashMap<String, Map>();
+
+		TestUserCourseEnvironment(final Structure runStructure) {
+			this.courseEnvironment = new TestCourseEnvironment(runStructure);
+			this.conditionInterpreter = new ConditionInterpreter(this);
+			this.scoreAccounting = new ScoreAccounting(this);
+		}
+
+		@Override
+		public CourseEnvironment getCourseEnvironment() {
+			return courseEnvironment;
+		}
+
+		@Override
+		public CourseEditorEnv getCourseEditorEnv() {
+			return null;
+		}
+
+		@Override
+		public ConditionInterpreter getConditionInterpreter() {
+			return conditionInterpreter;
+		}
+
+		@Override
+		public IdentityEnvironment getIdentityEnvironment() {
+			return null;
+		}
+
+		@Override
+		public ScoreAccounting getScoreAccounting() {
+			return scoreAccounting;
+		}
+
+		@Override
+		public Map getTempMap(final Class owner, final String key) {
+			final String mapKey = owner.getName() + ":" + key;
+			Map map = tempMaps.get(mapKey);
+			if (map == null) {
+				map = new HashMap();
+				tempMaps.put(mapKey, map);
+			}
+			return map;
+		}
+	}
+
+	private static class TestCourseEnvironment implements CourseEnvironment {
+		private final Structure runStructure;
+		private final ConditionExpressionCache cache = new ConditionExpressionCache();
+
+		TestCourseEnvironment(final Structure runStructure) {
+			this.runStructure = runStructure;
+		}
+
+		@Override
+		public long getCurrentTimeMillis() {
+			return System.currentTimeMillis();
+		}
+
+		@Override
+		public boolean isNoOpMode() {
+			return false;
+		}
+
+		@Override
+		public CourseGroupManager getCourseGroupManager() {
+			return null;
+		}
+
+		@Override
+		public Long getCourseResourceableId() {
+			return Long.valueOf(1);
+		}
+
+		@Override
+		public CoursePropertyManager getCoursePropertyManager() {
+			return null;
+		}
+
+		@Override
+		public AssessmentManager getAssessmentManager() {
+			return null;
+		}
+
+		@Override
+		public UserNodeAuditManager getAuditManager() {
+			return null;
+		}
+
+		@Override
+		public VFSContainer getCourseFolderContainer() {
+			return null;
+		}
+
+		@Override
+		public OlatRootFolderImpl getCourseBaseContainer() {
+			return null;
+		}
+
+		@Override
+		public Structure getRunStructure() {
+			return runStructure;
+		}
+
+		@Override
+		public String getCourseTitle() {
+			return "test";
+		}
+
+		@Override
+		public CourseConfig getCourseConfig() {
+			return null;
+		}
+
+		@Override
+		public ConditionExpressionCache getConditionExpressionCache() {
+			return cache;
+		}
+	}
+}
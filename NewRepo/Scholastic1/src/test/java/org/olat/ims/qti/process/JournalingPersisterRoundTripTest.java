@@ -0,0 +1,139 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.ims.qti.process;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.dom4j.Document;
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.olat.core.id.Identity;
+import org.olat.ims.qti.container.ItemContext;
+import org.olat.modules.ModuleConfiguration;
+import org.olat.test.JunitTestHelper;
+import org.olat.test.OlatTestCase;
+
+/**
+ * Description:<br>
+ * Saves a running test with the JournalingPersister, changes an item, a mark and a memo and checks that the state loaded again contains the changes of the journal.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class JournalingPersisterRoundTripTest extends OlatTestCase {
+
+	private static final String QTI_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><questestinterop><assessment ident=\"a1\" title=\"test\">"
+			+ "<section ident=\"s1\"><item ident=\"i1\" title=\"first\"/><item ident=\"i2\" title=\"second\"/></section></assessment></questestinterop>";
+
+	private Identity identity;
+	private String resourcePath;
+	private Resolver resolver;
+
+	@Before
+	public void setUp() throws Exception {
+		identity = JunitTestHelper.createAndPersistIdentityAsUser("journal-roundtrip");
+		resourcePath = "journalroundtrip" + File.separator + System.currentTimeMillis();
+		final Document doc = DocumentHelper.parseText(QTI_XML);
+		resolver = new Resolver() {
+			@Override
+			public Element getObjectBank(final String ident) {
+				return null;
+			}
+
+			@Override
+			public Document getQTIDocument() {
+				return doc;
+			}
+
+			@Override
+			public Element getSection(final String ident) {
+				return (Element) doc.selectSingleNode("//section[@ident='" + ident + "']");
+			}
+
+			@Override
+			public Element getItem(final String ident) {
+				return (Element) doc.selectSingleNode("//item[@ident='" + ident + "']");
+			}
+
+			@Override
+			public String getStaticsBaseURI() {
+				return "";
+			}
+
+			@Override
+			public boolean hasAutocompleteFiles() {
+				return false;
+			}
+		};
+	}
+
+	@After
+	public void tearDown() {
+		new JournalingPersister(identity, resourcePath).cleanUp();
+	}
+
+	@Test
+	public void testPersistAndLoad() {
+		final JournalingPersister persister = new JournalingPersister(identity, resourcePath);
+		final AssessmentInstance ai = new AssessmentInstance(1, 2, resolver, persister, new ModuleConfiguration());
+		ai.start();
+		// the first step writes the snapshot
+		persister.persist(ai, "test");
+		final File snapshot = new File(persister.getFullQtiPath(), FilePersister.QTI_FILE);
+		final File journal = new File(persister.getFullQtiPath(), JournalingPersister.JOURNAL_FILE);
+		final long snapshotLength = snapshot.length();
+		final long snapshotModified = snapshot.lastModified();
+		final long journalLength = journal.length();
+
+		final ItemContext item = ai.getAssessmentContext().getSectionContext(0).getItemContext(1);
+		item.start();
+		item.setHintLevel(2);
+		ai.mark("i1", true);
+		ai.setMemo("i2", "check again");
+		persister.persist(ai, "test");
+
+		// the changes went to the journal, not into a new snapshot
+		assertEquals(snapshotLength, snapshot.length());
+		assertEquals(snapshotModified, snapshot.lastModified());
+		assertTrue(journal.length() > journalLength);
+		final AssessmentInstance fromSnapshot = (AssessmentInstance) new FilePersister(identity, resourcePath).toRAM();
+		assertFalse(fromSnapshot.isMarked("i1"));
+		assertNull(fromSnapshot.getMemo("i2"));
+
+		final AssessmentInstance loaded = (AssessmentInstance) new JournalingPersister(identity, resourcePath).toRAM();
+		final ItemContext loadedItem = loaded.getAssessmentContext().getSectionContext(0).getItemContext(1);
+		assertEquals(item.getTimeOfStart(), loadedItem.getTimeOfStart());
+		assertEquals(2, loadedItem.getHintLevel());
+		assertEquals(-1, loaded.getAssessmentContext().getSectionContext(0).getItemContext(0).getTimeOfStart());
+		assertTrue(loaded.isMarked("i1"));
+		assertFalse(loaded.isMarked("i2"));
+		assertEquals("check again", loaded.getMemo("i2"));
+		assertFalse(loaded.isClosed());
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.ims.qti.process;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Description:<br>
+ * Tests the record format of the journal of the JournalingPersister: records are read back until the end of the file, a truncated or damaged record stops the
+ * replay.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class JournalingPersisterTest {
+
+	private File journal;
+
+	@Before
+	public void setUp() throws Exception {
+		journal = File.createTempFile("journalingpersistertest", ".journal");
+	}
+
+	@After
+	public void tearDown() {
+		journal.delete();
+	}
+
+	private Map<String, byte[]> parts(final String key, final int size) {
+		final Map<String, byte[]> parts = new LinkedHashMap<String, byte[]>();
+		final byte[] bytes = new byte[size];
+		for (int i = 0; i < size; i++) {
+			bytes[i] = (byte) (i + key.length());
+		}
+		parts.put(key, bytes);
+		parts.put("n", new byte[] { 1, 2, 3 });
+		return parts;
+	}
+
+	@Test
+	public void testReadRecords() throws Exception {
+		JournalingPersister.appendRecord(journal, parts("s0i1", 100));
+		JournalingPersister.appendRecord(journal, parts("s1", 5000));
+
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journal)));
+		try {
+			final Map<String, byte[]> first = JournalingPersister.readRecord(in);
+			assertEquals(2, first.size());
+			assertArrayEquals(parts("s0i1", 100).get("s0i1"), first.get("s0i1"));
+			assertArrayEquals(new byte[] { 1, 2, 3 }, first.get("n"));
+			final Map<String, byte[]> second = JournalingPersister.readRecord(in);
+			assertArrayEquals(parts("s1", 5000).get("s1"), second.get("s1"));
+			assertNull("end of the journal", JournalingPersister.readRecord(in));
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testTruncatedRecord() throws Exception {
+		JournalingPersister.appendRecord(journal, parts("s0i1", 100));
+		final long complete = journal.length();
+		JournalingPersister.appendRecord(journal, parts("s0i2", 100));
+		// simulate a crash in the middle of the second record
+		final RandomAccessFile raf = new RandomAccessFile(journal, "rw");
+		raf.setLength(complete + 30);
+		raf.close();
+
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journal)));
+		try {
+			assertEquals(2, JournalingPersister.readRecord(in).size());
+			JournalingPersister.readRecord(in);
+			fail("truncated record was read");
+		} catch (final IOException e) {
+			// this is okay
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testDamagedRecord() throws Exception {
+		JournalingPersister.appendRecord(journal, parts("s0i1", 100));
+		final RandomAccessFile raf = new RandomAccessFile(journal, "rw");
+		raf.seek(50);
+		final int b = raf.read();
+		raf.seek(50);
+		raf.write(b ^ 0x7f);
+		raf.close();
+
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journal)));
+		try {
+			JournalingPersister.readRecord(in);
+			fail("damaged record was read");
+		} catch (final IOException e) {
+			// this is okay
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -22,16 +22,22 @@
 package org.olat.modules.fo;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
+import org.hibernate.Hibernate;
+import org.hibernate.type.Type;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.olat.core.commons.persistence.DB;
 import org.olat.core.commons.persistence.DBFactory;
 import org.olat.core.id.Identity;
 import org.olat.test.JunitTestHelper;
@@ -54,7 +60,7 @@ public class ForumManagerTest extends OlatTestCase {
 	public ForumManager fm1;
 	public Forum fo;
 
-	private Message message1, m3;
+	private Message message1, m2, m3;
 
 	/**
 	 * SetUp is called before each test
@@ -78,7 +84,7 @@ public class ForumManagerTest extends OlatTestCase {
 			message1.setTitle("stufe 0: subject 0");
 			message1.setBody("body/n dep 0");
 
-			final Message m2 = new MessageImpl();
+			m2 = new MessageImpl();
 			m2.setTitle("stufe 0: subject 1");
 			m2.setBody("body 2 /n dep 0");
 
@@ -190,4 +196,108 @@ public class ForumManagerTest extends OlatTestCase {
 		foma.deleteForum(fo.getKey()); // throws Exception when failed
 	}
 
+	@Test
+	public void testMarkAsRead() {
+		final ForumManager foma = ForumManager.getInstance();
+		foma.markAsRead(u2, message1);
+		foma.markAsRead(u2, m3);
+		foma.markAsRead(u2, m3);
+		DBFactory.getInstance().closeSession();
+
+		final Set<Long> readSet = foma.getReadSet(u2, fo);
+		assertEquals(2, readSet.size());
+		assertTrue(readSet.contains(message1.getKey()));
+		assertTrue(readSet.contains(m3.getKey()));
+		assertEquals(2, foma.countReadMessagesByUserAndForum(u2, fo.getKey()));
+		assertEquals(0, foma.countReadMessagesByUserAndForum(u3, fo.getKey()));
+
+		final ForumReadState persisted = foma.loadReadState(u2.getKey(), fo.getKey());
+		assertTrue(isRead(persisted, message1));
+		assertTrue(isRead(persisted, m3));
+		assertFalse(isRead(persisted, m2));
+	}
+
+	@Test
+	public void testSaveMergesOlderState() {
+		final ForumManager foma = ForumManager.getInstance();
+		foma.markAsRead(u3, message1);
+		DBFactory.getInstance().closeSession();
+		// a copy of the state taken before the next read, e.g. cached on another cluster node
+		final ForumReadState olderState = foma.loadReadState(u3.getKey(), fo.getKey());
+		foma.markAsRead(u3, m3);
+		DBFactory.getInstance().closeSession();
+
+		olderState.markRead(m2.getKey().longValue(), m2.getCreationDate().getTime());
+		foma.saveReadState(u3.getKey(), fo.getKey(), olderState);
+		DBFactory.getInstance().closeSession();
+
+		final ForumReadState persisted = foma.loadReadState(u3.getKey(), fo.getKey());
+		assertTrue(isRead(persisted, message1));
+		assertTrue("read after the copy was taken, not overwritten", isRead(persisted, m3));
+		assertTrue(isRead(persisted, m2));
+		final Set<Long> readSet = foma.getReadSet(u3, fo);
+		assertEquals(3, readSet.size());
+	}
+
+	@Test
+	public void testLoadMergesDuplicateRows() {
+		final DB db = DBFactory.getInstance();
+		final ReadMessageStateImpl row1 = new ReadMessageStateImpl(u1.getKey(), fo.getKey());
+		row1.setReadKeys(new ForumReadState(null, 0, new long[] { message1.getKey().longValue() }).encodeReadKeys());
+		row1.setLastModified(new Date());
+		db.saveObject(row1);
+		final ReadMessageStateImpl row2 = new ReadMessageStateImpl(u1.getKey(), fo.getKey());
+		row2.setReadKeys(new ForumReadState(null, 0, new long[] { m3.getKey().longValue() }).encodeReadKeys());
+		row2.setLastModified(new Date());
+		db.saveObject(row2);
+		db.closeSession();
+
+		final ForumManager foma = ForumManager.getInstance();
+		final ForumReadState merged = foma.loadReadState(u1.getKey(), fo.getKey());
+		assertTrue(isRead(merged, message1));
+		assertTrue(isRead(merged, m3));
+		db.closeSession();
+
+		final List<?> rows = db.find("select state from org.olat.modules.fo.ReadMessageStateImpl as state where state.identityKey = ? and state.forumKey = ?",
+				new Object[] { u1.getKey(), fo.getKey() }, new Type[] { Hibernate.LONG, Hibernate.LONG });
+		assertEquals("duplicate row merged into the first one", 1, rows.size());
+	}
+
+	@Test
+	public void testFoldReadMessages() {
+		final DB db = DBFactory.getInstance();
+		saveReadMessage(u1, message1);
+		saveReadMessage(u1, m3);
+		saveReadMessage(u2, m2);
+		db.closeSession();
+
+		// the upgrade folds the read messages forum by forum, a second run finds nothing left
+		final ForumManager foma = ForumManager.getInstance();
+		assertEquals(3, foma.foldReadMessages(fo.getKey()));
+		db.closeSession();
+		assertEquals(0, foma.foldReadMessages(fo.getKey()));
+		db.closeSession();
+
+		final Set<Long> readSet1 = foma.getReadSet(u1, fo);
+		assertEquals(2, readSet1.size());
+		assertTrue(readSet1.contains(message1.getKey()));
+		assertTrue(readSet1.contains(m3.getKey()));
+		final Set<Long> readSet2 = foma.getReadSet(u2, fo);
+		assertEquals(1, readSet2.size());
+		assertTrue(readSet2.contains(m2.getKey()));
+		assertTrue(isRead(foma.loadReadState(u2.getKey(), fo.getKey()), m2));
+	}
+
+	private void saveReadMessage(final Identity identity, final Message message) {
+		final ReadMessageImpl readMessage = new ReadMessageImpl();
+		readMessage.setIdentity(identity);
+		readMessage.setForum(fo);
+		readMessage.setMessage(message);
+		DBFactory.getInstance().saveObject(readMessage);
+	}
+
+	private boolean isRead(final ForumReadState state, final Message message) {
+		return state.isRead(message.getKey().longValue(), message.getCreationDate().getTime());
+	}
+
 }
@@ -30,7 +30,11 @@ import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 import org.junit.After;
@@ -41,7 +45,11 @@ import org.olat.core.id.Identity;
 import org.olat.core.util.notifications.NotificationsManager;
 import org.olat.core.util.notifications.Publisher;
 import org.olat.core.util.notifications.PublisherData;
+import org.olat.core.util.notifications.Subscriber;
 import org.olat.core.util.notifications.SubscriptionContext;
+import org.olat.core.util.notifications.SubscriptionItem;
+import org.olat.properties.Property;
+import org.olat.properties.PropertyManager;
 import org.olat.test.JMSCodePointServerJunitHelper;
 import org.olat.test.JunitTestHelper;
 import org.olat.test.OlatTestCase;
@@ -139,6 +147,58 @@ public class NotificationsManagerTest extends OlatTestCase {
 		assertNull("publisher marked deleted should not be found", p2);
 	}
 
+	/**
+	 * the email job split into shards must send the mails, update the subscribers and the latest email property of every identity and remove its checkpoints when
+	 * done
+	 */
+	@Test
+	public void testNotifyAllSubscribersByEmailInShards() {
+		final SubscriptionContext sc = new SubscriptionContext("Course", new Long(124), "677");
+		final PublisherData pd = new PublisherData("Forum", "e.g. forumdata=keyofforum", null);
+		nm.subscribe(identity, sc, pd);
+		nm.subscribe(identity2, sc, pd);
+		nm.subscribe(identity3, sc, pd);
+		// the shards work in their own db sessions
+		DBFactory.getInstance().commitAndCloseSession();
+
+		final Map<String, String> mails = new ConcurrentHashMap<String, String>();
+		final ShardedEmailNotifier notifier = new ShardedEmailNotifier((NotificationsManagerImpl) nm, 2, 1) {
+			@Override
+			SubscriptionItem createSubscriptionItem(final Subscriber subscriber, final Locale locale, final Date latestEmailed) {
+				// news for every subscription
+				return new SubscriptionItem("News of " + subscriber.getPublisher().getResName(), null, "news");
+			}
+
+			@Override
+			boolean sendEmail(final Identity to, final String title, final List<SubscriptionItem> items) {
+				mails.put(to.getName(), title);
+				return true;
+			}
+		};
+		notifier.notifyAllSubscribersByEmail();
+		DBFactory.getInstance().closeSession();
+
+		// the identities are spread over both shards by their key
+		final Publisher publisher = nm.getPublisher(sc);
+		final Identity[] identities = new Identity[] { identity, identity2, identity3 };
+		for (int i = 0; i < identities.length; i++) {
+			assertTrue("mail sent to " + identities[i].getName() + " of shard " + (identities[i].getKey().longValue() % 2), mails.containsKey(identities[i].getName()));
+			final Subscriber subscriber = nm.getSubscriber(identities[i], publisher);
+			assertNotNull(subscriber.getLatestEmailed());
+			final Property latestEmail = PropertyManager.getInstance().findProperty(identities[i], null, null, null, NotificationsManagerImpl.LATEST_EMAIL_USER_PROP);
+			assertNotNull(latestEmail);
+			assertNotNull(latestEmail.getLongValue());
+		}
+		for (int i = 0; i < 2; i++) {
+			assertNull("checkpoint of a finished shard must be removed",
+					PropertyManager.getInstance().findProperty(null, null, null, ShardedEmailNotifier.CHECKPOINT_CATEGORY, "checkpoint." + i + ".2"));
+		}
+		assertTrue(nm.isSubscribed(identity2, sc));
+
+		nm.delete(sc);
+		DBFactory.getInstance().closeSession();
+	}
+
 	/**
 	 * Test synchronized 'findOrCreatePublisher' triggered by method 'subscribe'. Start 2 threads which call 'subscribe' with same SubscriptionContext. Breakpoint at
 	 * doInSync, second thread must wait until thread 1 has released the breakpoint.
@@ -0,0 +1,99 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.search.service.indexer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.olat.core.commons.services.search.OlatDocument;
+
+/**
+ * Description:<br>
+ * Tests the binding of the AccessCheckContext to the search thread and the remembered results.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class AccessCheckContextTest {
+
+	@After
+	public void tearDown() {
+		AccessCheckContext.close();
+	}
+
+	@Test
+	public void testBoundToThread() throws Exception {
+		assertNull(AccessCheckContext.getCurrent());
+		final AccessCheckContext context = AccessCheckContext.open(null);
+		assertSame(context, AccessCheckContext.getCurrent());
+
+		final AccessCheckContext[] otherThread = new AccessCheckContext[] { context };
+		final Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				otherThread[0] = AccessCheckContext.getCurrent();
+			}
+		});
+		thread.start();
+		thread.join();
+		assertNull("other searches do not see the context", otherThread[0]);
+
+		AccessCheckContext.close();
+		assertNull(AccessCheckContext.getCurrent());
+	}
+
+	@Test
+	public void testRememberedAccess() {
+		final AccessCheckContext context = AccessCheckContext.open(null);
+		assertNull(context.getAccess("[RepositoryEntry:1][CourseNode:2]"));
+		context.putAccess("[RepositoryEntry:1][CourseNode:2]", false);
+		context.putAccess("[RepositoryEntry:1][CourseNode:3]", true);
+		assertEquals(Boolean.FALSE, context.getAccess("[RepositoryEntry:1][CourseNode:2]"));
+		assertEquals(Boolean.TRUE, context.getAccess("[RepositoryEntry:1][CourseNode:3]"));
+	}
+
+	@Test
+	public void testDeniedRepositoryEntry() {
+		final AccessCheckContext context = AccessCheckContext.open(null);
+		final Long key = Long.valueOf(123);
+		assertFalse(context.isRepositoryEntryChecked(key));
+		context.putRepositoryEntryIndexer(key, null);
+		assertTrue("a denied entry is checked once", context.isRepositoryEntryChecked(key));
+		assertNull(context.getRepositoryEntryIndexer(key));
+	}
+
+	@Test
+	public void testGroupKeyOfResourceUrl() {
+		assertEquals("42", OlatDocument.getGroupKey("[BusinessGroup:42]"));
+		assertEquals("42", OlatDocument.getGroupKey("[BusinessGroup:42][path=/folder/file.txt]"));
+		assertNull(OlatDocument.getGroupKey("[RepositoryEntry:42][CourseNode:7]"));
+		assertNull(OlatDocument.getGroupKey("[BusinessGroup:42"));
+		assertNull(OlatDocument.getGroupKey(null));
+	}
+}
@@ -0,0 +1,178 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.search.service.indexer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Date;
+import java.util.Set;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Version;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.olat.core.commons.services.search.AbstractOlatDocument;
+import org.olat.core.util.FileUtils;
+
+/**
+ * Description:<br>
+ * Tests the index operations of the IncrementalIndexer on an index in memory: deleting a repository entry with everything below it, finding the indexed
+ * repository entries, near-real-time visibility and the commit user data.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class IncrementalIndexerTest {
+
+	private RAMDirectory directory;
+	private IndexWriter writer;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = new RAMDirectory();
+		writer = new IndexWriter(directory, new StandardAnalyzer(Version.LUCENE_CURRENT), true, IndexWriter.MaxFieldLength.UNLIMITED);
+		addDocument("[RepositoryEntry:12]");
+		addDocument("[RepositoryEntry:12][CourseNode:81234]");
+		addDocument("[RepositoryEntry:12][CourseNode:81234][path=/folder/a.pdf]");
+		addDocument("[RepositoryEntry:123]");
+		addDocument("[RepositoryEntry:123][CourseNode:81235]");
+		addDocument("[BusinessGroup:12]");
+		writer.commit();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		writer.close();
+		directory.close();
+	}
+
+	private void addDocument(final String resourceUrl) throws Exception {
+		final Document document = new Document();
+		document.add(new Field(AbstractOlatDocument.RESOURCEURL_FIELD_NAME, resourceUrl, Field.Store.YES, Field.Index.NOT_ANALYZED));
+		writer.addDocument(document);
+	}
+
+	@Test
+	public void testIndexedRepositoryEntryKeys() throws Exception {
+		final IndexReader reader = IndexReader.open(directory, true);
+		try {
+			final Set<Long> keys = IncrementalIndexer.getIndexedRepositoryEntryKeys(reader);
+			assertEquals(2, keys.size());
+			assertTrue(keys.contains(Long.valueOf(12)));
+			assertTrue(keys.contains(Long.valueOf(123)));
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testDeleteRepositoryEntryIsVisibleBeforeCommit() throws Exception {
+		IncrementalIndexer.deleteRepositoryEntry(writer, Long.valueOf(12));
+		addDocument("[RepositoryEntry:12]");
+
+		// the near-real-time reader sees the changes of the writer without commit
+		final IndexReader nrtReader = writer.getReader();
+		try {
+			assertEquals("entry 12 is re-indexed, 123 and the group with the same key are untouched", 4, nrtReader.numDocs());
+			final Set<Long> keys = IncrementalIndexer.getIndexedRepositoryEntryKeys(nrtReader);
+			assertEquals(2, keys.size());
+		} finally {
+			nrtReader.close();
+		}
+
+		final IndexReader committedReader = IndexReader.open(directory, true);
+		try {
+			assertEquals("not committed yet", 6, committedReader.numDocs());
+		} finally {
+			committedReader.close();
+		}
+	}
+
+	@Test
+	public void testIndexedUntilInCommitUserData() throws Exception {
+		IncrementalIndexer.deleteRepositoryEntry(writer, Long.valueOf(123));
+		writer.commit(IncrementalIndexer.createCommitUserData(4711L));
+		assertEquals(4711L, IncrementalIndexer.getIndexedUntil(directory));
+
+		final IndexReader reader = IndexReader.open(directory, true);
+		try {
+			assertEquals(4, reader.numDocs());
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testResourceStamp() throws Exception {
+		final File root = File.createTempFile("incrementalindexertest", "");
+		root.delete();
+		final File runstructure = new File(root, "runstructure.xml");
+		final File file = new File(root, "coursefolder/sub/a.txt");
+		file.getParentFile().mkdirs();
+		FileUtils.save(file, "a", "UTF-8");
+		FileUtils.save(runstructure, "r", "UTF-8");
+		try {
+			final long past = System.currentTimeMillis() - 3600000;
+			file.setLastModified(past);
+			file.getParentFile().setLastModified(past);
+			file.getParentFile().getParentFile().setLastModified(past);
+			runstructure.setLastModified(past);
+			root.setLastModified(past);
+			final long stamp = IncrementalIndexer.getResourceStamp(root);
+			assertEquals(past / 1000, stamp / 1000);
+
+			file.setLastModified(past + 2000);
+			assertEquals("a file further down changes the stamp", (past + 2000) / 1000, IncrementalIndexer.getResourceStamp(root) / 1000);
+			assertEquals("files below the max depth are not read", stamp, IncrementalIndexer.getResourceStamp(root, 1, 100));
+			assertEquals("files beyond the max number are not read", stamp, IncrementalIndexer.getResourceStamp(root, 2, 2));
+			runstructure.setLastModified(past + 4000);
+			assertEquals("a file directly in the folder changes the stamp", (past + 4000) / 1000, IncrementalIndexer.getResourceStamp(root, 0, 100) / 1000);
+			assertEquals(0, IncrementalIndexer.getResourceStamp(new File(root, "missing")));
+		} finally {
+			FileUtils.deleteDirsAndFiles(root, true, true);
+		}
+	}
+
+	@Test
+	public void testIsModifiedSince() {
+		final long since = 100000;
+		final Object[] unchanged = new Object[] { Long.valueOf(1), new Date(since - 1000), Long.valueOf(2), "CourseModule" };
+		assertFalse(IncrementalIndexer.isModifiedSince(unchanged, since - 5000, null, since));
+		assertTrue("not seen yet, folder newer than the last run", IncrementalIndexer.isModifiedSince(unchanged, since + 5000, null, since));
+		assertFalse(IncrementalIndexer.isModifiedSince(unchanged, since + 5000, Long.valueOf(since + 5000), since));
+		assertTrue("recorded stamp differs, even with an old time", IncrementalIndexer.isModifiedSince(unchanged, since - 4000, Long.valueOf(since - 5000), since));
+
+		final Object[] changed = new Object[] { Long.valueOf(1), new Date(since + 1000), Long.valueOf(2), "CourseModule" };
+		assertTrue(IncrementalIndexer.isModifiedSince(changed, since - 5000, Long.valueOf(since - 5000), since));
+	}
+}
@@ -45,9 +45,14 @@ import org.junit.runners.Suite;
 		org.olat.commons.calendar.ui.components.WeeklyCalendarComponentTest.class,// ok
 		org.olat.commons.calendar.test.CalendarUtilsTest.class,// ok
 		org.olat.commons.calendar.ICalFileCalendarManagerTest.class,// ok
+		org.olat.commons.calendar.CalendarEventIndexTest.class,
+		org.olat.commons.calendar.ICalEventStoreCalendarManagerTest.class,
 		org.olat.commons.lifecycle.LifeCycleManagerTest.class,// fail christian fragen...
 		org.olat.commons.coordinate.cluster.jms.JMSTest.class,// ok
+		org.olat.commons.coordinate.cluster.jms.JMSBatchCodecTest.class,
+		org.olat.commons.coordinate.cluster.jms.ClusterEventDispatcherTest.class,
 		org.olat.commons.coordinate.cluster.lock.LockTest.class,// ok
+		org.olat.commons.coordinate.cluster.lock.ClusterLockerLeaseTest.class,// ok
 		org.olat.commons.coordinate.CoordinatorTest.class,// ok
 		org.olat.admin.user.delete.service.UserDeletionManagerTest.class,// ok
 		org.olat.group.BusinessGroupTest.class,// fail
@@ -64,12 +69,25 @@ import org.junit.runners.Suite;
 		org.olat.course.nodes.en.EnrollmentManagerTest.class,// ok
 		org.olat.course.assessment.AssessmentManagerTest.class,// ok
 		org.olat.course.config.CourseConfigManagerImplTest.class,// ok
+		org.olat.course.CompiledRunStructureTest.class,
+		org.olat.course.condition.interpreter.ConditionInterpreterTest.class,
+		org.olat.course.run.scoring.ScoreAccountingTest.class,
+		org.olat.core.util.i18n.TranslationTableTest.class,
 		org.olat.course.groupsandrights.CourseGroupManagementTest.class,// ok
 		org.olat.modules.fo.ForumManagerTest.class,// fail
+		org.olat.modules.fo.ForumReadStateTest.class,
+		org.olat.ims.qti.container.SectionContextTest.class,
+		org.olat.ims.qti.process.JournalingPersisterTest.class,
+		org.olat.ims.qti.process.JournalingPersisterRoundTripTest.class,
+		org.olat.ims.qti.process.QTIHelperTest.class,
 		org.olat.modules.wiki.WikiUnitTest.class,// ok
 		org.olat.modules.wiki.versioning.diff.CookbookDiffTest.class,// ok
 		org.olat.properties.PropertyTest.class,// ok
 		org.olat.search.service.document.file.FileDocumentFactoryTest.class,
+		org.olat.search.service.document.file.ExtractedTextCacheTest.class,
+		org.olat.search.service.indexer.IncrementalIndexerTest.class,
+		org.olat.search.service.indexer.AccessCheckContextTest.class,
+		org.olat.search.service.update.IndexUpdaterTest.class,
 		org.olat.catalog.CatalogManagerTest.class,// ok
 		org.olat.bookmark.BookmarkManagerTest.class,// ok
 		org.olat.notifications.NotificationsManagerTest.class,// fail
@@ -77,6 +95,7 @@ import org.junit.runners.Suite;
 		org.olat.commons.coordinate.singlevm.SingleVMLockerTest.class,// ok
 		org.olat.course.nodes.projectbroker.ProjectBrokerManagerTest.class,
 		org.olat.core.commons.persistence.DBTest.class,
+		org.olat.core.gui.media.LocalFileDeliveryTest.class,
 		org.olat.modules.ims.cp.CPManagerTest.class,
 		org.olat.modules.webFeed.FeedManagerImplTest.class,
 		org.olat.basesecurity.IdentityTest.class,
@@ -84,6 +103,7 @@ import org.junit.runners.Suite;
 		org.olat.core.commons.service.mark.MarksTest.class,
 		// org.olat.test.OlatJerseyTestCase.class, // NO TEST METHODS
 		org.olat.test.SpringInitDestroyVerficationTest.class, org.olat.course.statistic.TestLoggingVersionManagerImpl.class,
+		org.olat.course.statistic.TestIncrementalStatisticUpdater.class,
 		org.olat.core.commons.service.usercomments.UserCommentsAndRatingsTest.class, org.olat.course.auditing.UserNodeAuditManagerTest.class,
 		org.olat.shibboleth.util.ShibbolethAttributeTest.class, org.olat.portfolio.PortfolioModuleTest.class, org.olat.portfolio.EPArtefactManagerTest.class,
 		org.olat.portfolio.EPFrontendManagerTest.class, org.olat.portfolio.EPStructureManagerTest.class, org.olat.portfolio.EPStructureToArtefactTest.class,
@@ -435,6 +435,46 @@ public class MRTGStatsDispatcher implements Dispatcher {
 				result.append("\n0\n0\n");
 			}
 			result.append(instanceId);
+		} else if (command.startsWith("jmsBatchSize")) {
+
+			final ClusterEventBus clusterEventBus = (ClusterEventBus) coordinatorManager.getCoordinator().getEventBus();
+			if (clusterEventBus == null) {
+				result.append("0\n0\n0\n");
+			} else {
+				final SimpleProbe probe = clusterEventBus.getMrtgProbeJMSBatchSize();
+				if (command.equals("jmsBatchSizeAvg")) {
+					result.append(roundedValueOf(probe.getAvg()));
+				} else if (command.equals("jmsBatchSizeMax")) {
+					result.append(roundedValueOf(probe.getMax()));
+				} else if (command.equals("jmsBatchSizeCnt")) {
+					result.append(roundedValueOf(probe.getNum()));
+				} else if (command.equals("jmsBatchSizeReset")) {
+					probe.reset();
+					result.append("0");
+				}
+				result.append("\n0\n0\n");
+			}
+			result.append(instanceId);
+		} else if (command.startsWith("jmsSavedMessages")) {
+
+			final ClusterEventBus clusterEventBus = (ClusterEventBus) coordinatorManager.getCoordinator().getEventBus();
+			if (clusterEventBus == null) {
+				result.append("0\n0\n0\n");
+			} else {
+				final SimpleProbe probe = clusterEventBus.getMrtgProbeJMSSavedMessages();
+				if (command.equals("jmsSavedMessagesAvg")) {
+					result.append(roundedValueOf(probe.getAvg()));
+				} else if (command.equals("jmsSavedMessagesMax")) {
+					result.append(roundedValueOf(probe.getMax()));
+				} else if (command.equals("jmsSavedMessagesCnt")) {
+					result.append(roundedValueOf(probe.getNum()));
+				} else if (command.equals("jmsSavedMessagesReset")) {
+					probe.reset();
+					result.append("0");
+				}
+				result.append("\n0\n0\n");
+			}
+			result.append(instanceId);
 		} else if (command.equals("SecurityGroupMembershipImpl")) { // SecurityGroupMembershipImpl
 			final org.olat.core.commons.persistence.SimpleProbe probe = DBQueryImpl.listTableStatsMap_.get("org.olat.basesecurity.SecurityGroupMembershipImpl");
 			if (probe == null) {
@@ -21,11 +21,15 @@
 
 package org.olat.basesecurity;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import org.hibernate.Hibernate;
@@ -41,6 +45,7 @@ import org.olat.basesecurity.events.NewIdentityCreatedEvent;
 import org.olat.core.commons.persistence.DB;
 import org.olat.core.commons.persistence.DBFactory;
 import org.olat.core.commons.persistence.DBQuery;
+import org.olat.core.commons.persistence.ITransactionListener;
 import org.olat.core.gui.translator.Translator;
 import org.olat.core.id.Identity;
 import org.olat.core.id.OLATResourceable;
@@ -50,6 +55,7 @@ import org.olat.core.id.UserConstants;
 import org.olat.core.logging.AssertException;
 import org.olat.core.manager.BasicManager;
 import org.olat.core.util.Util;
+import org.olat.core.util.cache.n.CacheWrapper;
 import org.olat.core.util.coordinate.CoordinatorManager;
 import org.olat.core.util.resource.OresHelper;
 import org.olat.resource.OLATResource;
@@ -73,6 +79,11 @@ public class BaseSecurityManager extends BasicManager implements BaseSecurity {
 	private static BaseSecurityManager INSTANCE;
 	private static String GUEST_USERNAME_PREFIX = "guest_";
 	public static final OLATResourceable IDENTITY_EVENT_CHANNEL = OresHelper.lookupType(Identity.class);
+	// identity key -> PermissionGrants, see getPermissionGrants()
+	private CacheWrapper permissionCache;
+	private final Object permissionCacheLock = new Object();
+	// identities whose grants the transaction of the current thread changed, removed from the cache when the transaction is committed
+	private final ThreadLocal<PermissionInvalidation> pendingInvalidation = new ThreadLocal<PermissionInvalidation>();
 
 	/**
 	 * [used by spring]
@@ -329,37 +340,117 @@ public class BaseSecurityManager extends BasicManager implements BaseSecurity {
 	public boolean isIdentityPermittedOnResourceable(final Identity identity, final String permission, final OLATResourceable olatResourceable,
 			final boolean checkTypeRight) {
 		final IdentityImpl iimpl = getImpl(identity);
-		Long oresid = olatResourceable.getResourceableId();
-		if (oresid == null) {
-			oresid = new Long(0); // TODO: make a method in
+		// if the olatResourceable is not persisted as OLATResource, then there is no policy on it and the answer is false
+		final PermissionGrants grants = getPermissionGrants(iimpl);
+		return grants.isPermitted(permission, olatResourceable.getResourceableTypeName(), olatResourceable.getResourceableId(), checkTypeRight);
+	}
+
+	/**
+	 * @see org.olat.basesecurity.BaseSecurity#getPermissionsFor(org.olat.core.id.Identity, java.util.Collection)
+	 */
+	@Override
+	public Map<OLATResourceable, Set<String>> getPermissionsFor(final Identity identity, final Collection<? extends OLATResourceable> olatResourceables) {
+		final PermissionGrants grants = getPermissionGrants(getImpl(identity));
+		final Map<OLATResourceable, Set<String>> permissions = new HashMap<OLATResourceable, Set<String>>();
+		for (final OLATResourceable olatResourceable : olatResourceables) {
+			permissions.put(olatResourceable, grants.getPermissions(olatResourceable.getResourceableTypeName(), olatResourceable.getResourceableId()));
 		}
-		// OLATResorceManager, since this
-		// is implementation detail
-		final String oresName = olatResourceable.getResourceableTypeName();
-		// if the olatResourceable is not persisted as OLATResource, then the answer
-		// is false,
-		// therefore we can use the query assuming there is an OLATResource
+		return permissions;
+	}
 
-		String queryString;
-		if (checkTypeRight) {
-			queryString = "select count(poi) from" + " org.olat.basesecurity.SecurityGroupMembershipImpl as sgmsi," + " org.olat.basesecurity.PolicyImpl as poi,"
-					+ " org.olat.resource.OLATResourceImpl as ori" + " where sgmsi.identity = :identitykey and sgmsi.securityGroup =  poi.securityGroup"
-					+ " and poi.permission = :permission and poi.olatResource = ori" + " and (ori.resId = :resid or ori.resId = 0) and ori.resName = :resname";
-		} else {
-			queryString = "select count(poi) from" + " org.olat.basesecurity.SecurityGroupMembershipImpl as sgmsi," + " org.olat.basesecurity.PolicyImpl as poi,"
-					+ " org.olat.resource.OLATResourceImpl as ori" + " where sgmsi.identity = :identitykey and sgmsi.securityGroup =  poi.securityGroup"
-					+ " and poi.permission = :permission and poi.olatResource = ori" + " and (ori.resId = :resid) and ori.resName = :resname";
+	/**
+	 * The grants of an identity are loaded with one query over all its security groups and their policies and are kept in a cluster wide cache until a membership or a
+	 * policy of one of its groups changes.
+	 * 
+	 * @param identity
+	 * @return the grants of the identity
+	 */
+	private PermissionGrants getPermissionGrants(final IdentityImpl identity) {
+		final PermissionInvalidation invalidation = pendingInvalidation.get();
+		if (invalidation != null && invalidation.contains(identity.getKey())) {
+			// changed by the current transaction: not committed yet, so neither read from nor put into the cache
+			return loadPermissionGrants(identity);
 		}
-		final DBQuery query = DBFactory.getInstance().createQuery(queryString);
-		query.setLong("identitykey", iimpl.getKey());
-		query.setString("permission", permission);
-		query.setLong("resid", oresid);
-		query.setString("resname", oresName);
-		query.setCacheable(true);
-		final List res = query.list();
-		final Long cntL = (Long) res.get(0);
-		return (cntL.longValue() > 0); // can be > 1 if identity is in more the one group having
-		// the permission on the olatresourceable
+		final CacheWrapper cache = getPermissionCache();
+		final String cacheKey = identity.getKey().toString();
+		PermissionGrants grants = (PermissionGrants) cache.get(cacheKey);
+		if (grants == null) {
+			// an invalidation while loading removes the marker, the grants loaded until then may be outdated and are not put into the cache
+			final PermissionGrants loadingMarker = PermissionGrants.createLoadingMarker();
+			cache.put(cacheKey, loadingMarker);
+			grants = loadPermissionGrants(identity);
+			if (cache.get(cacheKey) == loadingMarker) {
+				// data which is already on the db: put, not update
+				cache.put(cacheKey, grants);
+			}
+		} else if (grants.isLoadingMarker()) {
+			// loaded by an other thread right now
+			grants = loadPermissionGrants(identity);
+		}
+		return grants;
+	}
+
+	private PermissionGrants loadPermissionGrants(final IdentityImpl identity) {
+		final PermissionGrants grants = new PermissionGrants();
+		final DBQuery query = DBFactory.getInstance().createQuery(
+				"select poi.permission, ori.resName, ori.resId from" + " org.olat.basesecurity.SecurityGroupMembershipImpl as sgmsi,"
+						+ " org.olat.basesecurity.PolicyImpl as poi," + " org.olat.resource.OLATResourceImpl as ori"
+						+ " where sgmsi.identity = :identitykey and sgmsi.securityGroup = poi.securityGroup and poi.olatResource = ori");
+		query.setLong("identitykey", identity.getKey());
+		final List<Object[]> res = query.list();
+		for (final Object[] grant : res) {
+			grants.addGrant((String) grant[0], (String) grant[1], (Long) grant[2]);
+		}
+		return grants;
+	}
+
+	private CacheWrapper getPermissionCache() {
+		synchronized (permissionCacheLock) { // cluster_ok only the handle to the cluster wide cache
+			if (permissionCache == null) {
+				permissionCache = CoordinatorManager.getInstance().getCoordinator().getCacher().getOrCreateCache(BaseSecurityManager.class, "permissions");
+			}
+			return permissionCache;
+		}
+	}
+
+	/**
+	 * removes the cached grants of the identity, must be called by every method which changes the security group memberships of the identity
+	 * 
+	 * @param identityKey
+	 */
+	private void invalidatePermissions(final Long identityKey) {
+		invalidatePermissions(Collections.singletonList(identityKey));
+	}
+
+	/**
+	 * removes the cached grants of all members of the security group, must be called by every method which changes the policies of the group
+	 * 
+	 * @param secGroup
+	 */
+	private void invalidatePermissionsOfSecurityGroup(final SecurityGroup secGroup) {
+		if (secGroup == null || secGroup.getKey() == null) { return; }
+		final List<Long> identityKeys = DBFactory.getInstance().find(
+				"select sgmsi.identity.key from org.olat.basesecurity.SecurityGroupMembershipImpl as sgmsi where sgmsi.securityGroup.key = ?",
+				new Object[] { secGroup.getKey() }, new Type[] { Hibernate.LONG });
+		invalidatePermissions(identityKeys);
+	}
+
+	/**
+	 * The cached grants are removed after the commit of the current transaction. Removed before, a concurrent reader could load the grants from the not yet committed
+	 * state and put them back into the cache. Until the commit, the current thread reads the grants of these identities from the database.
+	 * 
+	 * @param identityKeys
+	 */
+	private void invalidatePermissions(final Collection<Long> identityKeys) {
+		if (identityKeys.isEmpty()) { return; }
+		PermissionInvalidation invalidation = pendingInvalidation.get();
+		if (invalidation == null) {
+			invalidation = new PermissionInvalidation();
+			pendingInvalidation.set(invalidation);
+		}
+		invalidation.addAll(identityKeys);
+		// the db forgets its listeners when the session is closed, register on every change
+		DBFactory.getInstance().addTransactionListener(invalidation);
 	}
 
 	/**
@@ -399,6 +490,7 @@ public class BaseSecurityManager extends BasicManager implements BaseSecurity {
 		((PolicyImpl) policy).setFrom(from);
 		((PolicyImpl) policy).setTo(to);
 		DBFactory.getInstance().updateObject(policy);
+		invalidatePermissionsOfSecurityGroup(policy.getSecurityGroup());
 	}
 
 	/**
@@ -444,6 +536,7 @@ public class BaseSecurityManager extends BasicManager implements BaseSecurity {
 		/*
 		 * if (!db.contains(secGroup)) { secGroup = (SecurityGroupImpl) db.loadObject(SecurityGroupImpl.class, secGroup.getKey()); }
 		 */
+		invalidatePermissionsOfSecurityGroup(secGroup);
 		// 1) delete associated users (need to do it manually, hibernate knows
 		// nothing about
 		// the membership, modeled manually via many-to-one and not via set)
@@ -464,6 +557,7 @@ public class BaseSecurityManager extends BasicManager implements BaseSecurity {
 		sgmsi.setSecurityGroup(secGroup);
 		sgmsi.setLastModified(new Date());
 		DBFactory.getInstance().saveObject(sgmsi);
+		invalidatePermissions(identity.getKey());
 		// TODO: tracing
 	}
 
@@ -474,6 +568,7 @@ public class BaseSecurityManager extends BasicManager implements BaseSecurity {
 		final IdentityImpl iimpl = getImpl(identity);
 		DBFactory.getInstance().delete("from org.olat.basesecurity.SecurityGroupMembershipImpl as msi where msi.identity.key = ? and msi.securityGroup.key = ?",
 				new Object[] { iimpl.getKey(), secGroup.getKey() }, new Type[] { Hibernate.LONG, Hibernate.LONG });
+		invalidatePermissions(iimpl.getKey());
 	}
 
 	/**
@@ -518,6 +613,7 @@ public class BaseSecurityManager extends BasicManager implements BaseSecurity {
 		pi.setFrom(from);
 		pi.setTo(to);
 		DBFactory.getInstance().saveObject(pi);
+		invalidatePermissionsOfSecurityGroup(secGroup);
 		return pi;
 	}
 
@@ -553,6 +649,7 @@ public class BaseSecurityManager extends BasicManager implements BaseSecurity {
 
 	private void deletePolicy(final Policy policy) {
 		DBFactory.getInstance().deleteObject(policy);
+		invalidatePermissionsOfSecurityGroup(policy.getSecurityGroup());
 	}
 
 	/**
@@ -1360,4 +1457,40 @@ public class BaseSecurityManager extends BasicManager implements BaseSecurity {
 		this.orm = orm;
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Description:<br>
+	 * The identities whose grants the transaction of a thread changed. Removes their cached grants in one batch (one cluster message) when the transaction is
+	 * committed. On a rollback nothing changed and nothing was cached meanwhile, the keys are simply forgotten.
+	 * <P>
+	 * Initial Date: 18.10.2026 <br>
+	 */
+	private class PermissionInvalidation implements ITransactionListener {
+		private final Set<Long> identityKeys = new HashSet<Long>();
+
+		void addAll(final Collection<Long> keys) {
+			identityKeys.addAll(keys);
+		}
+
+		boolean contains(final Long identityKey) {
+			return identityKeys.contains(identityKey);
+		}
+
+		@Override
+		public void handleCommit(final DB db) {
+			db.removeTransactionListener(this);
+			pendingInvalidation.remove();
+			final String[] cacheKeys = new String[identityKeys.size()];
+			int i = 0;
+			for (final Long identityKey : identityKeys) {
+				cacheKeys[i++] = identityKey.toString();
+			}
+			getPermissionCache().removeMulti(cacheKeys);
+		}
+
+		@Override
+		public void handleRollback(final DB db) {
+			db.removeTransactionListener(this);
+			pendingInvalidation.remove();
+		}
+	}
+}
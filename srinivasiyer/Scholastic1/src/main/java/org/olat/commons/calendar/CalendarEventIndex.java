@@ -0,0 +1,336 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.commons.calendar;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+
+/**
+ * Description:<br>
+ * Index of the events of one calendar by time range, used by the ICalEventStoreCalendarManager.
+ * <p>
+ * The index only knows the id, the begin, the end and the end of the recurrence of every event. Non recurring events are sorted by their begin, so the events
+ * of a period are found by looking at the events beginning between the start of the period minus the longest event duration and the end of the period. Recurring
+ * events are kept apart and are a candidate for every period between their begin and the end of their recurrence.
+ * <p>
+ * The index is persisted as an append-only journal: every change of an event appends one line, a line is either "P id begin end recurrenceEnd" or "D id". The
+ * journal is compacted (rewritten with one line per event) when it has grown to more than twice the number of events. Not thread-safe for writing, writes must be
+ * done in a doInSync block of the calendar.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+class CalendarEventIndex {
+
+	private static final OLog log = Tracing.createLoggerFor(CalendarEventIndex.class);
+
+	/** recurrence end of an event which is not recurring **/
+	static final long NOT_RECURRING = -1l;
+	/** recurrence end of an event which recurs forever **/
+	static final long RECURRING_FOREVER = Long.MAX_VALUE;
+
+	private static final String PUT = "P";
+	private static final String DELETE = "D";
+	private static final char SEPARATOR = '\t';
+	private static final String ENCODING = "UTF-8";
+	/** the journal is never compacted below this number of lines **/
+	private static final int MIN_COMPACTION_LINES = 64;
+	/** source of the versions, unique within the vm **/
+	private static final AtomicLong VERSIONS = new AtomicLong();
+
+	private final Map<String, Entry> entries = new HashMap<String, Entry>();
+	private final TreeMap<Long, Set<String>> byBegin = new TreeMap<Long, Set<String>>();
+	private final Map<String, Entry> recurring = new HashMap<String, Entry>();
+	private long maxDuration = 0;
+	private int journalLines = 0;
+	private long journalLength = 0;
+	private long version = VERSIONS.incrementAndGet();
+
+	/**
+	 * Add or replace the event with the given id.
+	 */
+	synchronized void put(final String id, final long begin, final long end, final long recurrenceEnd) {
+		remove(id);
+		version = VERSIONS.incrementAndGet();
+		final Entry entry = new Entry(id, begin, end, recurrenceEnd);
+		entries.put(id, entry);
+		if (recurrenceEnd == NOT_RECURRING) {
+			Set<String> ids = byBegin.get(Long.valueOf(begin));
+			if (ids == null) {
+				ids = new HashSet<String>(2);
+				byBegin.put(Long.valueOf(begin), ids);
+			}
+			ids.add(id);
+			maxDuration = Math.max(maxDuration, end - begin);
+		} else {
+			recurring.put(id, entry);
+		}
+	}
+
+	/**
+	 * Remove the event with the given id, if indexed.
+	 */
+	synchronized void remove(final String id) {
+		final Entry entry = entries.remove(id);
+		if (entry == null) { return; }
+		version = VERSIONS.incrementAndGet();
+		if (recurring.remove(id) == null) {
+			final Set<String> ids = byBegin.get(Long.valueOf(entry.begin));
+			if (ids != null) {
+				ids.remove(id);
+				if (ids.isEmpty()) {
+					byBegin.remove(Long.valueOf(entry.begin));
+				}
+			}
+		}
+	}
+
+	synchronized boolean contains(final String id) {
+		return entries.containsKey(id);
+	}
+
+	synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return a copy of the ids of all indexed events
+	 */
+	synchronized List<String> getEventIds() {
+		return new ArrayList<String>(entries.keySet());
+	}
+
+	/**
+	 * Return the ids of the events which take place in the given period, the same selection as CalendarUtils.listEventsForPeriod does: the non recurring events
+	 * which overlap the period (ordered by their begin) followed by the recurring events which could have a recurrence in the period.
+	 * 
+	 * @param periodStart
+	 * @param periodEnd
+	 * @return
+	 */
+	synchronized List<String> getEventIdsInPeriod(final long periodStart, final long periodEnd) {
+		final Set<String> ids = new LinkedHashSet<String>();
+		final long from = periodStart - maxDuration;
+		for (final Set<String> beginIds : byBegin.subMap(Long.valueOf(from), true, Long.valueOf(periodEnd), true).values()) {
+			for (final String id : beginIds) {
+				if (entries.get(id).end >= periodStart) {
+					ids.add(id);
+				}
+			}
+		}
+		for (final Entry entry : recurring.values()) {
+			if (entry.begin <= periodEnd && entry.recurrenceEnd >= periodStart) {
+				ids.add(entry.id);
+			}
+		}
+		return new ArrayList<String>(ids);
+	}
+
+	/**
+	 * @return the version of the indexed events, changes with every put or remove and is unique within the vm: a calendar loaded with the same version has the
+	 *         same events as the index
+	 */
+	synchronized long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return the length of the journal file after the last read or write of this index, used to detect changes made by other cluster nodes
+	 */
+	synchronized long getJournalLength() {
+		return journalLength;
+	}
+
+	/**
+	 * @return true if the journal has grown to more than twice the number of events
+	 */
+	synchronized boolean needsCompaction() {
+		return journalLines > MIN_COMPACTION_LINES && journalLines > 2 * entries.size();
+	}
+
+	/**
+	 * Append the current state of the event with the given id to the journal.
+	 */
+	synchronized void appendPut(final File journal, final String id) throws IOException {
+		final Entry entry = entries.get(id);
+		if (entry == null) { throw new IllegalArgumentException("Event not indexed: " + id); }
+		append(journal, toLine(entry));
+	}
+
+	/**
+	 * Append the removal of the event with the given id to the journal.
+	 */
+	synchronized void appendRemove(final File journal, final String id) throws IOException {
+		append(journal, DELETE + SEPARATOR + encode(id));
+	}
+
+	private void append(final File journal, final String line) throws IOException {
+		final boolean truncated = endsWithTruncatedLine(journal);
+		final Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(journal, true), ENCODING));
+		try {
+			if (truncated) {
+				// don't continue the line of a crashed append
+				out.write('\n');
+			}
+			out.write(line);
+			out.write('\n');
+		} finally {
+			out.close();
+		}
+		journalLines++;
+		journalLength = journal.length();
+	}
+
+	private static boolean endsWithTruncatedLine(final File journal) throws IOException {
+		final long length = journal.length();
+		if (length == 0) { return false; }
+		final RandomAccessFile raf = new RandomAccessFile(journal, "r");
+		try {
+			raf.seek(length - 1);
+			return raf.read() != '\n';
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Rewrite the journal with one line per indexed event. The new journal is written aside and renamed, a crash leaves the old journal intact.
+	 */
+	synchronized void writeCompacted(final File journal) throws IOException {
+		final File tmp = new File(journal.getParentFile(), journal.getName() + ".tmp");
+		final Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp, false), ENCODING));
+		try {
+			for (final Iterator<Entry> iter = entries.values().iterator(); iter.hasNext();) {
+				out.write(toLine(iter.next()));
+				out.write('\n');
+			}
+		} finally {
+			out.close();
+		}
+		if (!tmp.renameTo(journal)) {
+			// not atomic on every platform, e.g. on windows
+			journal.delete();
+			if (!tmp.renameTo(journal)) { throw new IOException("Cannot rename " + tmp + " to " + journal); }
+		}
+		journalLines = entries.size();
+		journalLength = journal.length();
+		// the longest duration may have been removed in the meantime
+		maxDuration = 0;
+		for (final Entry entry : entries.values()) {
+			if (entry.recurrenceEnd == NOT_RECURRING) {
+				maxDuration = Math.max(maxDuration, entry.end - entry.begin);
+			}
+		}
+	}
+
+	/**
+	 * Replay a journal. A truncated last line (crash while appending) is ignored.
+	 * 
+	 * @param journal
+	 * @return the index or null if there is no journal
+	 * @throws IOException
+	 */
+	static CalendarEventIndex read(final File journal) throws IOException {
+		if (!journal.exists()) { return null; }
+		final CalendarEventIndex index = new CalendarEventIndex();
+		final BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(journal), ENCODING));
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				index.journalLines++;
+				final String[] fields = line.split(String.valueOf(SEPARATOR));
+				try {
+					if (PUT.equals(fields[0]) && fields.length == 5) {
+						index.put(decode(fields[1]), Long.parseLong(fields[2]), Long.parseLong(fields[3]), Long.parseLong(fields[4]));
+					} else if (DELETE.equals(fields[0]) && fields.length == 2) {
+						index.remove(decode(fields[1]));
+					} else {
+						log.warn("Ignore invalid line in calendar journal " + journal + ": " + line);
+					}
+				} catch (final NumberFormatException e) {
+					log.warn("Ignore invalid line in calendar journal " + journal + ": " + line);
+				}
+			}
+		} finally {
+			in.close();
+		}
+		index.journalLength = journal.length();
+		return index;
+	}
+
+	private static String toLine(final Entry entry) {
+		return PUT + SEPARATOR + encode(entry.id) + SEPARATOR + entry.begin + SEPARATOR + entry.end + SEPARATOR + entry.recurrenceEnd;
+	}
+
+	private static String encode(final String id) {
+		try {
+			return URLEncoder.encode(id, ENCODING);
+		} catch (final UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String decode(final String id) {
+		try {
+			return URLDecoder.decode(id, ENCODING);
+		} catch (final UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static class Entry {
+		private final String id;
+		private final long begin;
+		private final long end;
+		private final long recurrenceEnd;
+
+		Entry(final String id, final long begin, final long end, final long recurrenceEnd) {
+			this.id = id;
+			this.begin = begin;
+			this.end = end;
+			this.recurrenceEnd = recurrenceEnd;
+		}
+	}
+}
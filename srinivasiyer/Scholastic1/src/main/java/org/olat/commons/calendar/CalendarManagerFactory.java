@@ -37,7 +37,11 @@ public class CalendarManagerFactory {
 		if (!calendarBase.exists()) {
 			if (!calendarBase.mkdirs()) { throw new OLATRuntimeException("Error creating calendar base directory at: " + calendarBase.getAbsolutePath(), null); }
 		}
-		DEFAULT_MANAGER = new ICalFileCalendarManager(calendarBase);
+		if (CalendarModule.isEventStore()) {
+			DEFAULT_MANAGER = new ICalEventStoreCalendarManager(calendarBase);
+		} else {
+			DEFAULT_MANAGER = new ICalFileCalendarManager(calendarBase);
+		}
 	}
 
 	public static final CalendarManagerFactory getInstance() {
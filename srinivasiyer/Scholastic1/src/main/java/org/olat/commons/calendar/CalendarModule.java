@@ -0,0 +1,63 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.commons.calendar;
+
+/**
+ * Description:<br>
+ * Configuration of the calendar storage, see calendar.storage in olat.properties. Read by the CalendarManagerFactory when the calendar manager is created.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class CalendarModule {
+
+	/** one .ics file per calendar **/
+	public static final String STORAGE_FILE = "file";
+	/** one file per event with a time range index per calendar **/
+	public static final String STORAGE_EVENTSTORE = "eventstore";
+
+	private static String storage = STORAGE_FILE;
+
+	/**
+	 * [used by spring]
+	 */
+	private CalendarModule() {
+		//
+	}
+
+	/**
+	 * [used by spring]
+	 * 
+	 * @param storage file or eventstore
+	 */
+	public void setStorage(final String storage) {
+		final String value = storage == null ? STORAGE_FILE : storage.trim();
+		if (!STORAGE_FILE.equals(value) && !STORAGE_EVENTSTORE.equals(value)) { throw new IllegalArgumentException("Unknown calendar storage: " + storage); }
+		CalendarModule.storage = value;
+	}
+
+	/**
+	 * @return true if the calendars are stored in the event store
+	 */
+	public static boolean isEventStore() {
+		return STORAGE_EVENTSTORE.equals(storage);
+	}
+}
@@ -165,21 +165,8 @@ public class CalendarUtils {
 	}
 
 	public static List listEventsForPeriod(final Kalendar calendar, final Date periodStart, final Date periodEnd) {
-		final List periodEvents = new ArrayList();
-		final Collection events = calendar.getEvents();
-		for (final Iterator iter = events.iterator(); iter.hasNext();) {
-			final KalendarEvent event = (KalendarEvent) iter.next();
-			final CalendarManager cm = CalendarManagerFactory.getInstance().getCalendarManager();
-			final List<KalendarRecurEvent> lstEvnt = cm.getRecurringDatesInPeriod(periodStart, periodEnd, event);
-			for (final KalendarRecurEvent recurEvent : lstEvnt) {
-				periodEvents.add(recurEvent);
-			}
-			if (event.getEnd().before(periodStart) || event.getBegin().after(periodEnd)) {
-				continue;
-			}
-			periodEvents.add(event);
-		}
-		return periodEvents;
+		final CalendarManager cm = CalendarManagerFactory.getInstance().getCalendarManager();
+		return cm.getEventsInPeriod(calendar, periodStart, periodEnd);
 	}
 
 	public static String getRecurrence(final String rule) {
@@ -34,6 +34,7 @@ import java.io.OutputStream;
 import java.io.StringReader;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -189,7 +190,7 @@ public class ICalFileCalendarManager extends BasicManager implements CalendarMan
 		return OresHelper.createOLATResourceableType(getKeyFor(cal.getType(), cal.getCalendarID()));
 	}
 
-	private String getKeyFor(final String type, final String calendarID) {
+	protected String getKeyFor(final String type, final String calendarID) {
 		return type + "_" + calendarID;
 	}
 
@@ -203,7 +204,7 @@ public class ICalFileCalendarManager extends BasicManager implements CalendarMan
 		return kalendar;
 	}
 
-	private Kalendar createKalendar(final String type, final String calendarID, final Calendar calendar) {
+	protected Kalendar createKalendar(final String type, final String calendarID, final Calendar calendar) {
 		final Kalendar cal = new Kalendar(calendarID, type);
 		for (final Iterator iter = calendar.getComponents().iterator(); iter.hasNext();) {
 			final Component comp = (Component) iter.next();
@@ -282,13 +283,21 @@ public class ICalFileCalendarManager extends BasicManager implements CalendarMan
 	@Override
 	public boolean persistCalendar(final Kalendar kalendar) {
 		final Calendar calendar = buildCalendar(kalendar);
-		final boolean success = writeCalendarFile(calendar, kalendar.getType(), kalendar.getCalendarID());
-		calendarCache.update(getKeyFor(kalendar.getType(), kalendar.getCalendarID()), kalendar);
+		final boolean success = writeCalendarFile(calendar, getCalendarFile(kalendar.getType(), kalendar.getCalendarID()));
+		updateCachedCalendar(kalendar);
 		return success;
 	}
 
-	private boolean writeCalendarFile(final Calendar calendar, final String calType, final String calId) {
-		final File fKalendarFile = getCalendarFile(calType, calId);
+	/**
+	 * Put the changed calendar into the (cluster) cache. Must be called from a synchronized block.
+	 * 
+	 * @param kalendar
+	 */
+	protected void updateCachedCalendar(final Kalendar kalendar) {
+		calendarCache.update(getKeyFor(kalendar.getType(), kalendar.getCalendarID()), kalendar);
+	}
+
+	protected boolean writeCalendarFile(final Calendar calendar, final File fKalendarFile) {
 		OutputStream os = null;
 		try {
 			os = new BufferedOutputStream(new FileOutputStream(fKalendarFile, false));
@@ -341,13 +350,17 @@ public class ICalFileCalendarManager extends BasicManager implements CalendarMan
 		guiPreferences.putAndSave(KalendarConfig.class, kalendar.getCalendarID(), config);
 	}
 
-	private Calendar buildCalendar(final Kalendar kalendar) {
+	protected Calendar buildCalendar(final Kalendar kalendar) {
+		return buildCalendar(kalendar.getEvents());
+	}
+
+	protected Calendar buildCalendar(final Collection<KalendarEvent> events) {
 		final Calendar calendar = new Calendar();
 		// add standard propeties
 		calendar.getProperties().add(new ProdId("-//Ben Fortuna//iCal4j 1.0//EN"));
 		calendar.getProperties().add(Version.VERSION_2_0);
 		calendar.getProperties().add(CalScale.GREGORIAN);
-		for (final Iterator<KalendarEvent> iter = kalendar.getEvents().iterator(); iter.hasNext();) {
+		for (final Iterator<KalendarEvent> iter = events.iterator(); iter.hasNext();) {
 			final KalendarEvent kEvent = iter.next();
 			final VEvent vEvent = getVEvent(kEvent);
 			calendar.getComponents().add(vEvent);
@@ -355,7 +368,7 @@ public class ICalFileCalendarManager extends BasicManager implements CalendarMan
 		return calendar;
 	}
 
-	private VEvent getVEvent(final KalendarEvent kEvent) {
+	protected VEvent getVEvent(final KalendarEvent kEvent) {
 		VEvent vEvent = new VEvent();
 		if (!kEvent.isAllDayEvent()) {
 			// regular VEvent
@@ -487,7 +500,7 @@ public class ICalFileCalendarManager extends BasicManager implements CalendarMan
 	 * @param event
 	 * @return
 	 */
-	private KalendarEvent getKalendarEvent(final VEvent event) {
+	protected KalendarEvent getKalendarEvent(final VEvent event) {
 		// subject
 		final String subject = event.getSummary().getValue();
 		// start
@@ -748,6 +761,32 @@ public class ICalFileCalendarManager extends BasicManager implements CalendarMan
 		return lstDates;
 	}
 
+	/**
+	 * @see org.olat.commons.calendar.CalendarManager#getEventsInPeriod(org.olat.commons.calendar.model.Kalendar, java.util.Date, java.util.Date)
+	 */
+	@Override
+	public List<KalendarEvent> getEventsInPeriod(final Kalendar calendar, final Date periodStart, final Date periodEnd) {
+		return getEventsInPeriod(calendar.getEvents(), periodStart, periodEnd);
+	}
+
+	/**
+	 * Select the events and the recurrences of events which take place in the given period.
+	 */
+	protected List<KalendarEvent> getEventsInPeriod(final Collection<KalendarEvent> events, final Date periodStart, final Date periodEnd) {
+		final List<KalendarEvent> periodEvents = new ArrayList<KalendarEvent>();
+		for (final KalendarEvent event : events) {
+			final List<KalendarRecurEvent> lstEvnt = getRecurringDatesInPeriod(periodStart, periodEnd, event);
+			for (final KalendarRecurEvent recurEvent : lstEvnt) {
+				periodEvents.add(recurEvent);
+			}
+			if (event.getEnd().before(periodStart) || event.getBegin().after(periodEnd)) {
+				continue;
+			}
+			periodEvents.add(event);
+		}
+		return periodEvents;
+	}
+
 	@Override
 	public File getCalendarFile(final String type, final String calendarID) {
 		return new File(fStorageBase, "/" + type + "/" + calendarID + ".ics");
@@ -830,7 +869,7 @@ public class ICalFileCalendarManager extends BasicManager implements CalendarMan
 			public Boolean execute() {
 				final Kalendar loadedCal = getCalendarFromCache(cal.getType(), cal.getCalendarID());
 				loadedCal.addEvent(kalendarEvent);
-				final boolean successfullyPersist = persistCalendar(loadedCal);
+				final boolean successfullyPersist = persistEvent(loadedCal, kalendarEvent);
 				return new Boolean(successfullyPersist);
 			}
 		});
@@ -851,7 +890,7 @@ public class ICalFileCalendarManager extends BasicManager implements CalendarMan
 			public Boolean execute() {
 				final Kalendar loadedCal = getCalendarFromCache(cal.getType(), cal.getCalendarID());
 				loadedCal.removeEvent(kalendarEvent);
-				final boolean successfullyPersist = persistCalendar(loadedCal);
+				final boolean successfullyPersist = persistEventRemoval(loadedCal, kalendarEvent);
 				return new Boolean(successfullyPersist);
 			}
 		});
@@ -886,13 +925,35 @@ public class ICalFileCalendarManager extends BasicManager implements CalendarMan
 		final Kalendar loadedCal = getCalendarFromCache(cal.getType(), cal.getCalendarID());
 		loadedCal.removeEvent(kalendarEvent); // remove old event
 		loadedCal.addEvent(kalendarEvent); // add changed event
-		final boolean successfullyPersist = persistCalendar(loadedCal);
+		final boolean successfullyPersist = persistEvent(loadedCal, kalendarEvent);
 		// inform all controller about calendar change for reload
 		CoordinatorManager.getInstance().getCoordinator().getEventBus()
 				.fireEventToListenersOf(new KalendarModifiedEvent(cal), OresHelper.lookupType(CalendarManager.class));
 		return successfullyPersist;
 	}
 
+	/**
+	 * Persist a calendar after an event has been added or changed. The file backend rewrites the whole calendar file. Must be called from a synchronized block.
+	 * 
+	 * @param loadedCal the calendar which already contains the event
+	 * @param kalendarEvent the added or changed event
+	 * @return true if successfully persisted
+	 */
+	protected boolean persistEvent(final Kalendar loadedCal, final KalendarEvent kalendarEvent) {
+		return persistCalendar(loadedCal);
+	}
+
+	/**
+	 * Persist a calendar after an event has been removed. The file backend rewrites the whole calendar file. Must be called from a synchronized block.
+	 * 
+	 * @param loadedCal the calendar from which the event is already removed
+	 * @param kalendarEvent the removed event
+	 * @return true if successfully persisted
+	 */
+	protected boolean persistEventRemoval(final Kalendar loadedCal, final KalendarEvent kalendarEvent) {
+		return persistCalendar(loadedCal);
+	}
+
 	/**
 	 * Load a calendar when a calendar exists or create a new one. This method is not thread-safe. Must be called from synchronized block!
 	 * 
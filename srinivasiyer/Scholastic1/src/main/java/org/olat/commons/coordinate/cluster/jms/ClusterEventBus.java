@@ -22,10 +22,10 @@ package org.olat.commons.coordinate.cluster.jms;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+import javax.jms.BytesMessage;
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
 import javax.jms.JMSException;
@@ -49,7 +49,6 @@ import org.olat.core.logging.AssertException;
 import org.olat.core.logging.OLATRuntimeException;
 import org.olat.core.logging.OLog;
 import org.olat.core.logging.Tracing;
-import org.olat.core.logging.activity.ThreadLocalUserActivityLoggerInstaller;
 import org.olat.core.util.cache.n.impl.cluster.ClusterConfig;
 import org.olat.core.util.event.AbstractEventBus;
 import org.olat.core.util.event.GenericEventListener;
@@ -73,6 +72,11 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 	// settings
 	long sendInterval = 1000; // 1000 miliseconds between each "ping/alive/info" message, can be set using spring
 	long jmsMsgDelayLimit = 5000; // max duration of ClusterInfoEvent send-receive time in ms
+	int dispatchWorkers = 4; // number of threads serving incoming events, events of the same resource are always served by the same one
+	int dispatchQueueSize = 200; // max number of incoming events waiting per dispatch worker
+	ClusterEventDispatcher.OverflowPolicy overflowPolicy = ClusterEventDispatcher.OverflowPolicy.BLOCK;
+	long batchWindow = 0; // max ms an outgoing event waits to be batched with others, 0 sends every event in its own message
+	int maxBatchSize = 100; // max number of events sent in one message
 
 	// counters
 	private long latestSentMsgId = -1;
@@ -99,15 +103,17 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 	private MessageConsumer consumer;
 	private MessageProducer producer;
 
-	private long lastOnMessageFinishTime_ = -1;
+	private volatile long lastOnMessageFinishTime_ = -1;
 	private final SimpleProbe mrtgProbeJMSLoad_ = new SimpleProbe();
 	private final SimpleProbe mrtgProbeJMSDeliveryTime_ = new SimpleProbe();
 	private final SimpleProbe mrtgProbeJMSProcessingTime_ = new SimpleProbe();
 
 	private final SimpleProbe mrtgProbeJMSEnqueueTime_ = new SimpleProbe();
-	final LinkedList<Object> incomingMessagesQueue_ = new LinkedList<Object>();
-
-	private final static int LIMIT_ON_INCOMING_MESSAGE_QUEUE = 200;
+	private final SimpleProbe mrtgProbeJMSBatchSize_ = new SimpleProbe();
+	private final SimpleProbe mrtgProbeJMSSavedMessages_ = new SimpleProbe();
+	private JMSBatchPublisher batchPublisher;
+	private Thread batchPublisherThread;
+	private ClusterEventDispatcher dispatcher;
 
 	/**
 	 * [used by spring]
@@ -119,6 +125,10 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 	}
 
 	public void springInit() throws JMSException {
+		// the dispatcher must be ready before the first message is delivered
+		dispatcher = new ClusterEventDispatcher(dispatchWorkers, dispatchQueueSize, overflowPolicy);
+		dispatcher.start();
+
 		connection = connectionFactory.createConnection();
 		session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
 		consumer = session.createConsumer(destination);
@@ -128,6 +138,19 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 		connection.start();
 		log.info("ClusterEventBus JMS started");
 
+		if (batchWindow > 0) {
+			batchPublisher = new JMSBatchPublisher(new JMSBatchPublisher.BatchSender() {
+				@Override
+				public void sendBatch(final List<JMSBatchPublisher.PendingEvent> batch, final int savedMessages) throws Exception {
+					ClusterEventBus.this.sendBatch(batch, savedMessages);
+				}
+			}, batchWindow, maxBatchSize);
+			batchPublisherThread = new Thread(batchPublisher, "ClusterEventBus-BatchPublisher");
+			batchPublisherThread.setDaemon(true);
+			batchPublisherThread.start();
+			log.info("ClusterEventBus sends events in batches, batchWindow=" + batchWindow + "ms, maxBatchSize=" + maxBatchSize);
+		}
+
 		final Integer nodeId = clusterConfig.getNodeId();
 		final Thread t = new Thread(new Runnable() {
 			@Override
@@ -166,43 +189,6 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 		t.start();
 		// register to listen for other nodes' clusterinfoevents
 		this.registerFor(this, null, CLUSTER_CHANNEL);
-
-		final Thread serveThread = new Thread(new Runnable() {
-
-			@Override
-			public void run() {
-				ThreadLocalUserActivityLoggerInstaller.initEmptyUserActivityLogger();
-				while (true) {
-					try {
-						Message m = null;
-						long time = -1;
-						synchronized (incomingMessagesQueue_) {
-							while (incomingMessagesQueue_.size() < 2) {
-								try {
-									incomingMessagesQueue_.wait();
-								} catch (final InterruptedException e) {
-									// ignore
-								}
-							}
-							m = (Message) incomingMessagesQueue_.removeLast();
-							time = (Long) incomingMessagesQueue_.removeLast();
-							incomingMessagesQueue_.notifyAll();
-						}
-						serveMessage(m, time);
-					} catch (final RuntimeException re) {
-						Tracing.logError("RuntimeException enountered by serve-thread:", re, ClusterEventBus.class);
-						// continue
-					} catch (final Error er) {
-						Tracing.logError("Error enountered by serve-thread:", er, ClusterEventBus.class);
-						// continue
-					}
-				}
-
-			}
-
-		});
-		serveThread.setDaemon(true);
-		serveThread.start();
 	}
 
 	public SimpleProbe getMrtgProbeJMSDeliveryTime() {
@@ -221,6 +207,20 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 		return mrtgProbeJMSEnqueueTime_;
 	}
 
+	/**
+	 * @return the probe measuring the number of events per sent batch message
+	 */
+	public SimpleProbe getMrtgProbeJMSBatchSize() {
+		return mrtgProbeJMSBatchSize_;
+	}
+
+	/**
+	 * @return the probe measuring the number of JMS messages saved per batch by batching and coalescing
+	 */
+	public SimpleProbe getMrtgProbeJMSSavedMessages() {
+		return mrtgProbeJMSSavedMessages_;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.olat.core.util.event.GenericEventListener#event(org.olat.core.gui.control.Event)
@@ -261,6 +261,11 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 
 		// 2. send the event wrapped over jms to all nodes
 		// (the receiver will detect whether messages are from itself and thus can be ignored, since they were already sent directly.
+		if (batchPublisher != null) {
+			// the batch publisher thread sends it together with other events, see sendBatch
+			batchPublisher.enqueue(ores, event);
+			return;
+		}
 		long msgId;
 		Integer nodeId;
 
@@ -296,27 +301,92 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 		}
 	}
 
+	/**
+	 * sends a batch of events in one binary message. called by the batch publisher thread only.
+	 * 
+	 * @param batch the events in the order they were fired
+	 * @param savedMessages
+	 */
+	void sendBatch(final List<JMSBatchPublisher.PendingEvent> batch, final int savedMessages) throws Exception {
+		final Integer nodeId = clusterConfig.getNodeId();
+		final long firstMsgId;
+		synchronized (this) { // cluster_ok needed, not atomar read in one vm
+			firstMsgId = latestSentMsgId + 1;
+			final BytesMessage message = session.createBytesMessage();
+			message.writeBytes(JMSBatchCodec.encode(nodeId, firstMsgId, batch));
+			producer.send(message);
+			latestSentMsgId += batch.size();
+		}
+		numOfSentMessages += batch.size();
+		mrtgProbeJMSBatchSize_.addMeasurement(batch.size());
+		mrtgProbeJMSSavedMessages_.addMeasurement(savedMessages);
+
+		long msgId = firstMsgId;
+		for (final JMSBatchPublisher.PendingEvent pending : batch) {
+			final OLATResourceable ores = pending.getOres();
+			final String sentMsg = "sent msg: from node:" + nodeId + ", olat-id:" + (msgId++) + ", ores:" + ores.getResourceableTypeName() + ":"
+					+ ores.getResourceableId() + ", event:" + pending.getEvent() + ", batch of " + batch.size();
+			addToSentScreen(sentMsg);
+			if (log.isDebug()) {
+				log.debug(sentMsg);
+			}
+		}
+	}
+
 	/**
 	 * called by springs org.springframework.jms.listener.DefaultMessageListenerContainer, see coredefaultconfig.xml we receive a message here on the topic reserved for
 	 * olat system bus messages.
 	 */
 	@Override
 	public void onMessage(final Message message) {
-		synchronized (incomingMessagesQueue_) {
-			while (incomingMessagesQueue_.size() > LIMIT_ON_INCOMING_MESSAGE_QUEUE) {
-				try {
-					incomingMessagesQueue_.wait();
-				} catch (final InterruptedException e) {
-					// this empty catch is okay
+		final long receiveEnqueueTime = System.currentTimeMillis();
+		try {
+			// unpack, batches are dispatched in the order the events were fired
+			final long jmsTimestamp = message.getJMSTimestamp();
+			if (message instanceof BytesMessage) {
+				final BytesMessage bm = (BytesMessage) message;
+				final byte[] data = new byte[(int) bm.getBodyLength()];
+				bm.readBytes(data);
+				final List<JMSWrapper> wrappers = JMSBatchCodec.decode(data);
+				for (final JMSWrapper jmsWrapper : wrappers) {
+					dispatch(jmsWrapper, jmsTimestamp, receiveEnqueueTime);
 				}
+			} else {
+				dispatch((JMSWrapper) ((ObjectMessage) message).getObject(), jmsTimestamp, receiveEnqueueTime);
 			}
-			incomingMessagesQueue_.addFirst(message);
-			incomingMessagesQueue_.addFirst(System.currentTimeMillis());
-			incomingMessagesQueue_.notifyAll();
+		} catch (final Error er) {
+			log.error("Uncaught Error in ClusterEventBus.onMessage!", er);
+			throw er;
+		} catch (final RuntimeException re) {
+			log.error("Uncaught RuntimeException in ClusterEventBus.onMessage!", re);
+			throw re;
+		} catch (final JMSException e) {
+			log.warn("JMSException in ClusterEventBus.onMessage", e);
+			throw new OLATRuntimeException("error when receiving jms messages", e);
+		} catch (final Throwable th) {
+			log.error("Uncaught Throwable in ClusterEventBus.onMessage!", th);
+		}
+	}
+
+	private void dispatch(final JMSWrapper jmsWrapper, final long jmsTimestamp, final long receiveEnqueueTime) {
+		// update nodeinfo statistics here, where the messages of a node still arrive in the order they were sent
+		final NodeInfo nodeInfo = getNodeInfoFor(jmsWrapper.getNodeId());
+		if (!nodeInfo.update(jmsWrapper)) {
+			log.warn("onMessage: update failed. clustereventbus: " + this);
 		}
+
+		final OLATResourceable ores = jmsWrapper.getOres();
+		// events of the same resource must be served in order, so they share one dispatch worker
+		final String orderingKey = ores.getResourceableTypeName() + ":" + ores.getResourceableId();
+		dispatcher.dispatch(orderingKey, new Runnable() {
+			@Override
+			public void run() {
+				serveMessage(jmsWrapper, jmsTimestamp, receiveEnqueueTime);
+			}
+		});
 	}
 
-	void serveMessage(final Message message, final long receiveEnqueueTime) {
+	void serveMessage(final JMSWrapper jmsWrapper, final long jmsTimestamp, final long receiveEnqueueTime) {
 		// stats
 		final long receiveTime = System.currentTimeMillis();
 		if (receiveEnqueueTime > 0) {
@@ -343,26 +413,16 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 			lastOnMessageFinishTime_ = -1;
 		}
 
-		final ObjectMessage om = (ObjectMessage) message;
 		try {
-			// unpack
-			final JMSWrapper jmsWrapper = (JMSWrapper) om.getObject();
 			final Integer nodeId = jmsWrapper.getNodeId();
 			final MultiUserEvent event = jmsWrapper.getMultiUserEvent();
 			final OLATResourceable ores = jmsWrapper.getOres();
 			final boolean fromSameNode = clusterConfig.getNodeId().equals(nodeId);
 
-			// update nodeinfo statistics
-			final NodeInfo nodeInfo = getNodeInfoFor(nodeId);
-			if (!nodeInfo.update(jmsWrapper)) {
-				log.warn("onMessage: update failed. clustereventbus: " + this);
-			}
-
 			final String recMsg = "received msg: " + (fromSameNode ? "[same node]" : "") + " from node:" + nodeId + ", olat-id:" + jmsWrapper.getMsgId() + ", ores:"
 					+ ores.getResourceableTypeName() + ":" + ores.getResourceableId() + ", event:" + event + "}";
 
 			// stats
-			final long jmsTimestamp = om.getJMSTimestamp();
 			if (jmsTimestamp != 0) {
 				final long deliveryTime = receiveTime - jmsTimestamp;
 				if (deliveryTime > 1500) {
@@ -394,16 +454,11 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 			}
 			mrtgProbeJMSProcessingTime_.addMeasurement(processingTime);
 		} catch (final Error er) {
-			log.error("Uncaught Error in ClusterEventBus.onMessage!", er);
+			log.error("Uncaught Error in ClusterEventBus.serveMessage!", er);
 			throw er;
 		} catch (final RuntimeException re) {
-			log.error("Uncaught RuntimeException in ClusterEventBus.onMessage!", re);
+			log.error("Uncaught RuntimeException in ClusterEventBus.serveMessage!", re);
 			throw re;
-		} catch (final JMSException e) {
-			log.warn("JMSException in ClusterEventBus.onMessage", e);
-			throw new OLATRuntimeException("error when receiving jms messages", e);
-		} catch (final Throwable th) {
-			log.error("Uncaught Throwable in ClusterEventBus.onMessage!", th);
 		} finally {
 			lastOnMessageFinishTime_ = System.currentTimeMillis();
 		}
@@ -445,6 +500,24 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 		return latestSentMsgId;
 	}
 
+	/**
+	 * [used by spring to auto export mbean data]
+	 * 
+	 * @return the number of received events waiting to be served
+	 */
+	public int getIncomingQueueDepth() {
+		return dispatcher.getQueueDepth();
+	}
+
+	/**
+	 * [used by spring to auto export mbean data]
+	 * 
+	 * @return the number of received events dropped because of a full dispatch queue
+	 */
+	public long getNumOfDroppedMessages() {
+		return dispatcher.getDroppedCount();
+	}
+
 	/**
 	 * [used by jmx] cluster:::: to be improved: this is just a quick solution to output all data from all nodes
 	 * 
@@ -493,6 +566,7 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 	void resetStats() {
 		msgsSentCount = 0;
 		msgsReceivedCount = 0;
+		dispatcher.resetStats();
 	}
 
 	private void addToSentScreen(final String msg) {
@@ -539,13 +613,28 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 	public void stop() {
 		log.info("ClusterEventBus: Set stop flag for ClusterInfoEvent-Thread.");
 		isClusterInfoEventThreadRunning = false;
+		if (batchPublisher != null) {
+			// let the publisher send the pending events before the session is closed
+			batchPublisher.stop();
+			try {
+				batchPublisherThread.join(5000);
+			} catch (final InterruptedException e) {
+				// ignore
+			}
+		}
+		// each resource is closed even if closing the one before failed
 		try {
-			session.close();
-			connection.close();
-			log.info("ClusterEventBus stopped");
+			try {
+				session.close();
+			} finally {
+				connection.close();
+			}
 		} catch (final JMSException e) {
-			log.warn("Exception in stop ClusteredSearchProvider, ", e);
+			log.warn("Exception in stop ClusterEventBus, ", e);
+		} finally {
+			dispatcher.stop();
 		}
+		log.info("ClusterEventBus stopped");
 	}
 
 	/**
@@ -562,6 +651,46 @@ public class ClusterEventBus extends AbstractEventBus implements MessageListener
 		this.jmsMsgDelayLimit = jmsMsgDelayLimit;
 	}
 
+	/**
+	 * [used by spring] number of threads serving the incoming events
+	 */
+	public void setDispatchWorkers(final int dispatchWorkers) {
+		this.dispatchWorkers = dispatchWorkers;
+	}
+
+	/**
+	 * [used by spring] max number of incoming events waiting per dispatch worker
+	 */
+	public void setDispatchQueueSize(final int dispatchQueueSize) {
+		this.dispatchQueueSize = dispatchQueueSize;
+	}
+
+	/**
+	 * [used by spring] what to do with an incoming event when the queue of its dispatch worker is full: BLOCK (default) lets the JMS thread wait, DISCARD drops the
+	 * event
+	 */
+	public void setOverflowPolicy(final String overflowPolicy) {
+		this.overflowPolicy = ClusterEventDispatcher.OverflowPolicy.valueOf(overflowPolicy);
+	}
+
+	ClusterEventDispatcher getDispatcher() {
+		return dispatcher;
+	}
+
+	/**
+	 * [used by spring] max time in ms an outgoing event waits to be sent together with other events. 0 (default) sends every event in its own message.
+	 */
+	public void setBatchWindow(final long batchWindow) {
+		this.batchWindow = batchWindow;
+	}
+
+	/**
+	 * [used by spring] max number of events sent in one batch message
+	 */
+	public void setMaxBatchSize(final int maxBatchSize) {
+		this.maxBatchSize = maxBatchSize;
+	}
+
 	/**
 	 * [used by spring]
 	 */
@@ -0,0 +1,199 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) since 2004 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+package org.olat.commons.coordinate.cluster.jms;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+import org.olat.core.logging.activity.ThreadLocalUserActivityLoggerInstaller;
+
+/**
+ * Description:<br>
+ * inbound pipeline of the cluster event bus. the received events are distributed over a fixed number of dispatch workers, each one owning a bounded queue. the worker
+ * is chosen by the ordering key (the resourceable of the event), so all events of one resource are served in the order they were received by one worker, while
+ * events of different resources are served in parallel and a slow listener only delays the resources sharing its worker.
+ * <p>
+ * when the queue of a worker is full, the overflow policy decides: BLOCK lets the JMS thread wait (the former behaviour), DISCARD drops the event and counts it.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+class ClusterEventDispatcher {
+	private static final OLog log = Tracing.createLoggerFor(ClusterEventDispatcher.class);
+
+	enum OverflowPolicy {
+		BLOCK, DISCARD
+	}
+
+	private final OverflowPolicy overflowPolicy;
+	private final int queueSize;
+	private final Worker[] workers;
+
+	private final AtomicLong dispatchedCount = new AtomicLong();
+	private final AtomicLong droppedCount = new AtomicLong();
+	private volatile int maxQueueDepth = 0;
+
+	/**
+	 * @param numOfWorkers the number of dispatch threads
+	 * @param queueSize the capacity of the queue of each worker
+	 * @param overflowPolicy
+	 */
+	ClusterEventDispatcher(final int numOfWorkers, final int queueSize, final OverflowPolicy overflowPolicy) {
+		this.overflowPolicy = overflowPolicy;
+		this.queueSize = queueSize;
+		workers = new Worker[numOfWorkers];
+		for (int i = 0; i < numOfWorkers; i++) {
+			workers[i] = new Worker(i, new ArrayBlockingQueue<Runnable>(queueSize));
+		}
+	}
+
+	void start() {
+		for (final Worker worker : workers) {
+			worker.setDaemon(true);
+			worker.start();
+		}
+	}
+
+	void stop() {
+		for (final Worker worker : workers) {
+			worker.running = false;
+			worker.interrupt();
+		}
+	}
+
+	/**
+	 * @param orderingKey tasks with equal keys are run one after the other in dispatch order
+	 * @param task
+	 * @return false if the task was dropped because of the overflow policy
+	 */
+	boolean dispatch(final Object orderingKey, final Runnable task) {
+		final Worker worker = workers[(orderingKey.hashCode() & 0x7fffffff) % workers.length];
+		final BlockingQueue<Runnable> queue = worker.queue;
+		if (overflowPolicy == OverflowPolicy.DISCARD) {
+			if (!queue.offer(task)) {
+				final long dropped = droppedCount.incrementAndGet();
+				if (dropped == 1 || dropped % 1000 == 0) {
+					log.warn("cluster event dispatch queue of worker " + worker.getName() + " is full, dropped " + dropped + " events so far");
+				}
+				return false;
+			}
+		} else {
+			boolean queued = false;
+			while (!queued) {
+				try {
+					queue.put(task);
+					queued = true;
+				} catch (final InterruptedException e) {
+					// this empty catch is okay
+				}
+			}
+		}
+		dispatchedCount.incrementAndGet();
+		final int depth = queue.size();
+		if (depth > maxQueueDepth) {
+			maxQueueDepth = depth;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the number of events waiting in all queues
+	 */
+	int getQueueDepth() {
+		int depth = 0;
+		for (final Worker worker : workers) {
+			depth += worker.queue.size();
+		}
+		return depth;
+	}
+
+	/**
+	 * @return the number of events waiting per worker
+	 */
+	int[] getWorkerQueueDepths() {
+		final int[] depths = new int[workers.length];
+		for (int i = 0; i < workers.length; i++) {
+			depths[i] = workers[i].queue.size();
+		}
+		return depths;
+	}
+
+	/**
+	 * @return the highest depth a single worker queue reached since startup or the last reset
+	 */
+	int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	long getDispatchedCount() {
+		return dispatchedCount.get();
+	}
+
+	long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	int getNumOfWorkers() {
+		return workers.length;
+	}
+
+	int getQueueSize() {
+		return queueSize;
+	}
+
+	OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	void resetStats() {
+		maxQueueDepth = 0;
+	}
+
+	private static class Worker extends Thread {
+		private final BlockingQueue<Runnable> queue;
+		private volatile boolean running = true;
+
+		Worker(final int index, final BlockingQueue<Runnable> queue) {
+			super("ClusterEventBus-Dispatcher-" + index);
+			this.queue = queue;
+		}
+
+		@Override
+		public void run() {
+			ThreadLocalUserActivityLoggerInstaller.initEmptyUserActivityLogger();
+			while (running) {
+				try {
+					queue.take().run();
+				} catch (final InterruptedException e) {
+					// stop() or spurious, the running flag decides
+				} catch (final RuntimeException re) {
+					Tracing.logError("RuntimeException enountered by dispatch worker:", re, ClusterEventDispatcher.class);
+					// continue
+				} catch (final Error er) {
+					Tracing.logError("Error enountered by dispatch worker:", er, ClusterEventDispatcher.class);
+					// continue
+				}
+			}
+		}
+	}
+}
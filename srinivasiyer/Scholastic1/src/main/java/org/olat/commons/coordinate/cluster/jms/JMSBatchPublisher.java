@@ -0,0 +1,222 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) since 2004 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+package org.olat.commons.coordinate.cluster.jms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.olat.core.id.OLATResourceable;
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.cache.n.impl.cluster.ClusterCacheWrapperEvent;
+import org.olat.core.util.event.MultiUserEvent;
+
+/**
+ * Description:<br>
+ * outbound pipeline of the cluster event bus. events are collected for at most batchWindow milliseconds or until maxBatchSize events are pending and then handed to
+ * the sender as one batch by a single flush thread, so that the JMS session is no longer shared between the request threads.
+ * <p>
+ * cache invalidation events for the same resource, cache and keys which are still pending are coalesced: the earlier one is dropped and the latest one keeps its place
+ * in the sending order. all other events are sent unchanged and in the order they were fired.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+class JMSBatchPublisher implements Runnable {
+	private static final OLog log = Tracing.createLoggerFor(JMSBatchPublisher.class);
+
+	/**
+	 * receives the batches, called by the flush thread only
+	 */
+	interface BatchSender {
+		/**
+		 * @param batch the events in sending order
+		 * @param savedMessages the number of JMS messages saved by this batch compared to sending every fired event on its own
+		 * @throws Exception
+		 */
+		void sendBatch(List<PendingEvent> batch, int savedMessages) throws Exception;
+	}
+
+	private final BatchSender sender;
+	private final long batchWindow;
+	private final int maxBatchSize;
+	private final int maxPendingEvents;
+
+	private final Object lock = new Object();
+	// insertion ordered; coalescable events are keyed by their content, all others by a unique key
+	private final LinkedHashMap<Object, PendingEvent> pending = new LinkedHashMap<Object, PendingEvent>();
+	private int coalescedCount = 0;
+	private long firstPendingTime = -1;
+	private volatile boolean running = true;
+
+	/**
+	 * @param sender
+	 * @param batchWindow max time in ms an event waits for further events
+	 * @param maxBatchSize max number of events per batch
+	 */
+	JMSBatchPublisher(final BatchSender sender, final long batchWindow, final int maxBatchSize) {
+		this.sender = sender;
+		this.batchWindow = batchWindow;
+		this.maxBatchSize = maxBatchSize;
+		// callers are slowed down if the flush thread cannot keep up (e.g. JMS broker down)
+		this.maxPendingEvents = maxBatchSize * 20;
+	}
+
+	/**
+	 * queues an event for sending. blocks only if the pending events exceed the limit.
+	 * 
+	 * @param ores
+	 * @param event
+	 */
+	void enqueue(final OLATResourceable ores, final MultiUserEvent event) {
+		Object key = coalesceKeyFor(ores, event);
+		synchronized (lock) {
+			while (running && pending.size() >= maxPendingEvents) {
+				try {
+					lock.wait();
+				} catch (final InterruptedException e) {
+					// ignore
+				}
+			}
+			if (key == null) {
+				key = new Object();
+			} else if (pending.remove(key) != null) {
+				coalescedCount++;
+			}
+			pending.put(key, new PendingEvent(ores, event));
+			if (firstPendingTime == -1) {
+				firstPendingTime = System.currentTimeMillis();
+				lock.notifyAll();
+			} else if (pending.size() >= maxBatchSize) {
+				lock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * @return the key under which equal invalidation events are coalesced or null if the event must not be coalesced
+	 */
+	private Object coalesceKeyFor(final OLATResourceable ores, final MultiUserEvent event) {
+		if (!(event instanceof ClusterCacheWrapperEvent)) { return null; }
+		final ClusterCacheWrapperEvent ccwe = (ClusterCacheWrapperEvent) event;
+		return Arrays.asList(ores.getResourceableTypeName(), ores.getResourceableId(), ccwe.getCacheName(), Arrays.asList(ccwe.getKeys()));
+	}
+
+	/**
+	 * the flush loop, run by one thread
+	 */
+	@Override
+	public void run() {
+		while (running) {
+			try {
+				flush(false);
+			} catch (final RuntimeException re) {
+				log.error("RuntimeException encountered by cluster event batch publisher:", re);
+			}
+		}
+		// send whatever was fired before stopping
+		flush(true);
+	}
+
+	private void flush(final boolean immediately) {
+		final List<PendingEvent> batch;
+		final int saved;
+		synchronized (lock) {
+			if (!immediately) {
+				while (running && pending.isEmpty()) {
+					waitOnLock(0);
+				}
+				long remaining = firstPendingTime + batchWindow - System.currentTimeMillis();
+				while (running && pending.size() < maxBatchSize && remaining > 0) {
+					waitOnLock(remaining);
+					remaining = firstPendingTime + batchWindow - System.currentTimeMillis();
+				}
+			}
+			if (pending.isEmpty()) { return; }
+			batch = new ArrayList<PendingEvent>(Math.min(pending.size(), maxBatchSize));
+			for (final Iterator<Map.Entry<Object, PendingEvent>> it = pending.entrySet().iterator(); it.hasNext() && batch.size() < maxBatchSize;) {
+				batch.add(it.next().getValue());
+				it.remove();
+			}
+			saved = batch.size() - 1 + coalescedCount;
+			coalescedCount = 0;
+			firstPendingTime = pending.isEmpty() ? -1 : System.currentTimeMillis();
+			lock.notifyAll();
+		}
+		try {
+			sender.sendBatch(batch, saved);
+		} catch (final Exception e) {
+			// the request threads have already returned, so the best we can do is to log loudly
+			log.error("communication error with JMS - could not send a batch of " + batch.size() + " cluster events", e);
+		}
+	}
+
+	private void waitOnLock(final long timeout) {
+		try {
+			lock.wait(timeout);
+		} catch (final InterruptedException e) {
+			// ignore
+		}
+	}
+
+	/**
+	 * stops the flush loop after the pending events have been sent
+	 */
+	void stop() {
+		running = false;
+		synchronized (lock) {
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * @return the number of events waiting to be sent
+	 */
+	int getPendingCount() {
+		synchronized (lock) {
+			return pending.size();
+		}
+	}
+
+	/**
+	 * an event with its channel as fired by a client of the event bus
+	 */
+	static class PendingEvent {
+		private final OLATResourceable ores;
+		private final MultiUserEvent event;
+
+		PendingEvent(final OLATResourceable ores, final MultiUserEvent event) {
+			this.ores = ores;
+			this.event = event;
+		}
+
+		OLATResourceable getOres() {
+			return ores;
+		}
+
+		MultiUserEvent getEvent() {
+			return event;
+		}
+	}
+}
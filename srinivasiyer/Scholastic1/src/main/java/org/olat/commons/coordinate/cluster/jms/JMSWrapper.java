@@ -53,6 +53,17 @@ public class JMSWrapper implements Serializable {
 		resType = ores.getResourceableTypeName();
 	}
 
+	/**
+	 * used when unpacking a batch message, see JMSBatchCodec
+	 */
+	JMSWrapper(final Integer nodeId, final long msgId, final String resType, final Long resId, final MultiUserEvent event) {
+		this.event = event;
+		this.msgId = msgId;
+		this.nodeId = nodeId;
+		this.resId = resId;
+		this.resType = resType;
+	}
+
 	public OLATResourceable getOres() {
 		return new OLATResourceable() {
 
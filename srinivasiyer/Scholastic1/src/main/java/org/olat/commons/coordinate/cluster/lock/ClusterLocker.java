@@ -21,7 +21,15 @@
 package org.olat.commons.coordinate.cluster.lock;
 
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.olat.core.commons.persistence.DBFactory;
 import org.olat.core.gui.control.Event;
@@ -31,6 +39,7 @@ import org.olat.core.logging.AssertException;
 import org.olat.core.logging.DBRuntimeException;
 import org.olat.core.logging.OLog;
 import org.olat.core.logging.Tracing;
+import org.olat.core.logging.activity.ThreadLocalUserActivityLoggerInstaller;
 import org.olat.core.util.SignOnOffEvent;
 import org.olat.core.util.UserSession;
 import org.olat.core.util.coordinate.LockEntry;
@@ -49,6 +58,12 @@ import org.olat.resource.lock.pessimistic.PessimisticLockManager;
  * Description:<br>
  * the cluster implementation for the Locker. It uses a database table oc_lock to perform the locking.
  * <P>
+ * If a lease time is configured, each lock row carries the node which holds it and the time until which that node has renewed its lease. The locks this node holds
+ * are kept in a node-local table as well, so that checking and re-acquiring them is answered from memory. Only real contention (a lock unknown to this node) goes to
+ * the database. A heartbeat renews the leases of all locks of this node with one update and drops the local entries whose rows are gone; other nodes announce released
+ * locks with a LockReleasedEvent. A lock whose lease has expired belongs to a node which is gone and is taken over by the next acquirer. The lease expiry is written
+ * and checked with the time of the database, the clocks of the nodes may differ.
+ * <P>
  * Initial Date: 21.09.2007 <br>
  * 
  * @author Felix Jost, http://www.goodsolutions.ch
@@ -59,10 +74,20 @@ public abstract class ClusterLocker implements Locker, GenericEventListener {
 	protected OLog log = Tracing.createLoggerFor(this.getClass());
 	PersistentLockManager plm = null;
 
+	// the class name is too long for a resourceable type
+	static final OLATResourceable LOCK_EVENTS_ORES = OresHelper.createOLATResourceableType("ClusterLocker");
+
 	private Syncer syncer;
 	private EventBus eventBus;
 	private final ClusterLockManager clusterLockManager;
 
+	private String nodeId;
+	private long leaseMillis = 0;
+	private final LockLeases leases = new LockLeases();
+	private ScheduledExecutorService heartbeat;
+	private final AtomicLong fastPathCount = new AtomicLong();
+	private final AtomicLong databaseCount = new AtomicLong();
+
 	/**
 	 * [used by spring]
 	 */
@@ -77,6 +102,21 @@ public abstract class ClusterLocker implements Locker, GenericEventListener {
 		// called by spring.
 		// register for sign-off event in order to release all locks for that user
 		eventBus.registerFor(this, null, OresHelper.createOLATResourceableType(UserSession.class));
+		if (isLeasing()) {
+			eventBus.registerFor(this, null, LOCK_EVENTS_ORES);
+			startHeartbeat();
+		}
+	}
+
+	/**
+	 * [used by spring]
+	 */
+	public void destroy() {
+		if (heartbeat != null) {
+			heartbeat.shutdownNow();
+			heartbeat = null;
+		}
+		leases.clear();
 	}
 
 	// cluster:::::: on init of olat system, clear all locks?? but only the one from node in question?
@@ -85,16 +125,33 @@ public abstract class ClusterLocker implements Locker, GenericEventListener {
 	public LockResult acquireLock(final OLATResourceable ores, final Identity requestor, final String locksubkey) {
 		final String asset = OresHelper.createStringRepresenting(ores, locksubkey);
 
+		if (isLeasing()) {
+			// fast path: this node holds the lock, nobody else can have it as long as the lease is valid
+			final LockEntry leased = leases.get(asset, currentTimeMillis());
+			if (leased != null) {
+				fastPathCount.incrementAndGet();
+				return new LockResultImpl(requestor.getName().equals(leased.getOwner().getName()), leased);
+			}
+		}
+
+		databaseCount.incrementAndGet();
+		final LockResultImpl[] leasedResult = new LockResultImpl[1];
 		final LockResult res = syncer.doInSync(ores, new SyncerCallback<LockResult>() {
 			@Override
 			public LockResult execute() {
 				LockResultImpl lres;
-				LockImpl li = clusterLockManager.findLock(asset);
+				LockImpl li = findLock(asset);
+				if (li != null && isLeasing() && !nodeId.equals(li.getNodeId()) && isLeaseExpired(li)) {
+					// the node holding the lock has stopped renewing its lease, so it is gone and the lock with it
+					log.info("taking over lock with expired lease: " + li);
+					deleteLock(li);
+					li = null;
+				}
 				if (li == null) { // fine, we can lock it
-					li = clusterLockManager.createLockImpl(asset, requestor);
-					clusterLockManager.saveLock(li);
+					li = createLock(asset, requestor);
 					final LockEntry le = new LockEntry(li.getAsset(), li.getCreationDate().getTime(), li.getOwner());
 					lres = new LockResultImpl(true, le);
+					leasedResult[0] = lres;
 				} else {
 					// already locked by a user.
 					// if that user is us, we can reacquire it
@@ -105,31 +162,52 @@ public abstract class ClusterLocker implements Locker, GenericEventListener {
 					} else {
 						lres = new LockResultImpl(false, le);
 					}
+					if (isLeasing() && nodeId.equals(li.getNodeId()) && !isLeaseExpired(li)) {
+						// ours, but not in the local table (anymore)
+						leasedResult[0] = lres;
+					}
 				}
 				return lres;
 			}
 		});
 
+		// doInSync has committed the lock row, only now other threads of this node may see the lease
+		if (leasedResult[0] != null && isLeasing()) {
+			leases.put(leasedResult[0].getLockEntry(), localLeaseValidUntil(currentTimeMillis()));
+		}
 		return res;
 	}
 
 	/**
-	 * receives all sign on / sign off events so it can release locks of users which have or are logged off
+	 * receives all sign on / sign off events so it can release locks of users which have or are logged off. Receives the LockReleasedEvents of the other nodes to drop
+	 * the leases of locks they have released.
 	 * 
 	 * @see org.olat.core.util.event.GenericEventListener#event(org.olat.core.gui.control.Event)
 	 */
 	@Override
 	public void event(final Event event) {
+		if (event instanceof LockReleasedEvent) {
+			final LockReleasedEvent lre = (LockReleasedEvent) event;
+			if (!lre.getNodeId().equals(nodeId)) {
+				if (lre.getAsset() != null) {
+					leases.remove(lre.getAsset());
+				} else {
+					leases.removeAllOf(lre.getIdentityName());
+				}
+			}
+			return;
+		}
 		final SignOnOffEvent se = (SignOnOffEvent) event;
 		if (!se.isSignOn() && se.isEventOnThisNode()) {
 			// it is a "logout" event - we are only interested in logout events
 			// and it is from our VM => only release all locks from within one VM
 			final String identName = se.getIdentityName();
+			leases.removeAllOf(identName);
 			// release all locks held by the identity that has just logged out.
 			// (assuming one user has only one session (logged in with one browser only): otherwise (as in singlevm, too)
 			// since the lock is reentrant, a lock could be freed while a session still is in a locked workflow (2x lock and then once freed)
 			try {
-				clusterLockManager.releaseAllLocksFor(identName);
+				releaseAllLocksFor(identName);
 			} catch (final DBRuntimeException dbEx) {
 				log.warn("releaseAllLocksFor failed, close session and try it again for identName=" + identName);
 				// TODO: 2010-04-23 Transactions [eglis]: OLAT-4318: this rollback has possibly unwanted
@@ -138,17 +216,28 @@ public abstract class ClusterLocker implements Locker, GenericEventListener {
 				DBFactory.getInstance().rollbackAndCloseSession();
 				// try again with new db-session
 				log.info("try again to release all locks for identName=" + identName);
-				clusterLockManager.releaseAllLocksFor(identName);
+				releaseAllLocksFor(identName);
 				log.info("Done, released all locks for identName=" + identName);
 			}
+			if (isLeasing()) {
+				// the locks may have been acquired on other nodes
+				eventBus.fireEventToListenersOf(LockReleasedEvent.forIdentity(nodeId, identName), LOCK_EVENTS_ORES);
+			}
 		}
 	}
 
 	@Override
 	public boolean isLocked(final OLATResourceable ores, final String locksubkey) {
 		final String asset = OresHelper.createStringRepresenting(ores, locksubkey);
-		final LockImpl li = clusterLockManager.findLock(asset);
-		return (li != null);
+		final long now = currentTimeMillis();
+		if (isLeasing() && leases.get(asset, now) != null) {
+			fastPathCount.incrementAndGet();
+			return true;
+		}
+		databaseCount.incrementAndGet();
+		final LockImpl li = findLock(asset);
+		// a lock with an expired lease of another node is free, see acquireLock
+		return (li != null && !(isLeasing() && !nodeId.equals(li.getNodeId()) && isLeaseExpired(li)));
 	}
 
 	@Override
@@ -169,10 +258,13 @@ public abstract class ClusterLocker implements Locker, GenericEventListener {
 		final String asset = lockEntry.getKey();
 		final Identity releaseRequestor = lockEntry.getOwner();
 
+		// no more answers from memory for this asset, whatever the outcome of the release is
+		leases.remove(asset);
+
 		// cluster:: change to useage with syncer, but we don't have the olatresourceable yet
-		PessimisticLockManager.getInstance().findOrPersistPLock(asset);
+		lockAsset(asset);
 
-		final LockImpl li = clusterLockManager.findLock(asset);
+		final LockImpl li = findLock(asset);
 		if (li == null) {
 			// do nothing - since this lock may have been one that was cleared when restarting the vm
 		} else {
@@ -180,7 +272,13 @@ public abstract class ClusterLocker implements Locker, GenericEventListener {
 			final Identity ownwer = li.getOwner();
 			if (releaseRequestor.getName().equals(ownwer.getName())) {
 				// delete the lock
-				clusterLockManager.deleteLock(li);
+				deleteLock(li);
+				// again, a concurrent re-acquisition on this node may have put the lease back in the meantime
+				leases.remove(asset);
+				if (isLeasing() && !nodeId.equals(li.getNodeId())) {
+					// released on behalf of the node holding the lease (e.g. by the admin)
+					eventBus.fireEventToListenersOf(LockReleasedEvent.forAsset(nodeId, asset), LOCK_EVENTS_ORES);
+				}
 			} else {
 				throw new AssertException("cannot release lock since the requestor of the release (" + releaseRequestor.getName() + ") is not the owner ("
 						+ ownwer.getName() + ") of the lock (" + asset + ")");
@@ -190,7 +288,7 @@ public abstract class ClusterLocker implements Locker, GenericEventListener {
 
 	@Override
 	public List<LockEntry> adminOnlyGetLockEntries() {
-		final List<LockImpl> li = clusterLockManager.getAllLocks();
+		final List<LockImpl> li = getAllLocks();
 		final List<LockEntry> res = new ArrayList<LockEntry>(li.size());
 		for (final LockImpl impl : li) {
 			res.add(new LockEntry(impl.getAsset(), impl.getCreationDate().getTime(), impl.getOwner()));
@@ -220,6 +318,157 @@ public abstract class ClusterLocker implements Locker, GenericEventListener {
 		getPersistentLockManager().releasePersistentLock(lockResult);
 	}
 
+	/**
+	 * Renews the leases of all locks of this node in the database and in the local table. Locks whose rows have been deleted meanwhile are dropped from the local
+	 * table. Must be called within a db session, which the caller commits.
+	 */
+	void renewLeases() {
+		final long now = currentTimeMillis();
+		// no time means no lock rows at all, hence nothing to renew
+		final Date databaseNow = databaseTime();
+		final int renewed = databaseNow == null ? 0 : renewLeasesInDB(nodeId, new Date(databaseNow.getTime() + leaseMillis));
+		final Set<String> assetsInDB = new HashSet<String>(findLeasedAssets(nodeId));
+		final int dropped = leases.renew(assetsInDB, localLeaseValidUntil(now));
+		if (log.isDebug()) {
+			log.debug("renewed " + renewed + " lock leases of node " + nodeId + ", dropped " + dropped + " local leases, " + leases.size() + " local leases left");
+		}
+	}
+
+	void startHeartbeat() {
+		heartbeat = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable r) {
+				final Thread t = new Thread(r, "ClusterLockerHeartbeat");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		// renew three times per lease, so that one or two missed heartbeats do not cost the leases
+		final long interval = Math.max(1, leaseMillis / 3);
+		heartbeat.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				ThreadLocalUserActivityLoggerInstaller.initEmptyUserActivityLogger();
+				try {
+					renewLeases();
+					DBFactory.getInstance(false).commitAndCloseSession();
+				} catch (final RuntimeException e) {
+					// without renewal the local leases run out, and the locker falls back to the database
+					log.warn("could not renew the lock leases of node " + nodeId, e);
+					try {
+						DBFactory.getInstance(false).rollbackAndCloseSession();
+					} catch (final RuntimeException e2) {
+						log.warn("rollback after failed lease renewal failed", e2);
+					}
+				} finally {
+					ThreadLocalUserActivityLoggerInstaller.resetUserActivityLogger();
+				}
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * the local table hands out a lease for half the lease time only: the database row stays valid for the other nodes a good while longer, even with a missed
+	 * heartbeat. The local lease is measured with the clock of this node, only the duration counts.
+	 */
+	private long localLeaseValidUntil(final long renewedAt) {
+		return renewedAt + leaseMillis / 2;
+	}
+
+	private boolean isLeasing() {
+		return leaseMillis > 0;
+	}
+
+	/**
+	 * @param li
+	 * @return true if the lease of the lock has expired according to the time of the database
+	 */
+	private boolean isLeaseExpired(final LockImpl li) {
+		if (li.getLeaseExpires() == null) { return false; }
+		final Date databaseNow = databaseTime();
+		return databaseNow != null && li.isLeaseExpired(databaseNow.getTime());
+	}
+
+	private LockImpl createLock(final String asset, final Identity owner) {
+		final LockImpl li = newLock(asset, owner);
+		if (isLeasing()) {
+			li.setNodeId(nodeId);
+		}
+		saveLock(li);
+		if (isLeasing()) {
+			// the row just saved is there to ask the database for its time, the change is written with the commit of the sync
+			li.setLeaseExpires(new Date(databaseTime().getTime() + leaseMillis));
+		}
+		return li;
+	}
+
+	// the database access of the locker, overridden by the tests to simulate several nodes
+
+	LockImpl newLock(final String asset, final Identity owner) {
+		return clusterLockManager.createLockImpl(asset, owner);
+	}
+
+	void saveLock(final LockImpl li) {
+		clusterLockManager.saveLock(li);
+	}
+
+	LockImpl findLock(final String asset) {
+		return clusterLockManager.findLock(asset);
+	}
+
+	void deleteLock(final LockImpl li) {
+		clusterLockManager.deleteLock(li);
+	}
+
+	List<LockImpl> getAllLocks() {
+		return clusterLockManager.getAllLocks();
+	}
+
+	void releaseAllLocksFor(final String identName) {
+		clusterLockManager.releaseAllLocksFor(identName);
+	}
+
+	int renewLeasesInDB(final String leaseNodeId, final Date leaseExpires) {
+		return clusterLockManager.renewLeases(leaseNodeId, leaseExpires);
+	}
+
+	List<String> findLeasedAssets(final String leaseNodeId) {
+		return clusterLockManager.findLeasedAssets(leaseNodeId);
+	}
+
+	void lockAsset(final String asset) {
+		PessimisticLockManager.getInstance().findOrPersistPLock(asset);
+	}
+
+	long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	Date databaseTime() {
+		return clusterLockManager.getDatabaseTime();
+	}
+
+	/**
+	 * @return the number of lock checks and acquisitions answered from the local lease table
+	 */
+	public long getFastPathCount() {
+		return fastPathCount.get();
+	}
+
+	/**
+	 * @return the number of lock checks and acquisitions which went to the database
+	 */
+	public long getDatabaseCount() {
+		return databaseCount.get();
+	}
+
+	/**
+	 * @return the number of locks of this node in the local lease table
+	 */
+	public int getLocalLeaseCount() {
+		return leases.size();
+	}
+
 	/**
 	 * [used by spring]
 	 * 
@@ -236,4 +485,23 @@ public abstract class ClusterLocker implements Locker, GenericEventListener {
 		this.eventBus = eventBus;
 	}
 
+	/**
+	 * [used by spring]
+	 * 
+	 * @param nodeId the cluster-wide unique id of this node
+	 */
+	public void setNodeId(final String nodeId) {
+		this.nodeId = nodeId;
+	}
+
+	/**
+	 * [used by spring]
+	 * 
+	 * @param leaseMillis how long a lock of this node stays valid without a renewal by the heartbeat. 0 disables the lease and the node-local lock table: every lock
+	 *            check goes to the database.
+	 */
+	public void setLeaseMillis(final long leaseMillis) {
+		this.leaseMillis = leaseMillis;
+	}
+
 }
@@ -0,0 +1,120 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+package org.olat.commons.coordinate.cluster.lock;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.olat.core.util.coordinate.LockEntry;
+
+/**
+ * Description:<br>
+ * The node-local table of the locks this node has acquired and holds the lease for. An entry is only handed out while its lease is valid, that is until the
+ * heartbeat of the ClusterLocker has not renewed it in time. After that the entry is ignored and the locker asks the database again.
+ * <P>
+ * The table is read without locking by the request threads; entries are only added after their database row has been committed.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+class LockLeases {
+
+	private final Map<String, Lease> leases = new ConcurrentHashMap<String, Lease>();
+
+	/**
+	 * @param asset
+	 * @param now
+	 * @return the lock entry if this node holds a valid lease for the asset, null otherwise
+	 */
+	LockEntry get(final String asset, final long now) {
+		final Lease lease = leases.get(asset);
+		if (lease == null) { return null; }
+		if (lease.validUntil < now) {
+			// not renewed in time, the database may already consider the lock of this node as stale
+			leases.remove(asset, lease);
+			return null;
+		}
+		return lease.entry;
+	}
+
+	void put(final LockEntry entry, final long validUntil) {
+		leases.put(entry.getKey(), new Lease(entry, validUntil));
+	}
+
+	void remove(final String asset) {
+		leases.remove(asset);
+	}
+
+	/**
+	 * @param identityName
+	 * @return the number of removed leases
+	 */
+	int removeAllOf(final String identityName) {
+		int count = 0;
+		for (final Iterator<Lease> it = leases.values().iterator(); it.hasNext();) {
+			if (it.next().entry.getOwner().getName().equals(identityName)) {
+				it.remove();
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Extends the leases whose database rows still exist and drops all others, e.g. the ones released by another node whose event got lost.
+	 * 
+	 * @param assetsInDB the assets of the rows this node holds in the database
+	 * @param validUntil
+	 * @return the number of dropped leases
+	 */
+	int renew(final Collection<String> assetsInDB, final long validUntil) {
+		int dropped = 0;
+		for (final Iterator<Lease> it = leases.values().iterator(); it.hasNext();) {
+			final Lease lease = it.next();
+			if (assetsInDB.contains(lease.entry.getKey())) {
+				lease.validUntil = validUntil;
+			} else {
+				it.remove();
+				dropped++;
+			}
+		}
+		return dropped;
+	}
+
+	void clear() {
+		leases.clear();
+	}
+
+	int size() {
+		return leases.size();
+	}
+
+	private static class Lease {
+		private final LockEntry entry;
+		private volatile long validUntil;
+
+		Lease(final LockEntry entry, final long validUntil) {
+			this.entry = entry;
+			this.validUntil = validUntil;
+		}
+	}
+}
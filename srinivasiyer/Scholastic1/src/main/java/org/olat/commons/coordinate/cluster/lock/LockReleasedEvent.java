@@ -0,0 +1,80 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+package org.olat.commons.coordinate.cluster.lock;
+
+import org.olat.core.util.event.MultiUserEvent;
+
+/**
+ * Description:<br>
+ * Sent by a ClusterLocker to the other nodes when it has deleted lock rows, so that a node holding the lease of such a lock drops it from its local table at once and
+ * does not wait for its next heartbeat. Either a single asset or all locks of an identity are released.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class LockReleasedEvent extends MultiUserEvent {
+
+	private static final long serialVersionUID = -3857294119603572201L;
+
+	private final String nodeId;
+	private final String asset;
+	private final String identityName;
+
+	private LockReleasedEvent(final String nodeId, final String asset, final String identityName) {
+		super("lockreleased");
+		this.nodeId = nodeId;
+		this.asset = asset;
+		this.identityName = identityName;
+	}
+
+	static LockReleasedEvent forAsset(final String nodeId, final String asset) {
+		return new LockReleasedEvent(nodeId, asset, null);
+	}
+
+	static LockReleasedEvent forIdentity(final String nodeId, final String identityName) {
+		return new LockReleasedEvent(nodeId, null, identityName);
+	}
+
+	/**
+	 * @return the id of the node which released the lock(s)
+	 */
+	public String getNodeId() {
+		return nodeId;
+	}
+
+	/**
+	 * @return the released asset or null if all locks of an identity have been released
+	 */
+	public String getAsset() {
+		return asset;
+	}
+
+	/**
+	 * @return the identity whose locks have all been released or null if a single asset has been released
+	 */
+	public String getIdentityName() {
+		return identityName;
+	}
+
+	@Override
+	public String toString() {
+		return "LockReleasedEvent[node=" + nodeId + ",asset=" + asset + ",identity=" + identityName + "]";
+	}
+}
@@ -68,6 +68,9 @@ public class AbstractOlatDocument implements Serializable {
 
 	public static final String RESERVED_TO = "reservedto";
 
+	/** Key of the business group a group document belongs to, lets the search skip the groups of other users without an access check **/
+	public static final String GROUP_KEY_FIELD_NAME = "groupkey";
+
 	// Lucene Attributes
 	private String title = "";
 	protected String description = "";
@@ -37,6 +37,8 @@ import org.olat.core.util.StringHelper;
  */
 public class OlatDocument extends AbstractOlatDocument {
 
+	private static final String GROUP_CONTEXT_PREFIX = "[BusinessGroup:";
+
 	private String content = "";
 
 	public OlatDocument() {
@@ -76,6 +78,10 @@ public class OlatDocument extends AbstractOlatDocument {
 		document.add(createField(CONTENT_FIELD_NAME, getContent(), Field.Index.ANALYZED, 0.5f));
 		document.add(new Field(RESOURCEURL_FIELD_NAME, getResourceUrl(), Field.Store.YES, Field.Index.NOT_ANALYZED));// SET to ANALYZED
 		document.add(new Field(DOCUMENTTYPE_FIELD_NAME, getDocumentType(), Field.Store.YES, Field.Index.NOT_ANALYZED));
+		String groupKey = getGroupKey(getResourceUrl());
+		if (groupKey != null) {
+			document.add(new Field(GROUP_KEY_FIELD_NAME, groupKey, Field.Store.YES, Field.Index.NOT_ANALYZED));
+		}
 		if (getCssIcon() != null) document.add(new Field(CSS_ICON, getCssIcon(), Field.Store.YES, Field.Index.NOT_ANALYZED));
 		document.add(new Field(FILETYPE_FIELD_NAME, getFileType(), Field.Store.YES, Field.Index.NOT_ANALYZED));
 		document.add(createField(AUTHOR_FIELD_NAME, getAuthor(), Field.Index.ANALYZED, 2));
@@ -124,6 +130,17 @@ public class OlatDocument extends AbstractOlatDocument {
 		return document;
 	}
 
+	/**
+	 * @param resourceUrl
+	 * @return The key of the business group if the resource url points into a group, null otherwise
+	 */
+	public static String getGroupKey(String resourceUrl) {
+		if (resourceUrl == null || !resourceUrl.startsWith(GROUP_CONTEXT_PREFIX)) { return null; }
+		int end = resourceUrl.indexOf(']', GROUP_CONTEXT_PREFIX.length());
+		if (end < 0) { return null; }
+		return resourceUrl.substring(GROUP_CONTEXT_PREFIX.length(), end);
+	}
+
 	private Field createField(String fieldName, String content, Field.Index fieldIndex, float wight) {
 		Field field = new Field(fieldName, content, Field.Store.YES, fieldIndex);
 		field.setBoost(wight);
@@ -23,6 +23,7 @@ package org.olat.core.commons.services.search;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.queryParser.ParseException;
@@ -82,6 +83,15 @@ public interface SearchService {
 	 */
 	public void addToIndex(Document document);
 
+	/**
+	 * Add a new or changed document to existing index. The document is built when the index is updated, and only once when the same resourceUrl changes several
+	 * times before.
+	 * 
+	 * @param resourceUrl ResourceUrl of the document.
+	 * @param extraction Builds the document.
+	 */
+	public void addToIndex(String resourceUrl, Callable<Document> extraction);
+
 	/**
 	 * Delete a document in existing index.
 	 * 
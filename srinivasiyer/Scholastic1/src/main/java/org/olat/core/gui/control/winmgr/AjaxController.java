@@ -31,6 +31,7 @@ import org.apache.commons.lang.StringEscapeUtils;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.olat.core.commons.persistence.DBFactory;
 import org.olat.core.defaults.dispatcher.StaticMediaDispatcher;
 import org.olat.core.dispatcher.DispatcherAction;
 import org.olat.core.dispatcher.mapper.Mapper;
@@ -77,6 +78,9 @@ public class AjaxController extends DefaultController {
 	private Panel pollperiodPanel;
 	// protected only for performance improvement
 	protected List<WindowCommand> windowcommands = new ArrayList<WindowCommand>(3);
+	// time of the push of the oldest waiting window command, 0 if none is waiting (guarded by windowcommands)
+	private long firstPushTime = 0;
+	private boolean disposed = false;
 	private MapperRegistry mreg;
 	private Mapper m, sbm;
 	private boolean showJSON = false;
@@ -98,6 +102,7 @@ public class AjaxController extends DefaultController {
 		myContent = new VelocityContainer("jsserverpart", VELOCITY_ROOT + "/serverpart.html", null, this);
 		myContent.contextPut("highlight", Boolean.FALSE);
 		myContent.contextPut("pollperiod", new Integer(pollperiod));
+		myContent.contextPut("longpoll", Boolean.valueOf(AjaxPushModule.isLongPollEnabled()));
 
 		// more debug information: OLAT-3529
 		if (ajaxEnabled) myContent.contextPut("isAdmin", Boolean.valueOf(ureq.getUserSession().getRoles().isOLATAdmin()));
@@ -108,16 +113,14 @@ public class AjaxController extends DefaultController {
 			@Override
 			public MediaResource handle(String relPath, HttpServletRequest request) {
 				pollCount++;
-				// check for dirty components now.
-				wboImpl.fireCycleEvent(Window.BEFORE_INLINE_RENDERING);
-				Command updateDirtyCom = window.handleDirties();
-				wboImpl.fireCycleEvent(Window.AFTER_INLINE_RENDERING);
-				if (updateDirtyCom != null) {
-					synchronized (windowcommands) { // o_clusterOK by:fj
-						windowcommands.add(new WindowCommand(wboImpl, updateDirtyCom));
-					}
+				boolean backOff = false;
+				if (request.getParameter("lp") != null && AjaxPushModule.isLongPollEnabled()) {
+					// a long poll which could not be parked tells the browser to wait a pollperiod before the next one
+					backOff = !awaitCommands(window);
+				} else {
+					collectDirties(window);
 				}
-				MediaResource mr = extractMediaResource(false);
+				MediaResource mr = extractMediaResource(false, backOff);
 				return mr;
 			}
 		};
@@ -187,6 +190,63 @@ public class AjaxController extends DefaultController {
 		myContent.contextPut("sburi", mreg.register(sbm));
 	}
 
+	/**
+	 * check for dirty components now and queue the redraw command
+	 * 
+	 * @param window
+	 * @return true if there are window commands to deliver
+	 */
+	private boolean collectDirties(Window window) {
+		wboImpl.fireCycleEvent(Window.BEFORE_INLINE_RENDERING);
+		Command updateDirtyCom = window.handleDirties();
+		wboImpl.fireCycleEvent(Window.AFTER_INLINE_RENDERING);
+		synchronized (windowcommands) { // o_clusterOK by:fj
+			if (updateDirtyCom != null) {
+				windowcommands.add(new WindowCommand(wboImpl, updateDirtyCom));
+			}
+			return !windowcommands.isEmpty();
+		}
+	}
+
+	/**
+	 * Long poll: parks the request until there are window commands to deliver or the park timeout is over. Window commands wake the request immediately, dirty
+	 * components are checked every pollperiod within the vm, which is a lot cheaper than a poll request of the browser.
+	 * 
+	 * @param window
+	 * @return true if the request was parked, false if it was answered immediately like a poll
+	 */
+	private boolean awaitCommands(Window window) {
+		if (collectDirties(window) || !AjaxPushModule.park()) {
+			// something to deliver or too many parked requests: answer like a poll
+			return false;
+		}
+		try {
+			// don't hold a db connection while parked
+			DBFactory.getInstance(false).commitAndCloseSession();
+			long deadline = System.currentTimeMillis() + AjaxPushModule.getParkTimeoutMillis();
+			while (true) {
+				long remaining = deadline - System.currentTimeMillis();
+				synchronized (windowcommands) { // o_clusterOK by:fj
+					if (disposed || !windowcommands.isEmpty() || remaining <= 0) {
+						return true;
+					}
+					windowcommands.wait(Math.min(remaining, Math.max(pollperiod, 1000)));
+					if (disposed || !windowcommands.isEmpty()) {
+						return true;
+					}
+				}
+				if (collectDirties(window)) {
+					return true;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			AjaxPushModule.unpark();
+		}
+	}
+
 	/**
 	 * @see org.olat.core.gui.control.DefaultController#event(org.olat.core.gui.UserRequest, org.olat.core.gui.components.Component, org.olat.core.gui.control.Event)
 	 */
@@ -200,7 +260,16 @@ public class AjaxController extends DefaultController {
 	}
 
 	public MediaResource extractMediaResource(boolean wrapHTML) {
-		JSONObject json = getAndClearJSON();
+		return extractMediaResource(wrapHTML, false);
+	}
+
+	/**
+	 * @param wrapHTML
+	 * @param backOff true to tell a long polling browser to wait a pollperiod before its next request
+	 * @return
+	 */
+	private MediaResource extractMediaResource(boolean wrapHTML, boolean backOff) {
+		JSONObject json = getAndClearJSON(backOff);
 		String res;
 		String jsonText = json.toString();
 		// System.out.println("jsontext:"+jsonText);
@@ -262,13 +331,16 @@ public class AjaxController extends DefaultController {
 	}
 
 	/**
-	 * @param moreCmds a List of WindowCommand objects
+	 * @param backOff true to add the back off hint for the long poll
 	 * @return
 	 */
-	private JSONObject getAndClearJSON() {
+	private JSONObject getAndClearJSON(boolean backOff) {
 		JSONObject root = new JSONObject();
 
 		try {
+			if (backOff) {
+				root.put("lpb", 1);
+			}
 			if (Settings.isDebuging()) {
 				long time = System.currentTimeMillis();
 				root.put("time", time);
@@ -288,6 +360,10 @@ public class AjaxController extends DefaultController {
 					}
 					windowcommands.clear();
 				}
+				if (firstPushTime > 0) {
+					AjaxPushModule.recordDelivery(System.currentTimeMillis() - firstPushTime);
+					firstPushTime = 0;
+				}
 
 			}
 			return root;
@@ -303,6 +379,11 @@ public class AjaxController extends DefaultController {
 	protected void doDispose() {
 		mreg.deregister(m);
 		mreg.deregister(sbm);
+		synchronized (windowcommands) { // o_clusterOK by:fj
+			// release a parked long poll request
+			disposed = true;
+			windowcommands.notifyAll();
+		}
 		if (ajaxEnabled && pollCount == 0) {
 			// the controller should be older than 40s otherwise poll may not started yet
 			if ((System.currentTimeMillis() - creationTime) > 40000) log.warn("Client did not send a single polling request though ajax is enabled!");
@@ -315,6 +396,11 @@ public class AjaxController extends DefaultController {
 	public void sendCommandTo(WindowCommand wco) {
 		synchronized (windowcommands) { // o_clusterOK by:fj
 			windowcommands.add(wco);
+			if (firstPushTime == 0) {
+				firstPushTime = System.currentTimeMillis();
+			}
+			// wake a parked long poll request
+			windowcommands.notifyAll();
 		}
 	}
 
@@ -0,0 +1,182 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.core.gui.control.winmgr;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Description:<br>
+ * Configuration and statistics of the background updates of the browser windows, see ajax.push.* in olat.properties.
+ * <p>
+ * In the mode poll the browser asks the AjaxController every pollperiod for changes. In the mode longpoll the browser keeps one request parked on the server,
+ * which returns as soon as a WindowCommand is sent to the window or a component became dirty, or after the park timeout. Browsers which don't send the long poll
+ * parameter (e.g. pages loaded before the mode has been switched) are still answered immediately. The servlet api (2.5) has no asynchronous requests, hence
+ * every parked request holds a thread of the servlet container: above maxParked requests are answered immediately like polls. A long poll which has not been
+ * parked carries a back off hint, the browser then waits a pollperiod (growing while the user is idle) before it asks again.
+ * <p>
+ * The parked connections and the latency from the push of a WindowCommand to its delivery are exported via jmx.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class AjaxPushModule {
+
+	public static final String MODE_POLL = "poll";
+	public static final String MODE_LONGPOLL = "longpoll";
+
+	private static String mode = MODE_POLL;
+	private static int maxParked = 200;
+	private static long parkTimeoutMillis = 25000;
+
+	private static final AtomicInteger parked = new AtomicInteger();
+	private static final AtomicInteger peakParked = new AtomicInteger();
+	private static final AtomicLong parkCount = new AtomicLong();
+	private static final AtomicLong fallbackCount = new AtomicLong();
+	private static final AtomicLong deliveryCount = new AtomicLong();
+	private static final AtomicLong totalDeliveryMillis = new AtomicLong();
+	private static volatile long maxDeliveryMillis = 0;
+
+	/**
+	 * [used by spring]
+	 */
+	private AjaxPushModule() {
+		//
+	}
+
+	/**
+	 * @return true if the browsers keep a request parked instead of polling
+	 */
+	public static boolean isLongPollEnabled() {
+		return MODE_LONGPOLL.equals(mode);
+	}
+
+	static long getParkTimeoutMillis() {
+		return parkTimeoutMillis;
+	}
+
+	/**
+	 * @return true if the request may be parked, false if too many requests are parked and the request has to be answered immediately
+	 */
+	static boolean park() {
+		final int current = parked.incrementAndGet();
+		if (current > maxParked) {
+			parked.decrementAndGet();
+			fallbackCount.incrementAndGet();
+			return false;
+		}
+		parkCount.incrementAndGet();
+		int peak = peakParked.get();
+		while (current > peak && !peakParked.compareAndSet(peak, current)) {
+			peak = peakParked.get();
+		}
+		return true;
+	}
+
+	static void unpark() {
+		parked.decrementAndGet();
+	}
+
+	/**
+	 * @param latencyMillis time between the push of the first waiting WindowCommand and its delivery to the browser
+	 */
+	static void recordDelivery(final long latencyMillis) {
+		deliveryCount.incrementAndGet();
+		totalDeliveryMillis.addAndGet(latencyMillis);
+		if (latencyMillis > maxDeliveryMillis) {
+			maxDeliveryMillis = latencyMillis;
+		}
+	}
+
+	// JMX MBean Methods
+	// //////////////////
+
+	public String getMode() {
+		return mode;
+	}
+
+	/**
+	 * @return number of requests parked right now
+	 */
+	public int getParkedConnections() {
+		return parked.get();
+	}
+
+	public int getPeakParkedConnections() {
+		return peakParked.get();
+	}
+
+	public int getMaxParkedConnections() {
+		return maxParked;
+	}
+
+	public long getParkCount() {
+		return parkCount.get();
+	}
+
+	/**
+	 * @return number of long poll requests answered immediately because maxParked requests were already parked
+	 */
+	public long getFallbackCount() {
+		return fallbackCount.get();
+	}
+
+	public long getDeliveryCount() {
+		return deliveryCount.get();
+	}
+
+	public long getAverageDeliveryLatencyMillis() {
+		final long deliveries = deliveryCount.get();
+		return deliveries == 0 ? 0 : totalDeliveryMillis.get() / deliveries;
+	}
+
+	public long getMaxDeliveryLatencyMillis() {
+		return maxDeliveryMillis;
+	}
+
+	// spring setters
+	// //////////////////
+
+	/**
+	 * [used by spring]
+	 * 
+	 * @param mode poll or longpoll
+	 */
+	public void setMode(final String mode) {
+		final String value = mode == null ? MODE_POLL : mode.trim();
+		if (!MODE_POLL.equals(value) && !MODE_LONGPOLL.equals(value)) { throw new IllegalArgumentException("Unknown ajax push mode: " + mode); }
+		AjaxPushModule.mode = value;
+	}
+
+	/**
+	 * [used by spring]
+	 */
+	public void setMaxParked(final int maxParked) {
+		AjaxPushModule.maxParked = maxParked;
+	}
+
+	/**
+	 * [used by spring]
+	 */
+	public void setParkTimeoutMillis(final long parkTimeoutMillis) {
+		AjaxPushModule.parkTimeoutMillis = parkTimeoutMillis;
+	}
+}
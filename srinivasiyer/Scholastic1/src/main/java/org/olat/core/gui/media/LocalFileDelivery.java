@@ -0,0 +1,306 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.core.gui.media;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.olat.core.util.FileUtils;
+import org.olat.core.util.vfs.LocalFileImpl;
+import org.olat.core.util.vfs.VFSItem;
+
+/**
+ * Description:<br>
+ * Delivers files which are on the local file system without the stacked buffered streams and small copy buffers of the generic stream delivery.
+ * <p>
+ * If the servlet container supports sendfile (tomcat with the APR or NIO connector announces it with a request attribute), the container writes the file directly
+ * from the file system cache to the socket. If the target is a file the bytes are moved with FileChannel.transferTo. Otherwise the file is read with one buffer
+ * straight into the output stream. The ETag and the conditional request handling only use the length and the modification date of the file, the file itself is
+ * never read to answer a conditional request.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public final class LocalFileDelivery {
+
+	public static final String MIME_BOUNDARY = "OLAT_MIME_BOUNDARY";
+
+	private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+	/** below this size the setup of a sendfile costs more than writing the bytes (same threshold as tomcat) **/
+	private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+	/** upper limit of one transferTo call, some platforms fail on larger chunks **/
+	private static final long MAX_TRANSFER = 8 * 1024 * 1024;
+	/** one buffer per delivery, no buffered streams on top of each other **/
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private LocalFileDelivery() {
+		// static helper only
+	}
+
+	/**
+	 * @param item
+	 * @return the file behind the item or null if the item is not a plain file on the local file system
+	 */
+	public static File getLocalFile(final VFSItem item) {
+		if (item instanceof LocalFileImpl) {
+			final File file = ((LocalFileImpl) item).getBasefile();
+			if (file.isFile()) { return file; }
+		}
+		return null;
+	}
+
+	/**
+	 * @param length
+	 * @param lastModified
+	 * @return a weak ETag computed from the metadata of the file, the same as the one of the DefaultServlet
+	 */
+	public static String getETag(final long length, final long lastModified) {
+		return "W/\"" + length + "-" + lastModified + "\"";
+	}
+
+	/**
+	 * Evaluates If-None-Match and If-Modified-Since. If the request has an If-None-Match header it wins over If-Modified-Since.
+	 * 
+	 * @param request
+	 * @param eTag the ETag of the resource, may be null
+	 * @param lastModified the modification date of the resource
+	 * @return true if the client has the current version and a 304 should be sent
+	 */
+	public static boolean isNotModified(final HttpServletRequest request, final String eTag, final long lastModified) {
+		final String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null) { return eTag != null && matchesETag(ifNoneMatch, eTag); }
+		final long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+		// http dates have no milliseconds
+		return ifModifiedSince != -1 && ifModifiedSince >= (lastModified / 1000L) * 1000L;
+	}
+
+	/**
+	 * @param headerValue value of an If-None-Match header, a list of ETags or *
+	 * @param eTag
+	 * @return true if the ETag is in the list
+	 */
+	static boolean matchesETag(final String headerValue, final String eTag) {
+		if (headerValue.trim().equals("*")) { return true; }
+		final StringTokenizer tokens = new StringTokenizer(headerValue, ",");
+		while (tokens.hasMoreTokens()) {
+			if (tokens.nextToken().trim().equals(eTag)) { return true; }
+		}
+		return false;
+	}
+
+	/**
+	 * Evaluates the Range and If-Range headers of the request. An entity tag in If-Range is compared strongly, a weak one results in the whole resource.
+	 * 
+	 * @param request
+	 * @param eTag the ETag of the resource
+	 * @param lastModified the modification date of the resource
+	 * @param length the length of the resource
+	 * @return null if the whole resource must be sent, an empty array if no range is satisfiable or the ranges as {start, end} pairs with inclusive ends
+	 */
+	public static long[][] getRanges(final HttpServletRequest request, final String eTag, final long lastModified, final long length) {
+		final String rangeHeader = request.getHeader("Range");
+		if (rangeHeader == null) { return null; }
+		final String ifRange = request.getHeader("If-Range");
+		if (ifRange != null) {
+			if (ifRange.startsWith("W/")) {
+				// If-Range needs the strong comparison (RFC 7233 3.2), a weak validator never matches
+				return null;
+			} else if (ifRange.startsWith("\"")) {
+				if (eTag == null || eTag.startsWith("W/") || !ifRange.trim().equals(eTag)) { return null; }
+			} else {
+				final long ifRangeDate = request.getDateHeader("If-Range");
+				if (ifRangeDate == -1 || lastModified > ifRangeDate + 1000L) { return null; }
+			}
+		}
+		return parseRanges(rangeHeader, length);
+	}
+
+	/**
+	 * @param rangeHeader e.g. "bytes=0-499,1000-,-500"
+	 * @param length the length of the resource
+	 * @return null if the header is malformed and must be ignored, an empty array if no range is satisfiable or the ranges as {start, end} pairs with inclusive ends
+	 */
+	static long[][] parseRanges(final String rangeHeader, final long length) {
+		final String header = rangeHeader.trim();
+		if (!header.startsWith("bytes=")) { return null; }
+		final List<long[]> ranges = new ArrayList<long[]>();
+		final StringTokenizer tokens = new StringTokenizer(header.substring(6), ",");
+		while (tokens.hasMoreTokens()) {
+			final String token = tokens.nextToken().trim();
+			final int dash = token.indexOf('-');
+			if (dash == -1) { return null; }
+			final long start;
+			long end;
+			try {
+				if (dash == 0) {
+					// suffix range, the last n bytes
+					final long suffix = Long.parseLong(token.substring(1));
+					if (suffix < 0) { return null; }
+					if (suffix == 0) {
+						continue;
+					}
+					start = Math.max(0, length - suffix);
+					end = length - 1;
+				} else {
+					start = Long.parseLong(token.substring(0, dash));
+					// open end, up to the end of the file
+					end = dash == token.length() - 1 ? Long.MAX_VALUE : Long.parseLong(token.substring(dash + 1));
+					if (start < 0 || end < start) { return null; }
+				}
+			} catch (final NumberFormatException e) {
+				return null;
+			}
+			if (start >= length) {
+				// not satisfiable, skip it
+				continue;
+			}
+			if (end >= length) {
+				end = length - 1;
+			}
+			ranges.add(new long[] { start, end });
+		}
+		return ranges.toArray(new long[ranges.size()][]);
+	}
+
+	/**
+	 * Hands the delivery of the file over to the servlet container if it supports sendfile. The caller must have set all headers including the content length and
+	 * must not write to the response afterwards.
+	 * 
+	 * @param request
+	 * @param response
+	 * @param file
+	 * @param start first byte
+	 * @param end last byte (inclusive)
+	 * @return true if the container sends the file, false if the caller must write it
+	 */
+	public static boolean sendfile(final HttpServletRequest request, final HttpServletResponse response, final File file, final long start, final long end) {
+		if (end - start + 1 < SENDFILE_MIN_SIZE) { return false; }
+		if (!Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) { return false; }
+		// a wrapped response (filters, includes) expects the bytes to pass through it
+		if (response instanceof ServletResponseWrapper) { return false; }
+		try {
+			request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+		} catch (final IOException e) {
+			return false;
+		}
+		request.setAttribute(SENDFILE_START, Long.valueOf(start));
+		// the end of sendfile is exclusive
+		request.setAttribute(SENDFILE_END, Long.valueOf(end + 1));
+		return true;
+	}
+
+	/**
+	 * Writes a part of the file to the output stream.
+	 * 
+	 * @param file
+	 * @param start first byte
+	 * @param end last byte (inclusive)
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void transfer(final File file, final long start, final long end, final OutputStream out) throws IOException {
+		final FileInputStream in = new FileInputStream(file);
+		try {
+			transfer(in, start, end, out);
+		} finally {
+			FileUtils.closeSafely(in);
+		}
+	}
+
+	/**
+	 * Writes a part of the file to the output stream. The input and the output stream stay open.
+	 * 
+	 * @param in the stream of the file, it is positioned by this method
+	 * @param start first byte
+	 * @param end last byte (inclusive)
+	 * @param out
+	 * @throws IOException if the file is shorter than expected
+	 */
+	public static void transfer(final FileInputStream in, final long start, final long end, final OutputStream out) throws IOException {
+		final FileChannel channel = in.getChannel();
+		final long limit = end + 1;
+		if (out instanceof FileOutputStream) {
+			// channel to channel, the bytes stay in the kernel
+			final FileChannel target = ((FileOutputStream) out).getChannel();
+			long position = start;
+			while (position < limit) {
+				final long count = channel.transferTo(position, Math.min(limit - position, MAX_TRANSFER), target);
+				if (count <= 0 && position >= channel.size()) { throw new IOException("File truncated at " + position + " while delivering up to " + limit); }
+				position += count;
+			}
+		} else {
+			// a servlet output stream has no channel, transferTo would copy through a small direct buffer and a wrapping channel which is slower than one plain
+			// buffer
+			channel.position(start);
+			long remaining = limit - start;
+			final byte[] buffer = new byte[(int) Math.max(1, Math.min(BUFFER_SIZE, remaining))];
+			while (remaining > 0) {
+				final int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+				if (read == -1) { throw new IOException("File truncated at " + (limit - remaining) + " while delivering up to " + limit); }
+				out.write(buffer, 0, read);
+				remaining -= read;
+			}
+		}
+	}
+
+	/**
+	 * Writes the ranges of the file as multipart/byteranges body with MIME_BOUNDARY as separator.
+	 * 
+	 * @param file
+	 * @param ranges {start, end} pairs with inclusive ends
+	 * @param contentType the content type of the file, may be null
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void transferRanges(final File file, final long[][] ranges, final String contentType, final OutputStream out) throws IOException {
+		final long length = file.length();
+		final FileInputStream in = new FileInputStream(file);
+		try {
+			for (int i = 0; i < ranges.length; i++) {
+				final StringBuilder sb = new StringBuilder(128);
+				sb.append("\r\n--").append(MIME_BOUNDARY).append("\r\n");
+				if (contentType != null) {
+					sb.append("Content-Type: ").append(contentType).append("\r\n");
+				}
+				sb.append("Content-Range: bytes ").append(ranges[i][0]).append('-').append(ranges[i][1]).append('/').append(length).append("\r\n\r\n");
+				out.write(sb.toString().getBytes("US-ASCII"));
+				transfer(in, ranges[i][0], ranges[i][1], out);
+			}
+			out.write(("\r\n--" + MIME_BOUNDARY + "--\r\n").getBytes("US-ASCII"));
+		} finally {
+			FileUtils.closeSafely(in);
+		}
+	}
+}
@@ -23,6 +23,7 @@ package org.olat.core.gui.media;
 
 import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -39,6 +40,7 @@ import org.olat.core.logging.Tracing;
 import org.olat.core.util.FileUtils;
 import org.olat.core.util.StringHelper;
 import org.olat.core.util.UserSession;
+import org.olat.core.util.vfs.VFSMediaResource;
 
 /**
  * @author Felix Jost
@@ -56,16 +58,21 @@ public class ServletUtil {
 
 		try {
 			Long lastModified = mr.getLastModified();
+			String eTag = null;
 			if (lastModified != null) {
-				// give browser a chance to cache images
-				long ifModifiedSince = httpReq.getDateHeader("If-Modified-Since");
-				// TODO: if no such header, what is the return value
-				long lastMod = lastModified.longValue();
-				if (ifModifiedSince >= (lastMod / 1000L) * 1000L) {
+				// give browser a chance to cache images, computed from the metadata only
+				Long size = mr.getSize();
+				if (size != null) {
+					eTag = LocalFileDelivery.getETag(size.longValue(), lastModified.longValue());
+				}
+				if (LocalFileDelivery.isNotModified(httpReq, eTag, lastModified.longValue())) {
 					httpResp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
 					return;
 				}
 				httpResp.setDateHeader("Last-Modified", lastModified.longValue());
+				if (eTag != null) {
+					httpResp.setHeader("ETag", eTag);
+				}
 			}
 
 			if (isFlashPseudoStreaming(httpReq)) {
@@ -76,7 +83,15 @@ public class ServletUtil {
 				if (mime != null) {
 					httpResp.setContentType(mime);
 				}
-				serveFullResource(httpReq, httpResp, mr);
+				File localFile = null;
+				if (mr instanceof VFSMediaResource) {
+					localFile = ((VFSMediaResource) mr).getLocalFile();
+				}
+				if (localFile != null) {
+					serveLocalFile(httpReq, httpResp, mr, localFile, mime, eTag);
+				} else {
+					serveFullResource(httpReq, httpResp, mr);
+				}
 			}
 
 			// else there is no stream, but probably just headers
@@ -150,6 +165,64 @@ public class ServletUtil {
 		}
 	}
 
+	/**
+	 * Serves a file of the local file system with support for byte ranges. The bytes are handed to the container (sendfile) where it supports it. Otherwise, and always for
+	 * multipart/byteranges, they are copied to the servlet output stream through a heap buffer of at most 64KB.
+	 */
+	private static void serveLocalFile(HttpServletRequest httpReq, HttpServletResponse httpResp, MediaResource mr, File file, String mime, String eTag)
+			throws IOException {
+		boolean debug = log.isDebug();
+		long rstart = 0;
+		if (debug) {
+			rstart = System.currentTimeMillis();
+		}
+
+		long length = file.length();
+		mr.prepare(httpResp);
+		httpResp.setHeader("Accept-Ranges", "bytes");
+		long[][] ranges = LocalFileDelivery.getRanges(httpReq, eTag, file.lastModified(), length);
+		if (ranges != null && ranges.length == 0) {
+			httpResp.setHeader("Content-Range", "bytes */" + length);
+			httpResp.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+			return;
+		}
+
+		// the bandwidth simulator must see the bytes, no sendfile while debugging
+		boolean slowBandWidth = Settings.isDebuging();
+		if (ranges == null || ranges.length == 1) {
+			long start = 0;
+			long end = length - 1;
+			if (ranges != null) {
+				start = ranges[0][0];
+				end = ranges[0][1];
+				httpResp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				httpResp.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+			}
+			httpResp.setHeader("Content-Length", Long.toString(end - start + 1));
+			if (length > 0 && (slowBandWidth || !LocalFileDelivery.sendfile(httpReq, httpResp, file, start, end))) {
+				LocalFileDelivery.transfer(file, start, end, getOutputStream(httpReq, httpResp));
+			}
+		} else {
+			httpResp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			httpResp.setContentType("multipart/byteranges; boundary=" + LocalFileDelivery.MIME_BOUNDARY);
+			LocalFileDelivery.transferRanges(file, ranges, mime, getOutputStream(httpReq, httpResp));
+		}
+
+		if (debug) {
+			long rstop = System.currentTimeMillis();
+			log.debug("time to serve local file (mr=" + mr.getClass().getName() + ") " + length + " bytes" + (ranges == null ? "" : " in " + ranges.length + " range(s)")
+					+ ": " + (rstop - rstart));
+		}
+	}
+
+	private static OutputStream getOutputStream(HttpServletRequest httpReq, HttpServletResponse httpResp) throws IOException {
+		if (Settings.isDebuging()) {
+			SlowBandWidthSimulator sbs = Windows.getWindows(UserSession.getUserSession(httpReq)).getSlowBandWidthSimulator();
+			return sbs.wrapOutputStream(httpResp.getOutputStream());
+		}
+		return httpResp.getOutputStream();
+	}
+
 	private static void pseudoStreamFlashResource(HttpServletRequest httpReq, HttpServletResponse httpResp, MediaResource mr) {
 		Long range = getRange(httpReq);
 		long seekPos = range == null ? 0l : range.longValue();
@@ -23,6 +23,7 @@ package org.olat.core.id.change;
 import org.olat.core.gui.control.Event;
 import org.olat.core.id.OLATResourceable;
 import org.olat.core.util.coordinate.CoordinatorManager;
+import org.olat.core.util.resource.OresHelper;
 
 /**
  * Description:<br>
@@ -39,6 +40,9 @@ public class ChangeManager {
 	public static final int ACTION_UPDATE = 8;
 	public static final int ACTION_DELETE = 16;
 
+	/** Every change is fired to the listeners of this channel too, e.g. the search index listens to the changes of all objects of a type */
+	public static final OLATResourceable CHANGE_CHANNEL = OresHelper.lookupType(ChangeManager.class);
+
 	// private static ChangeManager INSTANCE = new ChangeManager();
 
 	private ChangeManager() {
@@ -57,6 +61,7 @@ public class ChangeManager {
 	public static void changed(int action, OLATResourceable ores) {
 		ObjectAccessEvent cevent = new ObjectAccessEvent(action, ores);
 		CoordinatorManager.getInstance().getCoordinator().getEventBus().fireEventToListenersOf(cevent, ores);
+		CoordinatorManager.getInstance().getCoordinator().getEventBus().fireEventToListenersOf(cevent, CHANGE_CHANNEL);
 	}
 
 	public static boolean isChangeEvent(Event event) {
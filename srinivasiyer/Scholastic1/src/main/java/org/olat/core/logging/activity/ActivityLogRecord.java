@@ -0,0 +1,179 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2009 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.core.logging.activity;
+
+import java.io.Serializable;
+
+/**
+ * Description:<br>
+ * Immutable snapshot of one row of the o_loggingtable as it is handed from the request thread to the ActivityLogWriter.
+ * <p>
+ * Unlike the LoggingObject this is no hibernate object: the creation date is taken when the action happens (not when it is written) and the log_id is only
+ * assigned by the writer. The record is identified by its sequence number, which is what a later DurationUpdate refers to when the simpleDuration of this row is
+ * known. The record is serializable since it is written to the spill files of the writer when the database is slow.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public final class ActivityLogRecord implements Serializable {
+
+	private static final long serialVersionUID = 7365102948571023744L;
+
+	/** number of columns per resource: type, id, name **/
+	private static final int RES_FIELDS = 3;
+
+	private final long sequence;
+	private final long creationTime;
+	private final String sourceClass;
+	private final String sessionId;
+	private final long userId;
+	private final String userName;
+	/** userproperty1 to userproperty12 **/
+	private final String[] userProperties;
+	private final String actionCrudType;
+	private final String actionVerb;
+	private final String actionObject;
+	private final boolean resourceAdminAction;
+	private final String businessPath;
+	/** type, id and name of great grand parent, grand parent, parent and target - in this order **/
+	private final String[] resources;
+
+	ActivityLogRecord(final long sequence, final long creationTime, final LoggingObject logObj) {
+		this.sequence = sequence;
+		this.creationTime = creationTime;
+		this.sourceClass = logObj.getSourceClass();
+		this.sessionId = logObj.getSessionId();
+		this.userId = logObj.getUserId();
+		this.userName = logObj.getUserName();
+		this.userProperties = new String[] { logObj.getUserProperty1(), logObj.getUserProperty2(), logObj.getUserProperty3(), logObj.getUserProperty4(),
+				logObj.getUserProperty5(), logObj.getUserProperty6(), logObj.getUserProperty7(), logObj.getUserProperty8(), logObj.getUserProperty9(),
+				logObj.getUserProperty10(), logObj.getUserProperty11(), logObj.getUserProperty12() };
+		this.actionCrudType = logObj.getActionCrudType();
+		this.actionVerb = logObj.getActionVerb();
+		this.actionObject = logObj.getActionObject();
+		this.resourceAdminAction = Boolean.TRUE.equals(logObj.getResourceAdminAction());
+		this.businessPath = logObj.getBusinessPath();
+		this.resources = new String[] { logObj.getGreatGrandParentResType(), logObj.getGreatGrandParentResId(), logObj.getGreatGrandParentResName(),
+				logObj.getGrandParentResType(), logObj.getGrandParentResId(), logObj.getGrandParentResName(), logObj.getParentResType(), logObj.getParentResId(),
+				logObj.getParentResName(), logObj.getTargetResType(), logObj.getTargetResId(), logObj.getTargetResName() };
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public long getCreationTime() {
+		return creationTime;
+	}
+
+	public String getSourceClass() {
+		return sourceClass;
+	}
+
+	public String getSessionId() {
+		return sessionId;
+	}
+
+	public long getUserId() {
+		return userId;
+	}
+
+	public String getUserName() {
+		return userName;
+	}
+
+	/**
+	 * @param index 1 to 12
+	 * @return the value of userproperty[index]
+	 */
+	public String getUserProperty(final int index) {
+		return userProperties[index - 1];
+	}
+
+	public String getActionCrudType() {
+		return actionCrudType;
+	}
+
+	public String getActionVerb() {
+		return actionVerb;
+	}
+
+	public String getActionObject() {
+		return actionObject;
+	}
+
+	public boolean isResourceAdminAction() {
+		return resourceAdminAction;
+	}
+
+	public String getBusinessPath() {
+		return businessPath;
+	}
+
+	/**
+	 * @param level 0 = great grand parent, 1 = grand parent, 2 = parent, 3 = target
+	 * @param field 0 = type, 1 = id, 2 = name
+	 * @return the value of the resource column
+	 */
+	public String getResource(final int level, final int field) {
+		return resources[level * RES_FIELDS + field];
+	}
+
+	@Override
+	public String toString() {
+		return "ActivityLogRecord[" + sequence + ": " + actionVerb + " " + actionObject + " by user " + userName + ", businessPath=" + businessPath + "]";
+	}
+
+	/**
+	 * Description:<br>
+	 * The simpleDuration of an earlier record, known once the next action of the same user session happens.
+	 * <P>
+	 * Initial Date: 18.10.2026 <br>
+	 */
+	public static final class DurationUpdate implements Serializable {
+
+		private static final long serialVersionUID = -2964113500732254127L;
+
+		private final long sequence;
+		private final long duration;
+
+		DurationUpdate(final long sequence, final long duration) {
+			this.sequence = sequence;
+			this.duration = duration;
+		}
+
+		/**
+		 * @return the sequence number of the record whose duration this is
+		 */
+		public long getSequence() {
+			return sequence;
+		}
+
+		public long getDuration() {
+			return duration;
+		}
+
+		@Override
+		public String toString() {
+			return "DurationUpdate[" + sequence + ": " + duration + "]";
+		}
+	}
+}
@@ -0,0 +1,644 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2009 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.core.logging.activity;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.JDBCException;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.WebappHelper;
+
+/**
+ * Description:<br>
+ * Write-behind sink for the user activity logging.
+ * <p>
+ * The request thread only builds an immutable ActivityLogRecord and offers it to a bounded ring buffer, it never waits for the database. A single background
+ * thread drains the buffer every flushIntervalMillis or as soon as flushSize entries are waiting, and writes them with jdbc batch inserts in one short
+ * transaction of its own. The log_id is still taken from the hibernate generator of the LoggingObject, so rows written by the writer and rows written by
+ * hibernate do not collide.
+ * <p>
+ * When a flush fails or takes longer than spillThresholdMillis the writer switches to spill mode: batches are appended to local files in spillDir instead of
+ * the database, and every probeIntervalMillis the spilled files are replayed. When the replay succeeds fast enough the writer returns to the database. Spill
+ * files left over by a crash are replayed when the writer starts. A file is only deleted after its transaction has committed, hence a crash during a replay
+ * may write the rows of that one file twice but never loses them.
+ * <p>
+ * When the ring buffer is full the record is dropped and counted rather than blocking the click. Queue depth, drop count and flush latencies are exported via
+ * jmx.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class ActivityLogWriter implements Runnable {
+
+	private static final OLog log = Tracing.createLoggerFor(ActivityLogWriter.class);
+
+	private static final String SPILL_FILE_PREFIX = "activitylog-";
+	private static final String SPILL_FILE_SUFFIX = ".spill";
+
+	private static final String INSERT_SQL = "insert into o_loggingtable (log_id,creationdate,sourceclass,sessionid,user_id,username,"
+			+ "userproperty1,userproperty2,userproperty3,userproperty4,userproperty5,userproperty6,"
+			+ "userproperty7,userproperty8,userproperty9,userproperty10,userproperty11,userproperty12,"
+			+ "actioncrudtype,actionverb,actionobject,simpleduration,resourceadminaction,businesspath,"
+			+ "greatgrandparentrestype,greatgrandparentresid,greatgrandparentresname,grandparentrestype,grandparentresid,grandparentresname,"
+			+ "parentrestype,parentresid,parentresname,targetrestype,targetresid,targetresname) "
+			+ "values (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
+
+	private static final long SHUTDOWN_WAIT_MILLIS = 30000;
+
+	private static final String UPDATE_DURATION_SQL = "update o_loggingtable set simpleduration=? where log_id=?";
+
+	/** the writer which is currently running, null when logging is synchronous **/
+	private static volatile ActivityLogWriter instance;
+
+	private boolean enabled = true;
+	private int queueSize = 20000;
+	private int flushSize = 500;
+	private long flushIntervalMillis = 1000;
+	private long spillThresholdMillis = 5000;
+	private long probeIntervalMillis = 30000;
+	private int maxRecordsPerSpillFile = 10000;
+	private String spillDir;
+	private SessionFactory sessionFactory;
+
+	private ArrayBlockingQueue<Serializable> queue;
+	private Thread writerThread;
+	private volatile boolean running = false;
+	/** the sequence is seeded with the start time so that records of spill files of earlier runs do not collide **/
+	private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000L);
+
+	// metrics
+	private final AtomicLong dropCount = new AtomicLong();
+	private final AtomicLong writtenCount = new AtomicLong();
+	private final AtomicLong spilledCount = new AtomicLong();
+	private final AtomicLong flushCount = new AtomicLong();
+	private final AtomicLong totalFlushMillis = new AtomicLong();
+	private volatile long lastFlushMillis = 0;
+	private volatile long maxFlushMillis = 0;
+	private volatile boolean spilling = false;
+
+	// the following are only accessed by the writer thread
+	private File spillDirectory;
+	private ObjectOutputStream spillOut;
+	private FileOutputStream spillFileOut;
+	private int recordsInSpillFile = 0;
+	private int spillFileCounter = 0;
+	private long nextProbe = 0;
+	/** sequence to log_id of the most recent rows, needed for the simpleDuration updates **/
+	private final Map<Long, Long> recentLogIds = new LinkedHashMap<Long, Long>(1024, 0.75f, false) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<Long, Long> eldest) {
+			return size() > Math.max(100000, queueSize * 5);
+		}
+	};
+
+	/**
+	 * @return the running writer or null if the user activity logging is written synchronously
+	 */
+	public static ActivityLogWriter getInstance() {
+		return instance;
+	}
+
+	/**
+	 * [used by spring]
+	 */
+	public void init() {
+		if (!enabled) {
+			log.info("Asynchronous user activity logging disabled, writing synchronously");
+			return;
+		}
+		queue = new ArrayBlockingQueue<Serializable>(queueSize);
+		if (spillDir == null || spillDir.trim().length() == 0) {
+			spillDirectory = new File(new File(WebappHelper.getUserDataRoot(), "logs"), "activityspill");
+		} else {
+			spillDirectory = new File(spillDir);
+		}
+		spillDirectory.mkdirs();
+		running = true;
+		writerThread = new Thread(this, "ActivityLogWriter");
+		writerThread.setDaemon(true);
+		writerThread.start();
+		instance = this;
+		log.info("Asynchronous user activity logging started: queueSize=" + queueSize + ", flushSize=" + flushSize + ", flushIntervalMillis=" + flushIntervalMillis
+				+ ", spillDir=" + spillDirectory.getAbsolutePath());
+	}
+
+	/**
+	 * [used by spring] Writes what is still in the ring buffer before shutting down.
+	 */
+	public void destroy() {
+		if (!running) { return; }
+		instance = null;
+		running = false;
+		// not interrupted, the writer thread may be within a jdbc call. It sees running=false after at most flushIntervalMillis and writes what is left
+		try {
+			writerThread.join(SHUTDOWN_WAIT_MILLIS);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (writerThread.isAlive()) {
+			log.warn("User activity logging writer did not finish within " + SHUTDOWN_WAIT_MILLIS + "ms, " + queue.size() + " entries are still waiting");
+		}
+		log.info("Asynchronous user activity logging stopped: written=" + writtenCount.get() + ", spilled=" + spilledCount.get() + ", dropped=" + dropCount.get());
+	}
+
+	/**
+	 * Enqueues a logging action, never blocks.
+	 *
+	 * @param logObj the filled LoggingObject, not touched anymore afterwards
+	 * @param previous the record of the previous action of the same user session or null - its simpleDuration is enqueued along
+	 * @return the record which represents the action, to be passed as previous with the next action
+	 */
+	public ActivityLogRecord enqueue(final LoggingObject logObj, final ActivityLogRecord previous) {
+		final long now = System.currentTimeMillis();
+		final ActivityLogRecord record = new ActivityLogRecord(sequence.incrementAndGet(), now, logObj);
+		if (previous != null) {
+			offer(new ActivityLogRecord.DurationUpdate(previous.getSequence(), now - previous.getCreationTime()));
+		}
+		offer(record);
+		return record;
+	}
+
+	private void offer(final Serializable entry) {
+		if (!queue.offer(entry)) {
+			final long dropped = dropCount.incrementAndGet();
+			// do not flood the log, one warning per 1000 dropped entries
+			if (dropped % 1000 == 1) {
+				log.warn("User activity logging queue is full, dropped " + dropped + " entries so far: " + entry);
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		// first write what an earlier run could not write anymore
+		if (!replaySpillFiles()) {
+			enterSpillMode();
+		}
+		final List<Serializable> batch = new ArrayList<Serializable>(flushSize);
+		long lastFlush = System.currentTimeMillis();
+		while (running || !queue.isEmpty()) {
+			try {
+				final Serializable first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+				if (first != null) {
+					batch.add(first);
+					queue.drainTo(batch, flushSize - batch.size());
+				}
+			} catch (final InterruptedException e) {
+				// interrupted from outside, write what is left - the loop ends when running is false
+				queue.drainTo(batch);
+			}
+			final long now = System.currentTimeMillis();
+			if (!batch.isEmpty() && (batch.size() >= flushSize || now - lastFlush >= flushIntervalMillis || !running)) {
+				flush(batch);
+				batch.clear();
+				lastFlush = now;
+			} else if (spilling && now >= nextProbe) {
+				probe();
+			}
+		}
+		closeSpillFile();
+	}
+
+	/**
+	 * Writes the batch to the database or to the spill file.
+	 */
+	void flush(final List<Serializable> batch) {
+		if (spilling) {
+			if (System.currentTimeMillis() < nextProbe || !probe()) {
+				spill(batch);
+				return;
+			}
+		}
+		final long start = System.currentTimeMillis();
+		try {
+			writeToDatabase(batch);
+		} catch (final RuntimeException e) {
+			log.error("Could not write " + batch.size() + " user activity logging entries to the database, spilling to " + spillDirectory, e);
+			enterSpillMode();
+			spill(batch);
+			return;
+		}
+		final long duration = System.currentTimeMillis() - start;
+		recordFlush(duration);
+		if (duration > spillThresholdMillis) {
+			log.warn("Writing " + batch.size() + " user activity logging entries took " + duration + "ms, spilling to " + spillDirectory + " for a while");
+			enterSpillMode();
+		}
+	}
+
+	/**
+	 * Replays the spill files and leaves the spill mode if that worked fast enough.
+	 *
+	 * @return true if the writer is back on the database
+	 */
+	private boolean probe() {
+		closeSpillFile();
+		final long start = System.currentTimeMillis();
+		final boolean replayed = replaySpillFiles();
+		final long duration = System.currentTimeMillis() - start;
+		if (replayed && duration <= spillThresholdMillis) {
+			spilling = false;
+			log.info("User activity logging is back on the database");
+			return true;
+		}
+		nextProbe = System.currentTimeMillis() + probeIntervalMillis;
+		return false;
+	}
+
+	private void enterSpillMode() {
+		spilling = true;
+		nextProbe = System.currentTimeMillis() + probeIntervalMillis;
+	}
+
+	private void recordFlush(final long duration) {
+		lastFlushMillis = duration;
+		if (duration > maxFlushMillis) {
+			maxFlushMillis = duration;
+		}
+		totalFlushMillis.addAndGet(duration);
+		flushCount.incrementAndGet();
+	}
+
+	/**
+	 * Appends the batch to the current spill file and forces it to disk.
+	 */
+	private void spill(final List<Serializable> batch) {
+		try {
+			if (spillOut == null) {
+				final String name = SPILL_FILE_PREFIX + System.currentTimeMillis() + "-" + (spillFileCounter++) + SPILL_FILE_SUFFIX;
+				spillFileOut = new FileOutputStream(new File(spillDirectory, name));
+				spillOut = new ObjectOutputStream(new BufferedOutputStream(spillFileOut));
+				recordsInSpillFile = 0;
+			}
+			for (final Serializable entry : batch) {
+				spillOut.writeObject(entry);
+			}
+			spillOut.flush();
+			spillFileOut.getFD().sync();
+			recordsInSpillFile += batch.size();
+			spilledCount.addAndGet(batch.size());
+			if (recordsInSpillFile >= maxRecordsPerSpillFile) {
+				closeSpillFile();
+			}
+		} catch (final IOException e) {
+			dropCount.addAndGet(batch.size());
+			log.error("Could not spill " + batch.size() + " user activity logging entries to " + spillDirectory + ", they are lost", e);
+			closeSpillFile();
+		}
+	}
+
+	private void closeSpillFile() {
+		if (spillOut == null) { return; }
+		try {
+			spillOut.close();
+		} catch (final IOException e) {
+			log.warn("Could not close user activity logging spill file", e);
+		}
+		spillOut = null;
+		spillFileOut = null;
+	}
+
+	/**
+	 * Writes all spill files to the database, oldest first, and deletes each of them once its transaction has committed.
+	 *
+	 * @return true if no spill file is left
+	 */
+	boolean replaySpillFiles() {
+		final File[] files = listSpillFiles();
+		for (int i = 0; i < files.length; i++) {
+			final List<Serializable> entries = readSpillFile(files[i]);
+			try {
+				if (!entries.isEmpty()) {
+					writeToDatabase(entries);
+				}
+			} catch (final RuntimeException e) {
+				log.warn("Could not replay user activity logging spill file " + files[i] + ", will try again later", e);
+				return false;
+			}
+			if (!files[i].delete()) {
+				log.error("Could not delete replayed user activity logging spill file " + files[i] + ", its entries would be written again");
+				return false;
+			}
+			log.info("Replayed " + entries.size() + " user activity logging entries from " + files[i]);
+		}
+		return true;
+	}
+
+	File[] listSpillFiles() {
+		final File[] files = spillDirectory.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(final File dir, final String name) {
+				return name.startsWith(SPILL_FILE_PREFIX) && name.endsWith(SPILL_FILE_SUFFIX);
+			}
+		});
+		if (files == null) { return new File[0]; }
+		// the name contains the creation time, hence this is the order they were written in
+		Arrays.sort(files);
+		return files;
+	}
+
+	/**
+	 * Reads a spill file up to its end or up to the first broken entry - the tail of the file may be incomplete after a crash.
+	 */
+	static List<Serializable> readSpillFile(final File file) {
+		final List<Serializable> entries = new ArrayList<Serializable>();
+		ObjectInputStream in = null;
+		try {
+			in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+			while (true) {
+				entries.add((Serializable) in.readObject());
+			}
+		} catch (final EOFException e) {
+			// regular end of the file
+		} catch (final IOException e) {
+			log.warn("User activity logging spill file " + file + " is truncated after " + entries.size() + " entries: " + e);
+		} catch (final ClassNotFoundException e) {
+			log.error("User activity logging spill file " + file + " contains an unknown class after " + entries.size() + " entries", e);
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (final IOException e) {
+					// ignore
+				}
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Writes the records and duration updates in one transaction with jdbc batches. Durations of records of the same batch go directly into the insert.
+	 */
+	protected void writeToDatabase(final List<Serializable> entries) {
+		final StatelessSession session = sessionFactory.openStatelessSession();
+		Transaction tx = null;
+		try {
+			tx = session.beginTransaction();
+			final IdentifierGenerator generator = ((SessionFactoryImplementor) sessionFactory).getIdentifierGenerator(LoggingObject.class.getName());
+
+			final List<ActivityLogRecord> records = new ArrayList<ActivityLogRecord>(entries.size());
+			final Map<Long, Long> batchLogIds = new HashMap<Long, Long>();
+			final Map<Long, Long> batchDurations = new HashMap<Long, Long>();
+			final List<long[]> updates = new ArrayList<long[]>();
+			for (final Serializable entry : entries) {
+				if (entry instanceof ActivityLogRecord) {
+					final ActivityLogRecord record = (ActivityLogRecord) entry;
+					records.add(record);
+					batchLogIds.put(Long.valueOf(record.getSequence()), (Long) generator.generate((SessionImplementor) session, null));
+				} else if (entry instanceof ActivityLogRecord.DurationUpdate) {
+					final ActivityLogRecord.DurationUpdate du = (ActivityLogRecord.DurationUpdate) entry;
+					final Long seq = Long.valueOf(du.getSequence());
+					if (batchLogIds.containsKey(seq)) {
+						batchDurations.put(seq, Long.valueOf(du.getDuration()));
+					} else if (recentLogIds.containsKey(seq)) {
+						updates.add(new long[] { du.getDuration(), recentLogIds.get(seq).longValue() });
+					}
+					// else: the row is too old or was lost, so is its duration
+				}
+			}
+
+			final Connection connection = session.connection();
+			if (!records.isEmpty()) {
+				final PreparedStatement insert = connection.prepareStatement(INSERT_SQL);
+				try {
+					for (final ActivityLogRecord record : records) {
+						final Long seq = Long.valueOf(record.getSequence());
+						final Long duration = batchDurations.get(seq);
+						bindInsert(insert, batchLogIds.get(seq).longValue(), record, duration == null ? -1 : duration.longValue());
+						insert.addBatch();
+					}
+					insert.executeBatch();
+				} finally {
+					insert.close();
+				}
+			}
+			if (!updates.isEmpty()) {
+				final PreparedStatement update = connection.prepareStatement(UPDATE_DURATION_SQL);
+				try {
+					for (final long[] u : updates) {
+						update.setLong(1, u[0]);
+						update.setLong(2, u[1]);
+						update.addBatch();
+					}
+					update.executeBatch();
+				} finally {
+					update.close();
+				}
+			}
+			tx.commit();
+			tx = null;
+			recentLogIds.putAll(batchLogIds);
+			writtenCount.addAndGet(records.size());
+		} catch (final SQLException e) {
+			throw new JDBCException("Could not write user activity logging entries", e);
+		} finally {
+			if (tx != null) {
+				try {
+					tx.rollback();
+				} catch (final RuntimeException e) {
+					log.warn("Rollback of user activity logging batch failed", e);
+				}
+			}
+			session.close();
+		}
+	}
+
+	private void bindInsert(final PreparedStatement ps, final long logId, final ActivityLogRecord record, final long duration) throws SQLException {
+		int i = 1;
+		ps.setLong(i++, logId);
+		ps.setTimestamp(i++, new Timestamp(record.getCreationTime()));
+		setString(ps, i++, record.getSourceClass());
+		setString(ps, i++, record.getSessionId());
+		ps.setLong(i++, record.getUserId());
+		setString(ps, i++, record.getUserName());
+		for (int p = 1; p <= 12; p++) {
+			setString(ps, i++, record.getUserProperty(p));
+		}
+		setString(ps, i++, record.getActionCrudType());
+		setString(ps, i++, record.getActionVerb());
+		setString(ps, i++, record.getActionObject());
+		ps.setLong(i++, duration);
+		ps.setBoolean(i++, record.isResourceAdminAction());
+		setString(ps, i++, record.getBusinessPath());
+		for (int level = 0; level < 4; level++) {
+			for (int field = 0; field < 3; field++) {
+				setString(ps, i++, record.getResource(level, field));
+			}
+		}
+	}
+
+	private void setString(final PreparedStatement ps, final int index, final String value) throws SQLException {
+		if (value == null) {
+			ps.setNull(index, Types.VARCHAR);
+		} else {
+			ps.setString(index, value);
+		}
+	}
+
+	// JMX MBean Methods
+	// //////////////////
+
+	/**
+	 * @return number of entries waiting in the ring buffer
+	 */
+	public int getQueueDepth() {
+		return queue == null ? 0 : queue.size();
+	}
+
+	public int getQueueCapacity() {
+		return queueSize;
+	}
+
+	/**
+	 * @return number of entries lost because the ring buffer was full or the spill file could not be written
+	 */
+	public long getDropCount() {
+		return dropCount.get();
+	}
+
+	public long getWrittenCount() {
+		return writtenCount.get();
+	}
+
+	public long getSpilledCount() {
+		return spilledCount.get();
+	}
+
+	public long getLastFlushLatencyMillis() {
+		return lastFlushMillis;
+	}
+
+	public long getMaxFlushLatencyMillis() {
+		return maxFlushMillis;
+	}
+
+	public long getAverageFlushLatencyMillis() {
+		final long flushes = flushCount.get();
+		return flushes == 0 ? 0 : totalFlushMillis.get() / flushes;
+	}
+
+	public boolean isSpilling() {
+		return spilling;
+	}
+
+	public int getSpillFileCount() {
+		return spillDirectory == null ? 0 : listSpillFiles().length;
+	}
+
+	// spring setters
+	// //////////////////
+
+	/**
+	 * [used by spring]
+	 */
+	public void setEnabled(final boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * [used by spring]
+	 */
+	public void setQueueSize(final int queueSize) {
+		this.queueSize = queueSize;
+	}
+
+	/**
+	 * [used by spring]
+	 */
+	public void setFlushSize(final int flushSize) {
+		this.flushSize = flushSize;
+	}
+
+	/**
+	 * [used by spring]
+	 */
+	public void setFlushIntervalMillis(final long flushIntervalMillis) {
+		this.flushIntervalMillis = flushIntervalMillis;
+	}
+
+	/**
+	 * [used by spring]
+	 */
+	public void setSpillThresholdMillis(final long spillThresholdMillis) {
+		this.spillThresholdMillis = spillThresholdMillis;
+	}
+
+	/**
+	 * [used by spring]
+	 */
+	public void setProbeIntervalMillis(final long probeIntervalMillis) {
+		this.probeIntervalMillis = probeIntervalMillis;
+	}
+
+	/**
+	 * [used by spring]
+	 */
+	public void setMaxRecordsPerSpillFile(final int maxRecordsPerSpillFile) {
+		this.maxRecordsPerSpillFile = maxRecordsPerSpillFile;
+	}
+
+	/**
+	 * [used by spring] empty means [userdata.dir]/logs/activityspill
+	 */
+	public void setSpillDir(final String spillDir) {
+		this.spillDir = spillDir;
+	}
+
+	/**
+	 * [used by spring]
+	 */
+	public void setSessionFactory(final SessionFactory sessionFactory) {
+		this.sessionFactory = sessionFactory;
+	}
+}
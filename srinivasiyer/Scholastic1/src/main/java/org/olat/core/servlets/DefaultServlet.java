@@ -80,10 +80,12 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.naming.resources.Resource;
 import org.apache.naming.resources.ResourceAttributes;
 import org.olat.core.commons.servlets.util.URLEncoder;
+import org.olat.core.gui.media.LocalFileDelivery;
 import org.olat.core.util.servlets.FastHttpDateFormat;
 import org.olat.core.util.servlets.Globals;
 import org.olat.core.util.servlets.MD5Encoder;
 import org.olat.core.util.servlets.ServerInfo;
+import org.olat.core.util.servlets.VFSDirContext;
 
 /**
  * The default resource-serving servlet for most web applications, used to serve static resources such as HTML pages and images.
@@ -898,7 +900,9 @@ public class DefaultServlet extends HttpServlet {
 					// Silent catch
 				}
 				if (ostream != null) {
-					copy(resourceInfo, ostream);
+					if (!sendfile(request, response, resourceInfo, 0, contentLength - 1)) {
+						copy(resourceInfo, ostream);
+					}
 				} else {
 					copy(resourceInfo, writer);
 				}
@@ -930,7 +934,9 @@ public class DefaultServlet extends HttpServlet {
 						// Silent catch
 					}
 					if (ostream != null) {
-						copy(resourceInfo, ostream, range);
+						if (!sendfile(request, response, resourceInfo, range.start, range.end)) {
+							copy(resourceInfo, ostream, range);
+						}
 					} else {
 						copy(resourceInfo, writer, range);
 					}
@@ -1462,6 +1468,11 @@ public class DefaultServlet extends HttpServlet {
 	 */
 	private void copy(ResourceInfo resourceInfo, ServletOutputStream ostream) throws IOException {
 
+		if (resourceInfo.localFile != null) {
+			LocalFileDelivery.transfer(resourceInfo.localFile, 0, resourceInfo.length - 1, ostream);
+			return;
+		}
+
 		IOException exception = null;
 
 		// FIXME:ms: i18n ?
@@ -1525,6 +1536,11 @@ public class DefaultServlet extends HttpServlet {
 	 */
 	private void copy(ResourceInfo resourceInfo, ServletOutputStream ostream, Range range) throws IOException {
 
+		if (resourceInfo.localFile != null) {
+			LocalFileDelivery.transfer(resourceInfo.localFile, range.start, range.end, ostream);
+			return;
+		}
+
 		IOException exception = null;
 
 		InputStream resourceInputStream = resourceInfo.getStream();
@@ -1584,6 +1600,11 @@ public class DefaultServlet extends HttpServlet {
 	 */
 	private void copy(ResourceInfo resourceInfo, ServletOutputStream ostream, Enumeration ranges, String contentType) throws IOException {
 
+		if (resourceInfo.localFile != null) {
+			copyLocalFile(resourceInfo.localFile, ostream, ranges, contentType);
+			return;
+		}
+
 		IOException exception = null;
 
 		while ((exception == null) && (ranges.hasMoreElements())) {
@@ -1843,6 +1864,57 @@ public class DefaultServlet extends HttpServlet {
 
 	}
 
+	/**
+	 * Hand the delivery of a local file over to the container if it supports sendfile.
+	 * 
+	 * @param resourceInfo The ResourceInfo object
+	 * @param start first byte
+	 * @param end last byte (inclusive)
+	 * @return true if the container sends the file
+	 */
+	private boolean sendfile(HttpServletRequest request, HttpServletResponse response, ResourceInfo resourceInfo, long start, long end) {
+		if (resourceInfo.localFile == null) return false;
+		return LocalFileDelivery.sendfile(request, response, resourceInfo.localFile, start, end);
+	}
+
+	/**
+	 * Write the ranges of a local file, the file is opened once for all ranges.
+	 * 
+	 * @param file The local file
+	 * @param ostream The output stream to write to
+	 * @param ranges Enumeration of the ranges the client wanted to retrieve
+	 * @param contentType Content type of the resource
+	 * @exception IOException if an input/output error occurs
+	 */
+	private void copyLocalFile(File file, ServletOutputStream ostream, Enumeration ranges, String contentType) throws IOException {
+
+		FileInputStream istream = new FileInputStream(file);
+		try {
+			while (ranges.hasMoreElements()) {
+
+				Range currentRange = (Range) ranges.nextElement();
+
+				// Writing MIME header.
+				ostream.println("--" + mimeSeparation);
+				if (contentType != null) ostream.println("Content-Type: " + contentType);
+				ostream.println("Content-Range: bytes " + currentRange.start + "-" + currentRange.end + "/" + currentRange.length);
+				ostream.println();
+
+				// Printing content
+				LocalFileDelivery.transfer(istream, currentRange.start, currentRange.end, ostream);
+			}
+		} finally {
+			try {
+				istream.close();
+			} catch (Throwable t) {
+
+			}
+		}
+
+		ostream.print("--" + mimeSeparation + "--");
+
+	}
+
 	// ------------------------------------------------------ Range Inner Class
 
 	private class Range {
@@ -1894,6 +1966,8 @@ public class DefaultServlet extends HttpServlet {
 		public String strongETag;
 		public boolean exists;
 		public DirContext resources;
+		/** the file behind the resource if it is on the local file system **/
+		public File localFile;
 		protected InputStream is;
 
 		public void recycle() {
@@ -1911,6 +1985,7 @@ public class DefaultServlet extends HttpServlet {
 			strongETag = null;
 			exists = false;
 			resources = null;
+			localFile = null;
 			is = null;
 		}
 
@@ -1926,6 +2001,7 @@ public class DefaultServlet extends HttpServlet {
 				if (object instanceof Resource) {
 					file = (Resource) object;
 					collection = false;
+					localFile = VFSDirContext.getLocalFile(object);
 				} else if (object instanceof DirContext) {
 					directory = (DirContext) object;
 					collection = true;
@@ -80,6 +80,13 @@ public class ClusterCacheWrapperImpl extends CacheWrapperImpl {
 		afterChanged(new String[] { key });
 	}
 
+	@Override
+	public void removeMulti(String[] keys) {
+		super.removeMulti(keys);
+		// one message for all keys, same as in updateMulti
+		afterChanged(keys);
+	}
+
 	ClusterCacheWrapperImpl getChildWithName(String childName) {
 		Map<String, CacheWrapper> children = getChildren();
 		return children == null ? null : (ClusterCacheWrapperImpl) children.get(childName);
@@ -85,9 +85,25 @@ public class CacheWrapperImpl implements CacheWrapper {
 	 * @return
 	 */
 	protected CacheWrapper createChildCacheWrapper(String childName, CacheConfig aconfig) {
+		if (aconfig.isConcurrent()) { return new ConcurrentCacheWrapperImpl(childName, aconfig); }
 		return new CacheWrapperImpl(childName, aconfig);
 	}
 
+	/**
+	 * disposes the lock-free caches among the children, so that they are removed from the registry of the statistics. the ehcaches are shut down with the
+	 * cachemanager.
+	 */
+	public void dispose() {
+		synchronized (this) {// cluster_ok by definition of this class as used in single vm
+			if (children != null) {
+				for (CacheWrapper child : children.values()) {
+					ConcurrentCacheWrapperImpl.disposeCacheWrapper(child);
+				}
+				children = null;
+			}
+		}
+	}
+
 	/**
 	 * @return the map with the children or null
 	 */
@@ -138,6 +154,15 @@ public class CacheWrapperImpl implements CacheWrapper {
 		}
 	}
 
+	@Override
+	public void removeMulti(String[] keys) {
+		synchronized (cache) {// cluster_ok by definition of this class as used in single vm
+			for (int i = 0; i < keys.length; i++) {
+				cache.remove(keys[i]);
+			}
+		}
+	}
+
 	@Override
 	public void update(String key, Serializable value) {
 		// update is the same as put for the singlevm mode
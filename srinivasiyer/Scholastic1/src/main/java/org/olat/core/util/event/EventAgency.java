@@ -21,12 +21,10 @@
 
 package org.olat.core.util.event;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
-import java.util.WeakHashMap;
 
 import org.olat.core.gui.control.Controller;
 import org.olat.core.gui.control.Event;
@@ -34,91 +32,79 @@ import org.olat.core.id.Identity;
 import org.olat.core.logging.AssertException;
 import org.olat.core.logging.OLog;
 import org.olat.core.logging.Tracing;
+import org.olat.core.logging.activity.IUserActivityLogger;
 import org.olat.core.logging.activity.ThreadLocalUserActivityLoggerInstaller;
 import org.olat.core.logging.activity.UserActivityLoggerImpl;
 
 /**
  * Description: <br>
- * note: need to sync on each method since the hashmap is not synced itself and also to ensure listeners.values() does not break with a concurrentmodificationexception
- * (weakhashmap has fail-fast iterators, but read-only operation do not trigger removing entries from the referencequeue.
+ * the listeners are kept in a copy-on-write array of weak references: firing an event reads the currently published array without locking or copying, registering and
+ * deregistering (rare compared to firing) copy the array under the lock of this agency. listeners which have been garbage collected are skipped while firing and
+ * removed lazily with the next change of the array, or by an explicit cleanup when firing found too many of them.
+ * <p>
+ * firing is not free of allocations: per event one invocation is created which is reused for all listeners, and one empty user activity logger shared by the
+ * non-controller listeners. every controller listener still gets its own event bus logger, as the logging context differs per controller.
  * 
  * @author Felix Jost
  */
 class EventAgency {
-	private WeakHashMap<GenericEventListener, String> listeners = new WeakHashMap<GenericEventListener, String>();
-	private OLog log = Tracing.createLoggerFor(this.getClass());
+	private static final ListenerRef[] EMPTY = new ListenerRef[0];
 
-	// private Event latestEvent = null;
-	// private long latestEventTimestamp; // ts when the latest event was fired
-	// private long ttl = 0; // time-to-live in miliseconds
+	// never modified once published, replaced as a whole under the lock of this agency
+	private volatile ListenerRef[] listeners = EMPTY;
+	private OLog log = Tracing.createLoggerFor(this.getClass());
 
 	EventAgency() {
 		//
 	}
 
-	/**
-	 * @param ttl The time-to-live to set, in miliseconds. the latest event fired will be kept "in store" for that period in time and will be delivered upon registering.
-	 *            defaults to 0, meaning that the latest event is never stored.
-	 */
-	/*
-	 * EventAgency(long ttl) { this.ttl = ttl; }
-	 */
-
 	/**
 	 * @param event
 	 */
 	void fireEvent(final Event event) {
-		GenericEventListener[] liArr;
-		synchronized (listeners) { // o_clusterOK by:fj
-			// needed to avoid concurrentmodificationexception, since the recipients may remove themselves from the list and the listeners lock is reentrant
-			List<GenericEventListener> li = new ArrayList<GenericEventListener>(listeners.keySet());
-			// instead synchronize looping to avoid concurrent modifcation exception
-			// -> synchronize copy to array
-			// -> loop over array
-			liArr = new GenericEventListener[li.size()];
-			liArr = li.toArray(liArr);
-		}
-		// -> avoid dead lock (see OLAT-3681)
-		// no sync during firing to listeners (potentially "long" taking - although recommendation is to keep event methods short.
-
+		// no sync during firing to listeners (potentially "long" taking - although recommendation is to keep event methods short, see OLAT-3681).
+		// listeners may remove themselves while being called, this only publishes a new array and does not affect the one we loop over.
+		final ListenerRef[] liArr = listeners;
+		if (liArr.length == 0) { return; }
+
+		final ListenerInvocation invocation = new ListenerInvocation(event);
+		IUserActivityLogger emptyLogger = null;
+		int stale = 0;
 		for (int i = 0; i < liArr.length; i++) {
+			final GenericEventListener listener = liArr[i].get();
+			if (listener == null) {
+				stale++;
+				continue;
+			}
 			try {
-				final GenericEventListener listener = liArr[i];
-
+				invocation.listener = listener;
 				// make sure GenericEvents are only sent when controller is not yet disposed
 				if (listener instanceof Controller) {
 					Controller dCtrl = (Controller) listener;
 					if (!dCtrl.isDisposed()) {
-						ThreadLocalUserActivityLoggerInstaller.runWithUserActivityLogger(new Runnable() {
-							@Override
-							public void run() {
-								listener.event(event);
-							}
-						}, UserActivityLoggerImpl.newLoggerForEventBus(dCtrl));
+						ThreadLocalUserActivityLoggerInstaller.runWithUserActivityLogger(invocation, UserActivityLoggerImpl.newLoggerForEventBus(dCtrl));
 					}
 				} else {
 					if (log.isDebug()) {
 						log.debug("fireEvent: Non-Controller: " + listener);
 					}
 					// is there a need to differ the events sent on one VM and in cluster mode?
-					ThreadLocalUserActivityLoggerInstaller.runWithUserActivityLogger(new Runnable() {
-						@Override
-						public void run() {
-							listener.event(event);
-						}
-					}, ThreadLocalUserActivityLoggerInstaller.createEmptyUserActivityLogger());
+					// the empty logger is only used as blueprint and copied for the runtime, so one is enough per event
+					if (emptyLogger == null) {
+						emptyLogger = ThreadLocalUserActivityLoggerInstaller.createEmptyUserActivityLogger();
+					}
+					ThreadLocalUserActivityLoggerInstaller.runWithUserActivityLogger(invocation, emptyLogger);
 				}
 			} catch (RuntimeException e) {
-				log.error("Error while sending generic event! Removing listener: " + liArr[i], e);
-				removeListener(liArr[i]);
+				log.error("Error while sending generic event! Removing listener: " + listener, e);
+				removeListener(listener);
 			}
 		}
 
-		// remember the latest event for a while so e.g. controller which link to resources res (link called res') can catch up on missed updates.
-		/*
-		 * if (ttl != 0) { latestEvent = event; latestEventTimestamp = System.currentTimeMillis(); }
-		 */
-
+		// do not let the array grow with garbage collected listeners on channels where nobody registers or deregisters anymore
+		if (stale > 0 && stale * 4 >= liArr.length) {
+			expungeStaleListeners();
+		}
 	}
 
 	/**
@@ -127,35 +113,38 @@ class EventAgency {
 	 * @return a Set of IdentitieNames (Strings) who are registered with this event agency.
 	 */
 	Set getListeningIdentityNames() {
-		synchronized (listeners) {// cluster_ok
-			Collection<String> c = listeners.values();
-			Set<String> distinctIds = new HashSet<String>(c);
-			return distinctIds;
+		final ListenerRef[] liArr = listeners;
+		Set<String> distinctIds = new HashSet<String>();
+		for (int i = 0; i < liArr.length; i++) {
+			if (liArr[i].get() != null) {
+				distinctIds.add(liArr[i].identityName);
+			}
 		}
+		return distinctIds;
 	}
 
 	/**
-	 * impl note: the underlying impl takes a weakHashMap, so unused entries are cleared. an instance may not be added twice (make no sense anyway), since we are using a
-	 * map, not a list.
+	 * impl note: the listeners are referenced weakly, so unused entries are cleared. an instance may not be added twice (make no sense anyway).
 	 * 
 	 * @param gel the instance which wants to listen to events.
 	 * @param identity the identity belonging to the listener, or null if there is none (e.g. the LockManager = the 'System')
 	 */
 	void addListener(GenericEventListener gel, Identity identity) {
-		synchronized (listeners) { // o_clusterOK by:fj
-			if (listeners.containsKey(gel)) throw new AssertException(" already added gel:" + gel.getClass().getName() + " to eventagency " + this.toString());
-
-			// here: look at the latest event fired. (1 sticky)
-			// if it is younger that this agency's ttl, then immediately fire it to the registrant.
-			//
-			/*
-			 * if (latestEvent != null) { long now = System.currentTimeMillis(); if (now - latestEventTimestamp < ttl) { gel.event(latestEvent); // by design: the
-			 * latestEvent is never consumed; // an eventlistener could receive the same message more than once if a) the ttl is high, and b) // it registers/deregisters
-			 * more than once. } else { latestEvent = null; // object is too old to be considered as missed update } }
-			 */
-
-			String identityName = (identity != null ? identity.getName() : null);
-			listeners.put(gel, identityName);
+		String identityName = (identity != null ? identity.getName() : null);
+		synchronized (this) { // o_clusterOK by:fj
+			final ListenerRef[] liArr = listeners;
+			// one pass only, the garbage collector may clear a reference at any time
+			final ListenerRef[] newArr = new ListenerRef[liArr.length + 1];
+			int pos = 0;
+			for (int i = 0; i < liArr.length; i++) {
+				GenericEventListener listener = liArr[i].get();
+				if (listener != null) {
+					if (listener.equals(gel)) throw new AssertException(" already added gel:" + gel.getClass().getName() + " to eventagency " + this.toString());
+					newArr[pos++] = liArr[i];
+				}
+			}
+			newArr[pos++] = newListenerRef(gel, identityName);
+			listeners = pos == newArr.length ? newArr : Arrays.copyOf(newArr, pos);
 		}
 	}
 
@@ -163,8 +152,12 @@ class EventAgency {
 	 * @param gel
 	 */
 	void removeListener(GenericEventListener gel) {
-		synchronized (listeners) { // o_clusterOK by:fj
-			listeners.remove(gel);
+		synchronized (this) { // o_clusterOK by:fj
+			final ListenerRef[] liArr = listeners;
+			final ListenerRef[] newArr = copyAliveListeners(liArr, gel);
+			if (newArr != liArr) {
+				listeners = newArr;
+			}
 		}
 	}
 
@@ -172,9 +165,74 @@ class EventAgency {
 	 * @return the current number of listeners listening to this channel/eventagency
 	 */
 	int getListenerCount() {
-		synchronized (listeners) { // o_clusterOK by:fj
-			return listeners.size();
+		final ListenerRef[] liArr = listeners;
+		int alive = 0;
+		for (int i = 0; i < liArr.length; i++) {
+			if (liArr[i].get() != null) {
+				alive++;
+			}
 		}
+		return alive;
 	}
 
-}
\ No newline at end of file
+	private void expungeStaleListeners() {
+		synchronized (this) { // o_clusterOK by:fj
+			final ListenerRef[] liArr = listeners;
+			final ListenerRef[] newArr = copyAliveListeners(liArr, null);
+			if (newArr != liArr) {
+				listeners = newArr;
+			}
+		}
+	}
+
+	/**
+	 * copies the references of all listeners which are not garbage collected and not equal to the excluded one in one pass.
+	 * 
+	 * @return the source itself if no reference was dropped
+	 */
+	private static ListenerRef[] copyAliveListeners(ListenerRef[] source, GenericEventListener excluded) {
+		final ListenerRef[] target = new ListenerRef[source.length];
+		int pos = 0;
+		for (int i = 0; i < source.length; i++) {
+			GenericEventListener listener = source[i].get();
+			if (listener != null && (excluded == null || !listener.equals(excluded))) {
+				target[pos++] = source[i];
+			}
+		}
+		if (pos == source.length) { return source; }
+		return pos == 0 ? EMPTY : Arrays.copyOf(target, pos);
+	}
+
+	/**
+	 * package-private to be overridden by tests
+	 */
+	ListenerRef newListenerRef(GenericEventListener listener, String identityName) {
+		return new ListenerRef(listener, identityName);
+	}
+
+	static class ListenerRef extends WeakReference<GenericEventListener> {
+		private final String identityName;
+
+		ListenerRef(GenericEventListener listener, String identityName) {
+			super(listener);
+			this.identityName = identityName;
+		}
+	}
+
+	/**
+	 * calls the listener which is currently set. reused for all listeners of one fireEvent, which run one after the other in the same thread.
+	 */
+	private static class ListenerInvocation implements Runnable {
+		private final Event event;
+		private GenericEventListener listener;
+
+		ListenerInvocation(Event event) {
+			this.event = event;
+		}
+
+		@Override
+		public void run() {
+			listener.event(event);
+		}
+	}
+}
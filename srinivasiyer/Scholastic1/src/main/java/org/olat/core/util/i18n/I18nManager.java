@@ -45,6 +45,9 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
@@ -121,6 +124,10 @@ public class I18nManager extends BasicManager {
 	private Map<String, Properties> cachedBundles = new HashMap<String, Properties>();
 	private Map<String, String> cachedJSTranslatorData = new HashMap<String, String>();
 	private Map<String, Set<String>> referencingBundlesIndex = new HashMap<String, Set<String>>();
+	// compiled translations per bundle, locale and fallback flags, read without lock
+	private final ConcurrentMap<String, TranslationTable> translationTables = new ConcurrentHashMap<String, TranslationTable>();
+	// incremented whenever translations change, tables compiled before are not published
+	private final AtomicLong translationTablesVersion = new AtomicLong();
 	private boolean cachingEnabled = true;
 
 	private static FilenameFilter i18nFileFilter = new FilenameFilter() {
@@ -178,9 +185,119 @@ public class I18nManager extends BasicManager {
 	 * @return The formatted message in the given language or NULL if no fallback possible and not found
 	 */
 	public String getLocalizedString(String bundleName, String key, Object[] args, Locale locale, boolean overlayEnabled, boolean fallBackToDefaultLocale) {
+		if (cachingEnabled && locale != null && !isCurrentThreadMarkLocalizedStringsEnabled()) {
+			// the lookup order above is already applied in the compiled translations
+			return getTranslationTable(bundleName, locale, overlayEnabled, fallBackToDefaultLocale).getLocalizedString(key, args);
+		}
 		return getLocalizedString(bundleName, key, args, locale, overlayEnabled, fallBackToDefaultLocale, true, true, 0);
 	}
 
+	/**
+	 * Get the compiled translations of a bundle, compile them at the first access
+	 * 
+	 * @param bundleName
+	 * @param locale
+	 * @param overlayEnabled
+	 * @param fallBackToDefaultLocale
+	 * @return the translation table
+	 */
+	TranslationTable getTranslationTable(String bundleName, Locale locale, boolean overlayEnabled, boolean fallBackToDefaultLocale) {
+		String tableKey = calcPropertiesFileKey(locale, bundleName) + ":" + overlayEnabled + ":" + fallBackToDefaultLocale;
+		TranslationTable table = translationTables.get(tableKey);
+		if (table == null) {
+			long version = translationTablesVersion.get();
+			table = compileTranslationTable(bundleName, locale, overlayEnabled, fallBackToDefaultLocale);
+			if (version == translationTablesVersion.get()) {
+				TranslationTable existingTable = translationTables.putIfAbsent(tableKey, table);
+				if (existingTable != null) {
+					table = existingTable;
+				} else if (version != translationTablesVersion.get()) {
+					// translations changed while publishing, compile again at next access
+					translationTables.remove(tableKey, table);
+				}
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Compile the translations of a bundle: all keys of all property files the lookup of getLocalizedString() can reach are looked up once with exactly this lookup,
+	 * the found values are put into the table.
+	 * 
+	 * @param bundleName
+	 * @param locale
+	 * @param overlayEnabled
+	 * @param fallBackToDefaultLocale
+	 * @return the new translation table
+	 */
+	private TranslationTable compileTranslationTable(String bundleName, Locale locale, boolean overlayEnabled, boolean fallBackToDefaultLocale) {
+		Set<Locale> lookupLocales = new HashSet<Locale>();
+		addLookupLocales(locale, lookupLocales);
+		addLookupLocales(I18nModule.getDefaultLocale(), lookupLocales);
+		addLookupLocales(I18nModule.getFallbackLocale(), lookupLocales);
+		Set<String> keys = new HashSet<String>();
+		for (Locale lookupLocale : lookupLocales) {
+			if (overlayEnabled) {
+				Locale overlayLocale = I18nModule.getOverlayLocales().get(lookupLocale);
+				if (overlayLocale != null) {
+					keys.addAll(getResolvedProperties(overlayLocale, bundleName).stringPropertyNames());
+				}
+			}
+			keys.addAll(getResolvedProperties(lookupLocale, bundleName).stringPropertyNames());
+		}
+		Map<String, String> translations = new HashMap<String, String>();
+		// the table is shared, compile it without the inline translation markup of this thread
+		Boolean markLocalizedStrings = threadLocalIsMarkLocalizedStringsEnabled.isMarkLocalizedStringsEnabled();
+		threadLocalIsMarkLocalizedStringsEnabled.setMarkLocalizedStringsEnabled(null);
+		try {
+			for (String key : keys) {
+				String value = getLocalizedString(bundleName, key, null, locale, overlayEnabled, fallBackToDefaultLocale, true, true, 0);
+				if (value != null) {
+					translations.put(key, value);
+				}
+			}
+		} finally {
+			threadLocalIsMarkLocalizedStringsEnabled.setMarkLocalizedStringsEnabled(markLocalizedStrings);
+		}
+		return new TranslationTable(bundleName, locale, overlayEnabled, fallBackToDefaultLocale, translations);
+	}
+
+	/**
+	 * Add the locale and the locales without variant and country to the set, as used in the fallbacks of getLocalizedString()
+	 * 
+	 * @param locale
+	 * @param lookupLocales
+	 */
+	private void addLookupLocales(Locale locale, Set<Locale> lookupLocales) {
+		if (locale == null || !lookupLocales.add(locale)) { return; }
+		if (!locale.getVariant().equals("")) {
+			addLookupLocales(I18nModule.getAllLocales().get(locale.getLanguage() + "_" + locale.getCountry()), lookupLocales);
+		}
+		if (!locale.getCountry().equals("")) {
+			addLookupLocales(I18nModule.getAllLocales().get(locale.getLanguage()), lookupLocales);
+		}
+	}
+
+	/**
+	 * Compile the translation tables of the given bundles again and replace them. Readers get either the old or the new table, never a missing one.
+	 * 
+	 * @param bundleNames
+	 */
+	private void refreshTranslationTables(Set<String> bundleNames) {
+		translationTablesVersion.incrementAndGet();
+		for (Map.Entry<String, TranslationTable> entry : translationTables.entrySet()) {
+			TranslationTable oldTable = entry.getValue();
+			if (bundleNames.contains(oldTable.getBundleName())) {
+				long version = translationTablesVersion.get();
+				TranslationTable table = compileTranslationTable(oldTable.getBundleName(), oldTable.getLocale(), oldTable.isOverlayEnabled(),
+						oldTable.isFallBackToDefaultLocale());
+				if (!translationTables.replace(entry.getKey(), oldTable, table) || version != translationTablesVersion.get()) {
+					translationTables.remove(entry.getKey(), table);
+				}
+			}
+		}
+	}
+
 	public String getLocalizedString(String bundleName, String key, Object[] args, Locale locale, boolean overlayEnabled, boolean fallBackToDefaultLocale,
 			boolean fallBackToFallbackLocale, boolean resolveRecursively, int recursionLevel) {
 		String msg = null;
@@ -656,6 +773,7 @@ public class I18nManager extends BasicManager {
 					for (String bundleName : referencingBundles) {
 						cachedBundles.remove(bundleName);
 					}
+					refreshTranslationTables(referencingBundles);
 				}
 			}
 		}
@@ -960,6 +1078,10 @@ public class I18nManager extends BasicManager {
 				}
 			}
 		}
+		// 4) Replace the compiled translations
+		if (locale != null) {
+			refreshTranslationTables(Collections.singleton(bundleName));
+		}
 	}
 
 	/**
@@ -1006,6 +1128,10 @@ public class I18nManager extends BasicManager {
 				knownBundles.remove(bundleName);
 			}
 		}
+		// 4) Replace the compiled translations
+		if (locale != null) {
+			refreshTranslationTables(Collections.singleton(bundleName));
+		}
 	}
 
 	/**
@@ -1439,6 +1565,8 @@ public class I18nManager extends BasicManager {
 			cachedJSTranslatorData.clear();
 			referencingBundlesIndex.clear();
 		}
+		translationTablesVersion.incrementAndGet();
+		translationTables.clear();
 	}
 
 	/**
@@ -1457,6 +1585,8 @@ public class I18nManager extends BasicManager {
 			referencingBundlesIndex = new AlwaysEmptyMap<String, Set<String>>();
 		}
 		this.cachingEnabled = useCache;
+		translationTablesVersion.incrementAndGet();
+		translationTables.clear();
 	}
 
 	/**
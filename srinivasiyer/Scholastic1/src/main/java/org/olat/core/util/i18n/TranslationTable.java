@@ -0,0 +1,174 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.core.util.i18n;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Description:<br>
+ * The compiled translations of one bundle in one locale: every key that can be found for this bundle and locale is mapped to its final value with the overlay, the
+ * variant, country, default and fallback locales and the references to other keys already resolved. The table is immutable, lookups need no lock.
+ * <p>
+ * Values with arguments ({0}, {1}...) are parsed once. As long as the arguments are strings they are formatted without MessageFormat, any other pattern or argument
+ * type is formatted by MessageFormat exactly like I18nManager.getLocalizedString() does it.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+final class TranslationTable {
+	private final String bundleName;
+	private final Locale locale;
+	private final boolean overlayEnabled;
+	private final boolean fallBackToDefaultLocale;
+	private final Map<String, String> translations;
+	private final Map<String, MessagePattern> patterns;
+
+	/**
+	 * @param bundleName
+	 * @param locale
+	 * @param overlayEnabled
+	 * @param fallBackToDefaultLocale
+	 * @param translations the resolved values, the map is owned by the table from now on
+	 */
+	TranslationTable(String bundleName, Locale locale, boolean overlayEnabled, boolean fallBackToDefaultLocale, Map<String, String> translations) {
+		this.bundleName = bundleName;
+		this.locale = locale;
+		this.overlayEnabled = overlayEnabled;
+		this.fallBackToDefaultLocale = fallBackToDefaultLocale;
+		this.translations = translations;
+		this.patterns = new HashMap<String, MessagePattern>();
+		for (Map.Entry<String, String> entry : translations.entrySet()) {
+			if (entry.getValue().indexOf('{') > -1) {
+				patterns.put(entry.getKey(), new MessagePattern(entry.getValue()));
+			}
+		}
+	}
+
+	String getBundleName() {
+		return bundleName;
+	}
+
+	Locale getLocale() {
+		return locale;
+	}
+
+	boolean isOverlayEnabled() {
+		return overlayEnabled;
+	}
+
+	boolean isFallBackToDefaultLocale() {
+		return fallBackToDefaultLocale;
+	}
+
+	int size() {
+		return translations.size();
+	}
+
+	/**
+	 * @param key
+	 * @param args The arguments used while formatting or NULL if no arguments
+	 * @return The formatted message or NULL if the key is not translated
+	 */
+	String getLocalizedString(String key, Object[] args) {
+		String msg = translations.get(key);
+		if (msg == null || args == null) { return msg; }
+		MessagePattern pattern = patterns.get(key);
+		if (pattern == null) {
+			// no arguments in the value, MessageFormat would return it unchanged
+			return msg;
+		}
+		return pattern.format(args);
+	}
+
+	/**
+	 * A value split into literal text and argument numbers
+	 */
+	static final class MessagePattern {
+		private final String value;
+		/** String or Integer, null when the value needs MessageFormat **/
+		private final Object[] segments;
+
+		MessagePattern(String value) {
+			this.value = value;
+			this.segments = parse(value);
+		}
+
+		private static Object[] parse(String value) {
+			List<Object> segments = new ArrayList<Object>();
+			int pos = 0;
+			int start;
+			while ((start = value.indexOf('{', pos)) > -1) {
+				int end = value.indexOf('}', start);
+				// only {0} to {9}, formats, styles and everything else are left to MessageFormat
+				if (end != start + 2) { return null; }
+				char digit = value.charAt(start + 1);
+				if (digit < '0' || digit > '9') { return null; }
+				if (start > pos) {
+					segments.add(value.substring(pos, start));
+				}
+				segments.add(Integer.valueOf(digit - '0'));
+				pos = end + 1;
+			}
+			if (pos < value.length()) {
+				segments.add(value.substring(pos));
+			}
+			return segments.toArray();
+		}
+
+		String format(Object[] args) {
+			if (segments == null) { return formatWithMessageFormat(args); }
+			StringBuilder sb = new StringBuilder(value.length() + 16 * args.length);
+			for (Object segment : segments) {
+				if (segment instanceof String) {
+					sb.append((String) segment);
+				} else {
+					int argumentNumber = ((Integer) segment).intValue();
+					if (argumentNumber >= args.length) {
+						sb.append('{').append(argumentNumber).append('}');
+					} else if (args[argumentNumber] == null) {
+						sb.append("null");
+					} else if (args[argumentNumber] instanceof String) {
+						sb.append((String) args[argumentNumber]);
+					} else {
+						// numbers and dates are formatted by MessageFormat
+						return formatWithMessageFormat(args);
+					}
+				}
+			}
+			return sb.toString();
+		}
+
+		private String formatWithMessageFormat(Object[] args) {
+			String msg = value;
+			// Escape single quotes with single quotes. Single quotes have special meaning in MessageFormat
+			// See OLAT-5107, OLAT-5756
+			if (msg.indexOf("'") > -1) {
+				msg = msg.replaceAll("'", "''");
+			}
+			return MessageFormat.format(msg, args);
+		}
+	}
+}
@@ -21,6 +21,7 @@
 
 package org.olat.core.util.servlets;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -55,6 +56,7 @@ import org.apache.naming.resources.ResourceAttributes;
 import org.olat.core.commons.modules.bc.meta.MetaInfo;
 import org.olat.core.commons.modules.bc.meta.MetaInfoHelper;
 import org.olat.core.commons.modules.bc.meta.tagged.MetaTagged;
+import org.olat.core.gui.media.LocalFileDelivery;
 import org.olat.core.id.Identity;
 import org.olat.core.util.FileUtils;
 import org.olat.core.util.UserSession;
@@ -831,6 +833,15 @@ public class VFSDirContext extends BaseDirContext {
 		return entries;
 	}
 
+	/**
+	 * @param resource an object looked up in a VFSDirContext
+	 * @return the file behind the resource if it is a plain file on the local file system, null otherwise
+	 */
+	public static File getLocalFile(Object resource) {
+		if (resource instanceof VFSResource) return LocalFileDelivery.getLocalFile(((VFSResource) resource).vfsItem);
+		return null;
+	}
+
 	// ----------------------------------------------- FileResource Inner Class
 
 	/**
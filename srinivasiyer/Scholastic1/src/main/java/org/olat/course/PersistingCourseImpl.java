@@ -270,13 +270,29 @@ public class PersistingCourseImpl implements ICourse, OLATResourceable, Serializ
 	}
 
 	/**
-	 * Save the run structure to disk, persist to the xml file
+	 * Save the run structure to disk, persist to the xml file and compile it for fast loading
 	 */
 	void saveRunStructure() {
 		writeObject(RUNSTRUCTURE_XML, getRunStructure());
+		final File fCourseBase = getCourseBaseContainer().getBasefile();
+		CompiledRunStructure.write(fCourseBase, getRunStructure(), new File(fCourseBase, RUNSTRUCTURE_XML));
+		// the conditions of the published structure are compiled at their first evaluation
+		getCourseEnvironment().getConditionExpressionCache().clear();
 		log.debug("saveRunStructure");
 	}
 
+	/**
+	 * @return a private copy of the run structure, from the compiled run structure if it is up to date
+	 */
+	Structure copyRunStructure() {
+		final File fCourseBase = getCourseBaseContainer().getBasefile();
+		final Structure copy = CompiledRunStructure.read(fCourseBase, new File(fCourseBase, RUNSTRUCTURE_XML));
+		if (copy != null) { return copy; }
+		synchronized (this) { // o_clusterNOK - only without compiled run structure, clones the shared instance as copyCourse always did
+			return (Structure) XStreamHelper.xstreamClone(getRunStructure());
+		}
+	}
+
 	/**
 	 * Save the editor tree model to disk, persist to the xml file
 	 */
@@ -390,9 +406,16 @@ public class PersistingCourseImpl implements ICourse, OLATResourceable, Serializ
 		 * remember that loading of the courseConfiguration is already done within the constructor !
 		 */
 		Object obj;
-		obj = readObject(RUNSTRUCTURE_XML);
-		if (!(obj instanceof Structure)) { throw new AssertException("Error reading course run structure."); }
-		runStructure = (Structure) obj;
+		final File fCourseBase = getCourseBaseContainer().getBasefile();
+		final File fRunStructure = new File(fCourseBase, RUNSTRUCTURE_XML);
+		runStructure = CompiledRunStructure.read(fCourseBase, fRunStructure);
+		if (runStructure == null) {
+			obj = readObject(RUNSTRUCTURE_XML);
+			if (!(obj instanceof Structure)) { throw new AssertException("Error reading course run structure."); }
+			runStructure = (Structure) obj;
+			// first load after an import, an upgrade or a change of the xml: compile it for the next time
+			CompiledRunStructure.write(fCourseBase, runStructure, fRunStructure);
+		}
 		initHasAssessableNodes();
 
 		obj = readObject(EDITORTREEMODEL_XML);
@@ -24,6 +24,7 @@ package org.olat.course;
 import java.io.Serializable;
 
 import org.olat.course.nodes.CourseNode;
+import org.olat.course.run.scoring.ScoreDependencies;
 
 /**
  * Description:<BR/>
@@ -38,6 +39,8 @@ public class Structure implements Serializable {
 	private CourseNode rootNode = null;
 	transient private final static int CURRENTVERSION = 2;
 	private int version;
+	/** built at first use, not persisted **/
+	private transient volatile ScoreDependencies scoreDependencies;
 
 	/**
 	 * Constructor for the OLAT course structure
@@ -59,6 +62,20 @@ public class Structure implements Serializable {
 	 */
 	public void setRootNode(final CourseNode node) {
 		rootNode = node;
+		scoreDependencies = null;
+	}
+
+	/**
+	 * @return the dependency graph of the score and passed calculations of this structure
+	 */
+	public ScoreDependencies getScoreDependencies() {
+		ScoreDependencies dependencies = scoreDependencies;
+		if (dependencies == null) {
+			// concurrent first calls may build the graph twice, both are equal
+			dependencies = new ScoreDependencies(rootNode);
+			scoreDependencies = dependencies;
+		}
+		return dependencies;
 	}
 
 	/**
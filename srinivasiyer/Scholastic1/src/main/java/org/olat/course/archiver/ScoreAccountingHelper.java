@@ -22,9 +22,11 @@
 package org.olat.course.archiver;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import org.olat.basesecurity.BaseSecurity;
 import org.olat.basesecurity.BaseSecurityManager;
@@ -103,8 +105,20 @@ public class ScoreAccountingHelper {
 			tableHeader2.append("\t");
 		}
 
-		// preload user properties cache
-		course.getCourseEnvironment().getAssessmentManager().preloadCache();
+		// preload user properties cache of the exported identities, read the attempts of all identities with one call per node
+		final AssessmentManager am = course.getCourseEnvironment().getAssessmentManager();
+		final List<Identity> identityList = new ArrayList<Identity>(identities.size());
+		for (final Iterator iter = identities.iterator(); iter.hasNext();) {
+			identityList.add((Identity) iter.next());
+		}
+		am.preloadCache(identityList);
+		final Map<AssessableCourseNode, Map<Long, Integer>> attemptsByNode = new HashMap<AssessableCourseNode, Map<Long, Integer>>();
+		for (final Iterator iter = myNodes.iterator(); iter.hasNext();) {
+			final AssessableCourseNode acnode = (AssessableCourseNode) iter.next();
+			if (acnode.hasAttemptsConfigured()) {
+				attemptsByNode.put(acnode, am.getAttempts(identityList, acnode));
+			}
+		}
 
 		boolean firstIteration = true;
 		int rowNumber = 1;
@@ -129,7 +143,6 @@ public class ScoreAccountingHelper {
 			ienv.setIdentity(identity);
 			final UserCourseEnvironment uce = new UserCourseEnvironmentImpl(ienv, course.getCourseEnvironment());
 			uce.getScoreAccounting().evaluateAll();
-			final AssessmentManager am = course.getCourseEnvironment().getAssessmentManager();
 
 			final Iterator iterNodes = myNodes.iterator();
 			while (iterNodes.hasNext()) {
@@ -189,7 +202,7 @@ public class ScoreAccountingHelper {
 					}
 
 					if (attemptsOk) {
-						final Integer attempts = am.getNodeAttempts(acnode, identity);
+						final Integer attempts = attemptsByNode.get(acnode).get(identity.getKey());
 						final int a = attempts.intValue();
 						nodeColumnOk = true;
 						tabs.append("\t"); // tabulators for header1 after node title
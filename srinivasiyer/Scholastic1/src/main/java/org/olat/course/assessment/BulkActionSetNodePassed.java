@@ -22,8 +22,10 @@
 package org.olat.course.assessment;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.olat.core.gui.translator.Translator;
 import org.olat.core.id.Identity;
@@ -68,6 +70,7 @@ public class BulkActionSetNodePassed extends BulkAction {
 				"use constructor with course, assessable coursnode and coachidentity"); }
 		final List feedbacks = new ArrayList(identitiesAndTheirsNodePassed.size());
 		final ICourse course = CourseFactory.loadCourse(ores);
+		final Map<Long, Float> scores = loadScores(identitiesAndTheirsNodePassed, course);
 		for (final Iterator iter = identitiesAndTheirsNodePassed.iterator(); iter.hasNext();) {
 			final Object[] identityAndItsNodePassed = (Object[]) iter.next();
 			if (identityAndItsNodePassed[0] != null) {
@@ -79,8 +82,8 @@ public class BulkActionSetNodePassed extends BulkAction {
 					final String nodePassed = (String) identityAndItsNodePassed[1];
 					if ((nodePassed != null && nodePassed.equals("y")) || (nodePassed != null && nodePassed.equals("n"))) {
 						if (hasPassed && cut == null) { // Configuration of manual assessment --> Display passed/not passed: yes, Type of display: Manual by tutor
-							final ScoreEvaluation seOld = courseNode.getUserScoreEvaluation(uce);
-							final Float score = seOld.getScore();
+							// the score is kept
+							final Float score = scores.get(((Identity) identityAndItsNodePassed[0]).getKey());
 							Boolean passed = Boolean.TRUE;
 							if (nodePassed.equals("n")) {
 								passed = Boolean.FALSE;
@@ -117,6 +120,27 @@ public class BulkActionSetNodePassed extends BulkAction {
 		return feedbacks;
 	}
 
+	/**
+	 * Load the scores of all identities which get a new passed value with one call, the scores are kept when the passed value is set.
+	 * 
+	 * @param identitiesAndTheirsNodePassed
+	 * @param course
+	 * @return Map of identity key to score
+	 */
+	private Map<Long, Float> loadScores(final List identitiesAndTheirsNodePassed, final ICourse course) {
+		if (!hasPassed || cut != null || !courseNode.hasScoreConfigured()) { return Collections.emptyMap(); }
+		final List<Identity> identities = new ArrayList<Identity>();
+		for (final Iterator iter = identitiesAndTheirsNodePassed.iterator(); iter.hasNext();) {
+			final Object[] identityAndItsNodePassed = (Object[]) iter.next();
+			final Identity identity = (Identity) identityAndItsNodePassed[0];
+			if (identity != null && allowedIdKeys.contains(identity.getKey())) {
+				identities.add(identity);
+			}
+		}
+		if (identities.isEmpty()) { return Collections.emptyMap(); }
+		return course.getCourseEnvironment().getAssessmentManager().getScores(identities, courseNode);
+	}
+
 	public void setCourseNode(final AssessableCourseNode courseNode) {
 		this.courseNode = courseNode;
 		this.hasPassed = courseNode.hasPassedConfigured();
@@ -67,6 +67,9 @@ public class BulkActionSetNodeScore extends BulkAction {
 				"use constructor with course, assessable coursnode and coachidentity"); }
 		final List feedbacks = new ArrayList(identitiesAndTheirsScores.size());
 		final ICourse course = CourseFactory.loadCourse(ores);
+		final AssessmentManager am = course.getCourseEnvironment().getAssessmentManager();
+		// the efficiency statements of all scored users are updated in one batch at the end
+		final List<Identity> scoredIdentities = new ArrayList<Identity>();
 		for (final Iterator iter = identitiesAndTheirsScores.iterator(); iter.hasNext();) {
 			final Object[] identityAndItsScore = (Object[]) iter.next();
 			if (identityAndItsScore[0] != null) {
@@ -110,9 +113,10 @@ public class BulkActionSetNodeScore extends BulkAction {
 										se = new ScoreEvaluation(score, null);
 									}
 
-									// Update score,passed properties in db, and the user's efficiency statement
+									// Update score,passed properties in db
 									final boolean incrementAttempts = false;
-									courseNode.updateUserScoreEvaluation(se, uce, coachIdentity, incrementAttempts);
+									am.saveScoreEvaluation(courseNode, coachIdentity, (Identity) identityAndItsScore[0], se, uce, incrementAttempts, false);
+									scoredIdentities.add((Identity) identityAndItsScore[0]);
 
 									// Refresh score view
 									uce.getScoreAccounting().scoreInfoChanged(this.courseNode, se);
@@ -142,6 +146,8 @@ public class BulkActionSetNodeScore extends BulkAction {
 				feedbacks.add(feedback);
 			}
 		}
+		// Update the efficiency statements of the scored users
+		EfficiencyStatementManager.getInstance().updateEfficiencyStatements(ores, scoredIdentities, true);
 		return feedbacks;
 	}
 
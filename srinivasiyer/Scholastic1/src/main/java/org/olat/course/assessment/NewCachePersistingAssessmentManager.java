@@ -22,6 +22,8 @@
 package org.olat.course.assessment;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -88,6 +90,9 @@ public class NewCachePersistingAssessmentManager extends BasicManager implements
 	 */
 	private static final String FULLUSERSET = "FULLUSERSET";
 
+	/** number of identities whose properties are fetched with one query when preloading **/
+	private static final int PRELOAD_CHUNK_SIZE = 500;
+
 	// Float and Integer are immutable objects, we can reuse them.
 	private static final Float FLOAT_ZERO = new Float(0);
 	private static final Integer INTEGER_ZERO = new Integer(0);
@@ -131,15 +136,7 @@ public class NewCachePersistingAssessmentManager extends BasicManager implements
 		final StringBuilder sb = new StringBuilder();
 		sb.append("from org.olat.properties.Property as p");
 		sb.append(" inner join fetch p.identity as ident where");
-		sb.append(" p.resourceTypeName = :restypename");
-		sb.append(" and p.resourceTypeId = :restypeid");
-		sb.append(" and ( p.name = '").append(ATTEMPTS);
-		sb.append("' or p.name = '").append(SCORE);
-		sb.append("' or p.name = '").append(PASSED);
-		sb.append("' or p.name = '").append(ASSESSMENT_ID);
-		sb.append("' or p.name = '").append(COMMENT);
-		sb.append("' or p.name = '").append(COACH_COMMENT);
-		sb.append("' )");
+		appendAssessmentPropertiesRestriction(sb);
 		if (identity != null) {
 			sb.append(" and p.identity = :id");
 		}
@@ -153,6 +150,54 @@ public class NewCachePersistingAssessmentManager extends BasicManager implements
 		return properties;
 	}
 
+	/**
+	 * Loads the values of the assessment properties of the given identities as rows of identity key, category, name, float, long, string and text value. Only the
+	 * columns are fetched and not the properties itself, so that a preload of a large course does not fill the hibernate session with thousands of objects.
+	 * 
+	 * @param identityKeys
+	 * @return List of Object[]
+	 */
+	private List loadPropertyValuesFor(final List<Long> identityKeys) {
+		final ICourse course = CourseFactory.loadCourse(ores);
+		final StringBuilder sb = new StringBuilder();
+		sb.append("select p.identity.key, p.category, p.name, p.floatValue, p.longValue, p.stringValue, p.textValue");
+		sb.append(" from org.olat.properties.Property as p where");
+		appendAssessmentPropertiesRestriction(sb);
+		sb.append(" and p.identity.key in (:keys)");
+		final DBQuery query = DBFactory.getInstance().createQuery(sb.toString());
+		query.setString("restypename", course.getResourceableTypeName());
+		query.setLong("restypeid", course.getResourceableId().longValue());
+		query.setParameterList("keys", identityKeys);
+		return query.list();
+	}
+
+	/**
+	 * @return the keys of all identities having assessment data in this course
+	 */
+	private List<Long> loadAssessedIdentityKeys() {
+		final ICourse course = CourseFactory.loadCourse(ores);
+		final StringBuilder sb = new StringBuilder();
+		sb.append("select distinct p.identity.key from org.olat.properties.Property as p where");
+		appendAssessmentPropertiesRestriction(sb);
+		sb.append(" and p.identity is not null");
+		final DBQuery query = DBFactory.getInstance().createQuery(sb.toString());
+		query.setString("restypename", course.getResourceableTypeName());
+		query.setLong("restypeid", course.getResourceableId().longValue());
+		return query.list();
+	}
+
+	private void appendAssessmentPropertiesRestriction(final StringBuilder sb) {
+		sb.append(" p.resourceTypeName = :restypename");
+		sb.append(" and p.resourceTypeId = :restypeid");
+		sb.append(" and ( p.name = '").append(ATTEMPTS);
+		sb.append("' or p.name = '").append(SCORE);
+		sb.append("' or p.name = '").append(PASSED);
+		sb.append("' or p.name = '").append(ASSESSMENT_ID);
+		sb.append("' or p.name = '").append(COMMENT);
+		sb.append("' or p.name = '").append(COACH_COMMENT);
+		sb.append("' )");
+	}
+
 	/**
 	 * @see org.olat.course.assessment.AssessmentManager#preloadCache(org.olat.core.id.Identity)
 	 */
@@ -163,11 +208,78 @@ public class NewCachePersistingAssessmentManager extends BasicManager implements
 		return;
 	}
 
+	/**
+	 * Loads the data of all identities with assessment data in this course which are not in the cache yet. Instead of one query per identity (which took minutes for a
+	 * course with thousands of participants) the properties are fetched in chunks of PRELOAD_CHUNK_SIZE identities and split into the caches per identity.
+	 * 
+	 * @see org.olat.course.assessment.AssessmentManager#preloadCache()
+	 */
 	@Override
 	public void preloadCache() {
-		// ignore, since lazy loading will load identities' cache
-		// o_clusterREVIEW test performance when in assessment manager and course has e.g. 500 users -> how long do 500 queries take?
-		// -> is one full fetch needed instead?
+		final long start = System.currentTimeMillis();
+		final int loaded = preloadCacheFor(loadAssessedIdentityKeys(), false);
+		if (log.isDebug()) {
+			log.debug("preloaded assessment data of " + loaded + " identities of course " + ores.getResourceableId() + " in " + (System.currentTimeMillis() - start) + "ms");
+		}
+	}
+
+	/**
+	 * @see org.olat.course.assessment.AssessmentManager#preloadCache(java.util.Collection)
+	 */
+	@Override
+	public void preloadCache(final Collection<Identity> identities) {
+		final List<Long> identityKeys = new ArrayList<Long>(identities.size());
+		for (final Identity identity : identities) {
+			identityKeys.add(identity.getKey());
+		}
+		preloadCacheFor(identityKeys, true);
+	}
+
+	/**
+	 * @param identityKeys
+	 * @param emptyIfNoData if true, identities without any assessment data get an empty map into the cache, exactly as a lazy load would do
+	 * @return the number of identities which were loaded from the database
+	 */
+	private int preloadCacheFor(final List<Long> identityKeys, final boolean emptyIfNoData) {
+		// only load what is not in the cache already: a cached map may contain data which is newer than what we could read here
+		final List<Long> missingKeys = new ArrayList<Long>();
+		for (final Long identityKey : identityKeys) {
+			if (getCacheWrapperFor(identityKey).get(FULLUSERSET) == null) {
+				missingKeys.add(identityKey);
+			}
+		}
+
+		for (int from = 0; from < missingKeys.size(); from += PRELOAD_CHUNK_SIZE) {
+			final List<Long> chunk = missingKeys.subList(from, Math.min(from + PRELOAD_CHUNK_SIZE, missingKeys.size()));
+			final Map<Long, Map<String, Serializable>> userSets = new HashMap<Long, Map<String, Serializable>>();
+			if (emptyIfNoData) {
+				for (final Long identityKey : chunk) {
+					userSets.put(identityKey, new HashMap<String, Serializable>());
+				}
+			}
+			final List rows = loadPropertyValuesFor(new ArrayList<Long>(chunk));
+			for (final Iterator iter = rows.iterator(); iter.hasNext();) {
+				final Object[] row = (Object[]) iter.next();
+				final Long identityKey = (Long) row[0];
+				Map<String, Serializable> m = userSets.get(identityKey);
+				if (m == null) {
+					m = new HashMap<String, Serializable>();
+					userSets.put(identityKey, m);
+				}
+				addValueToCache(m, (String) row[1], (String) row[2], (Float) row[3], (Long) row[4], (String) row[5], (String) row[6]);
+			}
+
+			for (final Map.Entry<Long, Map<String, Serializable>> userSet : userSets.entrySet()) {
+				final CacheWrapper cw = getCacheWrapperFor(userSet.getKey());
+				synchronized (cw) { // o_clusterOK by:fj same monitor as in getOrLoadScorePassedAttemptsMap
+					// the user may have been loaded or changed in the meantime, that map wins
+					if (cw.get(FULLUSERSET) == null) {
+						cw.put(FULLUSERSET, (Serializable) userSet.getValue());
+					}
+				}
+			}
+		}
+		return missingKeys.size();
 	}
 
 	/**
@@ -211,9 +323,27 @@ public class NewCachePersistingAssessmentManager extends BasicManager implements
 		}
 	}
 
+	/**
+	 * Remove the cached assessment data of the identities, the next access loads it from the database. Used by tests to check the bulk loading.
+	 * 
+	 * @param identities
+	 */
+	void clearCacheFor(final Collection<Identity> identities) {
+		for (final Identity identity : identities) {
+			final CacheWrapper cw = getCacheWrapperFor(identity);
+			synchronized (cw) { // o_clusterOK by:fj same monitor as in getOrLoadScorePassedAttemptsMap
+				cw.remove(FULLUSERSET);
+			}
+		}
+	}
+
 	private CacheWrapper getCacheWrapperFor(final Identity identity) {
+		return getCacheWrapperFor(identity.getKey());
+	}
+
+	private CacheWrapper getCacheWrapperFor(final Long identityKey) {
 		// the ores is only for within the cache
-		final OLATResourceable ores = OresHelper.createOLATResourceableInstanceWithoutCheck("Identity", identity.getKey());
+		final OLATResourceable ores = OresHelper.createOLATResourceableInstanceWithoutCheck("Identity", identityKey);
 		final CacheWrapper cw = courseCache.getOrCreateChildCacheWrapper(ores);
 		return cw;
 	}
@@ -248,24 +378,34 @@ public class NewCachePersistingAssessmentManager extends BasicManager implements
 	 * @throws AssertionError
 	 */
 	private void addPropertyToCache(final Map<String, Serializable> acache, final Property property) throws AssertionError {
-		final String propertyName = property.getName();
+		addValueToCache(acache, property.getCategory(), property.getName(), property.getFloatValue(), property.getLongValue(), property.getStringValue(),
+				property.getTextValue());
+	}
+
+	/**
+	 * thread safe.
+	 * 
+	 * @throws AssertionError
+	 */
+	private void addValueToCache(final Map<String, Serializable> acache, final String propertyCategory, final String propertyName, final Float floatValue,
+			final Long longValue, final String stringValue, final String textValue) throws AssertionError {
 		Serializable value;
 		if (propertyName.equals(ATTEMPTS)) {
-			value = new Integer(property.getLongValue().intValue());
+			value = new Integer(longValue.intValue());
 		} else if (propertyName.equals(SCORE)) {
-			value = property.getFloatValue();
+			value = floatValue;
 		} else if (propertyName.equals(PASSED)) {
-			value = new Boolean(property.getStringValue());
+			value = new Boolean(stringValue);
 		} else if (propertyName.equals(ASSESSMENT_ID)) {
-			value = property.getLongValue();
+			value = longValue;
 		} else if (propertyName.equals(COMMENT) || propertyName.equals(COACH_COMMENT)) {
-			value = property.getTextValue();
+			value = textValue;
 		} else {
 			throw new AssertionError("property in list that is not of type attempts, score, passed or ASSESSMENT_ID, COMMENT and COACH_COMMENT :: " + propertyName);
 		}
 
 		// put in cache, maybe overriding old values
-		final String cacheKey = getPropertyCacheKey(property);
+		final String cacheKey = getPropertyCacheKey(propertyCategory, propertyName);
 		synchronized (acache) {// cluster_ok acache is an element from the cacher
 			acache.put(cacheKey, value);
 		}
@@ -583,6 +723,61 @@ public class NewCachePersistingAssessmentManager extends BasicManager implements
 		}
 	}
 
+	/**
+	 * @see org.olat.course.assessment.AssessmentManager#getScores(java.util.Collection, org.olat.course.nodes.CourseNode)
+	 */
+	@Override
+	public Map<Long, Float> getScores(final Collection<Identity> identities, final CourseNode courseNode) {
+		return getNodeValues(identities, courseNode, SCORE, FLOAT_ZERO, null);
+	}
+
+	/**
+	 * @see org.olat.course.assessment.AssessmentManager#getPassed(java.util.Collection, org.olat.course.nodes.CourseNode)
+	 */
+	@Override
+	public Map<Long, Boolean> getPassed(final Collection<Identity> identities, final CourseNode courseNode) {
+		return getNodeValues(identities, courseNode, PASSED, Boolean.FALSE, null);
+	}
+
+	/**
+	 * @see org.olat.course.assessment.AssessmentManager#getAttempts(java.util.Collection, org.olat.course.nodes.CourseNode)
+	 */
+	@Override
+	public Map<Long, Integer> getAttempts(final Collection<Identity> identities, final CourseNode courseNode) {
+		return getNodeValues(identities, courseNode, ATTEMPTS, INTEGER_ZERO, INTEGER_ZERO);
+	}
+
+	/**
+	 * Reads a value of many identities at once. The identities which are not in the cache yet are loaded with a few bulk queries first instead of one query each.
+	 * 
+	 * @param noNodeValue the value for all identities if the course node does not exist, like the single value getters
+	 * @param defaultValue the value for identities without such a property
+	 * @return Map of identity key to value
+	 */
+	private <T extends Serializable> Map<Long, T> getNodeValues(final Collection<Identity> identities, final CourseNode courseNode, final String propertyName,
+			final T noNodeValue, final T defaultValue) {
+		final Map<Long, T> values = new HashMap<Long, T>();
+		if (courseNode == null) {
+			for (final Identity identity : identities) {
+				values.put(identity.getKey(), noNodeValue);
+			}
+			return values;
+		}
+
+		preloadCache(identities);
+		final String cacheKey = getCacheKey(courseNode, propertyName);
+		for (final Identity identity : identities) {
+			// a cache hit after the preload, unless the entry has been evicted in the meantime: then it is simply reloaded
+			final Map<String, Serializable> m = getOrLoadScorePassedAttemptsMap(identity, false);
+			T value;
+			synchronized (m) {// o_clusterOK by:fj is per vm only
+				value = (T) m.get(cacheKey);
+			}
+			values.put(identity.getKey(), value == null ? defaultValue : value);
+		}
+		return values;
+	}
+
 	/**
 	 * @see org.olat.course.assessment.AssessmentManager#getNodeComment(org.olat.course.nodes.CourseNode, org.olat.core.id.Identity)
 	 */
@@ -648,10 +843,12 @@ public class NewCachePersistingAssessmentManager extends BasicManager implements
 	 * @return Returns the cacheKey
 	 */
 	private String getPropertyCacheKey(final Property property) {
+		return getPropertyCacheKey(property.getCategory(), property.getName());
+	}
+
+	private String getPropertyCacheKey(final String propertyCategory, final String propertyName) {
 		// - node id is coded into property category like this: NID:ms::12345667
 		// olat::: move the extract method below to the CoursePropertyManager - since the generation/concat method is also there.
-		final String propertyName = property.getName();
-		final String propertyCategory = property.getCategory();
 		final String nodeIdent = propertyCategory.substring(propertyCategory.indexOf("::") + 2);
 		final String cacheKey = getCacheKey(nodeIdent, propertyName);
 		// cacheKey is now e.g. 12345667_PASSED
@@ -737,6 +934,16 @@ public class NewCachePersistingAssessmentManager extends BasicManager implements
 	@Override
 	public void saveScoreEvaluation(final CourseNode courseNode, final Identity identity, final Identity assessedIdentity, final ScoreEvaluation scoreEvaluation,
 			final UserCourseEnvironment userCourseEnv, final boolean incrementUserAttempts) {
+		saveScoreEvaluation(courseNode, identity, assessedIdentity, scoreEvaluation, userCourseEnv, incrementUserAttempts, true);
+	}
+
+	/**
+	 * @see org.olat.course.assessment.AssessmentManager#saveScoreEvaluation(org.olat.course.nodes.CourseNode, org.olat.core.id.Identity, org.olat.core.id.Identity,
+	 *      org.olat.course.run.scoring.ScoreEvaluation, org.olat.course.run.userview.UserCourseEnvironment, boolean, boolean)
+	 */
+	@Override
+	public void saveScoreEvaluation(final CourseNode courseNode, final Identity identity, final Identity assessedIdentity, final ScoreEvaluation scoreEvaluation,
+			final UserCourseEnvironment userCourseEnv, final boolean incrementUserAttempts, final boolean updateEfficiencyStatement) {
 		final ICourse course = CourseFactory.loadCourse(ores);
 		final CoursePropertyManager cpm = course.getCourseEnvironment().getCoursePropertyManager();
 		// o_clusterREVIEW we could sync on a element finer than course, e.g. the composite course+assessIdentity.
@@ -760,9 +967,11 @@ public class NewCachePersistingAssessmentManager extends BasicManager implements
 						}
 						if (courseNode instanceof AssessableCourseNode) {
 							userCourseEnv.getScoreAccounting().scoreInfoChanged((AssessableCourseNode) courseNode, scoreEvaluation);
-							// Update users efficiency statement
-							final EfficiencyStatementManager esm = EfficiencyStatementManager.getInstance();
-							esm.updateUserEfficiencyStatement(userCourseEnv);
+							if (updateEfficiencyStatement) {
+								// Update users efficiency statement
+								final EfficiencyStatementManager esm = EfficiencyStatementManager.getInstance();
+								esm.updateUserEfficiencyStatement(userCourseEnv);
+							}
 						}
 						return attempts;
 					}
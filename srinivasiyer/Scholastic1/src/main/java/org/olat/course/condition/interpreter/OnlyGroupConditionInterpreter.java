@@ -60,61 +60,57 @@ public class OnlyGroupConditionInterpreter extends ConditionInterpreter {
 		env.addConstant("false", 0);
 
 		// variables
-		env.addVariable(NowVariable.name, new DummyVariable(userCourseEnv));
-		env.addVariable(NeverVariable.name, new NeverVariable(userCourseEnv));
+		addVariable(NowVariable.name, new DummyVariable(userCourseEnv));
+		addVariable(NeverVariable.name, new NeverVariable(userCourseEnv));
 
 		// functions
-		env.addFunction(DateFunction.name, new DummyDateFunction(userCourseEnv));
-		env.addFunction("inGroup", new InLearningGroupFunction(userCourseEnv, "inGroup")); // legacy
-		env.addFunction("inLearningGroup", new InLearningGroupFunction(userCourseEnv, "inLearningGroup"));
-		env.addFunction(InRightGroupFunction.name, new InRightGroupFunction(userCourseEnv));
-		env.addFunction(InLearningAreaFunction.name, new InLearningAreaFunction(userCourseEnv));
-		env.addFunction(IsUserFunction.name, new DummyBooleanFunction(userCourseEnv));
-		env.addFunction(IsGuestFunction.name, new DummyBooleanFunction(userCourseEnv));
-		env.addFunction(IsGlobalAuthorFunction.name, new DummyBooleanFunction(userCourseEnv));
-		env.addFunction("hasAttribute", new DummyBooleanFunction(userCourseEnv));
-		env.addFunction("isInAttribute", new DummyBooleanFunction(userCourseEnv));
-		env.addFunction(GetUserPropertyFunction.name, new DummyStringFunction(userCourseEnv));
-		env.addFunction(HasLanguageFunction.name, new DummyBooleanFunction(userCourseEnv));
-		env.addFunction(InInstitutionFunction.name, new DummyBooleanFunction(userCourseEnv));
-		env.addFunction(IsCourseCoachFunction.name, new DummyBooleanFunction(userCourseEnv));
-		env.addFunction(IsCourseAdministratorFunction.name, new DummyBooleanFunction(userCourseEnv));
-
-		env.addFunction(GetAttemptsFunction.name, new DummyIntegerFunction(userCourseEnv));
-
-		env.addFunction(GetInitialCourseLaunchDateFunction.name, new GetInitialCourseLaunchDateFunction(userCourseEnv));
-		env.addFunction(GetRecentCourseLaunchDateFunction.name, new GetRecentCourseLaunchDateFunction(userCourseEnv));
+		addFunction(DateFunction.name, new DummyDateFunction(userCourseEnv));
+		addFunction("inGroup", new InLearningGroupFunction(userCourseEnv, "inGroup")); // legacy
+		addFunction("inLearningGroup", new InLearningGroupFunction(userCourseEnv, "inLearningGroup"));
+		addFunction(InRightGroupFunction.name, new InRightGroupFunction(userCourseEnv));
+		addFunction(InLearningAreaFunction.name, new InLearningAreaFunction(userCourseEnv));
+		addFunction(IsUserFunction.name, new DummyBooleanFunction(userCourseEnv));
+		addFunction(IsGuestFunction.name, new DummyBooleanFunction(userCourseEnv));
+		addFunction(IsGlobalAuthorFunction.name, new DummyBooleanFunction(userCourseEnv));
+		addFunction("hasAttribute", new DummyBooleanFunction(userCourseEnv));
+		addFunction("isInAttribute", new DummyBooleanFunction(userCourseEnv));
+		addFunction(GetUserPropertyFunction.name, new DummyStringFunction(userCourseEnv));
+		addFunction(HasLanguageFunction.name, new DummyBooleanFunction(userCourseEnv));
+		addFunction(InInstitutionFunction.name, new DummyBooleanFunction(userCourseEnv));
+		addFunction(IsCourseCoachFunction.name, new DummyBooleanFunction(userCourseEnv));
+		addFunction(IsCourseAdministratorFunction.name, new DummyBooleanFunction(userCourseEnv));
+
+		addFunction(GetAttemptsFunction.name, new DummyIntegerFunction(userCourseEnv));
+
+		addFunction(GetInitialCourseLaunchDateFunction.name, new GetInitialCourseLaunchDateFunction(userCourseEnv));
+		addFunction(GetRecentCourseLaunchDateFunction.name, new GetRecentCourseLaunchDateFunction(userCourseEnv));
 
 		EvalAttributeFunction eaf;
 		eaf = new EvalAttributeFunction(userCourseEnv, EvalAttributeFunction.FUNCTION_TYPE_HAS_ATTRIBUTE);
-		env.addFunction(eaf.name, eaf);
+		addFunction(eaf.name, eaf);
 		eaf = new EvalAttributeFunction(userCourseEnv, EvalAttributeFunction.FUNCTION_TYPE_IS_IN_ATTRIBUTE);
-		env.addFunction(eaf.name, eaf);
+		addFunction(eaf.name, eaf);
 		eaf = new EvalAttributeFunction(userCourseEnv, EvalAttributeFunction.FUNCTION_TYPE_HAS_NOT_ATTRIBUTE);
-		env.addFunction(eaf.name, eaf);
+		addFunction(eaf.name, eaf);
 		eaf = new EvalAttributeFunction(userCourseEnv, EvalAttributeFunction.FUNCTION_TYPE_IS_NOT_IN_ATTRIBUTE);
-		env.addFunction(eaf.name, eaf);
+		addFunction(eaf.name, eaf);
 		eaf = new EvalAttributeFunction(userCourseEnv, EvalAttributeFunction.FUNCTION_TYPE_ATTRIBUTE_ENDS_WITH);
-		env.addFunction(eaf.name, eaf);
+		addFunction(eaf.name, eaf);
 		eaf = new EvalAttributeFunction(userCourseEnv, EvalAttributeFunction.FUNCTION_TYPE_ATTRIBUTE_STARTS_WITH);
-		env.addFunction(eaf.name, eaf);
+		addFunction(eaf.name, eaf);
 
 		// enrollment building block specific functions
-		env.addFunction(GetInitialEnrollmentDateFunction.name, new DummyDateFunction(userCourseEnv));
-		env.addFunction(GetRecentEnrollmentDateFunction.name, new DummyDateFunction(userCourseEnv));
+		addFunction(GetInitialEnrollmentDateFunction.name, new DummyDateFunction(userCourseEnv));
+		addFunction(GetRecentEnrollmentDateFunction.name, new DummyDateFunction(userCourseEnv));
 
 		// functions to calculate score
-		env.addFunction(GetPassedFunction.name, new DummyBooleanFunction(userCourseEnv));
-		env.addFunction(GetScoreFunction.name, new DummyDoubleFunction(userCourseEnv));
-		env.addFunction(GetPassedWithCourseIdFunction.name, new DummyBooleanFunction(userCourseEnv));
-		env.addFunction(GetScoreWithCourseIdFunction.name, new DummyDoubleFunction(userCourseEnv));
+		addFunction(GetPassedFunction.name, new DummyBooleanFunction(userCourseEnv));
+		addFunction(GetScoreFunction.name, new DummyDoubleFunction(userCourseEnv));
+		addFunction(GetPassedWithCourseIdFunction.name, new DummyBooleanFunction(userCourseEnv));
+		addFunction(GetScoreWithCourseIdFunction.name, new DummyDoubleFunction(userCourseEnv));
 
 		// units
-		env.addUnit("min", new MinuteUnit());
-		env.addUnit("h", new HourUnit());
-		env.addUnit("d", new DayUnit());
-		env.addUnit("w", new WeekUnit());
-		env.addUnit("m", new MonthUnit());
+		addUnits(env);
 	}
 
 }
@@ -26,6 +26,7 @@ import org.olat.core.util.vfs.VFSContainer;
 import org.olat.course.Structure;
 import org.olat.course.assessment.AssessmentManager;
 import org.olat.course.auditing.UserNodeAuditManager;
+import org.olat.course.condition.interpreter.ConditionExpressionCache;
 import org.olat.course.config.CourseConfig;
 import org.olat.course.groupsandrights.CourseGroupManager;
 import org.olat.course.properties.CoursePropertyManager;
@@ -120,4 +121,11 @@ public interface CourseEnvironment {
 	 */
 	public CourseConfig getCourseConfig();
 
+	/**
+	 * The compiled condition expressions of this course, shared by all users of the course
+	 * 
+	 * @return the cache or null if the expressions of this environment are not cached
+	 */
+	public ConditionExpressionCache getConditionExpressionCache();
+
 }
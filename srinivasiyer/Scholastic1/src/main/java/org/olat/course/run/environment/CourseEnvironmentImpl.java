@@ -30,6 +30,7 @@ import org.olat.course.assessment.AssessmentManager;
 import org.olat.course.assessment.NewCachePersistingAssessmentManager;
 import org.olat.course.auditing.UserNodeAuditManager;
 import org.olat.course.auditing.UserNodeAuditManagerImpl;
+import org.olat.course.condition.interpreter.ConditionExpressionCache;
 import org.olat.course.config.CourseConfig;
 import org.olat.course.groupsandrights.CourseGroupManager;
 import org.olat.course.groupsandrights.PersistingCourseGroupManager;
@@ -48,6 +49,7 @@ public class CourseEnvironmentImpl implements CourseEnvironment {
 	private final CoursePropertyManager propertyManager;
 	private final AssessmentManager assessmentManager;
 	private UserNodeAuditManager auditManager;
+	private final ConditionExpressionCache conditionExpressionCache = new ConditionExpressionCache();
 
 	/**
 	 * Constructor for the course environment
@@ -159,4 +161,12 @@ public class CourseEnvironmentImpl implements CourseEnvironment {
 		return course.getCourseBaseContainer();
 	}
 
+	/**
+	 * @see org.olat.course.run.environment.CourseEnvironment#getConditionExpressionCache()
+	 */
+	@Override
+	public ConditionExpressionCache getConditionExpressionCache() {
+		return conditionExpressionCache;
+	}
+
 }
\ No newline at end of file
@@ -28,6 +28,7 @@ import org.olat.core.util.vfs.VFSContainer;
 import org.olat.course.Structure;
 import org.olat.course.assessment.AssessmentManager;
 import org.olat.course.auditing.UserNodeAuditManager;
+import org.olat.course.condition.interpreter.ConditionExpressionCache;
 import org.olat.course.config.CourseConfig;
 import org.olat.course.groupsandrights.CourseGroupManager;
 import org.olat.course.properties.CoursePropertyManager;
@@ -49,6 +50,7 @@ final class PreviewCourseEnvironment implements CourseEnvironment {
 	private final AssessmentManager am;
 	private final long simulatedDateTime;
 	private final Long resourceablId;
+	private final ConditionExpressionCache conditionExpressionCache = new ConditionExpressionCache();
 
 	PreviewCourseEnvironment(final String title, final Structure runStructure, final Date simulatedDateTime, final VFSContainer courseFolderContainer,
 			final OlatRootFolderImpl courseBaseContainer, final Long courseResourceableID, final CoursePropertyManager cpm, final CourseGroupManager cgm,
@@ -168,4 +170,12 @@ final class PreviewCourseEnvironment implements CourseEnvironment {
 		return courseBaseContainer;
 	}
 
+	/**
+	 * @see org.olat.course.run.environment.CourseEnvironment#getConditionExpressionCache()
+	 */
+	@Override
+	public ConditionExpressionCache getConditionExpressionCache() {
+		return conditionExpressionCache;
+	}
+
 }
\ No newline at end of file
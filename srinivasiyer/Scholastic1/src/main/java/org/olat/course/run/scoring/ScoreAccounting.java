@@ -23,11 +23,11 @@ package org.olat.course.run.scoring;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import org.olat.core.logging.OLATRuntimeException;
 import org.olat.core.util.Util;
 import org.olat.core.util.nodes.INode;
-import org.olat.core.util.tree.TreeVisitor;
 import org.olat.core.util.tree.Visitor;
 import org.olat.course.nodes.AssessableCourseNode;
 import org.olat.course.nodes.CourseNode;
@@ -52,6 +52,7 @@ public class ScoreAccounting implements Visitor {
 
 	private final Map cachedScoreEvals = new HashMap();
 	private int recursionCnt;
+	private boolean evaluated;
 
 	/**
 	 * Constructor of the user score accounting object
@@ -69,14 +70,19 @@ public class ScoreAccounting implements Visitor {
 		cachedScoreEvals.clear();
 		recursionCnt = 0;
 		// collect all assessable nodes and eval 'em
-		final CourseNode root = userCourseEnvironment.getCourseEnvironment().getRunStructure().getRootNode();
-		// breadth first traversal gives an easier order of evaluation for debugging
+		// the nodes are in depth first order: breadth first traversal gives an easier order of evaluation for debugging
 		// however, for live it is absolutely mandatory to use depth first since using breadth first
 		// the score accoutings local cache hash map will never be used. this can slow down things like
 		// crazy (course with 10 tests, 300 users and some crazy score and passed calculations will have
 		// 10 time performance differences)
-		final TreeVisitor tv = new TreeVisitor(this, root, true); // true=depth first
-		tv.visitAll();
+		for (final AssessableCourseNode acn : getScoreDependencies().getEvaluationOrder()) {
+			evalCourseNode(acn);
+		}
+		evaluated = true;
+	}
+
+	private ScoreDependencies getScoreDependencies() {
+		return userCourseEnvironment.getCourseEnvironment().getRunStructure().getScoreDependencies();
 	}
 
 	/**
@@ -187,21 +193,27 @@ public class ScoreAccounting implements Visitor {
 	}
 
 	/**
-	 * Change the score information for the given course node
+	 * Change the score information for the given course node. The node and the nodes whose score or passed calculation depends on it are evaluated again.
 	 * 
 	 * @param acn
 	 * @param se
 	 */
 	public void scoreInfoChanged(final AssessableCourseNode acn, final ScoreEvaluation se) {
-
-		// FIXME:fj:b use cache infos
-		/*
-		 * // either add a new entry if this is the first score that is provided, // or overwrite the entry in the cache if a scoreeval existed cachedScoreEvals.put(cn,
-		 * se); // go up the ladder and force each parent to recalulate the score while ((cn = (CourseNode) cn.getParent()) != null) { ScoreEvaluation sceval =
-		 * cn.evalScore(userCourseEnvironment); cachedScoreEvals.put(cn, sceval); }
-		 */
-		// System.out.println("scoreInfoChanged - calc anew:\n"+cachedScoreEvals.toString());
-		evaluateAll();
+		if (!evaluated) {
+			evaluateAll();
+			return;
+		}
+		// only the changed node and the nodes calculated from it are evaluated again, the other
+		// cached evaluations are still valid
+		final Set<AssessableCourseNode> affected = getScoreDependencies().getAffectedNodes(acn.getIdent());
+		cachedScoreEvals.remove(acn);
+		for (final AssessableCourseNode affectedNode : affected) {
+			cachedScoreEvals.remove(affectedNode);
+		}
+		recursionCnt = 0;
+		for (final AssessableCourseNode affectedNode : affected) {
+			evalCourseNode(affectedNode);
+		}
 	}
 
 	private CourseNode findChildByID(final String id) {
@@ -0,0 +1,543 @@
+package org.olat.course.statistic;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.olat.core.commons.persistence.DBFactory;
+import org.olat.core.logging.AssertException;
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+import org.olat.properties.Property;
+import org.olat.properties.PropertyManager;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Incremental, streaming implementation of IStatisticUpdater for the node-launch statistics.
+ * <p>
+ * Instead of one sql script per o_stat_* table this updater reads the new 'launch node' rows of the o_loggingtable exactly once, in chunks ordered by
+ * (creationdate,log_id) starting after a persisted high-water mark. Every row is folded into in-memory counters of all configured StatisticDimensions and the
+ * counters are written as deltas with batched 'update ... set value=value+?' statements, followed by batched inserts for the rows which do not exist yet. If the
+ * jdbc driver does not report the update counts of a batch, the existing rows of the batch are looked up with one select. Each flush writes the deltas and the
+ * high-water mark in the o_property table with the jdbcTemplate in one transaction, the counters are thus never applied twice.
+ * <p>
+ * Notes:
+ * <ul>
+ * <li>log_id is generated with hilo and is not monotonic across the nodes of a cluster, hence the creationdate is the leading part of the mark and rows younger than
+ * settleTimeMillis are left for the next run to give concurrent transactions time to commit</li>
+ * <li>when no mark exists yet (first run after switching from the sql based StatisticUpdaters) the updater continues at the 'from' date passed by the
+ * StatisticUpdateManager</li>
+ * <li>fullRecalculation is the explicit rebuild path: the o_stat_* tables are emptied and the whole o_loggingtable is read again</li>
+ * <li>the o_property row of the mark is created with the PropertyManager before the first flush, the flushes only update it</li>
+ * </ul>
+ * This implementation takes the following properties (via spring):
+ * <ul>
+ * <li>jdbcTemplate: the JdbcTemplate to be used to access the o_loggingtable and the o_stat_* tables</li>
+ * <li>dimensions: comma separated list of StatisticDimension names, e.g. 'daily,weekly,dayofweek,hourofday'</li>
+ * <li>chunkSize: number of logging rows read per select</li>
+ * <li>maxPendingDeltas: number of distinct counters after which the deltas are flushed</li>
+ * <li>batchSize: number of statements per jdbc batch</li>
+ * <li>retentionDays: time bound dimensions (daily, weekly) only keep this many days, 0 keeps everything</li>
+ * </ul>
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class IncrementalStatisticUpdater implements IStatisticUpdater {
+
+	/** the logging object used in this class **/
+	private static final OLog log_ = Tracing.createLoggerFor(IncrementalStatisticUpdater.class);
+
+	/** the name used for the high-water mark property (in the o_properties table) - longValue is the creationdate, stringValue the log_id **/
+	static final String LAST_LOG_POSITION_PROPERTY_NAME = "LAST_LOG_POSITION";
+
+	private static final String SELECT_POSITION_SQL = "select longvalue,stringvalue from o_property"
+			+ " where category=? and name=? and identity is null and grp is null and resourcetypename is null";
+
+	private static final String UPDATE_POSITION_SQL = "update o_property set longvalue=?,stringvalue=?,lastmodified=?,version=version+1"
+			+ " where category=? and name=? and identity is null and grp is null and resourcetypename is null";
+
+	private static final String SELECT_SQL = "select log_id,creationdate,businesspath from o_loggingtable"
+			+ " where actionverb='launch' and actionobject='node' and (creationdate>? or (creationdate=? and log_id>?)) and creationdate<=?"
+			+ " order by creationdate,log_id";
+
+	/**
+	 * the jdbcTemplate is used to allow access to other than the default database and allow raw sql code
+	 */
+	private JdbcTemplate jdbcTemplate_;
+
+	/** writes the deltas of a flush and the high-water mark in one transaction of the jdbcTemplate's DataSource **/
+	private TransactionTemplate transactionTemplate_;
+
+	/** name used to identify this updater for logging purpose **/
+	private String loggingName_ = "IncrementalStatisticUpdater";
+
+	private StatisticDimension[] dimensions_ = new StatisticDimension[] { StatisticDimension.DAILY, StatisticDimension.WEEKLY, StatisticDimension.DAY_OF_WEEK,
+			StatisticDimension.HOUR_OF_DAY };
+
+	private int chunkSize_ = 5000;
+
+	private int maxPendingDeltas_ = 20000;
+
+	private int batchSize_ = 500;
+
+	private int retentionDays_ = 0;
+
+	private long settleTimeMillis_ = 60000;
+
+	/** set via spring **/
+	public void setJdbcTemplate(final JdbcTemplate jdbcTemplate) {
+		jdbcTemplate_ = jdbcTemplate;
+		transactionTemplate_ = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+	}
+
+	/** set via spring **/
+	public void setLoggingName(final String loggingName) {
+		loggingName_ = loggingName;
+	}
+
+	/** set via spring **/
+	public void setDimensions(final String dimensions) {
+		final String[] names = dimensions.split(",");
+		final StatisticDimension[] result = new StatisticDimension[names.length];
+		for (int i = 0; i < names.length; i++) {
+			result[i] = StatisticDimension.forName(names[i]);
+		}
+		dimensions_ = result;
+	}
+
+	/** set via spring **/
+	public void setChunkSize(final int chunkSize) {
+		chunkSize_ = chunkSize;
+	}
+
+	/** set via spring **/
+	public void setMaxPendingDeltas(final int maxPendingDeltas) {
+		maxPendingDeltas_ = maxPendingDeltas;
+	}
+
+	/** set via spring **/
+	public void setBatchSize(final int batchSize) {
+		batchSize_ = batchSize;
+	}
+
+	/** set via spring **/
+	public void setRetentionDays(final int retentionDays) {
+		retentionDays_ = retentionDays;
+	}
+
+	/** set via spring **/
+	public void setSettleTimeMillis(final long settleTimeMillis) {
+		settleTimeMillis_ = settleTimeMillis;
+	}
+
+	@Override
+	public String toString() {
+		return super.toString() + "[" + loggingName_ + "]";
+	}
+
+	@Override
+	public void updateStatistic(final boolean fullRecalculation, final Date from, final Date until, final StatisticUpdateManager statisticUpdateManager) {
+		log_.info("updateStatistic<" + loggingName_ + ">: START");
+		final long startTime = System.currentTimeMillis();
+		long numRows = 0;
+		try {
+			final LogPosition saved = loadPosition();
+			if (saved == null) {
+				createPositionProperty();
+			}
+			final LogPosition position;
+			if (fullRecalculation) {
+				position = new LogPosition(from.getTime(), Long.MIN_VALUE);
+				transactionTemplate_.execute(new TransactionCallbackWithoutResult() {
+					@Override
+					protected void doInTransactionWithoutResult(final TransactionStatus status) {
+						for (int i = 0; i < dimensions_.length; i++) {
+							jdbcTemplate_.update(dimensions_[i].getDeleteSql());
+						}
+						savePosition(position);
+					}
+				});
+			} else {
+				position = saved == null ? new LogPosition(from.getTime(), Long.MIN_VALUE) : saved;
+			}
+
+			final Timestamp upperBound = new Timestamp(until.getTime() - settleTimeMillis_);
+			final StatisticDeltas deltas = new StatisticDeltas(dimensions_);
+			while (true) {
+				final int read = readChunk(position, upperBound, deltas);
+				numRows += read;
+				final boolean done = read < chunkSize_;
+				if (done || deltas.size() >= maxPendingDeltas_) {
+					transactionTemplate_.execute(new TransactionCallbackWithoutResult() {
+						@Override
+						protected void doInTransactionWithoutResult(final TransactionStatus status) {
+							flush(deltas);
+							savePosition(position);
+						}
+					});
+				}
+				if (done) {
+					break;
+				}
+			}
+
+			if (retentionDays_ > 0) {
+				purgeOldEntries(until);
+			}
+		} catch (final RuntimeException e) {
+			log_.error("updateStatistic<" + loggingName_ + ">: RuntimeException while updating the statistics: " + e, e);
+		} finally {
+			final long diff = System.currentTimeMillis() - startTime;
+			log_.info("updateStatistic<" + loggingName_ + ">: END. rows=" + numRows + ", duration=" + diff + " milliseconds");
+		}
+	}
+
+	/**
+	 * Reads the next chunk of logging rows after the given position and folds them into the deltas.
+	 *
+	 * @return the number of rows read
+	 */
+	private int readChunk(final LogPosition position, final Timestamp upperBound, final StatisticDeltas deltas) {
+		final Timestamp lastCreationDate = new Timestamp(position.creationDate);
+		final int[] counter = new int[1];
+		final Calendar cal = Calendar.getInstance();
+		jdbcTemplate_.query(new PreparedStatementCreator() {
+
+			@Override
+			public PreparedStatement createPreparedStatement(final Connection con) throws SQLException {
+				final PreparedStatement ps = con.prepareStatement(SELECT_SQL);
+				ps.setTimestamp(1, lastCreationDate);
+				ps.setTimestamp(2, lastCreationDate);
+				ps.setLong(3, position.logId);
+				ps.setTimestamp(4, upperBound);
+				// instead of 'limit' which not all databases know
+				ps.setMaxRows(chunkSize_);
+				return ps;
+			}
+		}, new RowCallbackHandler() {
+
+			@Override
+			public void processRow(final ResultSet rs) throws SQLException {
+				counter[0]++;
+				final long logId = rs.getLong(1);
+				final Timestamp creationDate = rs.getTimestamp(2);
+				final String businessPath = rs.getString(3);
+				position.creationDate = creationDate.getTime();
+				position.logId = logId;
+				cal.setTimeInMillis(creationDate.getTime());
+				deltas.add(businessPath, cal);
+			}
+		});
+		return counter[0];
+	}
+
+	/**
+	 * Writes the pending deltas of all dimensions and clears them.
+	 */
+	private void flush(final StatisticDeltas deltas) {
+		if (deltas.size() == 0) { return; }
+		final long start = System.currentTimeMillis();
+		for (int i = 0; i < dimensions_.length; i++) {
+			final List<Delta> pending = new ArrayList<Delta>(deltas.get(i).values());
+			final List<Delta> missing = new ArrayList<Delta>();
+			for (int from = 0; from < pending.size(); from += batchSize_) {
+				final List<Delta> batch = pending.subList(from, Math.min(from + batchSize_, pending.size()));
+				final int[] updated = jdbcTemplate_.batchUpdate(dimensions_[i].getUpdateSql(), new DeltaSetter(batch, false));
+				final List<Delta> unknown = new ArrayList<Delta>();
+				for (int j = 0; j < batch.size(); j++) {
+					final Delta delta = batch.get(j);
+					final int count = j < updated.length ? updated[j] : Statement.SUCCESS_NO_INFO;
+					if (count == Statement.SUCCESS_NO_INFO) {
+						unknown.add(delta);
+					} else if (count == 0) {
+						missing.add(delta);
+					}
+				}
+				if (!unknown.isEmpty()) {
+					// the driver does not tell, the update has been applied to the existing rows anyway
+					missing.addAll(findMissing(dimensions_[i], unknown));
+				}
+			}
+			for (int from = 0; from < missing.size(); from += batchSize_) {
+				final List<Delta> batch = missing.subList(from, Math.min(from + batchSize_, missing.size()));
+				jdbcTemplate_.batchUpdate(dimensions_[i].getInsertSql(), new DeltaSetter(batch, true));
+			}
+			if (log_.isDebug()) {
+				log_.debug("flush<" + loggingName_ + ">: " + dimensions_[i] + " updated=" + (pending.size() - missing.size()) + ", inserted=" + missing.size());
+			}
+		}
+		log_.info("flush<" + loggingName_ + ">: wrote " + deltas.size() + " deltas in " + (System.currentTimeMillis() - start) + " milliseconds");
+		deltas.clear();
+	}
+
+	/**
+	 * Looks up which of the given deltas have no row in the table of the dimension, with one select for all of them.
+	 * 
+	 * @return the deltas without a row
+	 */
+	private List<Delta> findMissing(final StatisticDimension dimension, final List<Delta> deltas) {
+		final Set<Object> businessPaths = new LinkedHashSet<Object>();
+		final Set<Object> keys = new LinkedHashSet<Object>();
+		for (final Delta delta : deltas) {
+			businessPaths.add(delta.businessPath);
+			keys.add(delta.key);
+		}
+		final List<Object> args = new ArrayList<Object>(businessPaths);
+		args.addAll(keys);
+		final Set<Delta> existing = new HashSet<Delta>();
+		jdbcTemplate_.query(dimension.getExistingRowsSql(businessPaths.size(), keys.size()), args.toArray(), new RowCallbackHandler() {
+
+			@Override
+			public void processRow(final ResultSet rs) throws SQLException {
+				existing.add(new Delta(rs.getString(1), null, dimension.readKey(rs, 2)));
+			}
+		});
+		final List<Delta> missing = new ArrayList<Delta>();
+		for (final Delta delta : deltas) {
+			if (!existing.contains(delta)) {
+				missing.add(delta);
+			}
+		}
+		return missing;
+	}
+
+	private void purgeOldEntries(final Date until) {
+		final Calendar oldest = Calendar.getInstance();
+		oldest.setTime(until);
+		oldest.add(Calendar.DAY_OF_YEAR, -retentionDays_);
+		for (int i = 0; i < dimensions_.length; i++) {
+			final StatisticDimension dimension = dimensions_[i];
+			if (dimension.isTimeBound()) {
+				final int deleted = jdbcTemplate_.update(dimension.getRetentionDeleteSql(), new Object[] { dimension.computeKey(oldest) });
+				log_.info("updateStatistic<" + loggingName_ + ">: purged " + deleted + " entries older than " + retentionDays_ + " days from " + dimension);
+			}
+		}
+	}
+
+	/**
+	 * Reads the high-water mark with the jdbcTemplate, i.e. from the same connections the mark is written with.
+	 * 
+	 * @return the mark or null if there is none yet
+	 */
+	private LogPosition loadPosition() {
+		final LogPosition[] position = new LogPosition[1];
+		jdbcTemplate_.query(SELECT_POSITION_SQL, new Object[] { StatisticUpdateManagerImpl.STATISTICS_PROPERTIES_CATEGORY, LAST_LOG_POSITION_PROPERTY_NAME },
+				new RowCallbackHandler() {
+
+					@Override
+					public void processRow(final ResultSet rs) throws SQLException {
+						final long creationDate = rs.getLong(1);
+						final boolean noCreationDate = rs.wasNull();
+						final String logId = rs.getString(2);
+						// a row without values has been created but not written by a flush yet
+						if (!noCreationDate && logId != null) {
+							position[0] = new LogPosition(creationDate, Long.parseLong(logId));
+						}
+					}
+				});
+		return position[0];
+	}
+
+	/**
+	 * Creates the o_property row of the high-water mark without a value. The id is generated by hibernate, hence the row is created with the PropertyManager and
+	 * committed before the first flush updates it with the jdbcTemplate.
+	 */
+	private void createPositionProperty() {
+		final PropertyManager pm = PropertyManager.getInstance();
+		Property p = pm.findProperty(null, null, null, StatisticUpdateManagerImpl.STATISTICS_PROPERTIES_CATEGORY, LAST_LOG_POSITION_PROPERTY_NAME);
+		if (p == null) {
+			p = pm.createPropertyInstance(null, null, null, StatisticUpdateManagerImpl.STATISTICS_PROPERTIES_CATEGORY, LAST_LOG_POSITION_PROPERTY_NAME, null, null,
+					null, null);
+			pm.saveProperty(p);
+		}
+		DBFactory.getInstance().intermediateCommit();
+	}
+
+	/**
+	 * Writes the high-water mark with the jdbcTemplate. Must be called in the transaction which writes the deltas up to this mark.
+	 */
+	private void savePosition(final LogPosition position) {
+		final int updated = jdbcTemplate_.update(UPDATE_POSITION_SQL, new Object[] { Long.valueOf(position.creationDate), String.valueOf(position.logId),
+				new Timestamp(System.currentTimeMillis()), StatisticUpdateManagerImpl.STATISTICS_PROPERTIES_CATEGORY, LAST_LOG_POSITION_PROPERTY_NAME });
+		if (updated != 1) { throw new AssertException("updateStatistic<" + loggingName_ + ">: found " + updated + " rows for the high-water mark, expected one"); }
+	}
+
+	/**
+	 * Extracts the resource id of a business path like '[RepositoryEntry:123][CourseNode:456]', i.e. the part between the first ':' and the first ']' - the same
+	 * as the sql based StatisticUpdaters do.
+	 *
+	 * @return the resource id or null if the business path has no such part
+	 */
+	static Long extractResId(final String businessPath) {
+		if (businessPath == null) { return null; }
+		final int colon = businessPath.indexOf(':');
+		final int bracket = businessPath.indexOf(']');
+		if (colon < 0 || bracket <= colon + 1) { return null; }
+		try {
+			return Long.valueOf(businessPath.substring(colon + 1, bracket));
+		} catch (final NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * The high-water mark: the last logging row which was folded into the statistics
+	 */
+	static class LogPosition {
+		long creationDate;
+		long logId;
+
+		LogPosition(final long creationDate, final long logId) {
+			this.creationDate = creationDate;
+			this.logId = logId;
+		}
+	}
+
+	/**
+	 * A pending counter of one row of an o_stat_* table
+	 */
+	static class Delta {
+		final String businessPath;
+		final Long resId;
+		final Object key;
+		int count;
+
+		Delta(final String businessPath, final Long resId, final Object key) {
+			this.businessPath = businessPath;
+			this.resId = resId;
+			this.key = key;
+		}
+
+		@Override
+		public int hashCode() {
+			return businessPath.hashCode() * 31 + key.hashCode();
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) { return true; }
+			if (!(obj instanceof Delta)) { return false; }
+			final Delta other = (Delta) obj;
+			return businessPath.equals(other.businessPath) && key.equals(other.key);
+		}
+	}
+
+	/**
+	 * The in-memory counters of all dimensions, one map per dimension
+	 */
+	static class StatisticDeltas {
+		private final StatisticDimension[] dimensions;
+		private final Map<Delta, Delta>[] counters;
+		private int size = 0;
+
+		@SuppressWarnings("unchecked")
+		StatisticDeltas(final StatisticDimension[] dimensions) {
+			this.dimensions = dimensions;
+			counters = new Map[dimensions.length];
+			for (int i = 0; i < dimensions.length; i++) {
+				counters[i] = new HashMap<Delta, Delta>();
+			}
+		}
+
+		/**
+		 * Folds one logging action into the counters of all dimensions, actions without a valid business path are ignored like in the sql based updaters.
+		 */
+		void add(final String businessPath, final Calendar creationDate) {
+			if (businessPath == null || businessPath.length() == 0) { return; }
+			final Long resId = extractResId(businessPath);
+			if (resId == null) { return; }
+			for (int i = 0; i < dimensions.length; i++) {
+				final Delta probe = new Delta(businessPath, resId, dimensions[i].computeKey(creationDate));
+				Delta delta = counters[i].get(probe);
+				if (delta == null) {
+					delta = probe;
+					counters[i].put(delta, delta);
+					size++;
+				}
+				delta.count++;
+			}
+		}
+
+		Map<Delta, Delta> get(final int dimension) {
+			return counters[dimension];
+		}
+
+		/**
+		 * @return the number of distinct counters over all dimensions
+		 */
+		int size() {
+			return size;
+		}
+
+		void clear() {
+			for (int i = 0; i < counters.length; i++) {
+				counters[i].clear();
+			}
+			size = 0;
+		}
+
+		/**
+		 * @return the sum of all counters of the given dimension
+		 */
+		int total(final int dimension) {
+			int total = 0;
+			for (final Iterator<Delta> it = counters[dimension].values().iterator(); it.hasNext();) {
+				total += it.next().count;
+			}
+			return total;
+		}
+	}
+
+	/**
+	 * Binds a slice of deltas either to the update ('value=value+?') or to the insert statement of a dimension
+	 */
+	private static class DeltaSetter implements BatchPreparedStatementSetter {
+		private final List<Delta> batch;
+		private final boolean insert;
+
+		DeltaSetter(final List<Delta> batch, final boolean insert) {
+			this.batch = batch;
+			this.insert = insert;
+		}
+
+		@Override
+		public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+			final Delta delta = batch.get(i);
+			if (insert) {
+				ps.setString(1, delta.businessPath);
+				ps.setLong(2, delta.resId.longValue());
+				ps.setObject(3, delta.key);
+				ps.setInt(4, delta.count);
+			} else {
+				ps.setInt(1, delta.count);
+				ps.setString(2, delta.businessPath);
+				ps.setObject(3, delta.key);
+			}
+		}
+
+		@Override
+		public int getBatchSize() {
+			return batch.size();
+		}
+	}
+}
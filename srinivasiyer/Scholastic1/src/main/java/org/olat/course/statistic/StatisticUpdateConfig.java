@@ -13,6 +13,9 @@ public class StatisticUpdateConfig {
 
 	private List<IStatisticUpdater> updaters_;
 
+	/** whether the updaters are independent of each other and may run in parallel **/
+	private boolean parallel_ = false;
+
 	public StatisticUpdateConfig() {
 		// nothing to be done here
 	}
@@ -25,4 +28,15 @@ public class StatisticUpdateConfig {
 		return updaters_;
 	}
 
+	/**
+	 * set to true when the updaters do not depend on each other (e.g. not on a temp table created by a previous updater)
+	 */
+	public void setParallel(final boolean parallel) {
+		parallel_ = parallel;
+	}
+
+	public boolean isParallel() {
+		return parallel_;
+	}
+
 }
@@ -1,10 +1,17 @@
 package org.olat.course.statistic;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.olat.core.commons.persistence.DBFactory;
 import org.olat.core.commons.taskExecutor.TaskExecutorManager;
@@ -12,6 +19,7 @@ import org.olat.core.gui.control.Event;
 import org.olat.core.logging.AssertException;
 import org.olat.core.logging.OLog;
 import org.olat.core.logging.Tracing;
+import org.olat.core.logging.activity.ThreadLocalUserActivityLoggerInstaller;
 import org.olat.core.manager.BasicManager;
 import org.olat.core.util.coordinate.CoordinatorManager;
 import org.olat.core.util.event.GenericEventListener;
@@ -33,7 +41,7 @@ class StatisticUpdateManagerImpl extends BasicManager implements StatisticUpdate
 	static final OLog log_ = Tracing.createLoggerFor(StatisticUpdateManagerImpl.class);
 
 	/** the category used for statistics properties (in the o_properties table) **/
-	private static final String STATISTICS_PROPERTIES_CATEGORY = "STATISTICS_PROPERTIES";
+	static final String STATISTICS_PROPERTIES_CATEGORY = "STATISTICS_PROPERTIES";
 
 	/** the name used for last_updated property (in the o_properties table) **/
 	private static final String LAST_UPDATED_PROPERTY_NAME = "LAST_UPDATED";
@@ -44,6 +52,9 @@ class StatisticUpdateManagerImpl extends BasicManager implements StatisticUpdate
 	/** all the IStatisticUpdaters that registered with the StatisticUpdaterManager **/
 	final List<IStatisticUpdater> updaters_ = new LinkedList<IStatisticUpdater>();
 
+	/** whether the updaters are independent of each other and can run in parallel **/
+	boolean parallel_ = false;
+
 	private final MultiUserEvent startupEvent_ = new MultiUserEvent(STARTUP_EVENT);
 
 	/** whether or not this manager is enabled - disables itself when there is more than 1 in the cluster **/
@@ -59,6 +70,7 @@ class StatisticUpdateManagerImpl extends BasicManager implements StatisticUpdate
 			return;
 		}
 		updaters_.addAll(config.getUpdaters());
+		parallel_ = config.isParallel();
 
 		// note: not using CoordinatorManager.getInstance().getCoordinator() in this spring-called-constructor
 		// as we have a problem in 6.3 where Tracing calls into CoordinatorManager.getInstance().getCoordinator()
@@ -122,13 +134,17 @@ class StatisticUpdateManagerImpl extends BasicManager implements StatisticUpdate
 
 					log_.info("updateStatistics: starting the update");
 					DBFactory.getInstance().intermediateCommit();
-					for (final Iterator<IStatisticUpdater> it = updaters_.iterator(); it.hasNext();) {
-						final IStatisticUpdater statisticUpdater = it.next();
-						log_.info("updateStatistics: starting updater " + statisticUpdater);
-						statisticUpdater.updateStatistic(fullRecalculation || (lastUpdatedInMilliseconds == -1), lastUpdatedDate, nowDate,
-								StatisticUpdateManagerImpl.this);
-						log_.info("updateStatistics: done with updater " + statisticUpdater);
-						DBFactory.getInstance().intermediateCommit();
+					final boolean recalculate = fullRecalculation || (lastUpdatedInMilliseconds == -1);
+					if (parallel_ && updaters_.size() > 1) {
+						runUpdatersInParallel(recalculate, lastUpdatedDate, nowDate);
+					} else {
+						for (final Iterator<IStatisticUpdater> it = updaters_.iterator(); it.hasNext();) {
+							final IStatisticUpdater statisticUpdater = it.next();
+							log_.info("updateStatistics: starting updater " + statisticUpdater);
+							statisticUpdater.updateStatistic(recalculate, lastUpdatedDate, nowDate, StatisticUpdateManagerImpl.this);
+							log_.info("updateStatistics: done with updater " + statisticUpdater);
+							DBFactory.getInstance().intermediateCommit();
+						}
 					}
 				} finally {
 					synchronized (StatisticUpdateManagerImpl.this) {
@@ -158,6 +174,59 @@ class StatisticUpdateManagerImpl extends BasicManager implements StatisticUpdate
 
 	}
 
+	/**
+	 * Runs every updater in its own thread with its own db session and waits until all of them are done. Only used when the StatisticUpdateConfig declares the
+	 * updaters as independent of each other.
+	 */
+	void runUpdatersInParallel(final boolean fullRecalculation, final Date from, final Date until) {
+		final ExecutorService pool = Executors.newFixedThreadPool(updaters_.size(), new UpdaterThreadFactory());
+		try {
+			final List<Future<?>> futures = new ArrayList<Future<?>>(updaters_.size());
+			for (final Iterator<IStatisticUpdater> it = updaters_.iterator(); it.hasNext();) {
+				final IStatisticUpdater statisticUpdater = it.next();
+				futures.add(pool.submit(new Runnable() {
+
+					@Override
+					public void run() {
+						boolean success = false;
+						try {
+							ThreadLocalUserActivityLoggerInstaller.initEmptyUserActivityLogger();
+							log_.info("updateStatistics: starting updater " + statisticUpdater);
+							statisticUpdater.updateStatistic(fullRecalculation, from, until, StatisticUpdateManagerImpl.this);
+							log_.info("updateStatistics: done with updater " + statisticUpdater);
+							DBFactory.getInstance(false).commitAndCloseSession();
+							success = true;
+						} finally {
+							ThreadLocalUserActivityLoggerInstaller.resetUserActivityLogger();
+							if (!success) {
+								DBFactory.getInstance(false).rollbackAndCloseSession();
+							}
+						}
+					}
+				}));
+			}
+			boolean interrupted = false;
+			for (final Future<?> future : futures) {
+				while (true) {
+					try {
+						future.get();
+						break;
+					} catch (final ExecutionException e) {
+						log_.error("updateStatistics: updater failed", e.getCause());
+						break;
+					} catch (final InterruptedException e) {
+						interrupted = true;
+					}
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
 	@Override
 	public long getLastUpdated() {
 		final PropertyManager pm = PropertyManager.getInstance();
@@ -197,4 +266,15 @@ class StatisticUpdateManagerImpl extends BasicManager implements StatisticUpdate
 			}
 		}
 	}
+
+	private static class UpdaterThreadFactory implements ThreadFactory {
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(final Runnable r) {
+			final Thread t = new Thread(r, "StatisticUpdater-" + threadNumber.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		}
+	}
 }
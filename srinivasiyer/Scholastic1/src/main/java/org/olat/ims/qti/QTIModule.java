@@ -36,6 +36,9 @@ import org.olat.repository.handlers.RepositoryHandlerFactory;
 public class QTIModule extends AbstractOLATModule {
 	private static boolean isValidating = false;
 	private static final String CONFIG_VALIDATING = "validating";
+	private static boolean journalingPersister = false;
+	private static final String CONFIG_PERSISTER = "persister";
+	private static final String PERSISTER_JOURNAL = "journal";
 	private List<RepositoryHandler> qtiRepositoryHandlers;
 
 	/**
@@ -45,6 +48,14 @@ public class QTIModule extends AbstractOLATModule {
 		return isValidating;
 	}
 
+	/**
+	 * @return true if running tests are persisted as snapshot and journal of the changes (JournalingPersister) instead of a full serialization at every step
+	 *         (FilePersister)
+	 */
+	public static boolean isJournalingPersister() {
+		return journalingPersister;
+	}
+
 	/**
 	 * [used by spring]
 	 */
@@ -62,6 +73,7 @@ public class QTIModule extends AbstractOLATModule {
 	@Override
 	protected void initDefaultProperties() {
 		isValidating = getBooleanConfigParameter(CONFIG_VALIDATING, false);
+		journalingPersister = PERSISTER_JOURNAL.equals(getStringConfigParameter(CONFIG_PERSISTER, "file", false));
 
 	}
 
@@ -29,7 +29,6 @@ import java.util.List;
 import java.util.Random;
 
 import org.dom4j.Element;
-import org.dom4j.Node;
 import org.olat.ims.qti.container.qtielements.Objectives;
 import org.olat.ims.qti.container.qtielements.SectionFeedback;
 import org.olat.ims.qti.process.AssessmentInstance;
@@ -266,14 +265,7 @@ public class SectionContext implements Serializable {
 						newList.add(o);
 					}
 					el_items = newList;
-					/*
-					 * pick out items -> remove unused items from section
-					 */
-					items.removeAll(el_items);
-					for (final Iterator iter = items.iterator(); iter.hasNext();) {
-						el_section.remove((Node) iter.next());
-					}
-
+					// the unused items stay in the section: the document is shared by all users of the test
 				}
 				// append found items to existing ones
 			}
@@ -294,8 +286,12 @@ public class SectionContext implements Serializable {
 		// now wrap all item contexts
 		itemContexts = new ArrayList(10);
 		for (final Iterator iter = el_items.iterator(); iter.hasNext();) {
-			final Element item = (Element) iter.next();
-			item.detach();
+			Element item = (Element) iter.next();
+			if (el_selordering != null) {
+				// selected items (e.g. out of an object bank) get a detached copy: an element of the shared document would serialize
+				// the whole document or object bank with the state of the user
+				item = item.createCopy();
+			}
 			final ItemContext itc = new ItemContext();
 			itc.setUp(assessInstance, item, sw);
 			if (durationLimit != -1 && assessInstance.isSectionPage()) {
@@ -672,4 +668,28 @@ public class SectionContext implements Serializable {
 	public int getCutValue() {
 		return cutvalue;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @return the values which change while the user works on the section, used by the JournalingPersister
+	 */
+	public Object[] getJournalState() {
+		return new Object[] { Float.valueOf(totalScore), Integer.valueOf(currentItemContextPos), Long.valueOf(timeOfStart), Long.valueOf(durationLimit),
+				Long.valueOf(timesAnswered), Long.valueOf(latestAnswerTime), output, Boolean.valueOf(feedbackavailable) };
+	}
+
+	/**
+	 * Restores the values which change while the user works on the section
+	 * 
+	 * @param state as returned by getJournalState()
+	 */
+	public void restoreJournalState(final Object[] state) {
+		totalScore = ((Float) state[0]).floatValue();
+		currentItemContextPos = ((Integer) state[1]).intValue();
+		timeOfStart = ((Long) state[2]).longValue();
+		durationLimit = ((Long) state[3]).longValue();
+		timesAnswered = ((Long) state[4]).longValue();
+		latestAnswerTime = ((Long) state[5]).longValue();
+		output = (Output) state[6];
+		feedbackavailable = ((Boolean) state[7]).booleanValue();
+	}
+}
@@ -66,6 +66,7 @@ import org.olat.ims.qti.editor.beecom.objects.Section;
 import org.olat.ims.qti.editor.beecom.parser.ParserManager;
 import org.olat.ims.qti.process.AssessmentInstance;
 import org.olat.ims.qti.process.ImsRepositoryResolver;
+import org.olat.ims.qti.process.QTIHelper;
 import org.olat.ims.resources.IMSEntityResolver;
 
 /**
@@ -270,7 +271,11 @@ public class QTIEditorPackage {
 		tmpZipFile.delete();
 		frm.deleteUnzipContent(fileResource);
 		// to be prepared for the next start, unzip right now.
-		return (frm.unzipFileResource(fileResource) != null);
+		final File fUnzippedDir = frm.unzipFileResource(fileResource);
+		if (fUnzippedDir == null) { return false; }
+		// tests started from now on get the new version of the document on all nodes
+		QTIHelper.removeCachedDocument(new File(fUnzippedDir, ImsRepositoryResolver.QTI_FILE));
+		return true;
 	}
 
 	/**
@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.olat.core.logging.AssertException;
 import org.olat.course.nodes.iq.IQEditController;
@@ -518,4 +519,26 @@ public class AssessmentInstance implements Serializable {
 	public String getMemo(final String id) {
 		return memos.get(id);
 	}
+
+	/**
+	 * @return the marks, the memos and the closed flag which change while the user works on the assessment, used by the JournalingPersister
+	 */
+	public Object[] getJournalState() {
+		// sorted copies: the same marks and memos always serialize to the same bytes
+		return new Object[] { new TreeMap<String, Boolean>(marked), new TreeMap<String, String>(memos), Boolean.valueOf(closed) };
+	}
+
+	/**
+	 * Restores the marks, the memos and the closed flag
+	 * 
+	 * @param state as returned by getJournalState()
+	 */
+	@SuppressWarnings("unchecked")
+	public void restoreJournalState(final Object[] state) {
+		marked.clear();
+		marked.putAll((Map<String, Boolean>) state[0]);
+		memos.clear();
+		memos.putAll((Map<String, String>) state[1]);
+		closed = ((Boolean) state[2]).booleanValue();
+	}
 }
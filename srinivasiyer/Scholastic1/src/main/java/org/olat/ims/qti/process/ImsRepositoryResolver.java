@@ -54,7 +54,6 @@ public class ImsRepositoryResolver implements Resolver {
 	public static final String QTI_FIB_AUTOCOMPLETE_CSS_FILE = "media/fibautocompl.css";
 	private File fUnzippedDirRoot;
 	private String sUnzippedDirRel;
-	private final Document doc = null;
 
 	public ImsRepositoryResolver(final Long repositoryEntryKey) {
 		final RepositoryManager rm = RepositoryManager.getInstance();
@@ -85,8 +84,8 @@ public class ImsRepositoryResolver implements Resolver {
 		// with VFS FIXME:pb:c: remove casts to LocalFileImpl and LocalFolderImpl if no longer needed.
 		final VFSContainer vfsUnzippedRoot = new LocalFolderImpl(fUnzippedDirRoot);
 		final VFSItem vfsQTI = vfsUnzippedRoot.resolve(ident + ".xml");
-		// getDocument(..) ensures that InputStream is closed in every case.
-		final Document theDoc = QTIHelper.getDocument((LocalFileImpl) vfsQTI);
+		// getSharedDocument(..) ensures that InputStream is closed in every case.
+		final Document theDoc = QTIHelper.getSharedDocument((LocalFileImpl) vfsQTI);
 		// if doc is null an error loading the document occured (IOException, qti.xml does not exist)
 		if (theDoc == null) { return null; }
 		final Element objectBank = (Element) theDoc.selectSingleNode("questestinterop/objectbank");
@@ -103,8 +102,9 @@ public class ImsRepositoryResolver implements Resolver {
 		// with VFS FIXME:pb:c: remove casts to LocalFileImpl and LocalFolderImpl if no longer needed.
 		final VFSContainer vfsUnzippedRoot = new LocalFolderImpl(fUnzippedDirRoot);
 		final VFSItem vfsQTI = vfsUnzippedRoot.resolve(QTI_FILE);
-		// getDocument(..) ensures that InputStream is closed in every case.
-		final Document theDoc = QTIHelper.getDocument((LocalFileImpl) vfsQTI);
+		// getSharedDocument(..) ensures that InputStream is closed in every case. The document is shared
+		// by all users of this test on this node and must not be changed.
+		final Document theDoc = QTIHelper.getSharedDocument((LocalFileImpl) vfsQTI);
 		// if doc is null an error loading the document occured (IOException, qti.xml does not exist)
 		return theDoc;
 	}
@@ -153,6 +153,8 @@ public class ImsRepositoryResolver implements Resolver {
 	 */
 	@Override
 	public Element getSection(final String ident) {
+		final Document doc = getQTIDocument();
+		if (doc == null) { return null; }
 		final Element el_section = (Element) doc.selectSingleNode("questestinterop/assessment/section[@ident='" + ident + "']");
 		return el_section;
 	}
@@ -166,6 +168,8 @@ public class ImsRepositoryResolver implements Resolver {
 	public Element getItem(final String ident) {
 		// ident of item must be "globally unique"(qti...), unique within a qti
 		// document
+		final Document doc = getQTIDocument();
+		if (doc == null) { return null; }
 		final Element el_item = (Element) doc.selectSingleNode("//item[@ident='" + ident + "']");
 		return el_item;
 	}
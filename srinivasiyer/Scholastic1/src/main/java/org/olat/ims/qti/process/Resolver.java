@@ -30,6 +30,12 @@ import org.dom4j.Element;
 public interface Resolver {
 	Element getObjectBank(String ident);
 
+	/**
+	 * The document may be shared with other users of the same test, the returned document and the elements of getObjectBank(), getSection() and getItem() must be
+	 * treated as read-only.
+	 * 
+	 * @return the qti document
+	 */
 	Document getQTIDocument();
 
 	Element getSection(String ident);
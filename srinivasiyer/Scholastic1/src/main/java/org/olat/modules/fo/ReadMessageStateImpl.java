@@ -0,0 +1,112 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.modules.fo;
+
+import java.util.Date;
+
+import org.olat.core.commons.persistence.PersistentObject;
+import org.olat.core.id.ModifiedInfo;
+
+/**
+ * Description:<br>
+ * Persisted ForumReadState of one identity in one forum (table o_forum_readstate).
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class ReadMessageStateImpl extends PersistentObject implements ModifiedInfo {
+
+	private Long identityKey;
+	private Long forumKey;
+	private long highWaterMark;
+	private String readKeys;
+	private Date lastModified;
+
+	ReadMessageStateImpl() {
+		// default constructor
+	}
+
+	ReadMessageStateImpl(final Long identityKey, final Long forumKey) {
+		this.identityKey = identityKey;
+		this.forumKey = forumKey;
+	}
+
+	public Long getIdentityKey() {
+		return identityKey;
+	}
+
+	public void setIdentityKey(final Long identityKey) {
+		this.identityKey = identityKey;
+	}
+
+	public Long getForumKey() {
+		return forumKey;
+	}
+
+	public void setForumKey(final Long forumKey) {
+		this.forumKey = forumKey;
+	}
+
+	/**
+	 * @return the creation time (in milliseconds) until which all messages are read
+	 */
+	public long getHighWaterMark() {
+		return highWaterMark;
+	}
+
+	public void setHighWaterMark(final long highWaterMark) {
+		this.highWaterMark = highWaterMark;
+	}
+
+	/**
+	 * @return the delta encoded keys of the messages read after the high-water mark
+	 */
+	public String getReadKeys() {
+		return readKeys;
+	}
+
+	public void setReadKeys(final String readKeys) {
+		this.readKeys = readKeys;
+	}
+
+	/**
+	 * @see org.olat.core.id.ModifiedInfo#getLastModified()
+	 */
+	@Override
+	public Date getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * @see org.olat.core.id.ModifiedInfo#setLastModified(java.util.Date)
+	 */
+	@Override
+	public void setLastModified(final Date date) {
+		this.lastModified = date;
+	}
+
+	/**
+	 * @return the state as used by the ForumManager
+	 */
+	ForumReadState toReadState() {
+		return new ForumReadState(getKey(), highWaterMark, ForumReadState.decodeReadKeys(readKeys));
+	}
+}
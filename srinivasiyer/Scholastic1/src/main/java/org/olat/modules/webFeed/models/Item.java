@@ -30,6 +30,8 @@ import org.olat.core.id.Identity;
 import org.olat.core.id.User;
 import org.olat.core.id.UserConstants;
 import org.olat.core.util.StringHelper;
+import org.olat.core.util.resource.OresHelper;
+import org.olat.modules.webFeed.managers.FeedManager;
 
 /**
  * This is the feed item class. A feed has many items. Implements Serializable for caching, Dated for ordering.
@@ -54,6 +56,10 @@ public class Item implements Serializable, Dated {
 	private Date publishDate;
 	private Enclosure enclosure;
 	private transient FileElement mediaFile;
+	// The feed whose item file holds the content, if the item has been read from
+	// the item index and the content has not been loaded yet
+	private String contentFeedType;
+	private Long contentFeedId;
 	// An item can either be in draft version or it is published
 	// -> 'not draft' is equivalent to 'published'
 	private boolean draft = false;
@@ -95,15 +101,32 @@ public class Item implements Serializable, Dated {
 	 */
 	public void setContent(final String content) {
 		this.content = content;
+		this.contentFeedId = null;
 	}
 
 	/**
 	 * @return Returns the content.
 	 */
 	public String getContent() {
+		final Long feedId = contentFeedId;
+		if (feedId != null) {
+			content = FeedManager.getInstance().loadItemContent(this, OresHelper.createOLATResourceableInstance(contentFeedType, feedId));
+			contentFeedId = null;
+		}
 		return content;
 	}
 
+	/**
+	 * The item has been read from the item index without its content. The content is read from the item file of the feed when it is first accessed.
+	 * 
+	 * @param feed
+	 */
+	public void setContentNotLoaded(final Feed feed) {
+		this.content = null;
+		this.contentFeedType = feed.getResourceableTypeName();
+		this.contentFeedId = feed.getResourceableId();
+	}
+
 	public boolean isAuthorFallbackSet() {
 		return StringHelper.containsNonWhitespace(author);
 	}
@@ -82,9 +82,9 @@ import org.olat.user.UserDataDeletable;
 public class NotificationsManagerImpl extends NotificationsManager implements UserDataDeletable {
 	private static final OLog log = Tracing.createLoggerFor(NotificationsManagerImpl.class);
 
-	private static final int PUB_STATE_OK = 0;
+	static final int PUB_STATE_OK = 0;
 	private static final int PUB_STATE_NOT_OK = 1;
-	private static final String LATEST_EMAIL_USER_PROP = "noti_latest_email";
+	static final String LATEST_EMAIL_USER_PROP = "noti_latest_email";
 	private final SubscriptionInfo NOSUBSINFO = new NoSubscriptionInfo();
 
 	private final OLATResourceable oresMyself = OresHelper.lookupType(NotificationsManagerImpl.class);
@@ -95,6 +95,8 @@ public class NotificationsManagerImpl extends NotificationsManager implements Us
 	private String defaultNotificationInterval;
 	private static final Map<String, Integer> INTERVAL_DEF_MAP = buildIntervalMap();
 	private final Object lockObject = new Object();
+	private int emailShards = 1;
+	private int mailQueueSize = 500;
 
 	/**
 	 * [used by spring]
@@ -237,6 +239,10 @@ public class NotificationsManagerImpl extends NotificationsManager implements Us
 
 	public void notifyAllSubscribersByEmail() {
 		logAudit("starting notification cronjob for email sending", null);
+		if (emailShards > 1) {
+			new ShardedEmailNotifier(this, emailShards, mailQueueSize).notifyAllSubscribersByEmail();
+			return;
+		}
 		final List<Subscriber> subs = getAllValidSubscribers();
 		// ordered by identity.name!
 
@@ -433,7 +439,7 @@ public class NotificationsManagerImpl extends NotificationsManager implements Us
 		return sentOk;
 	}
 
-	private boolean sendEmail(final Identity to, final String title, final List<SubscriptionItem> subItems) {
+	boolean sendEmail(final Identity to, final String title, final List<SubscriptionItem> subItems) {
 		final StringBuilder plaintext = new StringBuilder();
 		for (final Iterator<SubscriptionItem> it_subs = subItems.iterator(); it_subs.hasNext();) {
 			final SubscriptionItem subitem = it_subs.next();
@@ -918,7 +924,7 @@ public class NotificationsManagerImpl extends NotificationsManager implements Us
 	 * 
 	 * @return Date
 	 */
-	private Date getDefaultCompareDate() {
+	Date getDefaultCompareDate() {
 		final Calendar calNow = Calendar.getInstance();
 		calNow.add(Calendar.DAY_OF_MONTH, -30);
 		final Date compareDate = calNow.getTime();
@@ -1044,6 +1050,24 @@ public class NotificationsManagerImpl extends NotificationsManager implements Us
 		this.defaultNotificationInterval = defaultNotificationInterval;
 	}
 
+	/**
+	 * Spring setter method
+	 * 
+	 * @param emailShards number of shards the email job is split into by identity, 1 sends all emails sequentially in the calling thread
+	 */
+	public void setEmailShards(final int emailShards) {
+		this.emailShards = emailShards;
+	}
+
+	/**
+	 * Spring setter method
+	 * 
+	 * @param mailQueueSize max. number of collected emails waiting to be sent when the email job runs in shards
+	 */
+	public void setMailQueueSize(final int mailQueueSize) {
+		this.mailQueueSize = mailQueueSize;
+	}
+
 	/**
 	 * @see org.olat.core.util.notifications.NotificationsManager#getDefaultNotificationInterval()
 	 */
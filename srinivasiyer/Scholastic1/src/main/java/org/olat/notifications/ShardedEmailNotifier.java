@@ -0,0 +1,580 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) since 2004 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.notifications;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.FlushMode;
+import org.olat.core.commons.persistence.DB;
+import org.olat.core.commons.persistence.DBFactory;
+import org.olat.core.commons.persistence.DBQuery;
+import org.olat.core.gui.translator.Translator;
+import org.olat.core.id.Identity;
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+import org.olat.core.logging.activity.ThreadLocalUserActivityLoggerInstaller;
+import org.olat.core.util.Util;
+import org.olat.core.util.i18n.I18nManager;
+import org.olat.core.util.notifications.NotificationHelper;
+import org.olat.core.util.notifications.Subscriber;
+import org.olat.core.util.notifications.SubscriptionInfo;
+import org.olat.core.util.notifications.SubscriptionItem;
+import org.olat.properties.Property;
+import org.olat.properties.PropertyManager;
+
+/**
+ * Description:<br>
+ * Sharded execution of the notification email job. The valid subscribers are partitioned by the key of their identity (key modulo number of shards). Every shard is
+ * collected by its own worker with its own db session: the subscribers (with identity, user and preferences) and the latest email sent dates are loaded with one query
+ * each per shard. The collected mails are handed to a single mail sender thread which sends them in the order of the shards and updates the subscribers and the latest
+ * email property in the same transaction as the checkpoint of the shard.
+ * <p>
+ * The checkpoint is the key of the latest identity handled by a shard. A run which has been interrupted (e.g. by a crash of the VM) leaves the checkpoints behind, the
+ * next run resumes every shard after its checkpoint and does not send the mails of the interrupted run again. Checkpoints older than the shortest enabled
+ * notification interval are ignored, as the subscribers before them are due again anyway.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+class ShardedEmailNotifier {
+	private static final OLog log = Tracing.createLoggerFor(ShardedEmailNotifier.class);
+
+	static final String CHECKPOINT_CATEGORY = "NotificationsEmailJob";
+	// write the checkpoint at least every n identities, also if no mail has been sent
+	private static final int CHECKPOINT_INTERVAL = 50;
+	// log the progress of a shard every n identities
+	private static final int PROGRESS_INTERVAL = 1000;
+
+	private final NotificationsManagerImpl manager;
+	private final int shards;
+	private final BlockingQueue<MailEntry> mailQueue;
+	private final ShardProgress[] progress;
+
+	/**
+	 * @param manager the notifications manager which collects the subscription items and sends the mails
+	 * @param shards number of shards, one worker thread per shard
+	 * @param mailQueueSize max. number of collected mails waiting to be sent before the shards have to wait
+	 */
+	ShardedEmailNotifier(final NotificationsManagerImpl manager, final int shards, final int mailQueueSize) {
+		this.manager = manager;
+		this.shards = shards;
+		this.mailQueue = new ArrayBlockingQueue<MailEntry>(mailQueueSize);
+		this.progress = new ShardProgress[shards];
+		for (int i = 0; i < shards; i++) {
+			progress[i] = new ShardProgress(i);
+		}
+	}
+
+	/**
+	 * collects and sends the notification emails of all shards, returns when all mails have been sent.
+	 */
+	void notifyAllSubscribersByEmail() {
+		final long start = System.currentTimeMillis();
+		loadCheckpoints();
+		DBFactory.getInstance().intermediateCommit();
+
+		final MailSender mailSender = new MailSender();
+		final Thread mailSenderThread = new Thread(mailSender, "NotificationsEmailSender");
+		mailSenderThread.setDaemon(true);
+		mailSenderThread.start();
+
+		final ExecutorService shardPool = Executors.newFixedThreadPool(shards, new ShardThreadFactory());
+		boolean interrupted = false;
+		try {
+			final List<Future<?>> futures = new ArrayList<Future<?>>(shards);
+			for (int i = 0; i < shards; i++) {
+				futures.add(shardPool.submit(new ShardWorker(progress[i])));
+			}
+			// the shards and the mail sender do not react on interrupts, so wait until they are done
+			for (final Future<?> future : futures) {
+				while (true) {
+					try {
+						future.get();
+						break;
+					} catch (final ExecutionException e) {
+						// the checkpoint of the shard is kept, the next run resumes it
+						log.error("Notification email shard failed", e.getCause());
+						break;
+					} catch (final InterruptedException e) {
+						interrupted = true;
+					}
+				}
+			}
+		} finally {
+			shardPool.shutdown();
+			enqueue(MailEntry.END_OF_RUN);
+			while (mailSenderThread.isAlive()) {
+				try {
+					mailSenderThread.join();
+				} catch (final InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		final StringBuilder summary = new StringBuilder();
+		int mails = 0;
+		for (final ShardProgress sp : progress) {
+			mails += sp.mailsSent.get();
+			if (sp.failedMails.length() > 0) {
+				summary.append(sp.failedMails);
+			}
+		}
+		if (summary.length() > 0) {
+			log.audit("error sending email to the following identities: " + summary.toString());
+		}
+		log.audit("notification cronjob finished: " + shards + " shards, " + mails + " emails sent in " + (System.currentTimeMillis() - start) + "ms");
+	}
+
+	// the news and the mail transport of the notifications manager, overridden by the tests
+
+	SubscriptionItem createSubscriptionItem(final Subscriber subscriber, final Locale locale, final Date latestEmailed) {
+		return manager.createSubscriptionItem(subscriber, locale, SubscriptionInfo.MIME_PLAIN, SubscriptionInfo.MIME_PLAIN, latestEmailed);
+	}
+
+	boolean sendEmail(final Identity to, final String title, final List<SubscriptionItem> items) {
+		return manager.sendEmail(to, title, items);
+	}
+
+	/**
+	 * load the checkpoints of an interrupted run, if they are not too old
+	 */
+	private void loadCheckpoints() {
+		final Date validSince = getCheckpointValidSince();
+		final PropertyManager pm = PropertyManager.getInstance();
+		for (final ShardProgress sp : progress) {
+			final Property p = pm.findProperty(null, null, null, CHECKPOINT_CATEGORY, getCheckpointName(sp.shard));
+			if (p == null) {
+				continue;
+			}
+			if (p.getLastModified() != null && p.getLastModified().after(validSince) && p.getLongValue() != null) {
+				// the property itself is loaded again by the mail sender in its own session
+				sp.checkpointKey = p.getKey();
+				sp.fromIdentityKey = p.getLongValue().longValue();
+				log.audit("notification shard " + sp.getName() + " resumes after identity key " + sp.fromIdentityKey);
+			} else {
+				pm.deleteProperty(p);
+			}
+		}
+	}
+
+	/**
+	 * @return the start of the shortest enabled notification interval, newer checkpoints belong to an interrupted run whose mails must not be sent again.
+	 */
+	private Date getCheckpointValidSince() {
+		Date validSince = null;
+		for (final String interval : manager.getEnabledNotificationIntervals()) {
+			if ("never".equals(interval)) {
+				continue;
+			}
+			final Date compareDate = manager.getCompareDateFromInterval(interval);
+			if (validSince == null || compareDate.after(validSince)) {
+				validSince = compareDate;
+			}
+		}
+		return validSince == null ? new Date() : validSince;
+	}
+
+	private String getCheckpointName(final int shard) {
+		// contains the number of shards, as the checkpoints of another partitioning are of no use
+		return "checkpoint." + shard + "." + shards;
+	}
+
+	private void enqueue(final MailEntry entry) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				mailQueue.put(entry);
+				break;
+			} catch (final InterruptedException e) {
+				// the entry must not get lost, otherwise the checkpoint would skip it
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * collects the mails of one shard
+	 */
+	private class ShardWorker implements Runnable {
+		private final ShardProgress sp;
+		private final Map<Locale, Translator> translators = new HashMap<Locale, Translator>();
+
+		ShardWorker(final ShardProgress sp) {
+			this.sp = sp;
+		}
+
+		@Override
+		public void run() {
+			boolean success = false;
+			try {
+				ThreadLocalUserActivityLoggerInstaller.initEmptyUserActivityLogger();
+				collectShard();
+				DBFactory.getInstance(false).commitAndCloseSession();
+				success = true;
+			} finally {
+				ThreadLocalUserActivityLoggerInstaller.resetUserActivityLogger();
+				if (!success) {
+					DBFactory.getInstance(false).rollbackAndCloseSession();
+				}
+				// also a failed shard tells the mail sender that nothing more comes from it
+				enqueue(new MailEntry(sp, null, null, null, null, !success));
+			}
+		}
+
+		private void collectShard() {
+			final List<Subscriber> subs = loadSubscribers();
+			final Map<Long, Long> latestEmails = loadLatestEmails();
+			sp.numOfSubscribers = subs.size();
+			log.audit("notification shard " + sp.getName() + " started with " + subs.size() + " subscriptions, loaded in " + (System.currentTimeMillis() - sp.start)
+					+ "ms");
+
+			final Date defaultCompareDate = manager.getDefaultCompareDate();
+			List<Subscriber> identitySubs = new ArrayList<Subscriber>();
+			Identity ident = null;
+			for (final Subscriber sub : subs) {
+				if (ident != null && !ident.equalsByPersistableKey(sub.getIdentity())) {
+					collectIdentity(ident, identitySubs, latestEmails.get(ident.getKey()), defaultCompareDate);
+					identitySubs = new ArrayList<Subscriber>();
+				}
+				ident = sub.getIdentity();
+				identitySubs.add(sub);
+			}
+			if (ident != null) {
+				collectIdentity(ident, identitySubs, latestEmails.get(ident.getKey()), defaultCompareDate);
+			}
+		}
+
+		/**
+		 * same rules as NotificationsManagerImpl.notifyAllSubscribersByEmail() for the subscriptions of one identity
+		 */
+		private void collectIdentity(final Identity ident, final List<Subscriber> subs, final Long latestEmailProp, final Date defaultCompareDate) {
+			final long start = System.currentTimeMillis();
+			final List<SubscriptionItem> items = new ArrayList<SubscriptionItem>();
+			final List<Long> subsToUpdate = new ArrayList<Long>();
+			boolean veto = false;
+			Locale locale = null;
+
+			// only send notifications to active users
+			if (ident.getStatus().compareTo(Identity.STATUS_VISIBLE_LIMIT) < 0) {
+				final String userInterval = manager.getUserIntervalOrDefault(ident);
+				final Date compareDate = manager.getCompareDateFromInterval(userInterval);
+				if (latestEmailProp != null && new Date(latestEmailProp.longValue()).after(compareDate)) {
+					veto = true;
+				}
+				// "never": this user doesn't want notifications
+				if (!veto && !"never".equals(userInterval)) {
+					locale = I18nManager.getInstance().getLocaleOrDefault(ident.getUser().getPreferences().getLanguage());
+					for (final Subscriber sub : subs) {
+						Date latestEmail = sub.getLatestEmailed();
+						if (latestEmail == null || compareDate.after(latestEmail)) {
+							if (latestEmail == null || latestEmail.before(defaultCompareDate)) {
+								// no notification older than a month
+								latestEmail = defaultCompareDate;
+							}
+							final SubscriptionItem subsitem = createSubscriptionItem(sub, locale, latestEmail);
+							if (subsitem != null) {
+								items.add(subsitem);
+								subsToUpdate.add(sub.getKey());
+							}
+						} else {
+							// already send an email within the user's settings interval
+							veto = true;
+							break;
+						}
+					}
+				}
+			}
+
+			if (!veto && items.size() > 0) {
+				final String title = getTranslator(locale).translate("rss.title", new String[] { NotificationHelper.getFormatedName(ident) });
+				enqueue(new MailEntry(sp, ident, title, items, subsToUpdate, false));
+				sp.mailDurations += System.currentTimeMillis() - start;
+			} else {
+				enqueue(new MailEntry(sp, ident, null, null, null, false));
+			}
+
+			// collecting the SubscriptionItem can potentially make a lot of DB calls
+			DBFactory.getInstance().intermediateCommit();
+			if (++sp.identities % PROGRESS_INTERVAL == 0) {
+				log.audit("notification shard " + sp.getName() + ": " + sp.identities + " identities collected, " + sp.mailsSent.get() + " emails sent, "
+						+ (System.currentTimeMillis() - sp.start) + "ms");
+			}
+		}
+
+		private Translator getTranslator(final Locale locale) {
+			Translator translator = translators.get(locale);
+			if (translator == null) {
+				translator = Util.createPackageTranslator(NotificationsManagerImpl.class, locale);
+				translators.put(locale, translator);
+			}
+			return translator;
+		}
+
+		/**
+		 * @return the valid subscribers of this shard with fetched identity, user and preferences, ordered by identity key
+		 */
+		@SuppressWarnings("unchecked")
+		private List<Subscriber> loadSubscribers() {
+			final StringBuilder sb = new StringBuilder();
+			sb.append("select sub from ").append(SubscriberImpl.class.getName()).append(" sub").append(" inner join fetch sub.publisher as pub")
+					.append(" inner join fetch sub.identity as ident").append(" inner join fetch ident.user as identUser")
+					.append(" where pub.state = :aState and mod(ident.key, :shards) = :shard and ident.key > :fromKey").append(" order by ident.key");
+			final DBQuery query = DBFactory.getInstance().createQuery(sb.toString());
+			query.setLong("aState", NotificationsManagerImpl.PUB_STATE_OK);
+			query.setLong("shards", shards);
+			query.setLong("shard", sp.shard);
+			query.setLong("fromKey", sp.fromIdentityKey);
+			return query.list();
+		}
+
+		/**
+		 * @return identity key to the date (in ms) of the latest notification email sent to this identity
+		 */
+		@SuppressWarnings("unchecked")
+		private Map<Long, Long> loadLatestEmails() {
+			final StringBuilder sb = new StringBuilder();
+			sb.append("select p.identity.key, p.longValue from ").append(Property.class.getName()).append(" p")
+					.append(" where p.name = :name and p.category is null and p.grp is null and p.resourceTypeName is null and p.resourceTypeId is null")
+					.append(" and mod(p.identity.key, :shards) = :shard and p.identity.key > :fromKey");
+			final DBQuery query = DBFactory.getInstance().createQuery(sb.toString());
+			query.setString("name", NotificationsManagerImpl.LATEST_EMAIL_USER_PROP);
+			query.setLong("shards", shards);
+			query.setLong("shard", sp.shard);
+			query.setLong("fromKey", sp.fromIdentityKey);
+			final List<Object[]> rows = query.list();
+			final Map<Long, Long> latestEmails = new HashMap<Long, Long>(rows.size() * 2);
+			for (final Object[] row : rows) {
+				if (row[1] != null) {
+					latestEmails.put((Long) row[0], (Long) row[1]);
+				}
+			}
+			return latestEmails;
+		}
+	}
+
+	/**
+	 * sends the collected mails, one db transaction per mail which also contains the checkpoint of the shard
+	 */
+	private class MailSender implements Runnable {
+		private int openShards = shards;
+
+		@Override
+		public void run() {
+			ThreadLocalUserActivityLoggerInstaller.initEmptyUserActivityLogger();
+			try {
+				while (true) {
+					final MailEntry entry;
+					try {
+						entry = mailQueue.take();
+					} catch (final InterruptedException e) {
+						// the shards are still producing, so go on
+						continue;
+					}
+					if (entry == MailEntry.END_OF_RUN) {
+						break;
+					}
+					try {
+						handle(entry);
+						DBFactory.getInstance(false).commitAndCloseSession();
+					} catch (final RuntimeException e) {
+						DBFactory.getInstance(false).rollbackAndCloseSession();
+						log.error("Error while sending notification email to " + (entry.identity == null ? null : entry.identity.getName()), e);
+					}
+				}
+			} finally {
+				ThreadLocalUserActivityLoggerInstaller.resetUserActivityLogger();
+				if (openShards > 0) {
+					log.warn(openShards + " notification shards did not finish, the next run resumes them from the checkpoints");
+				}
+			}
+		}
+
+		private void handle(final MailEntry entry) {
+			final ShardProgress sp = entry.progress;
+			if (entry.identity == null) {
+				// end of shard
+				openShards--;
+				if (entry.failed) {
+					saveCheckpoint(sp);
+					log.audit("notification shard " + sp.getName() + " failed after " + sp.identities + " identities, " + sp.mailsSent.get() + " emails sent, "
+							+ (System.currentTimeMillis() - sp.start) + "ms");
+				} else {
+					deleteCheckpoint(sp);
+					log.audit("notification shard " + sp.getName() + " finished: " + sp.identities + " identities, " + sp.numOfSubscribers + " subscriptions, "
+							+ sp.mailsSent.get() + " emails sent, " + (System.currentTimeMillis() - sp.start) + "ms (" + sp.mailDurations + "ms collecting emails)");
+				}
+				return;
+			}
+
+			sp.lastIdentityKey = entry.identity.getKey();
+			if (entry.items != null) {
+				final boolean sentOk = sendEmail(entry.identity, entry.title, entry.items);
+				if (sentOk) {
+					final Date now = new Date();
+					markSubscribersEmailed(entry.subscriberKeys, now);
+					updateLatestEmailProperty(entry.identity, now);
+					sp.mailsSent.incrementAndGet();
+				} else {
+					sp.failedMails.append(entry.identity.getName()).append(", ");
+				}
+				saveCheckpoint(sp);
+			} else if (++sp.sinceCheckpoint >= CHECKPOINT_INTERVAL) {
+				saveCheckpoint(sp);
+			}
+		}
+
+		private void markSubscribersEmailed(final List<Long> subscriberKeys, final Date now) {
+			final StringBuilder sb = new StringBuilder();
+			sb.append("update versioned ").append(SubscriberImpl.class.getName()).append(" sub set sub.latestEmailed = :now, sub.lastModified = :now")
+					.append(" where sub.key in (:keys)");
+			final DBQuery query = DBFactory.getInstance().createQuery(sb.toString());
+			query.setTimestamp("now", now);
+			query.setParameterList("keys", subscriberKeys);
+			query.executeUpdate(FlushMode.AUTO);
+		}
+
+		private void updateLatestEmailProperty(final Identity identity, final Date now) {
+			final PropertyManager pm = PropertyManager.getInstance();
+			Property p = pm.findProperty(identity, null, null, null, NotificationsManagerImpl.LATEST_EMAIL_USER_PROP);
+			if (p == null) {
+				p = pm.createUserPropertyInstance(identity, null, NotificationsManagerImpl.LATEST_EMAIL_USER_PROP, null, null, null, null);
+				p.setLongValue(now.getTime());
+				pm.saveProperty(p);
+			} else {
+				p.setLongValue(now.getTime());
+				pm.updateProperty(p);
+			}
+		}
+
+		private void saveCheckpoint(final ShardProgress sp) {
+			sp.sinceCheckpoint = 0;
+			if (sp.lastIdentityKey == null) { return; }
+			final PropertyManager pm = PropertyManager.getInstance();
+			if (sp.checkpoint == null && sp.checkpointKey != null) {
+				sp.checkpoint = (Property) DBFactory.getInstance().findObject(Property.class, sp.checkpointKey);
+			}
+			if (sp.checkpoint == null) {
+				sp.checkpoint = pm.createPropertyInstance(null, null, null, CHECKPOINT_CATEGORY, getCheckpointName(sp.shard), null, sp.lastIdentityKey, null, null);
+				pm.saveProperty(sp.checkpoint);
+			} else {
+				sp.checkpoint.setLongValue(sp.lastIdentityKey);
+				pm.updateProperty(sp.checkpoint);
+			}
+		}
+
+		private void deleteCheckpoint(final ShardProgress sp) {
+			final DB db = DBFactory.getInstance();
+			if (sp.checkpoint != null) {
+				db.deleteObject(db.loadObject(sp.checkpoint));
+			} else if (sp.checkpointKey != null) {
+				final Object p = db.findObject(Property.class, sp.checkpointKey);
+				if (p != null) {
+					db.deleteObject(p);
+				}
+			}
+			sp.checkpoint = null;
+			sp.checkpointKey = null;
+		}
+	}
+
+	/**
+	 * state and statistics of one shard. the collecting fields are only written by the shard worker, the sending fields only by the mail sender.
+	 */
+	private class ShardProgress {
+		private final int shard;
+		private final long start = System.currentTimeMillis();
+		private long fromIdentityKey = -1;
+		// collecting
+		private volatile int identities;
+		private volatile int numOfSubscribers;
+		private volatile long mailDurations;
+		// sending
+		private final AtomicInteger mailsSent = new AtomicInteger();
+		private final StringBuffer failedMails = new StringBuffer();
+		private Long lastIdentityKey;
+		private int sinceCheckpoint;
+		private Long checkpointKey;
+		private Property checkpoint;
+
+		ShardProgress(final int shard) {
+			this.shard = shard;
+		}
+
+		String getName() {
+			return (shard + 1) + "/" + shards;
+		}
+	}
+
+	/**
+	 * a collected mail, or only the information that an identity has been handled (identity != null, items == null) or that a shard is done (identity == null)
+	 */
+	private static class MailEntry {
+		private static final MailEntry END_OF_RUN = new MailEntry(null, null, null, null, null, false);
+
+		private final ShardProgress progress;
+		private final Identity identity;
+		private final String title;
+		private final List<SubscriptionItem> items;
+		private final List<Long> subscriberKeys;
+		private final boolean failed;
+
+		MailEntry(final ShardProgress progress, final Identity identity, final String title, final List<SubscriptionItem> items, final List<Long> subscriberKeys,
+				final boolean failed) {
+			this.progress = progress;
+			this.identity = identity;
+			this.title = title;
+			this.items = items;
+			this.subscriberKeys = subscriberKeys;
+			this.failed = failed;
+		}
+	}
+
+	private static class ShardThreadFactory implements ThreadFactory {
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(final Runnable r) {
+			final Thread t = new Thread(r, "NotificationsEmailShard-" + threadNumber.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+}
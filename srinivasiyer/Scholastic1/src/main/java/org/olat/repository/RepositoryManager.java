@@ -435,6 +435,18 @@ public class RepositoryManager extends BasicManager {
 		return dbquery.list();
 	}
 
+	/**
+	 * Load the key, the last modification date and the resource of every repository entry, without loading the entries themselves. Used by the incremental search
+	 * indexer to find the entries which were changed, added or deleted since its last run.
+	 * 
+	 * @return List of Object[] { key (Long), lastModified (Date), resourceableId (Long), resourceableTypeName (String) }
+	 */
+	public List<Object[]> getRepositoryEntryModifications() {
+		final String query = "select v.key, v.lastModified, res.resId, res.resName from org.olat.repository.RepositoryEntry v inner join v.olatResource as res";
+		final DBQuery dbquery = DBFactory.getInstance().createQuery(query);
+		return dbquery.list();
+	}
+
 	/**
 	 * Query by type, limit by ownership or role accessability.
 	 * 
@@ -23,6 +23,7 @@ package org.olat.search.service;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.queryParser.ParseException;
@@ -53,6 +54,9 @@ public class SearchServiceDisabled implements SearchService {
 	@Override
 	public void addToIndex(final Document document) {}
 
+	@Override
+	public void addToIndex(final String resourceUrl, final Callable<Document> extraction) {}
+
 	@Override
 	public void startIndexing() {}
 
@@ -62,6 +62,11 @@ public class ExcelDocument extends FileDocument {
 		return excelDocument.getLuceneDocument();
 	}
 
+	@Override
+	protected boolean isContentCached() {
+		return true;
+	}
+
 	@Override
 	protected String readContent(final VFSLeaf leaf) throws IOException, DocumentException {
 		BufferedInputStream bis = null;
@@ -89,7 +89,7 @@ public abstract class FileDocument extends OlatDocument {
 		this.setParentContextType(leafResourceContext.getParentContextType());
 		this.setParentContextName(leafResourceContext.getParentContextName());
 		// Add the content itself
-		this.setContent(readContent(leaf));
+		this.setContent(FileDocumentFactory.readContent(this, leaf));
 
 		// Add other metadata from meta info
 		if (meta != null) {
@@ -125,4 +125,11 @@ public abstract class FileDocument extends OlatDocument {
 
 	abstract protected String readContent(VFSLeaf leaf) throws IOException, DocumentException, DocumentAccessException;
 
+	/**
+	 * @return True if the extraction of the content is expensive and the text should be kept in the ExtractedTextCache
+	 */
+	protected boolean isContentCached() {
+		return false;
+	}
+
 }
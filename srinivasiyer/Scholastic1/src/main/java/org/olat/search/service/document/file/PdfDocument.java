@@ -90,6 +90,11 @@ public class PdfDocument extends FileDocument {
 		return pdfTextTmpFilePath;
 	}
 
+	@Override
+	protected boolean isContentCached() {
+		return true;
+	}
+
 	@Override
 	protected String readContent(final VFSLeaf leaf) throws DocumentException, DocumentAccessException {
 		try {
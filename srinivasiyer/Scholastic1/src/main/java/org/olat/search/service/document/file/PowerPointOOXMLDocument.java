@@ -76,6 +76,11 @@ public class PowerPointOOXMLDocument extends FileDocument {
 		return powerPointDocument.getLuceneDocument();
 	}
 
+	@Override
+	protected boolean isContentCached() {
+		return true;
+	}
+
 	@Override
 	public String readContent(final VFSLeaf leaf) throws IOException, DocumentException {
 		BufferedInputStream bis = null;
@@ -61,6 +61,11 @@ public class WordDocument extends FileDocument {
 		return wordDocument.getLuceneDocument();
 	}
 
+	@Override
+	protected boolean isContentCached() {
+		return true;
+	}
+
 	@Override
 	protected String readContent(final VFSLeaf leaf) throws IOException, DocumentException {
 		BufferedInputStream bis = null;
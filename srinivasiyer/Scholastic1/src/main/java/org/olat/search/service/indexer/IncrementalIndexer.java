@@ -0,0 +1,674 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.search.service.indexer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermEnum;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Version;
+import org.olat.core.commons.modules.bc.vfs.OlatRootFolderImpl;
+import org.olat.core.commons.persistence.DBFactory;
+import org.olat.core.commons.services.search.AbstractOlatDocument;
+import org.olat.core.commons.services.search.SearchModule;
+import org.olat.core.id.context.BusinessControl;
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.resource.OresHelper;
+import org.olat.course.CourseModule;
+import org.olat.course.PersistingCourseImpl;
+import org.olat.fileresource.FileResourceManager;
+import org.olat.repository.RepositoryEntry;
+import org.olat.repository.RepositoryManager;
+import org.olat.search.service.SearchResourceContext;
+import org.olat.search.service.indexer.repository.RepositoryIndexer;
+
+/**
+ * Description:<br>
+ * Keeps one long-lived IndexWriter open on the live search index and re-indexes only the repository entries which changed since its last run. Runs in own thread.
+ * The batches of the IndexUpdater are written through the same writer.
+ * <p>
+ * A repository entry counts as changed when its lastModified is newer than the last run, when the stamp of its course or file resource folder differs from
+ * the one recorded when it was indexed or when it is not in the index yet. The stamp is the newest lastModified found by a walk of the folder which is bounded
+ * in depth and number of files, so publishing a course (runstructure.xml), replacing the file of a file resource or changing a file in the course folder is
+ * found; changes beyond the bounds are picked up by the next full index. All documents of a changed entry are deleted by their resourceUrl prefix and the
+ * entry is indexed again with the same indexers the OlatFullIndexer uses. Entries which no longer exist are deleted from the index. After each run the changes
+ * are committed and published to the searcher by a near-real-time reader of the writer, so there is no need to wait for the next full index. The writer lock
+ * is only held to read and update the state of the live index, the changes are looked for and re-indexed without it so that neither suspend nor the batches of
+ * the IndexUpdater wait for a run. A full index which replaces the index in the meantime cancels the rest of the run. Everything which does not belong to a
+ * repository entry (groups, identities, portfolio maps) is still indexed by the full indexer only.
+ * <p>
+ * The time until which all changes are in the index is stored in the commit user data of the index, so a restart continues where the last run stopped. The
+ * OlatFullIndexer stores its start time there as well. While a new full index is moved to the index directory the incremental indexer is suspended, the next
+ * run opens the new index.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class IncrementalIndexer implements Runnable {
+
+	private static final OLog log = Tracing.createLoggerFor(IncrementalIndexer.class);
+
+	/** Key of the commit user data which holds the time [ms] until which all changes are in the index. */
+	static final String COMMIT_INDEXED_UNTIL = "olat.indexedUntil";
+	/** Changes are looked for a bit before the last run, the lastModified of the database may be truncated to seconds and the clocks of the cluster nodes differ. */
+	private static final long CHANGE_DETECTION_OVERLAP = 60000;
+	/** Max time to wait for the folder indexer workers of one run = 10 min */
+	private static final int MAX_FOLDER_INDEXER_WAITING_COUNT = 600;
+	/** Depth of the sub directories of a resource folder read for its stamp. */
+	static final int RESOURCE_STAMP_MAX_DEPTH = 8;
+	/** Max number of files and directories of a resource folder read for its stamp. */
+	static final int RESOURCE_STAMP_MAX_FILES = 5000;
+
+	private static final String REPOSITORY_ENTRY_URL_PREFIX = BusinessControl.START_TAG + OresHelper.calculateTypeName(RepositoryEntry.class)
+			+ BusinessControl.DELIMITER_TAG;
+
+	private final Index index;
+	private final SearchModule searchModuleConfig;
+	private final MainIndexer mainIndexer;
+	private final String indexPath;
+	private final long incrementalIndexInterval;
+
+	private Thread indexingThread = null;
+	private volatile boolean stopIndexing = true;
+
+	/** The live writer and all fields below are guarded by the writerLock. */
+	private final Object writerLock = new Object();
+	private IndexWriter indexWriter;
+	private OlatFullIndexer documentSink;
+	private long indexedUntil;
+	private boolean suspended = false;
+	/** Keys of the repository entries which are in the index. */
+	private final Set<Long> indexedRepositoryEntryKeys = new HashSet<Long>();
+	/** Stamps of the resource folders of the repository entries, recorded by the last run. */
+	private final Map<Long, Long> resourceStamps = new HashMap<Long, Long>();
+
+	private final Object readerLock = new Object();
+	private IndexReader currentReader;
+
+	private final AtomicLong documentCount = new AtomicLong();
+	private volatile Date lastRunDate;
+
+	/**
+	 * @param index Reference to index object, used to check if a full index is running
+	 * @param searchModuleConfig
+	 * @param mainIndexer
+	 */
+	public IncrementalIndexer(final Index index, final SearchModule searchModuleConfig, final MainIndexer mainIndexer) {
+		this.index = index;
+		this.searchModuleConfig = searchModuleConfig;
+		this.mainIndexer = mainIndexer;
+		this.indexPath = searchModuleConfig.getFullIndexPath();
+		this.incrementalIndexInterval = searchModuleConfig.getIncrementalIndexInterval();
+	}
+
+	/**
+	 * @return true when the incremental indexer is configured (incrementalIndexInterval != 0)
+	 */
+	public boolean isEnabled() {
+		return incrementalIndexInterval > 0;
+	}
+
+	/**
+	 * Start incremental indexer thread.
+	 */
+	public void startIndexing() {
+		if (!isEnabled()) {
+			log.info("IncrementalIndexer is disabled");
+			return;
+		}
+		if ((indexingThread == null) || !indexingThread.isAlive()) {
+			log.info("start incremental indexing thread...");
+			stopIndexing = false;
+			indexingThread = new Thread(this, "IncrementalIndexer");
+			indexingThread.setPriority(Thread.MIN_PRIORITY);
+			indexingThread.setDaemon(true);
+			indexingThread.start();
+		} else {
+			log.debug("incremental indexing allready running");
+		}
+	}
+
+	/**
+	 * Stop incremental indexer thread and close the live writer.
+	 */
+	public void stopIndexing() {
+		stopIndexing = true;
+		if ((indexingThread != null) && indexingThread.isAlive()) {
+			indexingThread.interrupt();
+		}
+		closeLiveIndex();
+	}
+
+	/**
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+		try {
+			while (!stopIndexing) {
+				Thread.sleep(incrementalIndexInterval);
+				if (FullIndexerStatus.STATUS_RUNNING.equals(index.getFullIndexStatus().getStatus())) {
+					// the full indexer uses the folder indexer workers and replaces the live index at the end, wait for it
+					log.debug("full indexing is running, skip incremental indexing");
+					continue;
+				}
+				try {
+					doIndex();
+				} catch (final InterruptedException iex) {
+					throw iex;
+				} catch (final Exception ex) {
+					log.warn("Error during incremental indexing, try again in " + incrementalIndexInterval + "ms", ex);
+				} finally {
+					DBFactory.getInstance().commitAndCloseSession();
+				}
+			}
+		} catch (final InterruptedException iex) {
+			log.info("IncrementalIndexer was interrupted ;" + iex.getMessage());
+		}
+		stopIndexing = true;
+		log.info("quit incremental indexing run.");
+	}
+
+	/**
+	 * Re-index all repository entries which were changed, added or deleted since the last run, commit and publish the changes.
+	 * 
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	void doIndex() throws IOException, InterruptedException {
+		final IndexWriter writer;
+		final OlatFullIndexer sink;
+		final long changedSince;
+		final Set<Long> indexedKeys;
+		final Map<Long, Long> recordedStamps;
+		final long startTime = System.currentTimeMillis();
+		final long documentCountBefore = documentCount.get();
+		synchronized (writerLock) {
+			if (suspended || (indexWriter == null && !openLiveIndex())) { return; }
+			writer = indexWriter;
+			sink = documentSink;
+			changedSince = indexedUntil - CHANGE_DETECTION_OVERLAP;
+			indexedKeys = new HashSet<Long>(indexedRepositoryEntryKeys);
+			recordedStamps = new HashMap<Long, Long>(resourceStamps);
+		}
+
+		// look for the changes without the writer lock, the resource folders are walked
+		final List<Object[]> modifications = RepositoryManager.getInstance().getRepositoryEntryModifications();
+		DBFactory.getInstance().commitAndCloseSession();
+		final List<Long> changedKeys = new ArrayList<Long>();
+		final Map<Long, Long> stamps = new HashMap<Long, Long>();
+		for (final Object[] modification : modifications) {
+			if (stopIndexing) { throw new InterruptedException("Do stop incremental indexing while looking for changes"); }
+			final Long key = (Long) modification[0];
+			final long stamp = getResourceStamp(getResourceDirectory(modification));
+			stamps.put(key, Long.valueOf(stamp));
+			if (!indexedKeys.contains(key) || isModifiedSince(modification, stamp, recordedStamps.get(key), changedSince)) {
+				changedKeys.add(key);
+			}
+		}
+		final List<Long> deletedKeys = new ArrayList<Long>();
+		for (final Long key : indexedKeys) {
+			if (!stamps.containsKey(key)) {
+				deletedKeys.add(key);
+			}
+		}
+
+		// re-index without the writer lock, the writer is thread safe and suspend closes it
+		for (final Long key : deletedKeys) {
+			deleteRepositoryEntry(writer, key);
+		}
+		final List<Long> reindexedKeys = new ArrayList<Long>();
+		for (final Long key : changedKeys) {
+			if (stopIndexing) { throw new InterruptedException("Do stop incremental indexing at repository entry=" + key); }
+			if (!isLiveWriter(writer)) {
+				log.info("live index was replaced during incremental indexing, changes are in the new index or found by the next run");
+				return;
+			}
+			if (reindexRepositoryEntry(writer, sink, key)) {
+				reindexedKeys.add(key);
+			}
+		}
+		// the folder indexer workers add their documents to the writer directly, they must be done before the commit
+		waitForFolderIndexers();
+
+		synchronized (writerLock) {
+			if (suspended || indexWriter != writer) {
+				log.info("live index was replaced during incremental indexing, changes are in the new index or found by the next run");
+				return;
+			}
+			indexedRepositoryEntryKeys.removeAll(deletedKeys);
+			indexedRepositoryEntryKeys.addAll(reindexedKeys);
+			resourceStamps.clear();
+			resourceStamps.putAll(stamps);
+			if (!changedKeys.isEmpty() || !deletedKeys.isEmpty()) {
+				writer.commit(createCommitUserData(startTime));
+				publishReader();
+			}
+			indexedUntil = startTime;
+			lastRunDate = new Date(startTime);
+		}
+		log.info("incremental indexing done in " + (System.currentTimeMillis() - startTime) + "ms: " + changedKeys.size() + " repository entries re-indexed with "
+				+ (documentCount.get() - documentCountBefore) + " documents, " + deletedKeys.size() + " deleted");
+	}
+
+	/**
+	 * @param writer
+	 * @return true when the writer is still the writer of the live index
+	 */
+	private boolean isLiveWriter(final IndexWriter writer) {
+		synchronized (writerLock) {
+			return !suspended && indexWriter == writer;
+		}
+	}
+
+	/**
+	 * @param writer
+	 * @param sink
+	 * @param key
+	 * @return false when the repository entry does not exist anymore
+	 */
+	private boolean reindexRepositoryEntry(final IndexWriter writer, final OlatFullIndexer sink, final Long key) throws IOException, InterruptedException {
+		deleteRepositoryEntry(writer, key);
+		final RepositoryEntry repositoryEntry = RepositoryManager.getInstance().lookupRepositoryEntry(key);
+		if (repositoryEntry == null) {
+			// deleted in the meantime
+			return false;
+		}
+		if (log.isDebug()) {
+			log.debug("Re-index repositoryEntry=" + repositoryEntry);
+		}
+		try {
+			final RepositoryIndexer repositoryIndexer = (RepositoryIndexer) mainIndexer.getChildIndexer(OresHelper.calculateTypeName(RepositoryEntry.class));
+			repositoryIndexer.indexRepositoryEntry(new SearchResourceContext(), repositoryEntry, sink);
+			DBFactory.getInstance().commitAndCloseSession();
+		} catch (final InterruptedException iex) {
+			throw iex;
+		} catch (final Throwable ex) {
+			log.warn("Exception=" + ex.getMessage() + " during incremental indexing of repo entry " + repositoryEntry, ex);
+			DBFactory.getInstance(false).rollbackAndCloseSession();
+		}
+		return true;
+	}
+
+	/**
+	 * The folders of the changed entries are indexed by the folder indexer workers, the documents must be in the writer before the commit.
+	 */
+	private void waitForFolderIndexers() throws InterruptedException {
+		int waitingCount = 0;
+		while (FolderIndexerWorkerPool.getInstance().isIndexerRunning() && (waitingCount++ < MAX_FOLDER_INDEXER_WAITING_COUNT)) {
+			Thread.sleep(1000);
+		}
+		if (waitingCount >= MAX_FOLDER_INDEXER_WAITING_COUNT) {
+			log.warn("Folder indexers not finished within max waiting time, commit anyway");
+		}
+	}
+
+	/**
+	 * Apply the updates and deletes collected by the IndexUpdater in one batch with one commit. A running incremental indexing run does not hold the writer lock
+	 * while it re-indexes, the batch is committed together with the documents it has written so far. The live writer is used when it is open, otherwise an own writer is
+	 * opened for the batch. Both keep the time until which the changes are indexed.
+	 * 
+	 * @param updates New versions of documents by resourceUrl, the old versions are replaced
+	 * @param deletes ResourceUrls of documents to delete
+	 * @return false when the index is being replaced by a full index or does not exist yet, the caller must try again later
+	 * @throws IOException
+	 */
+	public boolean applyUpdates(final Map<String, Document> updates, final Collection<String> deletes) throws IOException {
+		synchronized (writerLock) {
+			if (suspended) { return false; }
+			if (indexWriter != null) {
+				writeUpdates(indexWriter, updates, deletes);
+				indexWriter.commit(createCommitUserData(indexedUntil));
+				publishReader();
+				return true;
+			}
+			final Directory directory = FSDirectory.open(new File(indexPath));
+			if (!IndexReader.indexExists(directory)) { return false; }
+			final long committedIndexedUntil = getIndexedUntil(directory);
+			final IndexWriter writer = newIndexWriter(directory);
+			try {
+				writeUpdates(writer, updates, deletes);
+				writer.commit(createCommitUserData(committedIndexedUntil));
+			} finally {
+				writer.close();
+			}
+			return true;
+		}
+	}
+
+	static void writeUpdates(final IndexWriter writer, final Map<String, Document> updates, final Collection<String> deletes) throws IOException {
+		for (final String resourceUrl : deletes) {
+			writer.deleteDocuments(new Term(AbstractOlatDocument.RESOURCEURL_FIELD_NAME, resourceUrl));
+		}
+		for (final Map.Entry<String, Document> update : updates.entrySet()) {
+			writer.updateDocument(new Term(AbstractOlatDocument.RESOURCEURL_FIELD_NAME, update.getKey()), update.getValue());
+		}
+	}
+
+	/**
+	 * @param modification Object[] { key, lastModified, resourceableId, resourceableTypeName } of a repository entry
+	 * @param stamp Current stamp of the resource folder of the entry
+	 * @param recordedStamp Stamp recorded by the last run, null when the entry was not seen since the live index was opened
+	 * @param since
+	 * @return true when the repository entry was modified after since or its resource folder has changed
+	 */
+	static boolean isModifiedSince(final Object[] modification, final long stamp, final Long recordedStamp, final long since) {
+		final Date lastModified = (Date) modification[1];
+		if (lastModified != null && lastModified.getTime() > since) { return true; }
+		if (recordedStamp == null) { return stamp > since; }
+		return recordedStamp.longValue() != stamp;
+	}
+
+	private File getResourceDirectory(final Object[] modification) {
+		final Long resId = (Long) modification[2];
+		final String resName = (String) modification[3];
+		if (CourseModule.getCourseTypeName().equals(resName)) {
+			return new OlatRootFolderImpl("/" + PersistingCourseImpl.COURSE_ROOT_DIR_NAME + "/" + resId, null).getBasefile();
+		}
+		return FileResourceManager.getInstance().getFileResourceRoot(OresHelper.createOLATResourceableInstance(resName, resId));
+	}
+
+	/**
+	 * The newest lastModified of the directory and of the files and directories in it, read breadth first down to RESOURCE_STAMP_MAX_DEPTH levels of sub
+	 * directories and at most RESOURCE_STAMP_MAX_FILES files and directories.
+	 * 
+	 * @param dir
+	 * @return the stamp, 0 when the directory does not exist
+	 */
+	static long getResourceStamp(final File dir) {
+		return getResourceStamp(dir, RESOURCE_STAMP_MAX_DEPTH, RESOURCE_STAMP_MAX_FILES);
+	}
+
+	/**
+	 * @param dir
+	 * @param maxDepth Levels of sub directories to read, 0 reads the files directly in the directory only
+	 * @param maxFiles Max number of files and directories to read
+	 * @return the newest lastModified of the directory and of the files and directories read, 0 when the directory does not exist
+	 */
+	static long getResourceStamp(final File dir, final int maxDepth, final int maxFiles) {
+		long stamp = dir.lastModified();
+		int fileCount = 0;
+		List<File> level = Collections.singletonList(dir);
+		for (int depth = 0; depth <= maxDepth && !level.isEmpty(); depth++) {
+			final List<File> nextLevel = new ArrayList<File>();
+			for (final File levelDir : level) {
+				final File[] children = levelDir.listFiles();
+				if (children == null) {
+					continue;
+				}
+				for (final File child : children) {
+					if (fileCount++ >= maxFiles) { return stamp; }
+					stamp = Math.max(stamp, child.lastModified());
+					if (depth < maxDepth && child.isDirectory()) {
+						nextLevel.add(child);
+					}
+				}
+			}
+			level = nextLevel;
+		}
+		return stamp;
+	}
+
+	/**
+	 * Delete the documents of a repository entry and of everything below it (course nodes, folders, forum messages...).
+	 * 
+	 * @param writer
+	 * @param repositoryEntryKey
+	 * @throws IOException
+	 */
+	static void deleteRepositoryEntry(final IndexWriter writer, final Long repositoryEntryKey) throws IOException {
+		final String prefix = REPOSITORY_ENTRY_URL_PREFIX + repositoryEntryKey + BusinessControl.END_TAG;
+		writer.deleteDocuments(new PrefixQuery(new Term(AbstractOlatDocument.RESOURCEURL_FIELD_NAME, prefix)));
+	}
+
+	/**
+	 * @param reader
+	 * @return The keys of all repository entries which have documents in the index
+	 * @throws IOException
+	 */
+	static Set<Long> getIndexedRepositoryEntryKeys(final IndexReader reader) throws IOException {
+		final Set<Long> keys = new HashSet<Long>();
+		final TermEnum terms = reader.terms(new Term(AbstractOlatDocument.RESOURCEURL_FIELD_NAME, REPOSITORY_ENTRY_URL_PREFIX));
+		try {
+			do {
+				final Term term = terms.term();
+				if (term == null || !term.field().equals(AbstractOlatDocument.RESOURCEURL_FIELD_NAME) || !term.text().startsWith(REPOSITORY_ENTRY_URL_PREFIX)) {
+					break;
+				}
+				final int end = term.text().indexOf(BusinessControl.END_TAG);
+				if (end > 0) {
+					try {
+						keys.add(Long.valueOf(term.text().substring(REPOSITORY_ENTRY_URL_PREFIX.length(), end)));
+					} catch (final NumberFormatException e) {
+						log.warn("Unexpected resourceUrl in index: " + term.text());
+					}
+				}
+			} while (terms.next());
+		} finally {
+			terms.close();
+		}
+		return keys;
+	}
+
+	/**
+	 * @param indexedUntil
+	 * @return commit user data which states that all changes until indexedUntil are in the index
+	 */
+	static Map<String, String> createCommitUserData(final long indexedUntil) {
+		return Collections.singletonMap(COMMIT_INDEXED_UNTIL, Long.toString(indexedUntil));
+	}
+
+	/**
+	 * @param directory
+	 * @return The time until which all changes are in the index of the directory. Indexes written before the incremental indexer existed have no such commit user
+	 *         data, the last modification of the index is used then.
+	 * @throws IOException
+	 */
+	static long getIndexedUntil(final Directory directory) throws IOException {
+		final Map<String, String> userData = IndexReader.getCommitUserData(directory);
+		if (userData != null && userData.containsKey(COMMIT_INDEXED_UNTIL)) {
+			try {
+				return Long.parseLong(userData.get(COMMIT_INDEXED_UNTIL));
+			} catch (final NumberFormatException e) {
+				log.warn("Invalid commit user data " + COMMIT_INDEXED_UNTIL + "=" + userData.get(COMMIT_INDEXED_UNTIL));
+			}
+		}
+		return IndexReader.lastModified(directory);
+	}
+
+	/**
+	 * Open the live writer, read where the last run stopped and which repository entries are in the index.
+	 * 
+	 * @return false when there is no index yet, the full indexer must create it first
+	 */
+	private boolean openLiveIndex() throws IOException {
+		final Directory directory = FSDirectory.open(new File(indexPath));
+		if (!IndexReader.indexExists(directory)) {
+			log.info("No search index yet, incremental indexing starts after the first full index");
+			return false;
+		}
+		indexedUntil = getIndexedUntil(directory);
+		indexWriter = newIndexWriter(directory);
+		documentSink = new LiveIndexSink(indexWriter);
+		publishReader();
+		indexedRepositoryEntryKeys.clear();
+		resourceStamps.clear();
+		final IndexReader reader = acquireReader();
+		try {
+			indexedRepositoryEntryKeys.addAll(getIndexedRepositoryEntryKeys(reader));
+		} finally {
+			releaseReader(reader);
+		}
+		log.info("Opened live index with " + indexWriter.maxDoc() + " documents of " + indexedRepositoryEntryKeys.size()
+				+ " repository entries, changes are indexed until " + new Date(indexedUntil));
+		return true;
+	}
+
+	private IndexWriter newIndexWriter(final Directory directory) throws IOException {
+		final IndexWriter writer = new IndexWriter(directory, new StandardAnalyzer(Version.LUCENE_CURRENT), false, IndexWriter.MaxFieldLength.UNLIMITED);
+		writer.setRAMBufferSizeMB(searchModuleConfig.getRAMBufferSizeMB());
+		writer.setUseCompoundFile(searchModuleConfig.getUseCompoundFile());
+		return writer;
+	}
+
+	/**
+	 * Close the live writer and do not open it again until resume is called, e.g. because the full indexer replaces the index directory. The next run after resume
+	 * opens the new index.
+	 */
+	public void suspend() {
+		synchronized (writerLock) {
+			suspended = true;
+			closeLiveIndex();
+		}
+	}
+
+	/**
+	 * Allow the next run to open the live index again.
+	 */
+	public void resume() {
+		synchronized (writerLock) {
+			suspended = false;
+		}
+	}
+
+	private void closeLiveIndex() {
+		synchronized (writerLock) {
+			synchronized (readerLock) {
+				if (currentReader != null) {
+					try {
+						currentReader.decRef();
+					} catch (final IOException e) {
+						log.warn("Could not close near-real-time reader", e);
+					}
+					currentReader = null;
+				}
+			}
+			if (indexWriter != null) {
+				try {
+					indexWriter.close();
+				} catch (final IOException e) {
+					log.warn("Could not close live index writer", e);
+				}
+				indexWriter = null;
+				documentSink = null;
+			}
+		}
+	}
+
+	/**
+	 * Replace the current near-real-time reader with a new one of the writer, searches still running with the old reader hold a reference on it.
+	 */
+	private void publishReader() throws IOException {
+		final IndexReader newReader = indexWriter.getReader();
+		IndexReader oldReader;
+		synchronized (readerLock) {
+			oldReader = currentReader;
+			currentReader = newReader;
+		}
+		if (oldReader != null) {
+			oldReader.decRef();
+		}
+	}
+
+	/**
+	 * Every reader acquired must be released with releaseReader.
+	 * 
+	 * @return The near-real-time reader of the live index or null when incremental indexing is not running
+	 */
+	public IndexReader acquireReader() {
+		synchronized (readerLock) {
+			if (currentReader == null) { return null; }
+			currentReader.incRef();
+			return currentReader;
+		}
+	}
+
+	/**
+	 * @param reader A reader returned by acquireReader
+	 */
+	public void releaseReader(final IndexReader reader) {
+		try {
+			reader.decRef();
+		} catch (final IOException e) {
+			log.warn("Could not release near-real-time reader", e);
+		}
+	}
+
+	/**
+	 * @return Number of documents written by the incremental indexer since startup
+	 */
+	public long getDocumentCount() {
+		return documentCount.get();
+	}
+
+	/**
+	 * @return Start of the last incremental indexing run, null when there was none yet
+	 */
+	public Date getLastRunDate() {
+		return lastRunDate;
+	}
+
+	/**
+	 * The indexers add their documents to an OlatFullIndexer, this one writes them to the live writer instead of the temporary full index. The folder indexer
+	 * workers add documents without the writer lock, a writer closed in the meantime rejects them.
+	 */
+	private class LiveIndexSink extends OlatFullIndexer {
+
+		private final IndexWriter writer;
+
+		LiveIndexSink(final IndexWriter writer) {
+			super(IncrementalIndexer.this.index, IncrementalIndexer.this.searchModuleConfig, IncrementalIndexer.this.mainIndexer);
+			this.writer = writer;
+		}
+
+		@Override
+		public void addDocument(final Document document) throws IOException, InterruptedException {
+			if (IncrementalIndexer.this.stopIndexing) { throw new InterruptedException("Do stop incremental indexing"); }
+			writer.addDocument(document);
+			documentCount.incrementAndGet();
+			DBFactory.getInstance().commitAndCloseSession();
+		}
+
+		@Override
+		public boolean isInterupted() {
+			return IncrementalIndexer.this.stopIndexing;
+		}
+	}
+}
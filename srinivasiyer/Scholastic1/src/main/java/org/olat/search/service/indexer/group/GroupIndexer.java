@@ -24,9 +24,13 @@ package org.olat.search.service.indexer.group;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
 import org.olat.core.commons.persistence.DBFactory;
+import org.olat.core.commons.services.search.AbstractOlatDocument;
+import org.olat.core.commons.services.search.SearchService;
 import org.olat.core.gui.control.Event;
 import org.olat.core.id.Identity;
 import org.olat.core.id.Roles;
@@ -35,14 +39,17 @@ import org.olat.core.id.change.ObjectAccessEvent;
 import org.olat.core.id.context.BusinessControl;
 import org.olat.core.id.context.ContextEntry;
 import org.olat.core.logging.Tracing;
+import org.olat.core.util.coordinate.CoordinatorManager;
 import org.olat.core.util.event.GenericEventListener;
 import org.olat.core.util.resource.OresHelper;
 import org.olat.group.BusinessGroup;
 import org.olat.group.BusinessGroupManager;
 import org.olat.group.BusinessGroupManagerImpl;
 import org.olat.search.service.SearchResourceContext;
+import org.olat.search.service.SearchServiceFactory;
 import org.olat.search.service.document.GroupDocument;
 import org.olat.search.service.indexer.AbstractIndexer;
+import org.olat.search.service.indexer.AccessCheckContext;
 import org.olat.search.service.indexer.OlatFullIndexer;
 
 /**
@@ -56,8 +63,8 @@ public class GroupIndexer extends AbstractIndexer implements GenericEventListene
 
 	public GroupIndexer() {
 		businessGroupManager = BusinessGroupManagerImpl.getInstance();
-		// -> OLAT-3367 OLATResourceable ores = OresHelper.lookupType(BusinessGroup.class);
-		// -> OLAT-3367 CoordinatorManager.getInstance().getCoordinator().getEventBus().registerFor(this, null, ores);
+		// the changes of the groups are written by the IndexUpdater of the search service
+		CoordinatorManager.getInstance().getCoordinator().getEventBus().registerFor(this, null, ChangeManager.CHANGE_CHANNEL);
 	}
 
 	@Override
@@ -116,23 +123,29 @@ public class GroupIndexer extends AbstractIndexer implements GenericEventListene
 	@Override
 	public boolean checkAccess(final ContextEntry contextEntry, final BusinessControl businessControl, final Identity identity, final Roles roles) {
 		final Long key = contextEntry.getOLATResourceable().getResourceableId();
-		final BusinessGroupManager bman = BusinessGroupManagerImpl.getInstance();
-		final List oGroups = bman.findBusinessGroupsOwnedBy(null, identity, null);
-		final List aGroups = bman.findBusinessGroupsAttendedBy(null, identity, null);
-
 		boolean inGroup = false; // TODO
-		for (final Iterator it_ogroups = oGroups.iterator(); !inGroup && it_ogroups.hasNext();) {
-			final BusinessGroup gr = (BusinessGroup) it_ogroups.next();
-			final Long grk = gr.getKey();
-			if (grk.equals(key)) {
-				inGroup = true;
+		final AccessCheckContext accessContext = AccessCheckContext.getCurrent();
+		if (accessContext != null) {
+			// memberships are loaded once per search
+			inGroup = accessContext.isInGroup(key);
+		} else {
+			final BusinessGroupManager bman = BusinessGroupManagerImpl.getInstance();
+			final List oGroups = bman.findBusinessGroupsOwnedBy(null, identity, null);
+			final List aGroups = bman.findBusinessGroupsAttendedBy(null, identity, null);
+
+			for (final Iterator it_ogroups = oGroups.iterator(); !inGroup && it_ogroups.hasNext();) {
+				final BusinessGroup gr = (BusinessGroup) it_ogroups.next();
+				final Long grk = gr.getKey();
+				if (grk.equals(key)) {
+					inGroup = true;
+				}
 			}
-		}
-		for (final Iterator it_agroups = aGroups.iterator(); !inGroup && it_agroups.hasNext();) {
-			final BusinessGroup gr = (BusinessGroup) it_agroups.next();
-			final Long grk = gr.getKey();
-			if (grk.equals(key)) {
-				inGroup = true;
+			for (final Iterator it_agroups = aGroups.iterator(); !inGroup && it_agroups.hasNext();) {
+				final BusinessGroup gr = (BusinessGroup) it_agroups.next();
+				final Long grk = gr.getKey();
+				if (grk.equals(key)) {
+					inGroup = true;
+				}
 			}
 		}
 		if (inGroup) {
@@ -152,21 +165,31 @@ public class GroupIndexer extends AbstractIndexer implements GenericEventListene
 	public void event(final Event event) {
 		if (ChangeManager.isChangeEvent(event)) {
 			final ObjectAccessEvent oae = (ObjectAccessEvent) event;
+			if (!getSupportedTypeName().equals(oae.getOresType())) { return; }
 			if (Tracing.isDebugEnabled(GroupIndexer.class)) {
 				Tracing.logDebug("info: oae = " + oae.toString(), GroupIndexer.class);
 			}
+			final SearchService searchService = SearchServiceFactory.getService();
+			if (searchService == null) { return; }
 			final int action = oae.getAction();
 			final Long id = oae.getOresId();
-			final BusinessGroup newBusinessGroup = BusinessGroupManagerImpl.getInstance().loadBusinessGroup(id, true);
 			final SearchResourceContext searchResourceContext = new SearchResourceContext(); // businessContextString
-			searchResourceContext.setBusinessControlFor(newBusinessGroup);
-			final Document document = GroupDocument.createDocument(searchResourceContext, newBusinessGroup);
-			if (action == ChangeManager.ACTION_UPDATE) {
-				// -> OLAT-3367 SearchServiceImpl.getInstance().addToIndex(document);
-			} else if (action == ChangeManager.ACTION_CREATE) {
-				// -> OLAT-3367 SearchServiceImpl.getInstance().addToIndex(document);
+			searchResourceContext.setBusinessControlFor(OresHelper.createOLATResourceableInstance(BusinessGroup.class, id));
+			final String resourceUrl = searchResourceContext.getResourceUrl();
+			if (action == ChangeManager.ACTION_UPDATE || action == ChangeManager.ACTION_CREATE) {
+				// the group is loaded when the updater writes the batch, only once for several changes
+				searchService.addToIndex(resourceUrl, new Callable<Document>() {
+					@Override
+					public Document call() {
+						final BusinessGroup businessGroup = businessGroupManager.loadBusinessGroup(id, false);
+						if (businessGroup == null) { return null; }
+						return GroupDocument.createDocument(searchResourceContext, businessGroup);
+					}
+				});
 			} else if (action == ChangeManager.ACTION_DELETE) {
-				// -> OLAT-3367 SearchServiceImpl.getInstance().deleteFromIndex(document);
+				final Document document = new Document();
+				document.add(new Field(AbstractOlatDocument.RESOURCEURL_FIELD_NAME, resourceUrl, Field.Store.YES, Field.Index.NOT_ANALYZED));
+				searchService.deleteFromIndex(document);
 			}
 		}
 	}
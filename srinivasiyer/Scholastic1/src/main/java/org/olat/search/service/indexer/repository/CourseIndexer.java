@@ -174,26 +174,45 @@ public class CourseIndexer implements Indexer {
 			log.debug("Start identity=" + identity + "  roles=" + roles);
 		}
 		final Long repositoryKey = contextEntry.getOLATResourceable().getResourceableId();
-		final RepositoryEntry repositoryEntry = repositoryManager.lookupRepositoryEntry(repositoryKey);
-		if (log.isDebug()) {
-			log.debug("repositoryEntry=" + repositoryEntry);
-		}
-
 		final Long nodeId = bcContextEntry.getOLATResourceable().getResourceableId();
 		if (log.isDebug()) {
 			log.debug("nodeId=" + nodeId);
 		}
 
-		final ICourse course = CourseFactory.loadCourse(repositoryEntry.getOlatResource());
-		final IdentityEnvironment ienv = new IdentityEnvironment();
-		ienv.setIdentity(identity);
-		ienv.setRoles(roles);
-		final UserCourseEnvironment userCourseEnv = new UserCourseEnvironmentImpl(ienv, course.getCourseEnvironment());
-		if (log.isDebug()) {
-			log.debug("userCourseEnv=" + userCourseEnv + "ienv=" + ienv);
-		}
+		// the course tree is evaluated once per course and search, not for every hit in the course
+		final AccessCheckContext accessContext = AccessCheckContext.getCurrent();
+		final AccessCheckContext.CourseAccess courseAccess = accessContext == null ? null : accessContext.getCourseAccess(repositoryKey);
+		final ICourse course;
+		final TreeEvaluation treeEval;
+		if (courseAccess != null) {
+			course = courseAccess.getCourse();
+			treeEval = courseAccess.getTreeEvaluation();
+		} else {
+			final RepositoryEntry repositoryEntry = repositoryManager.lookupRepositoryEntry(repositoryKey);
+			if (log.isDebug()) {
+				log.debug("repositoryEntry=" + repositoryEntry);
+			}
+
+			course = CourseFactory.loadCourse(repositoryEntry.getOlatResource());
+			final IdentityEnvironment ienv = new IdentityEnvironment();
+			ienv.setIdentity(identity);
+			ienv.setRoles(roles);
+			final UserCourseEnvironment userCourseEnv = new UserCourseEnvironmentImpl(ienv, course.getCourseEnvironment());
+			if (log.isDebug()) {
+				log.debug("userCourseEnv=" + userCourseEnv + "ienv=" + ienv);
+			}
+
+			final CourseNode rootCn = userCourseEnv.getCourseEnvironment().getRunStructure().getRootNode();
 
-		final CourseNode rootCn = userCourseEnv.getCourseEnvironment().getRunStructure().getRootNode();
+			treeEval = new TreeEvaluation();
+			final NodeEvaluation rootNodeEval = rootCn.eval(userCourseEnv.getConditionInterpreter(), treeEval);
+			if (log.isDebug()) {
+				log.debug("rootNodeEval=" + rootNodeEval);
+			}
+			if (accessContext != null) {
+				accessContext.putCourseAccess(repositoryKey, course, treeEval);
+			}
+		}
 
 		final String nodeIdS = nodeId.toString();
 		final CourseNode courseNode = course.getRunStructure().getNode(nodeIdS);
@@ -201,12 +220,6 @@ public class CourseIndexer implements Indexer {
 			log.debug("courseNode=" + courseNode);
 		}
 
-		final TreeEvaluation treeEval = new TreeEvaluation();
-		final NodeEvaluation rootNodeEval = rootCn.eval(userCourseEnv.getConditionInterpreter(), treeEval);
-		if (log.isDebug()) {
-			log.debug("rootNodeEval=" + rootNodeEval);
-		}
-
 		final TreeNode newCalledTreeNode = treeEval.getCorrespondingTreeNode(courseNode);
 		if (newCalledTreeNode == null) {
 			// TreeNode no longer visible
@@ -50,6 +50,7 @@ import org.olat.core.logging.OLog;
 import org.olat.core.logging.Tracing;
 import org.olat.core.util.StringHelper;
 import org.olat.search.service.SearchServiceFactory;
+import org.olat.search.service.indexer.AccessCheckContext;
 import org.olat.search.service.indexer.Indexer;
 
 /**
@@ -175,26 +176,58 @@ public class SearchResultsImpl implements SearchResults {
 		totalDocs = (docs.scoreDocs == null ? 0 : docs.scoreDocs.length);
 		final int numOfDocs = Math.min(maxHits, docs.totalHits);
 		final List<ResultDocument> res = new ArrayList<ResultDocument>(maxReturns + 1);
-		for (int i = firstResult; i < numOfDocs && res.size() < maxReturns; i++) {
-			final Document doc = searcher.doc(docs.scoreDocs[i].doc, selector);
-			final String reservedTo = doc.get(AbstractOlatDocument.RESERVED_TO);
-			if (StringHelper.containsNonWhitespace(reservedTo) && !"public".equals(reservedTo) && !reservedTo.contains(identity.getKey().toString())) {
-				continue;// admin cannot see private documents
-			}
+		final AccessCheckContext accessContext = roles.isOLATAdmin() ? null : AccessCheckContext.open(identity);
+		try {
+			for (int i = firstResult; i < numOfDocs && res.size() < maxReturns; i++) {
+				final Document doc = searcher.doc(docs.scoreDocs[i].doc, selector);
+				final String reservedTo = doc.get(AbstractOlatDocument.RESERVED_TO);
+				if (StringHelper.containsNonWhitespace(reservedTo) && !"public".equals(reservedTo) && !reservedTo.contains(identity.getKey().toString())) {
+					continue;// admin cannot see private documents
+				}
+				if (accessContext != null && isFilteredByGroup(doc, accessContext)) {
+					accessContext.preFiltered();
+					continue;
+				}
 
-			final ResultDocument rDoc = createResultDocument(doc, i, query, analyzer, doHighlight, identity, roles);
-			if (rDoc != null) {
-				res.add(rDoc);
-			}
+				final ResultDocument rDoc = createResultDocument(doc, i, query, analyzer, doHighlight, identity, roles, accessContext);
+				if (rDoc != null) {
+					res.add(rDoc);
+				}
 
-			if (!roles.isOLATAdmin() && i % 10 == 0) {
-				// Do commit after certain number of documents because the transaction should not be too big
-				DBFactory.getInstance().intermediateCommit();
+				if (!roles.isOLATAdmin() && i % 10 == 0) {
+					// Do commit after certain number of documents because the transaction should not be too big
+					DBFactory.getInstance().intermediateCommit();
+				}
+			}
+		} finally {
+			if (accessContext != null) {
+				AccessCheckContext.close();
+				if (log.isDebug()) {
+					log.debug("Access checks: " + accessContext);
+				}
 			}
 		}
 		return res;
 	}
 
+	/**
+	 * Documents of a business group carry the group key, they are skipped without going through the indexers if the identity is not member of the group.
+	 * Documents indexed without the field are always checked.
+	 * 
+	 * @param doc
+	 * @param accessContext
+	 * @return True if the document belongs to a group of other users
+	 */
+	private boolean isFilteredByGroup(final Document doc, final AccessCheckContext accessContext) {
+		final String groupKey = doc.get(AbstractOlatDocument.GROUP_KEY_FIELD_NAME);
+		if (groupKey == null) { return false; }
+		try {
+			return !accessContext.isInGroup(Long.valueOf(groupKey));
+		} catch (final NumberFormatException e) {
+			return false;
+		}
+	}
+
 	/**
 	 * Create a result document. Return null if the identity has not enough privileges to see the document.
 	 * 
@@ -204,11 +237,12 @@ public class SearchResultsImpl implements SearchResults {
 	 * @param doHighlight
 	 * @param identity
 	 * @param roles
+	 * @param accessContext Remembers the access of already checked resource urls, null for the admin
 	 * @return
 	 * @throws IOException
 	 */
 	private ResultDocument createResultDocument(final Document doc, final int pos, final Query query, final Analyzer analyzer, final boolean doHighlight,
-			final Identity identity, final Roles roles) throws IOException {
+			final Identity identity, final Roles roles, final AccessCheckContext accessContext) throws IOException {
 		boolean hasAccess = false;
 		if (roles.isOLATAdmin()) {
 			hasAccess = true;
@@ -218,8 +252,16 @@ public class SearchResultsImpl implements SearchResults {
 				resourceUrl = "";
 			}
 
-			final BusinessControl businessControl = BusinessControlFactory.getInstance().createFromString(resourceUrl);
-			hasAccess = mainIndexer.checkAccess(null, businessControl, identity, roles);
+			final Boolean checkedAccess = accessContext == null ? null : accessContext.getAccess(resourceUrl);
+			if (checkedAccess != null) {
+				hasAccess = checkedAccess.booleanValue();
+			} else {
+				final BusinessControl businessControl = BusinessControlFactory.getInstance().createFromString(resourceUrl);
+				hasAccess = mainIndexer.checkAccess(null, businessControl, identity, roles);
+				if (accessContext != null) {
+					accessContext.putAccess(resourceUrl, hasAccess);
+				}
+			}
 		}
 
 		ResultDocument resultDoc;
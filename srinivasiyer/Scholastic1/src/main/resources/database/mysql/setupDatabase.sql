@@ -355,6 +355,8 @@ create table if not exists oc_lock (
 	creationdate datetime, 
 	identity_fk bigint not null, 
 	asset varchar(120) not null unique, 
+	nodeid varchar(16), 
+	leaseexpires datetime, 
 	primary key (lock_id)
 );
 
@@ -368,6 +370,18 @@ create table if not exists o_readmessage (
 	primary key (id)
 );
 
+create table if not exists o_forum_readstate (
+	id bigint not null, 
+	version mediumint unsigned not null, 
+	creationdate datetime,
+	lastmodified datetime,
+	identity_id bigint not null, 
+	forum_id bigint not null, 
+	highwatermark bigint,
+	readkeys longtext,
+	primary key (id)
+);
+
 create table if not exists o_loggingtable (
 
 	log_id bigint not null,
@@ -788,6 +802,7 @@ alter table o_lifecycle type = InnoDB;
 alter table o_plock type = InnoDB;
 alter table oc_lock type = InnoDB;
 alter table o_readmessage type = InnoDB;
+alter table o_forum_readstate type = InnoDB;
 alter table o_projectbroker type = InnoDB;
 alter table o_projectbroker_project type = InnoDB;
 alter table o_projectbroker_customfields type = InnoDB;
@@ -883,6 +898,8 @@ create index  lc_type_idx on o_lifecycle (persistenttypename);
 create index  lc_action_idx on o_lifecycle (action);
 create index  readmessage_forum_idx on o_readmessage (forum_id);
 create index  readmessage_identity_idx on o_readmessage (identity_id);
+create index  readstate_identity_forum_idx on o_forum_readstate (identity_id, forum_id);
+create index  readstate_forum_idx on o_forum_readstate (forum_id);
 create index  projectbroker_project_broker_idx on o_projectbroker_project (projectbroker_fk);
 create index  projectbroker_project_id_idx on o_projectbroker_project (project_id);
 create index  o_projectbroker_customfields_idx on o_projectbroker_customfields (fk_project_id);
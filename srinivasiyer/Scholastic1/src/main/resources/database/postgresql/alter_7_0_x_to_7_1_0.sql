@@ -167,4 +167,22 @@ create index imsg_modifier_idx on o_info_message (fk_modifier_id);
 alter table o_info_message add constraint FKF85553465A4FA5EF foreign key (fk_modifier_id) references o_bs_identity (id);
 
 --projectbroker.project.title was too short for title with äöü
-alter table o_projectbroker_project alter title type varchar(150);
\ No newline at end of file
+alter table o_projectbroker_project alter title type varchar(150);
+
+--cluster locks carry the node holding them and the lease of that node
+alter table oc_lock add column nodeid varchar(16);
+alter table oc_lock add column leaseexpires timestamp;
+
+--read state of the forums: one row per identity and forum instead of one row per read message, o_readmessage is folded into it by the upgrade OLAT_7.2.0
+create table o_forum_readstate (
+	id int8 not null, 
+	version int4 not null,
+	creationdate timestamp,
+	lastmodified timestamp,
+	identity_id int8 not null, 
+	forum_id int8 not null, 
+	highwatermark int8,
+	readkeys text,
+	primary key (id));
+create index readstate_identity_forum_idx on o_forum_readstate (identity_id, forum_id);
+create index readstate_forum_idx on o_forum_readstate (forum_id);
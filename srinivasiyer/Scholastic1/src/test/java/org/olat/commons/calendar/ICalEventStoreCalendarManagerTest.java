@@ -0,0 +1,219 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.commons.calendar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Date;
+import java.util.List;
+
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Component;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.olat.commons.calendar.model.Kalendar;
+import org.olat.commons.calendar.model.KalendarEvent;
+import org.olat.core.util.FileUtils;
+import org.olat.test.OlatTestCase;
+
+/**
+ * Description:<br>
+ * Tests the ICalEventStoreCalendarManager: events stored one by one, the period selection by the index, the iCal export and the migration of calendars stored as
+ * one .ics file.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class ICalEventStoreCalendarManagerTest extends OlatTestCase {
+
+	private static final long HOUR = 60 * 60 * 1000;
+	private static final long DAY = 24 * HOUR;
+	private static final long START = 1500000000000L;
+
+	private File baseDir;
+	private ICalEventStoreCalendarManager manager;
+	private String calendarID;
+	private static int counter;
+
+	@Before
+	public void setUp() throws Exception {
+		baseDir = File.createTempFile("eventstorecalendartest", "");
+		baseDir.delete();
+		baseDir.mkdirs();
+		manager = new ICalEventStoreCalendarManager(baseDir);
+		// the calendar cache is shared by all instances of the manager
+		calendarID = "eventstore" + System.currentTimeMillis() + "_" + (++counter);
+	}
+
+	@After
+	public void tearDown() {
+		manager.deleteCalendar(CalendarManager.TYPE_USER, calendarID);
+		FileUtils.deleteDirsAndFiles(baseDir, true, true);
+	}
+
+	private KalendarEvent event(final String id, final long begin) {
+		return new KalendarEvent(id, "subject " + id, new Date(begin), new Date(begin + HOUR));
+	}
+
+	private boolean containsEvent(final List<KalendarEvent> events, final String id) {
+		for (final KalendarEvent event : events) {
+			if (event.getID().equals(id)) { return true; }
+		}
+		return false;
+	}
+
+	@Test
+	public void testAddUpdateRemoveEvents() {
+		final Kalendar cal = manager.getCalendar(CalendarManager.TYPE_USER, calendarID);
+		assertTrue(manager.addEventTo(cal, event("e1", START)));
+		assertTrue(manager.addEventTo(cal, event("e2", START + DAY)));
+		assertTrue(manager.calendarExists(CalendarManager.TYPE_USER, calendarID));
+		assertFalse("not stored as one file", manager.getCalendarFile(CalendarManager.TYPE_USER, calendarID).exists());
+
+		Kalendar loaded = manager.loadOrCreateCalendar(CalendarManager.TYPE_USER, calendarID);
+		assertEquals(2, loaded.getEvents().size());
+		assertEquals("subject e2", loaded.getEvent("e2").getSubject());
+
+		final KalendarEvent changed = event("e2", START + 2 * DAY);
+		changed.setSubject("changed");
+		assertTrue(manager.updateEventFrom(cal, changed));
+		assertTrue(manager.removeEventFrom(cal, cal.getEvent("e1")));
+		loaded = manager.loadOrCreateCalendar(CalendarManager.TYPE_USER, calendarID);
+		assertEquals(1, loaded.getEvents().size());
+		assertNull(loaded.getEvent("e1"));
+		assertEquals("changed", loaded.getEvent("e2").getSubject());
+		assertEquals(START + 2 * DAY, loaded.getEvent("e2").getBegin().getTime());
+	}
+
+	@Test
+	public void testExportAndFeed() {
+		final Kalendar cal = manager.getCalendar(CalendarManager.TYPE_USER, calendarID);
+		manager.addEventTo(cal, event("e1", START));
+		manager.addEventTo(cal, event("e2", START + DAY));
+
+		final Calendar feed = manager.readCalendar(CalendarManager.TYPE_USER, calendarID);
+		assertEquals(2, feed.getComponents(Component.VEVENT).size());
+
+		final File export = manager.getCalendarICalFile(CalendarManager.TYPE_USER, calendarID);
+		assertNotNull(export);
+		assertTrue(export.exists());
+		// a calendar loaded from an up to date export has the same events
+		export.setLastModified(System.currentTimeMillis() + 10000);
+		final Kalendar loaded = manager.loadOrCreateCalendar(CalendarManager.TYPE_USER, calendarID);
+		assertEquals(2, loaded.getEvents().size());
+		assertEquals("subject e1", loaded.getEvent("e1").getSubject());
+	}
+
+	@Test
+	public void testExportWrittenOnCompaction() {
+		final Kalendar cal = manager.getCalendar(CalendarManager.TYPE_USER, calendarID);
+		manager.addEventTo(cal, event("e1", START));
+		final File export = new File(new File(manager.getCalendarFile(CalendarManager.TYPE_USER, calendarID).getParentFile(), calendarID + ".events"), "export.ics");
+		assertFalse(export.exists());
+		// every change appends one line to the journal, until the journal is compacted
+		for (int i = 0; i < 100 && !export.exists(); i++) {
+			final KalendarEvent changed = event("e1", START + i * HOUR);
+			changed.setSubject("changed " + i);
+			assertTrue(manager.updateEventFrom(cal, changed));
+		}
+		assertTrue("iCal file written with the compacted journal", export.exists());
+		final Kalendar loaded = manager.loadOrCreateCalendar(CalendarManager.TYPE_USER, calendarID);
+		assertEquals(1, loaded.getEvents().size());
+		assertEquals(cal.getEvent("e1").getSubject(), loaded.getEvent("e1").getSubject());
+	}
+
+	@Test
+	public void testEventsInPeriod() {
+		final Kalendar cal = manager.getCalendar(CalendarManager.TYPE_USER, calendarID);
+		manager.addEventTo(cal, event("e1", START));
+		manager.addEventTo(cal, event("e2", START + DAY));
+		manager.addEventTo(cal, event("e3", START + 10 * DAY));
+		final Date periodStart = new Date(START - HOUR);
+		final Date periodEnd = new Date(START + 2 * DAY);
+
+		List<KalendarEvent> events = manager.getEventsInPeriod(cal, periodStart, periodEnd);
+		assertEquals(2, events.size());
+		assertTrue(containsEvent(events, "e1"));
+		assertTrue(containsEvent(events, "e2"));
+
+		// an old copy of the calendar with the same number of events is not answered by the index
+		final Kalendar oldCopy = manager.loadOrCreateCalendar(CalendarManager.TYPE_USER, calendarID);
+		manager.removeEventFrom(cal, cal.getEvent("e1"));
+		manager.addEventTo(cal, event("e4", START + 20 * DAY));
+		assertEquals(oldCopy.getEvents().size(), cal.getEvents().size());
+		events = manager.getEventsInPeriod(oldCopy, periodStart, periodEnd);
+		assertTrue(containsEvent(events, "e1"));
+		events = manager.getEventsInPeriod(cal, periodStart, periodEnd);
+		assertEquals(1, events.size());
+		assertTrue(containsEvent(events, "e2"));
+	}
+
+	@Test
+	public void testMigration() {
+		final Kalendar fileCal = new Kalendar(calendarID, CalendarManager.TYPE_USER);
+		fileCal.addEvent(event("m1", START));
+		fileCal.addEvent(event("m2", START + DAY));
+		final ICalFileCalendarManager fileManager = new ICalFileCalendarManager(baseDir);
+		assertTrue(fileManager.persistCalendar(fileCal));
+		final File calendarFile = manager.getCalendarFile(CalendarManager.TYPE_USER, calendarID);
+		final File migratedFile = new File(calendarFile.getParentFile(), calendarFile.getName() + ".migrated");
+		assertTrue(calendarFile.exists());
+		assertTrue(manager.calendarExists(CalendarManager.TYPE_USER, calendarID));
+
+		final Kalendar migrated = manager.getCalendar(CalendarManager.TYPE_USER, calendarID);
+		assertEquals(2, migrated.getEvents().size());
+		assertFalse(calendarFile.exists());
+		assertTrue(migratedFile.exists());
+		assertEquals(2, manager.loadOrCreateCalendar(CalendarManager.TYPE_USER, calendarID).getEvents().size());
+		assertEquals("subject m2", manager.loadOrCreateCalendar(CalendarManager.TYPE_USER, calendarID).getEvent("m2").getSubject());
+
+		assertTrue(manager.deleteCalendar(CalendarManager.TYPE_USER, calendarID));
+		assertFalse("file left by the migration is deleted", migratedFile.exists());
+		assertFalse(manager.calendarExists(CalendarManager.TYPE_USER, calendarID));
+	}
+
+	@Test
+	public void testMigrateAllCalendars() {
+		final ICalFileCalendarManager fileManager = new ICalFileCalendarManager(baseDir);
+		for (int i = 0; i < 3; i++) {
+			final Kalendar fileCal = new Kalendar(calendarID + "_" + i, CalendarManager.TYPE_GROUP);
+			fileCal.addEvent(event("g" + i, START + i * DAY));
+			fileManager.persistCalendar(fileCal);
+		}
+		assertEquals(3, manager.migrateAllCalendars());
+		assertEquals("nothing left to migrate", 0, manager.migrateAllCalendars());
+		for (int i = 0; i < 3; i++) {
+			final String id = calendarID + "_" + i;
+			assertFalse(manager.getCalendarFile(CalendarManager.TYPE_GROUP, id).exists());
+			final Kalendar loaded = manager.loadOrCreateCalendar(CalendarManager.TYPE_GROUP, id);
+			assertEquals(1, loaded.getEvents().size());
+			assertNotNull(loaded.getEvent("g" + i));
+			manager.deleteCalendar(CalendarManager.TYPE_GROUP, id);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) since 2004 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.commons.coordinate.cluster.jms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.olat.core.id.OLATResourceable;
+import org.olat.core.util.cache.n.impl.cluster.ClusterCacheWrapperEvent;
+import org.olat.core.util.event.MultiUserEvent;
+import org.olat.core.util.resource.OresHelper;
+
+/**
+ * Description:<br>
+ * Tests the binary batch encoding and the coalescing of the cluster event bus batch publisher
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class JMSBatchCodecTest {
+
+	private final OLATResourceable ores1 = OresHelper.createOLATResourceableInstanceWithoutCheck("hellojms", new Long(123));
+	private final OLATResourceable ores2 = OresHelper.createOLATResourceableInstanceWithoutCheck("hellojms", new Long(456));
+
+	@Test
+	public void testEncodeDecodeKeepsOrder() throws Exception {
+		final List<JMSBatchPublisher.PendingEvent> events = new ArrayList<JMSBatchPublisher.PendingEvent>();
+		events.add(new JMSBatchPublisher.PendingEvent(ores1, new MultiUserEvent("first")));
+		events.add(new JMSBatchPublisher.PendingEvent(ores2, createInvalidationEvent("cacheA", "key1", "key2")));
+		events.add(new JMSBatchPublisher.PendingEvent(ores1, new MultiUserEvent("third")));
+
+		final List<JMSWrapper> wrappers = JMSBatchCodec.decode(JMSBatchCodec.encode(Integer.valueOf(3), 41, events));
+		assertEquals(3, wrappers.size());
+		for (int i = 0; i < wrappers.size(); i++) {
+			final JMSWrapper wrapper = wrappers.get(i);
+			assertEquals(Integer.valueOf(3), wrapper.getNodeId());
+			assertEquals(41 + i, wrapper.getMsgId());
+			assertEquals(events.get(i).getOres().getResourceableId(), wrapper.getOres().getResourceableId());
+			assertEquals(events.get(i).getOres().getResourceableTypeName(), wrapper.getOres().getResourceableTypeName());
+		}
+		assertEquals("first", wrappers.get(0).getMultiUserEvent().getCommand());
+		assertEquals("third", wrappers.get(2).getMultiUserEvent().getCommand());
+		// deserialized events are never considered as fired on this node
+		assertFalse(wrappers.get(0).getMultiUserEvent().isEventOnThisNode());
+
+		final ClusterCacheWrapperEvent ccwe = (ClusterCacheWrapperEvent) wrappers.get(1).getMultiUserEvent();
+		assertEquals("cacheA", ccwe.getCacheName());
+		assertArrayEquals(new String[] { "key1", "key2" }, ccwe.getKeys());
+		assertFalse(ccwe.isEventOnThisNode());
+	}
+
+	@Test
+	public void testCoalescingOfInvalidationEvents() throws Exception {
+		final List<List<JMSBatchPublisher.PendingEvent>> batches = new ArrayList<List<JMSBatchPublisher.PendingEvent>>();
+		final List<Integer> saved = new ArrayList<Integer>();
+		final JMSBatchPublisher publisher = new JMSBatchPublisher(new JMSBatchPublisher.BatchSender() {
+			@Override
+			public void sendBatch(final List<JMSBatchPublisher.PendingEvent> batch, final int savedMessages) {
+				batches.add(batch);
+				saved.add(Integer.valueOf(savedMessages));
+			}
+		}, 10000, 100);
+
+		publisher.enqueue(ores1, createInvalidationEvent("cacheA", "key1"));
+		publisher.enqueue(ores1, new MultiUserEvent("other"));
+		publisher.enqueue(ores1, createInvalidationEvent("cacheA", "key1"));
+		publisher.enqueue(ores2, createInvalidationEvent("cacheA", "key1"));
+		assertEquals(3, publisher.getPendingCount());
+
+		// stopped publishers send the pending events right away
+		publisher.stop();
+		publisher.run();
+
+		assertEquals(1, batches.size());
+		final List<JMSBatchPublisher.PendingEvent> batch = batches.get(0);
+		assertEquals(3, batch.size());
+		// the latest duplicate keeps its place
+		assertEquals("other", batch.get(0).getEvent().getCommand());
+		assertTrue(batch.get(1).getEvent() instanceof ClusterCacheWrapperEvent);
+		assertEquals(ores1, batch.get(1).getOres());
+		assertEquals(ores2, batch.get(2).getOres());
+		// four events sent with one message
+		assertEquals(Integer.valueOf(3), saved.get(0));
+	}
+
+	private ClusterCacheWrapperEvent createInvalidationEvent(final String cacheName, final String... keys) throws Exception {
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bos);
+		out.writeInt(1);
+		out.writeUTF(cacheName);
+		out.writeInt(keys.length);
+		for (final String key : keys) {
+			out.writeUTF(key);
+		}
+		out.close();
+		return ClusterCacheWrapperEvent.readCompact(new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+	}
+}
@@ -0,0 +1,629 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.commons.coordinate.cluster.lock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.olat.core.id.Identity;
+import org.olat.core.id.OLATResourceable;
+import org.olat.core.id.Persistable;
+import org.olat.core.id.User;
+import org.olat.core.logging.OLog;
+import org.olat.core.logging.Tracing;
+import org.olat.core.util.SignOnOffEvent;
+import org.olat.core.util.coordinate.LockResult;
+import org.olat.core.util.coordinate.PersistentLockManager;
+import org.olat.core.util.coordinate.Syncer;
+import org.olat.core.util.coordinate.SyncerCallback;
+import org.olat.core.util.coordinate.SyncerExecutor;
+import org.olat.core.util.event.EventBus;
+import org.olat.core.util.event.GenericEventListener;
+import org.olat.core.util.event.MultiUserEvent;
+import org.olat.core.util.resource.OresHelper;
+
+/**
+ * Description:<br>
+ * Simulates several cluster nodes, each with its own ClusterLocker, on one shared in-memory lock table and an in-memory stand-in for the JMS event bus (events are
+ * serialized like on the wire). Checks that locks held by a node are answered from memory, that contention goes to the database and that releases, logouts and dead
+ * nodes are seen by the other nodes. The timings of the performance test are only logged, the database round trips are asserted.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class ClusterLockerLeaseTest {
+	private static final OLog log = Tracing.createLoggerFor(ClusterLockerLeaseTest.class);
+
+	private static final long LEASE = 60000;
+	private static final int NUM_REACQUIRES = 100000;
+
+	private SimulatedDatabase db;
+	private SimulatedJms jms;
+	private AtomicLong clock;
+	private final OLATResourceable ores = OresHelper.createOLATResourceableInstanceWithoutCheck("ClusterLockerLeaseTest", new Long(42));
+	private final String asset = OresHelper.createStringRepresenting(ores, "edit");
+	private final Identity alice = new TestIdentity("alice");
+	private final Identity bob = new TestIdentity("bob");
+
+	@Before
+	public void setUp() {
+		db = new SimulatedDatabase();
+		jms = new SimulatedJms();
+		clock = new AtomicLong(1000000);
+	}
+
+	private SimulatedNode startNode(final String nodeId, final long leaseMillis) {
+		final SimulatedNode node = new SimulatedNode(nodeId, leaseMillis);
+		node.init();
+		return node;
+	}
+
+	@Test
+	public void testReacquireIsServedFromMemory() {
+		final SimulatedNode node1 = startNode("1", LEASE);
+		final LockResult res = node1.acquireLock(ores, alice, "edit");
+		assertTrue(res.isSuccess());
+		assertEquals(1, db.size());
+		final long roundTrips = db.getRoundTrips();
+
+		for (int i = 0; i < 10; i++) {
+			final LockResult again = node1.acquireLock(ores, alice, "edit");
+			assertTrue(again.isSuccess());
+			assertEquals("keeps the time of the first acquisition", res.getLockAquiredTime(), again.getLockAquiredTime());
+			assertTrue(node1.isLocked(ores, "edit"));
+		}
+		// another user of the same node is refused from memory as well
+		assertFalse(node1.acquireLock(ores, bob, "edit").isSuccess());
+		assertEquals(roundTrips, db.getRoundTrips());
+		assertEquals(21, node1.getFastPathCount());
+
+		node1.releaseLock(res);
+		assertEquals(0, db.size());
+		assertEquals(0, node1.getLocalLeaseCount());
+		assertFalse(node1.isLocked(ores, "edit"));
+	}
+
+	@Test
+	public void testContentionGoesToTheDatabase() {
+		final SimulatedNode node1 = startNode("1", LEASE);
+		final SimulatedNode node2 = startNode("2", LEASE);
+		assertTrue(node1.acquireLock(ores, alice, "edit").isSuccess());
+
+		final long roundTrips = db.getRoundTrips();
+		final LockResult refused = node2.acquireLock(ores, bob, "edit");
+		assertFalse(refused.isSuccess());
+		assertEquals("alice", refused.getOwner().getName());
+		assertTrue(db.getRoundTrips() > roundTrips);
+		assertTrue(node2.isLocked(ores, "edit"));
+
+		// re-entrant across nodes, but node 2 does not hold the lease
+		assertTrue(node2.acquireLock(ores, alice, "edit").isSuccess());
+		assertEquals(0, node2.getLocalLeaseCount());
+		assertEquals(1, node1.getLocalLeaseCount());
+	}
+
+	@Test
+	public void testReleaseOnOtherNodeInvalidatesLease() {
+		final SimulatedNode node1 = startNode("1", LEASE);
+		final SimulatedNode node2 = startNode("2", LEASE);
+		final LockResult res = node1.acquireLock(ores, alice, "edit");
+		assertTrue(res.isSuccess());
+
+		// the admin on node 2 releases the lock of alice
+		node2.releaseLockEntry(node2.adminOnlyGetLockEntries().get(0));
+		assertEquals(0, db.size());
+		assertEquals("the event reached node 1", 0, node1.getLocalLeaseCount());
+
+		assertTrue(node2.acquireLock(ores, bob, "edit").isSuccess());
+		assertFalse(node1.acquireLock(ores, alice, "edit").isSuccess());
+		assertTrue(node1.isLocked(ores, "edit"));
+	}
+
+	@Test
+	public void testLogoutReleasesLeasesOnAllNodes() {
+		final SimulatedNode node1 = startNode("1", LEASE);
+		final SimulatedNode node2 = startNode("2", LEASE);
+		final OLATResourceable ores2 = OresHelper.createOLATResourceableInstanceWithoutCheck("ClusterLockerLeaseTest", new Long(43));
+		assertTrue(node1.acquireLock(ores, alice, "edit").isSuccess());
+		assertTrue(node1.acquireLock(ores2, bob, "edit").isSuccess());
+
+		// alice logs out on node 2
+		node2.event(new SignOnOffEvent(alice, false));
+		assertEquals(1, db.size());
+		assertEquals("only the lease of bob is left", 1, node1.getLocalLeaseCount());
+		assertTrue(node2.acquireLock(ores, bob, "edit").isSuccess());
+		assertFalse(node1.acquireLock(ores, alice, "edit").isSuccess());
+	}
+
+	@Test
+	public void testExpiredLeaseOfDeadNodeIsTakenOver() {
+		final SimulatedNode node1 = startNode("1", LEASE);
+		final SimulatedNode node2 = startNode("2", LEASE);
+		assertTrue(node1.acquireLock(ores, alice, "edit").isSuccess());
+
+		// node 1 renews in time
+		clock.addAndGet(LEASE / 3);
+		node1.renewLeases();
+		clock.addAndGet(LEASE / 3);
+		node1.renewLeases();
+		clock.addAndGet(LEASE / 3);
+		assertFalse(node2.acquireLock(ores, bob, "edit").isSuccess());
+		final long fastPath = node1.getFastPathCount();
+		assertTrue(node1.acquireLock(ores, alice, "edit").isSuccess());
+		assertEquals(fastPath + 1, node1.getFastPathCount());
+
+		// then node 1 dies: no more heartbeats
+		clock.addAndGet(LEASE + 1);
+		assertFalse(node2.isLocked(ores, "edit"));
+		final LockResult takenOver = node2.acquireLock(ores, bob, "edit");
+		assertTrue(takenOver.isSuccess());
+		assertEquals("bob", db.find(asset).getOwner().getName());
+	}
+
+	@Test
+	public void testLeaseExpiryUsesTheDatabaseTime() {
+		final SimulatedNode node1 = startNode("1", LEASE);
+		final SimulatedNode node2 = startNode("2", LEASE);
+		// the clock of node 2 is far ahead, the one of node 1 behind
+		node1.setClockSkew(-2 * LEASE);
+		node2.setClockSkew(2 * LEASE);
+		assertTrue(node1.acquireLock(ores, alice, "edit").isSuccess());
+		assertEquals(new Date(clock.get() + LEASE), db.find(asset).getLeaseExpires());
+
+		// node 1 renews in time, node 2 must not take the lock over
+		clock.addAndGet(LEASE / 3);
+		node1.renewLeases();
+		assertEquals(new Date(clock.get() + LEASE), db.find(asset).getLeaseExpires());
+		assertTrue(node2.isLocked(ores, "edit"));
+		assertFalse(node2.acquireLock(ores, bob, "edit").isSuccess());
+
+		// node 1 dies, the database time decides when the lock is free
+		clock.addAndGet(LEASE);
+		assertTrue(node2.isLocked(ores, "edit"));
+		clock.addAndGet(LEASE / 3);
+		assertFalse(node2.isLocked(ores, "edit"));
+		assertTrue(node2.acquireLock(ores, bob, "edit").isSuccess());
+	}
+
+	@Test
+	public void testHeartbeatDropsLeasesWhoseRowsAreGone() {
+		final SimulatedNode node1 = startNode("1", LEASE);
+		final LockResult res = node1.acquireLock(ores, alice, "edit");
+		assertTrue(res.isSuccess());
+
+		// the local lease only lasts half the lease time without a renewal
+		clock.addAndGet(LEASE / 2 + 1);
+		final long roundTrips = db.getRoundTrips();
+		assertTrue(node1.acquireLock(ores, alice, "edit").isSuccess());
+		assertTrue("not renewed, asked the database", db.getRoundTrips() > roundTrips);
+
+		node1.renewLeases();
+		assertEquals(new Date(clock.get() + LEASE), db.find(asset).getLeaseExpires());
+		assertEquals(1, node1.getLocalLeaseCount());
+
+		// the row is deleted and the event got lost
+		db.delete(db.find(asset));
+		node1.renewLeases();
+		assertEquals(0, node1.getLocalLeaseCount());
+		assertTrue(node1.acquireLock(ores, bob, "edit").isSuccess());
+	}
+
+	@Test
+	public void testWithoutLeaseEveryCheckGoesToTheDatabase() {
+		final SimulatedNode node1 = startNode("1", 0);
+		assertTrue(node1.acquireLock(ores, alice, "edit").isSuccess());
+		assertNull(db.find(asset).getNodeId());
+		assertTrue(node1.acquireLock(ores, alice, "edit").isSuccess());
+		assertEquals(0, node1.getFastPathCount());
+		assertEquals(2, node1.getDatabaseCount());
+		assertEquals(0, jms.getLockEventListenerCount());
+	}
+
+	@Test
+	public void testReacquirePerformance() {
+		final SimulatedNode withoutLease = startNode("1", 0);
+		final SimulatedNode withLease = startNode("2", LEASE);
+		final OLATResourceable ores2 = OresHelper.createOLATResourceableInstanceWithoutCheck("ClusterLockerLeaseTest", new Long(43));
+		assertTrue(withoutLease.acquireLock(ores, alice, "edit").isSuccess());
+		assertTrue(withLease.acquireLock(ores2, alice, "edit").isSuccess());
+
+		long roundTrips = db.getRoundTrips();
+		long start = System.nanoTime();
+		for (int i = 0; i < NUM_REACQUIRES; i++) {
+			withoutLease.acquireLock(ores, alice, "edit");
+		}
+		final long withoutLeaseTime = System.nanoTime() - start;
+		final long withoutLeaseRoundTrips = db.getRoundTrips() - roundTrips;
+
+		roundTrips = db.getRoundTrips();
+		start = System.nanoTime();
+		for (int i = 0; i < NUM_REACQUIRES; i++) {
+			withLease.acquireLock(ores2, alice, "edit");
+		}
+		final long withLeaseTime = System.nanoTime() - start;
+		final long withLeaseRoundTrips = db.getRoundTrips() - roundTrips;
+
+		log.info(NUM_REACQUIRES + " re-acquisitions: without lease " + (withoutLeaseTime / 1000000) + "ms and " + withoutLeaseRoundTrips + " database round trips, with lease "
+				+ (withLeaseTime / 1000000) + "ms and " + withLeaseRoundTrips + " database round trips");
+		assertEquals(NUM_REACQUIRES, withoutLeaseRoundTrips);
+		assertEquals(0, withLeaseRoundTrips);
+	}
+
+	/**
+	 * A node: a ClusterLocker working on the shared in-memory lock table and event bus
+	 */
+	private class SimulatedNode extends ClusterLocker {
+		private long clockSkew = 0;
+
+		SimulatedNode(final String nodeId, final long leaseMillis) {
+			super(null);
+			setNodeId(nodeId);
+			setLeaseMillis(leaseMillis);
+			setSyncer(new SimulatedSyncer(db));
+			setEventBus(jms);
+		}
+
+		@Override
+		void startHeartbeat() {
+			// the tests call renewLeases themselves
+		}
+
+		@Override
+		LockImpl newLock(final String asset, final Identity owner) {
+			return new SimulatedLock(asset, owner, new Date(clock.get()));
+		}
+
+		@Override
+		void saveLock(final LockImpl li) {
+			db.save(li);
+		}
+
+		@Override
+		LockImpl findLock(final String asset) {
+			return db.find(asset);
+		}
+
+		@Override
+		void deleteLock(final LockImpl li) {
+			db.delete(li);
+		}
+
+		@Override
+		List<LockImpl> getAllLocks() {
+			return db.findAll();
+		}
+
+		@Override
+		void releaseAllLocksFor(final String identName) {
+			db.deleteAllOf(identName);
+		}
+
+		@Override
+		int renewLeasesInDB(final String leaseNodeId, final Date leaseExpires) {
+			return db.renew(leaseNodeId, leaseExpires);
+		}
+
+		@Override
+		List<String> findLeasedAssets(final String leaseNodeId) {
+			return db.findAssets(leaseNodeId);
+		}
+
+		@Override
+		void lockAsset(final String asset) {
+			// the simulated database has no row locks
+		}
+
+		void setClockSkew(final long clockSkew) {
+			this.clockSkew = clockSkew;
+		}
+
+		@Override
+		long currentTimeMillis() {
+			return clock.get() + clockSkew;
+		}
+
+		@Override
+		Date databaseTime() {
+			return db.now(clock.get());
+		}
+
+		@Override
+		public PersistentLockManager getPersistentLockManager() {
+			return null;
+		}
+	}
+
+	private static class SimulatedLock extends LockImpl {
+		SimulatedLock(final String asset, final Identity owner, final Date creationDate) {
+			super(asset, owner);
+			this.creationDate = creationDate;
+		}
+	}
+
+	/**
+	 * The oc_lock table of all nodes, counts the round trips
+	 */
+	private static class SimulatedDatabase {
+		private final Map<String, LockImpl> locks = new HashMap<String, LockImpl>();
+		private long roundTrips = 0;
+
+		synchronized void save(final LockImpl li) {
+			roundTrips++;
+			if (locks.containsKey(li.getAsset())) { throw new IllegalStateException("unique constraint violated: " + li.getAsset()); }
+			locks.put(li.getAsset(), li);
+		}
+
+		synchronized LockImpl find(final String asset) {
+			roundTrips++;
+			return locks.get(asset);
+		}
+
+		synchronized void delete(final LockImpl li) {
+			roundTrips++;
+			locks.remove(li.getAsset());
+		}
+
+		synchronized List<LockImpl> findAll() {
+			roundTrips++;
+			return new ArrayList<LockImpl>(locks.values());
+		}
+
+		synchronized void deleteAllOf(final String identName) {
+			roundTrips++;
+			for (final Iterator<LockImpl> it = locks.values().iterator(); it.hasNext();) {
+				if (it.next().getOwner().getName().equals(identName)) {
+					it.remove();
+				}
+			}
+		}
+
+		synchronized int renew(final String nodeId, final Date leaseExpires) {
+			roundTrips++;
+			int count = 0;
+			for (final LockImpl li : locks.values()) {
+				if (nodeId.equals(li.getNodeId())) {
+					li.setLeaseExpires(leaseExpires);
+					count++;
+				}
+			}
+			return count;
+		}
+
+		synchronized List<String> findAssets(final String nodeId) {
+			roundTrips++;
+			final List<String> assets = new ArrayList<String>();
+			for (final LockImpl li : locks.values()) {
+				if (nodeId.equals(li.getNodeId())) {
+					assets.add(li.getAsset());
+				}
+			}
+			return assets;
+		}
+
+		synchronized Date now(final long time) {
+			roundTrips++;
+			return locks.isEmpty() ? null : new Date(time);
+		}
+
+		synchronized int size() {
+			return locks.size();
+		}
+
+		synchronized long getRoundTrips() {
+			return roundTrips;
+		}
+	}
+
+	/**
+	 * Syncs cluster-wide like the select for update of the ClusterSyncer
+	 */
+	private static class SimulatedSyncer implements Syncer {
+		private final Object clusterMonitor;
+
+		SimulatedSyncer(final Object clusterMonitor) {
+			this.clusterMonitor = clusterMonitor;
+		}
+
+		@Override
+		public <T> T doInSync(final OLATResourceable ores, final SyncerCallback<T> callback) {
+			synchronized (clusterMonitor) {
+				return callback.execute();
+			}
+		}
+
+		@Override
+		public void doInSync(final OLATResourceable ores, final SyncerExecutor executor) {
+			synchronized (clusterMonitor) {
+				executor.execute();
+			}
+		}
+
+		@Override
+		public void assertAlreadyDoInSyncFor(final OLATResourceable ores) {
+			// nothing to check
+		}
+	}
+
+	/**
+	 * Stand-in for the JMS based ClusterEventBus: every event is serialized and each listener gets its own copy, as if it came over the wire
+	 */
+	private static class SimulatedJms implements EventBus {
+		private final List<Object[]> registrations = new ArrayList<Object[]>();
+
+		@Override
+		public synchronized void registerFor(final GenericEventListener gel, final Identity identity, final OLATResourceable ores) {
+			registrations.add(new Object[] { gel, ores.getResourceableTypeName() });
+		}
+
+		@Override
+		public synchronized void deregisterFor(final GenericEventListener gel, final OLATResourceable ores) {
+			for (final Iterator<Object[]> it = registrations.iterator(); it.hasNext();) {
+				final Object[] registration = it.next();
+				if (registration[0] == gel && registration[1].equals(ores.getResourceableTypeName())) {
+					it.remove();
+				}
+			}
+		}
+
+		@Override
+		public void fireEventToListenersOf(final MultiUserEvent event, final OLATResourceable ores) {
+			final List<Object[]> current;
+			synchronized (this) {
+				current = new ArrayList<Object[]>(registrations);
+			}
+			final byte[] wire = serialize(event);
+			for (final Object[] registration : current) {
+				if (registration[1].equals(ores.getResourceableTypeName())) {
+					((GenericEventListener) registration[0]).event(deserialize(wire));
+				}
+			}
+		}
+
+		/**
+		 * @return the number of lockers listening for LockReleasedEvents
+		 */
+		synchronized int getLockEventListenerCount() {
+			int count = 0;
+			for (final Object[] registration : registrations) {
+				if (registration[1].equals(ClusterLocker.LOCK_EVENTS_ORES.getResourceableTypeName())) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		@Override
+		public Set getListeningIdentityNamesFor(final OLATResourceable ores) {
+			return Collections.EMPTY_SET;
+		}
+
+		@Override
+		public int getListeningIdentityCntFor(final OLATResourceable ores) {
+			return 0;
+		}
+
+		@Override
+		public Map getUnmodifiableInfoCenter() {
+			return Collections.EMPTY_MAP;
+		}
+
+		private static byte[] serialize(final MultiUserEvent event) {
+			try {
+				final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+				final ObjectOutputStream out = new ObjectOutputStream(bos);
+				out.writeObject(event);
+				out.close();
+				return bos.toByteArray();
+			} catch (final IOException e) {
+				throw new IllegalStateException("event not serializable: " + event, e);
+			}
+		}
+
+		private static MultiUserEvent deserialize(final byte[] wire) {
+			try {
+				final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(wire));
+				return (MultiUserEvent) in.readObject();
+			} catch (final Exception e) {
+				throw new IllegalStateException("event not deserializable", e);
+			}
+		}
+	}
+
+	private static class TestIdentity implements Identity {
+		private final String name;
+
+		TestIdentity(final String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public User getUser() {
+			return null;
+		}
+
+		@Override
+		public Date getCreationDate() {
+			return null;
+		}
+
+		@Override
+		public Long getKey() {
+			return null;
+		}
+
+		@Override
+		public boolean equalsByPersistableKey(final Persistable persistable) {
+			return false;
+		}
+
+		@Override
+		public Date getLastLogin() {
+			return null;
+		}
+
+		@Override
+		public void setLastLogin(final Date loginDate) {
+			// not needed
+		}
+
+		@Override
+		public Integer getStatus() {
+			return Identity.STATUS_ACTIV;
+		}
+
+		@Override
+		public void setStatus(final Integer newStatus) {
+			// not needed
+		}
+
+		@Override
+		public void setName(final String loginName) {
+			// not needed
+		}
+	}
+}
@@ -0,0 +1,213 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.core.gui.media;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.olat.core.util.FileUtils;
+
+/**
+ * Description:<br>
+ * Compares the throughput and the heap allocation of the stream copy loops (VFSMediaResource through ServletUtil and the DefaultServlet) with the
+ * LocalFileDelivery. Not part of the test suite, start it by hand:
+ * <p>
+ * java org.olat.core.gui.media.FileDeliveryBenchmark [--size MB] [--rounds n] [--dir tmpdir]
+ * <p>
+ * The servlet output stream is simulated by a stream which discards the bytes. The delivery into a file uses FileChannel.transferTo and shows the kernel to
+ * kernel transfer which a sendfile capable connector gets.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class FileDeliveryBenchmark {
+
+	/** same buffer as the DefaultServlet (input/output init params) **/
+	private static final int SERVLET_BUFFER = 2048;
+
+	public static void main(final String[] args) throws IOException {
+		int sizeMB = 64;
+		int rounds = 10;
+		String dir = System.getProperty("java.io.tmpdir");
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--size") && i + 1 < args.length) {
+				sizeMB = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--rounds") && i + 1 < args.length) {
+				rounds = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--dir") && i + 1 < args.length) {
+				dir = args[++i];
+			} else {
+				System.out.println("Usage: java org.olat.core.gui.media.FileDeliveryBenchmark [--size MB] [--rounds n] [--dir tmpdir]");
+				System.exit(1);
+			}
+		}
+
+		final File file = createFile(new File(dir), sizeMB);
+		final File target = new File(dir, "filedeliverybenchmark.out");
+		try {
+			System.out.println("File of " + sizeMB + " MB, " + rounds + " rounds each, first round is warm up");
+			final Copy[] copies = new Copy[] { new StreamCopy(), new ServletCopy(), new LocalFileCopy(false), new LocalFileCopy(true) };
+			for (int c = 0; c < copies.length; c++) {
+				run(copies[c], file, target, sizeMB, rounds);
+			}
+		} finally {
+			file.delete();
+			target.delete();
+		}
+	}
+
+	private static void run(final Copy copy, final File file, final File target, final int sizeMB, final int rounds) throws IOException {
+		copy.copy(file, target);
+		final long allocatedBefore = allocatedBytes();
+		final long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			copy.copy(file, target);
+		}
+		final long nanos = System.nanoTime() - start;
+		final long allocated = allocatedBytes() - allocatedBefore;
+		final double mbPerSecond = (sizeMB * (double) rounds) / (nanos / 1000000000d);
+		System.out.println(copy.getName() + ": " + Math.round(mbPerSecond) + " MB/s, "
+				+ (allocated < 0 ? "allocation n/a" : (allocated / rounds / 1024) + " KB allocated per delivery"));
+	}
+
+	/**
+	 * @return bytes allocated by this thread so far or -1 if the VM can't tell
+	 */
+	private static long allocatedBytes() {
+		final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if (threadBean instanceof com.sun.management.ThreadMXBean) { return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread()
+				.getId()); }
+		return -1;
+	}
+
+	private static File createFile(final File dir, final int sizeMB) throws IOException {
+		final File file = File.createTempFile("filedeliverybenchmark", ".bin", dir);
+		final OutputStream out = new FileOutputStream(file);
+		try {
+			final byte[] block = new byte[1024 * 1024];
+			for (int i = 0; i < block.length; i++) {
+				block[i] = (byte) i;
+			}
+			for (int i = 0; i < sizeMB; i++) {
+				out.write(block);
+			}
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	private abstract static class Copy {
+		abstract String getName();
+
+		abstract void copy(File file, File target) throws IOException;
+	}
+
+	/**
+	 * ServletUtil.serveFullResource: buffered stream of the leaf copied with FileUtils.copy
+	 */
+	private static class StreamCopy extends Copy {
+		@Override
+		String getName() {
+			return "stream copy (ServletUtil)";
+		}
+
+		@Override
+		void copy(final File file, final File target) throws IOException {
+			final InputStream in = new BufferedInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try {
+				FileUtils.copy(in, new DiscardOutputStream());
+			} finally {
+				in.close();
+			}
+		}
+	}
+
+	/**
+	 * DefaultServlet.copyRange: buffered stream with a small buffer, a new input buffer per delivery
+	 */
+	private static class ServletCopy extends Copy {
+		@Override
+		String getName() {
+			return "stream copy (DefaultServlet)";
+		}
+
+		@Override
+		void copy(final File file, final File target) throws IOException {
+			final InputStream in = new BufferedInputStream(new BufferedInputStream(new FileInputStream(file)), SERVLET_BUFFER);
+			try {
+				final OutputStream out = new DiscardOutputStream();
+				final byte[] buffer = new byte[SERVLET_BUFFER];
+				int len;
+				while ((len = in.read(buffer)) != -1) {
+					out.write(buffer, 0, len);
+				}
+			} finally {
+				in.close();
+			}
+		}
+	}
+
+	private static class LocalFileCopy extends Copy {
+		private final boolean toFile;
+
+		LocalFileCopy(final boolean toFile) {
+			this.toFile = toFile;
+		}
+
+		@Override
+		String getName() {
+			return toFile ? "LocalFileDelivery (transferTo a file, like sendfile)" : "LocalFileDelivery (servlet stream)";
+		}
+
+		@Override
+		void copy(final File file, final File target) throws IOException {
+			final OutputStream out = toFile ? new FileOutputStream(target) : new DiscardOutputStream();
+			try {
+				LocalFileDelivery.transfer(file, 0, file.length() - 1, out);
+			} finally {
+				out.close();
+			}
+		}
+	}
+
+	/**
+	 * Stands in for the servlet output stream
+	 */
+	private static class DiscardOutputStream extends OutputStream {
+		@Override
+		public void write(final int b) {
+			// discard
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) {
+			// discard
+		}
+	}
+}
@@ -0,0 +1,230 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2009 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.core.logging.activity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Description:<br>
+ * Tests the ring buffer, spilling and replaying of the ActivityLogWriter with the database replaced by a list.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class ActivityLogWriterTest {
+
+	private File spillDir;
+	private TestWriter writer;
+
+	@Before
+	public void setUp() throws Exception {
+		spillDir = File.createTempFile("activitylogwritertest", "");
+		spillDir.delete();
+		spillDir.mkdirs();
+	}
+
+	@After
+	public void tearDown() {
+		if (writer != null) {
+			writer.destroy();
+		}
+		final File[] files = spillDir.listFiles();
+		for (int i = 0; files != null && i < files.length; i++) {
+			files[i].delete();
+		}
+		spillDir.delete();
+	}
+
+	private TestWriter startWriter(final int queueSize, final int flushSize) {
+		final TestWriter w = new TestWriter();
+		w.setQueueSize(queueSize);
+		w.setFlushSize(flushSize);
+		w.setFlushIntervalMillis(20);
+		w.setProbeIntervalMillis(50);
+		w.setSpillDir(spillDir.getAbsolutePath());
+		w.init();
+		return w;
+	}
+
+	private LoggingObject newLoggingObject(final String verb) {
+		final LoggingObject logObj = new LoggingObject("session1", Long.valueOf(1), "author", "r", verb, "node");
+		logObj.setBusinessPath("[RepositoryEntry:1][CourseNode:2]");
+		return logObj;
+	}
+
+	private void waitForWritten(final long expected) throws InterruptedException {
+		for (int i = 0; i < 250 && writer.getWrittenCount() < expected; i++) {
+			Thread.sleep(20);
+		}
+		assertEquals(expected, writer.getWrittenCount());
+	}
+
+	@Test
+	public void testWriteBehindWithDurations() throws Exception {
+		writer = startWriter(100, 10);
+		ActivityLogRecord last = null;
+		for (int i = 0; i < 3; i++) {
+			last = writer.enqueue(newLoggingObject("launch"), last);
+		}
+		waitForWritten(3);
+
+		final List<Serializable> written = writer.getWritten();
+		assertEquals("3 records and 2 durations", 5, written.size());
+		int records = 0;
+		long lastSequence = 0;
+		for (final Serializable entry : written) {
+			if (entry instanceof ActivityLogRecord) {
+				final ActivityLogRecord record = (ActivityLogRecord) entry;
+				assertTrue("records keep their order", record.getSequence() > lastSequence);
+				assertEquals("launch", record.getActionVerb());
+				assertEquals("[RepositoryEntry:1][CourseNode:2]", record.getBusinessPath());
+				lastSequence = record.getSequence();
+				records++;
+			} else {
+				final ActivityLogRecord.DurationUpdate du = (ActivityLogRecord.DurationUpdate) entry;
+				assertTrue("a duration refers to an earlier record", du.getSequence() <= lastSequence);
+				assertTrue(du.getDuration() >= 0);
+			}
+		}
+		assertEquals(3, records);
+		assertEquals(0, writer.getDropCount());
+	}
+
+	@Test
+	public void testDropWhenQueueIsFull() throws Exception {
+		writer = startWriter(2, 1);
+		writer.block = new CountDownLatch(1);
+		for (int i = 0; i < 20; i++) {
+			writer.enqueue(newLoggingObject("launch"), null);
+		}
+		assertTrue("the request thread never blocks, it drops", writer.getDropCount() > 0);
+		final long dropped = writer.getDropCount();
+		writer.block.countDown();
+		waitForWritten(20 - dropped);
+		assertEquals(0, writer.getQueueDepth());
+	}
+
+	@Test
+	public void testSpillAndReplayWhenDatabaseIsBack() throws Exception {
+		writer = startWriter(100, 10);
+		writer.failing = true;
+		ActivityLogRecord last = null;
+		for (int i = 0; i < 5; i++) {
+			last = writer.enqueue(newLoggingObject("launch"), last);
+		}
+		for (int i = 0; i < 250 && writer.getSpilledCount() < 9; i++) {
+			Thread.sleep(20);
+		}
+		assertEquals("5 records and 4 durations spilled", 9, writer.getSpilledCount());
+		assertTrue(writer.isSpilling());
+		assertTrue(writer.getSpillFileCount() > 0);
+
+		writer.failing = false;
+		waitForWritten(5);
+		for (int i = 0; i < 250 && writer.isSpilling(); i++) {
+			Thread.sleep(20);
+		}
+		assertFalse(writer.isSpilling());
+		assertEquals(0, writer.getSpillFileCount());
+		assertEquals(9, writer.getWritten().size());
+	}
+
+	@Test
+	public void testReplayOfTruncatedSpillFileAtStartup() throws Exception {
+		final File spillFile = new File(spillDir, "activitylog-1-0.spill");
+		final ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(spillFile));
+		final ActivityLogRecord first = new ActivityLogRecord(1, System.currentTimeMillis(), newLoggingObject("launch"));
+		out.writeObject(first);
+		out.writeObject(new ActivityLogRecord(2, System.currentTimeMillis(), newLoggingObject("close")));
+		out.writeObject(new ActivityLogRecord.DurationUpdate(1, 42));
+		out.flush();
+		// simulate a crash in the middle of the next entry
+		out.write(new byte[] { 0x73, 0x72, 0x00 });
+		out.close();
+
+		assertEquals(3, ActivityLogWriter.readSpillFile(spillFile).size());
+
+		writer = startWriter(100, 10);
+		waitForWritten(2);
+		for (int i = 0; i < 250 && spillFile.exists(); i++) {
+			Thread.sleep(20);
+		}
+		assertFalse("replayed spill file is deleted", spillFile.exists());
+		assertEquals(3, writer.getWritten().size());
+	}
+
+	/**
+	 * Writes into a list instead of the database, can fail or block on demand
+	 */
+	private static class TestWriter extends ActivityLogWriter {
+		private final List<Serializable> written = new ArrayList<Serializable>();
+		volatile boolean failing = false;
+		volatile CountDownLatch block;
+		private long count = 0;
+
+		@Override
+		protected void writeToDatabase(final List<Serializable> entries) {
+			final CountDownLatch latch = block;
+			if (latch != null) {
+				try {
+					latch.await();
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (failing) { throw new IllegalStateException("database is down"); }
+			synchronized (this) {
+				written.addAll(entries);
+				for (final Serializable entry : entries) {
+					if (entry instanceof ActivityLogRecord) {
+						count++;
+					}
+				}
+			}
+		}
+
+		@Override
+		public synchronized long getWrittenCount() {
+			return count;
+		}
+
+		synchronized List<Serializable> getWritten() {
+			return new ArrayList<Serializable>(written);
+		}
+	}
+}
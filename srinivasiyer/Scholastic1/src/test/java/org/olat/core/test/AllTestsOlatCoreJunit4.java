@@ -38,6 +38,10 @@ import org.junit.runners.Suite;
 		org.olat.core.util.filter.impl.SimpleHTMLTagsFilterTest.class, org.olat.core.util.filter.impl.NekoHTMLFilterTest.class,
 		org.olat.core.util.filter.impl.ConditionalHtmlCommentsFilterTest.class, org.olat.core.helpers.SettingsTest.class,
 		org.olat.core.util.coordinate.LockEntryTest.class, org.olat.core.util.StringHelperTest.class, org.olat.core.gui.render.TestRenderStaticURLCacheHeaders.class,
+		org.olat.core.util.cache.n.impl.svm.ConcurrentCacheWrapperImplTest.class,
+		org.olat.core.util.event.EventAgencyTest.class,
+		org.olat.core.logging.activity.ActivityLogWriterTest.class,
+		org.olat.core.logging.activity.ActivityLogWriterDBTest.class,
 		/**
 		 * Place tests which load their own Spring context with @ContextConfiguration below the others as they may taint the cached Spring context
 		 */
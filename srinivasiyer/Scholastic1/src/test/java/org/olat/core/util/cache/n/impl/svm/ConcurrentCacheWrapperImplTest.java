@@ -0,0 +1,150 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+package org.olat.core.util.cache.n.impl.svm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.sf.ehcache.store.MemoryStoreEvictionPolicy;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.olat.core.id.OLATResourceable;
+import org.olat.core.util.cache.n.CacheConfig;
+import org.olat.core.util.cache.n.CacheWrapper;
+import org.olat.core.util.resource.OresHelper;
+
+/**
+ * Description:<br>
+ * Tests the lock-free single vm cache wrapper
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class ConcurrentCacheWrapperImplTest {
+
+	private ConcurrentCacheWrapperImpl createCache(String name, int maxElements, int timeToLive) {
+		CacheConfig config = new CacheConfig();
+		config.setConcurrent(true);
+		config.setMaxElementsInMemory(maxElements);
+		config.setMemoryStoreEvictionPolicy(MemoryStoreEvictionPolicy.LRU);
+		config.setTimeToLive(timeToLive);
+		config.setTimeToIdle(0);
+		return new ConcurrentCacheWrapperImpl(name, config);
+	}
+
+	@Test
+	public void testPutGetRemove() {
+		ConcurrentCacheWrapperImpl cw = createCache("test.putgetremove", 100, 0);
+		assertNull(cw.get("a"));
+		cw.put("a", "1");
+		cw.update("b", "2");
+		cw.updateMulti(new String[] { "c", "d" }, new String[] { "3", "4" });
+		assertEquals("1", cw.get("a"));
+		assertEquals("4", cw.get("d"));
+		assertEquals(4, cw.getSize());
+		cw.remove("a");
+		assertNull(cw.get("a"));
+		assertEquals(3, cw.getSize());
+		assertEquals(2, cw.getHitCount());
+		assertEquals(2, cw.getMissCount());
+	}
+
+	@Test
+	public void testSizeBoundEviction() {
+		ConcurrentCacheWrapperImpl cw = createCache("test.eviction", 10, 0);
+		for (int i = 0; i < 100; i++) {
+			cw.put("key" + i, Integer.valueOf(i));
+		}
+		assertEquals(10, cw.getSize());
+		assertEquals(90, cw.getEvictionCount());
+		// the last put is never evicted
+		assertEquals(Integer.valueOf(99), cw.get("key99"));
+	}
+
+	@Test
+	public void testTimeToLive() throws Exception {
+		ConcurrentCacheWrapperImpl cw = createCache("test.ttl", 10, 1);
+		cw.put("a", "1");
+		assertEquals("1", cw.get("a"));
+		Thread.sleep(1100);
+		assertNull(cw.get("a"));
+		assertEquals(1, cw.getExpirationCount());
+		assertEquals(0, cw.getSize());
+	}
+
+	@Test
+	public void testChildCacheCreation() throws Exception {
+		final ConcurrentCacheWrapperImpl cw = createCache("test.children", 100, 0);
+		final OLATResourceable ores = OresHelper.createOLATResourceableInstanceWithoutCheck("child", new Long(1));
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<CacheWrapper>> results = new ArrayList<Future<CacheWrapper>>();
+		for (int i = 0; i < 32; i++) {
+			results.add(executor.submit(new Callable<CacheWrapper>() {
+				@Override
+				public CacheWrapper call() {
+					return cw.getOrCreateChildCacheWrapper(ores);
+				}
+			}));
+		}
+		CacheWrapper first = results.get(0).get();
+		assertNotNull(first);
+		assertTrue(first instanceof ConcurrentCacheWrapperImpl);
+		for (Future<CacheWrapper> result : results) {
+			assertSame(first, result.get());
+		}
+		executor.shutdown();
+	}
+
+	@Test
+	public void testDisposeRemovesFromStatistics() {
+		ConcurrentCacheWrapperImpl cw = createCache("test.dispose", 100, 0);
+		OLATResourceable ores = OresHelper.createOLATResourceableInstanceWithoutCheck("child", new Long(1));
+		ConcurrentCacheWrapperImpl child = (ConcurrentCacheWrapperImpl) cw.getOrCreateChildCacheWrapper(ores);
+		child.put("a", "1");
+		assertTrue(containsCache("test.dispose"));
+		assertTrue(containsCache(child.getCacheName()));
+
+		cw.dispose();
+		assertFalse(containsCache("test.dispose"));
+		assertFalse(containsCache(child.getCacheName()));
+		assertEquals(0, child.getSize());
+	}
+
+	private boolean containsCache(String cacheName) {
+		for (ConcurrentCacheStatistics stats : ConcurrentCacheWrapperImpl.getStatistics()) {
+			if (stats.getCacheName().equals(cacheName)) { return true; }
+		}
+		return false;
+	}
+}
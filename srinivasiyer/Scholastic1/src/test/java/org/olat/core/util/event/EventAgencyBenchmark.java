@@ -0,0 +1,182 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+package org.olat.core.util.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.WeakHashMap;
+
+import org.olat.core.gui.control.Event;
+import org.olat.core.logging.AssertException;
+import org.olat.core.logging.activity.ThreadLocalUserActivityLoggerInstaller;
+
+/**
+ * Description:<br>
+ * Measures fire/register/deregister of the copy-on-write listener registry of the EventAgency against the former WeakHashMap based registry, which is kept below
+ * as LegacyEventAgency. Not part of the test suite, start it by hand:
+ * <p>
+ * java org.olat.core.util.event.EventAgencyBenchmark [--listeners n] [--events n] [--rounds n]
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class EventAgencyBenchmark {
+
+	public static void main(String[] args) {
+		int numListeners = 2000;
+		int numEvents = 500;
+		int rounds = 4;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--listeners") && i + 1 < args.length) {
+				numListeners = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--events") && i + 1 < args.length) {
+				numEvents = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--rounds") && i + 1 < args.length) {
+				rounds = Integer.parseInt(args[++i]);
+			} else {
+				System.out.println("Usage: java org.olat.core.util.event.EventAgencyBenchmark [--listeners n] [--events n] [--rounds n]");
+				System.exit(1);
+			}
+		}
+		System.out.println(numListeners + " listeners, " + rounds + " rounds each, only the last round is reported");
+		fire(numListeners, numEvents, rounds);
+		registerDeregister(numListeners, rounds);
+	}
+
+	private static void fire(int numListeners, int numEvents, int rounds) {
+		List<CountingListener> holder = new ArrayList<CountingListener>(numListeners);
+		EventAgency agency = new EventAgency();
+		LegacyEventAgency legacy = new LegacyEventAgency();
+		for (int i = 0; i < numListeners; i++) {
+			CountingListener listener = new CountingListener();
+			holder.add(listener);
+			agency.addListener(listener, null);
+			legacy.addListener(listener, null);
+		}
+		Event event = new Event("perf");
+
+		long legacyTime = 0;
+		long cowTime = 0;
+		for (int round = 0; round < rounds; round++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < numEvents; i++) {
+				legacy.fireEvent(event);
+			}
+			legacyTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < numEvents; i++) {
+				agency.fireEvent(event);
+			}
+			cowTime = System.nanoTime() - start;
+		}
+		System.out.println("fireEvent, " + numEvents + " events: legacy " + (legacyTime / 1000000) + "ms, copy-on-write " + (cowTime / 1000000) + "ms");
+
+		int expected = 2 * numEvents * rounds;
+		for (CountingListener listener : holder) {
+			if (listener.count != expected) { throw new IllegalStateException("listener got " + listener.count + " events instead of " + expected); }
+		}
+	}
+
+	private static void registerDeregister(int numListeners, int rounds) {
+		List<CountingListener> listeners = new ArrayList<CountingListener>(numListeners);
+		for (int i = 0; i < numListeners; i++) {
+			listeners.add(new CountingListener());
+		}
+
+		long legacyTime = 0;
+		long cowTime = 0;
+		for (int round = 0; round < rounds; round++) {
+			LegacyEventAgency legacy = new LegacyEventAgency();
+			long start = System.nanoTime();
+			for (CountingListener listener : listeners) {
+				legacy.addListener(listener, null);
+			}
+			for (CountingListener listener : listeners) {
+				legacy.removeListener(listener);
+			}
+			legacyTime = System.nanoTime() - start;
+
+			EventAgency agency = new EventAgency();
+			start = System.nanoTime();
+			for (CountingListener listener : listeners) {
+				agency.addListener(listener, null);
+			}
+			for (CountingListener listener : listeners) {
+				agency.removeListener(listener);
+			}
+			cowTime = System.nanoTime() - start;
+		}
+		System.out.println("register/deregister: legacy " + (legacyTime / 1000000) + "ms, copy-on-write " + (cowTime / 1000000) + "ms");
+	}
+
+	private static class CountingListener implements GenericEventListener {
+		private int count;
+
+		@Override
+		public void event(Event event) {
+			count++;
+		}
+	}
+
+	/**
+	 * the registry as it was before the copy-on-write snapshot, reduced to the non-controller path used by the benchmark.
+	 */
+	private static class LegacyEventAgency {
+		private WeakHashMap<GenericEventListener, String> listeners = new WeakHashMap<GenericEventListener, String>();
+
+		void fireEvent(final Event event) {
+			GenericEventListener[] liArr;
+			synchronized (listeners) {
+				List<GenericEventListener> li = new ArrayList<GenericEventListener>(listeners.keySet());
+				liArr = new GenericEventListener[li.size()];
+				liArr = li.toArray(liArr);
+			}
+			for (int i = 0; i < liArr.length; i++) {
+				final GenericEventListener listener = liArr[i];
+				ThreadLocalUserActivityLoggerInstaller.runWithUserActivityLogger(new Runnable() {
+					@Override
+					public void run() {
+						listener.event(event);
+					}
+				}, ThreadLocalUserActivityLoggerInstaller.createEmptyUserActivityLogger());
+			}
+		}
+
+		void addListener(GenericEventListener gel, String identityName) {
+			synchronized (listeners) {
+				if (listeners.containsKey(gel)) throw new AssertException(" already added gel:" + gel.getClass().getName());
+				listeners.put(gel, identityName);
+			}
+		}
+
+		void removeListener(GenericEventListener gel) {
+			synchronized (listeners) {
+				listeners.remove(gel);
+			}
+		}
+
+		int getListenerCount() {
+			synchronized (listeners) {
+				return listeners.size();
+			}
+		}
+	}
+}
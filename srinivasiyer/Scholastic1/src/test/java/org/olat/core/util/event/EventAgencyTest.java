@@ -0,0 +1,182 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+package org.olat.core.util.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.olat.core.gui.control.Event;
+import org.olat.core.logging.AssertException;
+
+/**
+ * Description:<br>
+ * Tests the copy-on-write listener registry of the EventAgency. The comparison with the former WeakHashMap registry is in EventAgencyBenchmark.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class EventAgencyTest {
+
+	@Test
+	public void testAddFireRemove() {
+		EventAgency agency = new EventAgency();
+		CountingListener l1 = new CountingListener();
+		CountingListener l2 = new CountingListener();
+		agency.addListener(l1, null);
+		agency.addListener(l2, null);
+		assertEquals(2, agency.getListenerCount());
+
+		agency.fireEvent(new Event("test"));
+		assertEquals(1, l1.count);
+		assertEquals(1, l2.count);
+
+		agency.removeListener(l1);
+		assertEquals(1, agency.getListenerCount());
+		agency.fireEvent(new Event("test"));
+		assertEquals(1, l1.count);
+		assertEquals(2, l2.count);
+
+		// removing an unknown listener is a no-op
+		agency.removeListener(l1);
+		assertEquals(1, agency.getListenerCount());
+	}
+
+	@Test
+	public void testAddTwice() {
+		EventAgency agency = new EventAgency();
+		CountingListener l1 = new CountingListener();
+		agency.addListener(l1, null);
+		try {
+			agency.addListener(l1, null);
+			fail("adding the same listener twice must fail");
+		} catch (AssertException e) {
+			// expected
+		}
+		assertEquals(1, agency.getListenerCount());
+	}
+
+	@Test
+	public void testListenerRemovesItselfWhileFiring() {
+		final EventAgency agency = new EventAgency();
+		final CountingListener other = new CountingListener();
+		GenericEventListener selfRemoving = new GenericEventListener() {
+			@Override
+			public void event(Event event) {
+				agency.removeListener(this);
+			}
+		};
+		agency.addListener(selfRemoving, null);
+		agency.addListener(other, null);
+		agency.fireEvent(new Event("test"));
+		// the listeners registered when firing started all get the event
+		assertEquals(1, other.count);
+		assertEquals(1, agency.getListenerCount());
+	}
+
+	@Test
+	public void testFailingListenerIsRemoved() {
+		EventAgency agency = new EventAgency();
+		CountingListener ok = new CountingListener();
+		agency.addListener(new GenericEventListener() {
+			@Override
+			public void event(Event event) {
+				throw new IllegalStateException("failing listener");
+			}
+		}, null);
+		agency.addListener(ok, null);
+		agency.fireEvent(new Event("test"));
+		assertEquals(1, ok.count);
+		assertEquals(1, agency.getListenerCount());
+	}
+
+	@Test
+	public void testGarbageCollectedListenersAreExpunged() {
+		EventAgency agency = new EventAgency();
+		CountingListener kept = new CountingListener();
+		agency.addListener(kept, null);
+		CountingListener collectable = new CountingListener();
+		WeakReference<CountingListener> collectableRef = new WeakReference<CountingListener>(collectable);
+		agency.addListener(collectable, null);
+		assertEquals(2, agency.getListenerCount());
+		collectable = null;
+		// the agency must not keep the listener alive, give the garbage collector a few chances to clear it
+		for (int i = 0; i < 50 && collectableRef.get() != null; i++) {
+			System.gc();
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		assertNull("listener is only weakly referenced by the agency", collectableRef.get());
+		assertEquals(1, agency.getListenerCount());
+		agency.fireEvent(new Event("test"));
+		assertEquals(1, kept.count);
+		assertEquals(1, agency.getListenerCount());
+	}
+
+	@Test
+	public void testReferenceClearedWhileCopying() {
+		final CountingListener first = new CountingListener();
+		EventAgency agency = new EventAgency() {
+			@Override
+			ListenerRef newListenerRef(GenericEventListener listener, String identityName) {
+				if (listener != first) { return super.newListenerRef(listener, identityName); }
+				// the garbage collector clears the reference after it was seen alive once
+				return new ListenerRef(listener, identityName) {
+					private int calls = 0;
+
+					@Override
+					public GenericEventListener get() {
+						return calls++ == 0 ? super.get() : null;
+					}
+				};
+			}
+		};
+		agency.addListener(first, null);
+		CountingListener second = new CountingListener();
+		agency.addListener(second, null);
+		assertEquals(1, agency.getListenerCount());
+		agency.fireEvent(new Event("test"));
+		assertEquals(1, second.count);
+		CountingListener third = new CountingListener();
+		agency.addListener(third, null);
+		agency.removeListener(second);
+		agency.fireEvent(new Event("test"));
+		assertEquals(1, third.count);
+		assertEquals(1, agency.getListenerCount());
+	}
+
+	private static class CountingListener implements GenericEventListener {
+		private int count;
+
+		@Override
+		public void event(Event event) {
+			count++;
+		}
+	}
+}
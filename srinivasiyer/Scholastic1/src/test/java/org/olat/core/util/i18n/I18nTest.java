@@ -849,6 +849,28 @@ public class I18nTest extends OlatcoreTestCaseWithMocking {
 		i18nMgr.setCachingEnabled(true);
 	}
 
+	/**
+	 * Test that the compiled translation tables return the same values as the lookup in the property files
+	 */
+	@Test
+	public void testTranslationTablesEqualLookup() {
+		Locale locale = i18nMgr.getLocaleOrDefault("de");
+		String bundleName = "org.olat.core";
+		Properties props = i18nMgr.getResolvedProperties(locale, bundleName);
+		assertTrue(props.size() > 0);
+		for (String key : props.stringPropertyNames()) {
+			assertEquals(key, i18nMgr.getLocalizedString(bundleName, key, null, locale, false, true, true, true, 0),
+					i18nMgr.getLocalizedString(bundleName, key, null, locale, false, true));
+		}
+		// an edited translation replaces the compiled one
+		prepareDevToolTests();
+		assertEquals("hello I have to go", i18nMgr.getLocalizedString(testSourceBundle, "key.to.stay2", null, locale, false, false));
+		I18nItem i18nItem = i18nMgr.getI18nItem(testSourceBundle, "key.to.move", locale);
+		i18nMgr.saveOrUpdateI18nItem(i18nItem, "I can stay");
+		assertEquals("I can stay", i18nMgr.getLocalizedString(testSourceBundle, "key.to.move", null, locale, false, false));
+		assertEquals("hello I can stay", i18nMgr.getLocalizedString(testSourceBundle, "key.to.stay2", null, locale, false, false));
+	}
+
 	/**
 	 * Description:<br>
 	 * Dummy URL builder
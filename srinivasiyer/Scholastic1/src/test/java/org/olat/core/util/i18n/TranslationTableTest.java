@@ -0,0 +1,125 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.core.util.i18n;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.text.MessageFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Description:<br>
+ * Tests that the TranslationTable formats the values exactly like MessageFormat does it in I18nManager.getLocalizedString().
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class TranslationTableTest {
+
+	private Map<String, String> values;
+	private TranslationTable table;
+
+	@Before
+	public void setUp() {
+		values = new HashMap<String, String>();
+		values.put("plain", "Hello world");
+		values.put("quote", "That's {0}'s course");
+		values.put("quoted.braces", "It's '{0}' and {1}");
+		values.put("args", "{1} of {0} done, {1} again");
+		values.put("adjacent", "{0}{1}{0}");
+		values.put("number", "{0,number,integer} points for {1}");
+		values.put("choice", "{0,choice,0#no files|1#one file|1<{0} files}");
+		values.put("unmatched", "Hello {0");
+		values.put("unknown", "Hello {x}");
+		values.put("closing", "a } b {0}}");
+		table = new TranslationTable("org.olat.test", Locale.GERMAN, false, true, new HashMap<String, String>(values));
+	}
+
+	private void assertFormat(String key, Object[] args) {
+		String expected = MessageFormat.format(values.get(key).replaceAll("'", "''"), args);
+		assertEquals(key, expected, table.getLocalizedString(key, args));
+	}
+
+	@Test
+	public void testLookup() {
+		assertEquals(values.size(), table.size());
+		assertEquals("Hello world", table.getLocalizedString("plain", null));
+		assertEquals("Hello world", table.getLocalizedString("plain", new Object[] { "x" }));
+		assertNull(table.getLocalizedString("not.existing", null));
+		assertNull(table.getLocalizedString("not.existing", new Object[] { "x" }));
+		// no arguments: the raw value like in I18nManager
+		assertEquals("That's {0}'s course", table.getLocalizedString("quote", null));
+	}
+
+	@Test
+	public void testStringArguments() {
+		Object[][] argsList = new Object[][] { {}, { "a" }, { "a", "b" }, { "a", "b", "c" }, { null, "b" }, { "it's", "{0}" } };
+		String[] keys = new String[] { "quote", "quoted.braces", "args", "adjacent", "closing" };
+		for (String key : keys) {
+			for (Object[] args : argsList) {
+				assertFormat(key, args);
+			}
+		}
+	}
+
+	@Test
+	public void testOtherArguments() {
+		Object[] args = new Object[] { Integer.valueOf(1234), new Date(0) };
+		String[] keys = new String[] { "quote", "args", "adjacent", "number", "choice" };
+		for (String key : keys) {
+			assertFormat(key, args);
+		}
+		assertFormat("choice", new Object[] { Integer.valueOf(0) });
+		assertFormat("choice", new Object[] { Integer.valueOf(5) });
+		assertFormat("number", new Object[] { Double.valueOf(3.7), "you" });
+	}
+
+	@Test
+	public void testIllegalPattern() {
+		Object[] args = new Object[] { "a" };
+		String[] keys = new String[] { "unmatched", "unknown" };
+		for (String key : keys) {
+			try {
+				MessageFormat.format(values.get(key), args);
+				fail("MessageFormat didn't complain about the illegal pattern::" + key);
+			} catch (IllegalArgumentException e) {
+				// this is okay
+			}
+			try {
+				table.getLocalizedString(key, args);
+				fail("TranslationTable didn't complain about the illegal pattern::" + key);
+			} catch (IllegalArgumentException e) {
+				// same behaviour as MessageFormat
+			}
+		}
+	}
+}
@@ -0,0 +1,98 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.course.condition.interpreter;
+
+/**
+ * Description:<br>
+ * Compares the evaluation of the conditions of a whole course tree with and without the ConditionExpressionCache, as it happens for every click in the menu of
+ * a course. Not part of the test suite, start it by hand:
+ * <p>
+ * java org.olat.course.condition.interpreter.ConditionInterpreterBenchmark [--nodes n] [--users n] [--rounds n]
+ * <p>
+ * Every node has a visibility and an access condition built from the time functions, which need no database. All users share the course (and its cache), each
+ * user has its own ConditionInterpreter like in the run of a course.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class ConditionInterpreterBenchmark {
+
+	private static final String[] CONDITIONS = new String[] { "now > date(\"01.01.2020 00:00\")", "(now > date(\"01.01.2020 00:00\") + 2w) & (now < never)",
+			"now < date(\"31.12.2030 23:59\") | false", "(1 < 2) & !(now < date(\"01.01.2000 12:00\") + 3m)", "true" };
+
+	public static void main(final String[] args) {
+		int nodes = 400;
+		int users = 50;
+		int rounds = 10;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--nodes") && i + 1 < args.length) {
+				nodes = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--users") && i + 1 < args.length) {
+				users = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--rounds") && i + 1 < args.length) {
+				rounds = Integer.parseInt(args[++i]);
+			} else {
+				System.out.println("Usage: java org.olat.course.condition.interpreter.ConditionInterpreterBenchmark [--nodes n] [--users n] [--rounds n]");
+				System.exit(1);
+			}
+		}
+
+		// two conditions per node, the date makes them different like in a real course
+		final String[] conditions = new String[nodes * 2];
+		for (int i = 0; i < conditions.length; i++) {
+			final String condition = CONDITIONS[i % CONDITIONS.length];
+			conditions[i] = condition.replace("01.01.2020", String.format("%02d.01.2020", 1 + (i / CONDITIONS.length) % 28));
+		}
+
+		System.out.println(nodes + " nodes, " + users + " users, " + rounds + " rounds each, first round is warm up");
+		run("compiled every time", conditions, users, rounds, null);
+		run("compiled once per course", conditions, users, rounds, new ConditionExpressionCache());
+	}
+
+	private static void run(final String name, final String[] conditions, final int users, final int rounds, final ConditionExpressionCache cache) {
+		final ConditionInterpreter[] interpreters = new ConditionInterpreter[users];
+		for (int u = 0; u < users; u++) {
+			final ConditionInterpreterTest.TestCourseEnvironment ce = new ConditionInterpreterTest.TestCourseEnvironment(System.currentTimeMillis(), cache);
+			interpreters[u] = new ConditionInterpreterTest.TestUserCourseEnvironment(ce).getConditionInterpreter();
+		}
+		long best = Long.MAX_VALUE;
+		long total = 0;
+		int trueCount = 0;
+		for (int r = 0; r < rounds; r++) {
+			final long start = System.nanoTime();
+			for (int u = 0; u < users; u++) {
+				for (int c = 0; c < conditions.length; c++) {
+					if (interpreters[u].evaluateCondition(conditions[c])) {
+						trueCount++;
+					}
+				}
+			}
+			final long duration = System.nanoTime() - start;
+			if (r > 0) {
+				best = Math.min(best, duration);
+				total += duration;
+			}
+		}
+		final int measured = Math.max(1, rounds - 1);
+		System.out.println(String.format("%-26s best %8.2f ms, avg %8.2f ms per round, %6.1f us per course tree and user (%d true)", name, best / 1e6, total
+				/ 1e6 / measured, best / 1e3 / users, trueCount));
+	}
+}
@@ -0,0 +1,119 @@
+package org.olat.course.statistic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Timestamp;
+import java.util.Calendar;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.olat.core.logging.AssertException;
+
+/**
+ * Tests the in-memory part of the IncrementalStatisticUpdater: the keys of the dimensions and the folding of logging actions into the deltas.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class TestIncrementalStatisticUpdater {
+
+	private static final String BP_A = "[RepositoryEntry:123][CourseNode:456]";
+	private static final String BP_B = "[RepositoryEntry:789][CourseNode:1]";
+
+	private Calendar date(final int year, final int month, final int day, final int hour) {
+		final Calendar cal = Calendar.getInstance();
+		cal.clear();
+		cal.set(year, month, day, hour, 17, 42);
+		return cal;
+	}
+
+	@Test
+	public void testExtractResId() {
+		assertEquals(Long.valueOf(123), IncrementalStatisticUpdater.extractResId(BP_A));
+		assertNull(IncrementalStatisticUpdater.extractResId(null));
+		assertNull(IncrementalStatisticUpdater.extractResId(""));
+		assertNull(IncrementalStatisticUpdater.extractResId("[RepositoryEntry:]"));
+		assertNull(IncrementalStatisticUpdater.extractResId("[RepositoryEntry:abc]"));
+	}
+
+	@Test
+	public void testDimensionKeys() {
+		// wednesday
+		final Calendar cal = date(2026, Calendar.OCTOBER, 14, 9);
+		final Calendar midnight = Calendar.getInstance();
+		midnight.clear();
+		midnight.set(2026, Calendar.OCTOBER, 14);
+		assertEquals(new Timestamp(midnight.getTimeInMillis()), StatisticDimension.DAILY.computeKey(cal));
+		assertEquals("2026-42", StatisticDimension.WEEKLY.computeKey(cal));
+		assertEquals(Integer.valueOf(4), StatisticDimension.DAY_OF_WEEK.computeKey(cal));
+		assertEquals(Integer.valueOf(9), StatisticDimension.HOUR_OF_DAY.computeKey(cal));
+	}
+
+	@Test
+	public void testWeekAtYearBoundary() {
+		// friday 1st of january 2027 belongs to the last iso week of 2026, like to_char(creationdate,'IYYY-IW') of postgres
+		assertEquals("2026-53", StatisticDimension.WEEKLY.computeKey(date(2027, Calendar.JANUARY, 1, 12)));
+		assertEquals("2026-53", StatisticDimension.WEEKLY.computeKey(date(2027, Calendar.JANUARY, 3, 23)));
+		assertEquals("2027-01", StatisticDimension.WEEKLY.computeKey(date(2027, Calendar.JANUARY, 4, 0)));
+		// sunday 1st of january 2023 belongs to week 52 of 2022
+		assertEquals("2022-52", StatisticDimension.WEEKLY.computeKey(date(2023, Calendar.JANUARY, 1, 12)));
+		// monday 29th of december 2025 already belongs to the first iso week of 2026
+		assertEquals("2026-01", StatisticDimension.WEEKLY.computeKey(date(2025, Calendar.DECEMBER, 29, 12)));
+		assertEquals("2025-52", StatisticDimension.WEEKLY.computeKey(date(2025, Calendar.DECEMBER, 28, 12)));
+		assertEquals("2026-02", StatisticDimension.WEEKLY.computeKey(date(2026, Calendar.JANUARY, 5, 12)));
+		// the keys of consecutive weeks are ordered across the year boundary, the retention delete compares them with '<'
+		assertTrue(((String) StatisticDimension.WEEKLY.computeKey(date(2025, Calendar.DECEMBER, 28, 12))).compareTo(
+				(String) StatisticDimension.WEEKLY.computeKey(date(2025, Calendar.DECEMBER, 29, 12))) < 0);
+	}
+
+	@Test
+	public void testForName() {
+		assertEquals(StatisticDimension.DAILY, StatisticDimension.forName("daily"));
+		assertEquals(StatisticDimension.HOUR_OF_DAY, StatisticDimension.forName(" hourofday"));
+		try {
+			StatisticDimension.forName("homeorg");
+			fail("StatisticDimension.forName didn't complain about an unknown dimension");
+		} catch (final AssertException e) {
+			// this is okay
+		}
+	}
+
+	@Test
+	public void testFoldIntoAllDimensions() {
+		final StatisticDimension[] dimensions = new StatisticDimension[] { StatisticDimension.DAILY, StatisticDimension.WEEKLY, StatisticDimension.DAY_OF_WEEK,
+				StatisticDimension.HOUR_OF_DAY };
+		final IncrementalStatisticUpdater.StatisticDeltas deltas = new IncrementalStatisticUpdater.StatisticDeltas(dimensions);
+
+		deltas.add(BP_A, date(2026, Calendar.OCTOBER, 14, 9));
+		deltas.add(BP_A, date(2026, Calendar.OCTOBER, 14, 9));
+		deltas.add(BP_A, date(2026, Calendar.OCTOBER, 15, 9));
+		deltas.add(BP_B, date(2026, Calendar.OCTOBER, 21, 10));
+		// ignored like in the sql based updaters
+		deltas.add("", date(2026, Calendar.OCTOBER, 14, 9));
+		deltas.add(null, date(2026, Calendar.OCTOBER, 14, 9));
+
+		// daily: A/14, A/15, B/21
+		assertEquals(3, deltas.get(0).size());
+		// weekly: A/42, B/43
+		assertEquals(2, deltas.get(1).size());
+		// dayofweek: A/wed, A/thu, B/wed
+		assertEquals(3, deltas.get(2).size());
+		// hourofday: A/9, B/10
+		assertEquals(2, deltas.get(3).size());
+		assertEquals(10, deltas.size());
+		for (int i = 0; i < dimensions.length; i++) {
+			assertEquals("every action is counted once per dimension", 4, deltas.total(i));
+		}
+
+		final IncrementalStatisticUpdater.Delta probe = new IncrementalStatisticUpdater.Delta(BP_A, Long.valueOf(123), Integer.valueOf(9));
+		assertEquals(3, deltas.get(3).get(probe).count);
+
+		deltas.clear();
+		assertEquals(0, deltas.size());
+		assertEquals(0, deltas.total(0));
+	}
+}
@@ -0,0 +1,126 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.ims.qti.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import org.dom4j.Document;
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+import org.junit.Before;
+import org.junit.Test;
+import org.olat.ims.qti.process.AssessmentInstance;
+import org.olat.ims.qti.process.Resolver;
+import org.olat.modules.ModuleConfiguration;
+import org.olat.test.OlatTestCase;
+
+/**
+ * Description:<br>
+ * Tests that the items selected out of an object bank of the shared QTI document do not drag the whole object bank into the serialized state of the user.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class SectionContextTest extends OlatTestCase {
+
+	private static final int BANK_SIZE = 200;
+
+	private Document doc;
+	private Element objectBank;
+	private Resolver resolver;
+
+	@Before
+	public void setUp() throws Exception {
+		doc = DocumentHelper.parseText("<?xml version=\"1.0\" encoding=\"UTF-8\"?><questestinterop><assessment ident=\"a1\" title=\"test\">"
+				+ "<section ident=\"s1\"><selection_ordering><selection><sourcebank_ref>bank1</sourcebank_ref><selection_number>2</selection_number></selection>"
+				+ "</selection_ordering></section></assessment></questestinterop>");
+		final StringBuilder bank = new StringBuilder("<objectbank ident=\"bank1\">");
+		for (int i = 0; i < BANK_SIZE; i++) {
+			bank.append("<item ident=\"bi").append(i).append("\" title=\"item of the object bank number ").append(i).append("\"/>");
+		}
+		bank.append("</objectbank>");
+		objectBank = DocumentHelper.parseText(bank.toString()).getRootElement();
+		resolver = new Resolver() {
+			@Override
+			public Element getObjectBank(final String ident) {
+				return "bank1".equals(ident) ? objectBank : null;
+			}
+
+			@Override
+			public Document getQTIDocument() {
+				return doc;
+			}
+
+			@Override
+			public Element getSection(final String ident) {
+				return (Element) doc.selectSingleNode("//section[@ident='" + ident + "']");
+			}
+
+			@Override
+			public Element getItem(final String ident) {
+				return (Element) doc.selectSingleNode("//item[@ident='" + ident + "']");
+			}
+
+			@Override
+			public String getStaticsBaseURI() {
+				return "";
+			}
+
+			@Override
+			public boolean hasAutocompleteFiles() {
+				return false;
+			}
+		};
+	}
+
+	private int serializedSize(final Serializable o) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(o);
+		out.close();
+		return bytes.size();
+	}
+
+	@Test
+	public void testSelectionNumberFromObjectBank() throws Exception {
+		final AssessmentInstance ai = new AssessmentInstance(1, 2, resolver, null, new ModuleConfiguration());
+		final SectionContext sc = ai.getAssessmentContext().getSectionContext(0);
+		assertEquals(2, sc.getItemContextCount());
+		for (int i = 0; i < sc.getItemContextCount(); i++) {
+			final Element item = sc.getItemContext(i).getEl_item();
+			assertNull("selected item must be detached from the object bank", item.getParent());
+			assertTrue(item.attributeValue("ident").startsWith("bi"));
+		}
+		// the shared object bank is left as it is
+		assertEquals(BANK_SIZE, objectBank.elements("item").size());
+
+		final int bankSize = serializedSize(objectBank);
+		final int stateSize = serializedSize(ai);
+		assertTrue("state of the user (" + stateSize + " bytes) contains the object bank (" + bankSize + " bytes)", stateSize < bankSize / 4);
+	}
+}
@@ -0,0 +1,137 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.ims.qti.process;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dom4j.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.olat.core.util.vfs.LocalFileImpl;
+import org.olat.test.OlatTestCase;
+
+/**
+ * Description:<br>
+ * Tests the cache of parsed QTI documents which are shared by all users of a test.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+public class QTIHelperTest extends OlatTestCase {
+
+	private static final String QTI_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><questestinterop><assessment ident=\"a1\" title=\"test\">"
+			+ "<section ident=\"s1\"><item ident=\"i1\" title=\"first\"/><item ident=\"i2\" title=\"second\"/></section></assessment></questestinterop>";
+
+	private File dir;
+	private File qtiFile;
+
+	@Before
+	public void setUp() throws Exception {
+		dir = File.createTempFile("qtihelpertest", "");
+		dir.delete();
+		dir.mkdirs();
+		qtiFile = new File(dir, ImsRepositoryResolver.QTI_FILE);
+		write(QTI_XML);
+	}
+
+	@After
+	public void tearDown() {
+		QTIHelper.removeCachedDocument(qtiFile);
+		qtiFile.delete();
+		dir.delete();
+	}
+
+	private void write(final String xml) throws IOException {
+		final OutputStream out = new FileOutputStream(qtiFile);
+		try {
+			out.write(xml.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+	@Test
+	public void testSharedDocument() {
+		final Document shared = QTIHelper.getSharedDocument(new LocalFileImpl(qtiFile));
+		assertNotNull(shared);
+		assertEquals(2, shared.selectNodes("//item").size());
+		assertSame("all users get the same document", shared, QTIHelper.getSharedDocument(new LocalFileImpl(qtiFile)));
+
+		final Document copy = QTIHelper.getDocument(new LocalFileImpl(qtiFile));
+		assertNotSame("getDocument returns a private copy", shared, copy);
+		assertEquals(shared.asXML(), copy.asXML());
+		copy.getRootElement().detach();
+		assertEquals(2, QTIHelper.getSharedDocument(new LocalFileImpl(qtiFile)).selectNodes("//item").size());
+	}
+
+	@Test
+	public void testModifiedAndRemovedDocument() throws Exception {
+		final Document shared = QTIHelper.getSharedDocument(new LocalFileImpl(qtiFile));
+		// the editor saves the test again
+		write(QTI_XML.replace("<item ident=\"i2\" title=\"second\"/>", ""));
+		final Document modified = QTIHelper.getSharedDocument(new LocalFileImpl(qtiFile));
+		assertNotSame(shared, modified);
+		assertEquals(1, modified.selectNodes("//item").size());
+
+		QTIHelper.removeCachedDocument(qtiFile);
+		assertNotSame(modified, QTIHelper.getSharedDocument(new LocalFileImpl(qtiFile)));
+
+		assertNull("file does not exist", QTIHelper.getSharedDocument(null));
+	}
+
+	@Test
+	public void testConcurrentStarts() throws Exception {
+		final List<Document> docs = new ArrayList<Document>();
+		final List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 10; i++) {
+			final Thread t = new Thread() {
+				@Override
+				public void run() {
+					final Document doc = QTIHelper.getSharedDocument(new LocalFileImpl(qtiFile));
+					synchronized (docs) {
+						docs.add(doc);
+					}
+				}
+			};
+			threads.add(t);
+			t.start();
+		}
+		for (final Thread t : threads) {
+			t.join();
+		}
+		assertEquals(10, docs.size());
+		for (final Document doc : docs) {
+			assertSame("the document is parsed only once", docs.get(0), doc);
+		}
+	}
+}
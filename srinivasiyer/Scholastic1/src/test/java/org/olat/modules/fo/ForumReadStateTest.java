@@ -0,0 +1,135 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.modules.fo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Description:<br>
+ * Tests the high-water mark and the encoded key set of the ForumReadState without database.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class ForumReadStateTest {
+
+	// keys are not in creation order, like the hilo keys of a cluster
+	private static final long[] KEYS = new long[] { 300, 100, 200, 500, 400 };
+	private static final long[] TIMES = new long[] { 1000, 2000, 2000, 3000, 4000 };
+
+	@Test
+	public void testMarkRead() {
+		final ForumReadState state = new ForumReadState();
+		assertFalse(state.isRead(100, 2000));
+		assertTrue(state.markRead(100, 2000));
+		assertFalse("already read", state.markRead(100, 2000));
+		assertTrue(state.isRead(100, 2000));
+		assertFalse(state.isRead(200, 2000));
+
+		final Set<Long> readSet = state.getReadSet(KEYS, TIMES);
+		assertEquals(1, readSet.size());
+		assertTrue(readSet.contains(Long.valueOf(100)));
+	}
+
+	@Test
+	public void testCompactMovesHighWaterMark() {
+		final ForumReadState state = new ForumReadState();
+		state.markRead(300, 1000);
+		state.markRead(100, 2000);
+		state.markRead(400, 4000);
+		assertTrue(state.compact(KEYS, TIMES, Long.MAX_VALUE));
+		// 200 has the same creation time as 100 but is unread
+		assertEquals(1000, state.getHighWaterMark());
+		assertEquals(2, state.getReadKeysCount());
+
+		state.markRead(200, 2000);
+		state.markRead(500, 3000);
+		assertTrue(state.compact(KEYS, TIMES, Long.MAX_VALUE));
+		assertEquals(4000, state.getHighWaterMark());
+		assertEquals(0, state.getReadKeysCount());
+		assertEquals(5, state.getReadSet(KEYS, TIMES).size());
+		assertFalse("nothing to compact", state.compact(KEYS, TIMES, Long.MAX_VALUE));
+		assertFalse("message created after the high-water mark", state.isRead(600, 5000));
+	}
+
+	@Test
+	public void testCompactRespectsSafetyMargin() {
+		final ForumReadState state = new ForumReadState();
+		for (int i = 0; i < KEYS.length; i++) {
+			state.markRead(KEYS[i], TIMES[i]);
+		}
+		state.compact(KEYS, TIMES, 2500);
+		assertEquals(2000, state.getHighWaterMark());
+		assertEquals(2, state.getReadKeysCount());
+		assertEquals(5, state.getReadSet(KEYS, TIMES).size());
+	}
+
+	@Test
+	public void testCompactDropsDeletedMessages() {
+		final ForumReadState state = new ForumReadState();
+		state.markRead(400, 4000);
+		state.markRead(999, 4500);
+		assertTrue(state.compact(KEYS, TIMES, Long.MAX_VALUE));
+		assertEquals(0, state.getHighWaterMark());
+		assertEquals(1, state.getReadKeysCount());
+		assertTrue(state.isRead(400, 4000));
+		assertFalse(state.isRead(999, 4500));
+	}
+
+	@Test
+	public void testEncodeDecode() {
+		final ForumReadState state = new ForumReadState();
+		assertEquals("", state.encodeReadKeys());
+		assertEquals(0, ForumReadState.decodeReadKeys(null).length);
+		final long[] keys = new long[] { 7340032L, 1, 65536, 7340033L, 36 };
+		for (int i = 0; i < keys.length; i++) {
+			state.markRead(keys[i], 1000);
+		}
+		final String encoded = state.encodeReadKeys();
+		final long[] decoded = ForumReadState.decodeReadKeys(encoded);
+		assertEquals(keys.length, decoded.length);
+		assertEquals(1, decoded[0]);
+		assertEquals(36, decoded[1]);
+		assertEquals(65536, decoded[2]);
+		assertEquals(7340032L, decoded[3]);
+		assertEquals(7340033L, decoded[4]);
+		assertTrue(encoded.endsWith(",1"));
+	}
+
+	@Test
+	public void testMerge() {
+		final ForumReadState state = new ForumReadState(null, 1000, new long[] { 100, 400 });
+		final ForumReadState duplicate = new ForumReadState(null, 2000, new long[] { 400, 500 });
+		state.merge(duplicate);
+		assertEquals(2000, state.getHighWaterMark());
+		assertEquals(3, state.getReadKeysCount());
+		assertEquals(5, state.getReadSet(KEYS, TIMES).size());
+	}
+}
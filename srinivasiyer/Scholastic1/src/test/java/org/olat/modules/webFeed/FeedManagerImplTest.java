@@ -21,8 +21,11 @@
 package org.olat.modules.webFeed;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 
+import java.util.List;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -162,4 +165,52 @@ public class FeedManagerImplTest extends OlatTestCase {
 		// Compare
 		assertEquals(initialCount - 1, newCount);
 	}
+
+	/**
+	 * Test the item index: the items are read without their content, the content is read from the item file when needed
+	 */
+	@Test
+	public void testItemIndex() {
+		final Item newItem = new Item();
+		newItem.setGuid(CodeHelper.getGlobalForeverUniqueID());
+		newItem.setTitle("Indexed item");
+		newItem.setDescription("The description");
+		newItem.setContent("The content");
+		feedManager.addItem(newItem, null, feed);
+		feed = feedManager.getFeed(feed);
+		// read the items from the item index
+		final List<Item> items = feedManager.loadItems(feed);
+		Item indexedItem = null;
+		for (final Item item : items) {
+			if (newItem.getGuid().equals(item.getGuid())) {
+				indexedItem = item;
+			}
+		}
+		assertNotNull(indexedItem);
+		assertEquals("Indexed item", indexedItem.getTitle());
+		assertEquals("The description", indexedItem.getDescription());
+		assertEquals("The content", indexedItem.getContent());
+		// the updated item is written to the item index
+		final Item changedItem = new Item();
+		changedItem.setGuid(newItem.getGuid());
+		changedItem.setTitle("Changed item");
+		changedItem.setContent("The changed content");
+		feedManager.updateItem(changedItem, null, feed);
+		feed = feedManager.getFeed(feed);
+		indexedItem = null;
+		for (final Item item : feedManager.loadItems(feed)) {
+			if (newItem.getGuid().equals(item.getGuid())) {
+				indexedItem = item;
+			}
+		}
+		assertNotNull(indexedItem);
+		assertEquals("Changed item", indexedItem.getTitle());
+		assertEquals("The changed content", indexedItem.getContent());
+		// the removed item is removed from the item index
+		feedManager.remove(changedItem, feed);
+		feed = feedManager.getFeed(feed);
+		for (final Item item : feedManager.loadItems(feed)) {
+			assertFalse(newItem.getGuid().equals(item.getGuid()));
+		}
+	}
 }
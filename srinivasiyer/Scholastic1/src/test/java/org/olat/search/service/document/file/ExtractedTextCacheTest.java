@@ -0,0 +1,158 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.search.service.document.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.olat.core.util.Encoder;
+import org.olat.core.util.FileUtils;
+import org.olat.core.util.vfs.LocalFileImpl;
+import org.olat.core.util.vfs.VFSLeaf;
+
+/**
+ * Description:<br>
+ * Tests the validation by size, modification date and content hash and the eviction of the ExtractedTextCache.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class ExtractedTextCacheTest {
+
+	private File testDir;
+	private File cacheDir;
+
+	@Before
+	public void setUp() throws Exception {
+		testDir = File.createTempFile("extractedtextcachetest", "");
+		testDir.delete();
+		testDir.mkdirs();
+		cacheDir = new File(testDir, "cache");
+	}
+
+	@After
+	public void tearDown() {
+		FileUtils.deleteDirsAndFiles(testDir, true, true);
+	}
+
+	private VFSLeaf createFile(final String name, final String content, final long lastModified) throws Exception {
+		final File file = new File(testDir, name);
+		FileUtils.save(new FileOutputStream(file), content, "utf-8");
+		file.setLastModified(lastModified);
+		return new LocalFileImpl(file);
+	}
+
+	@Test
+	public void testUnchangedFile() throws Exception {
+		final ExtractedTextCache cache = new ExtractedTextCache(cacheDir, 1000000, false);
+		final VFSLeaf leaf = createFile("test.pdf", "binary pdf", 1000000000000L);
+		assertNull(cache.get("/test.pdf", leaf));
+		cache.put("/test.pdf", leaf, "extracted text äöü");
+		assertEquals("extracted text äöü", cache.get("/test.pdf", leaf));
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+
+		// entries survive a restart
+		final ExtractedTextCache reopened = new ExtractedTextCache(cacheDir, 1000000, false);
+		assertEquals(cache.getSize(), reopened.getSize());
+		assertEquals("extracted text äöü", reopened.get("/test.pdf", leaf));
+	}
+
+	@Test
+	public void testChangedFile() throws Exception {
+		final ExtractedTextCache cache = new ExtractedTextCache(cacheDir, 1000000, false);
+		final VFSLeaf leaf = createFile("test.pdf", "binary pdf", 1000000000000L);
+		cache.put("/test.pdf", leaf, "old text");
+
+		assertNull("other size", cache.get("/test.pdf", createFile("test.pdf", "new binary pdf", 1000000000000L)));
+		assertNull("other date", cache.get("/test.pdf", createFile("test.pdf", "binary pdf", 1000000001000L)));
+	}
+
+	@Test
+	public void testSameContentWithNewDate() throws Exception {
+		final ExtractedTextCache cache = new ExtractedTextCache(cacheDir, 1000000, true);
+		cache.put("/test.pdf", createFile("test.pdf", "binary pdf", 1000000000000L), "text");
+
+		final VFSLeaf copied = createFile("test.pdf", "binary pdf", 1000000001000L);
+		assertEquals("same content", "text", cache.get("/test.pdf", copied));
+		assertEquals("new date is remembered", "text", new ExtractedTextCache(cacheDir, 1000000, false).get("/test.pdf", copied));
+
+		assertNull("same size but other content", cache.get("/test.pdf", createFile("test.pdf", "binary PDF", 1000000002000L)));
+	}
+
+	@Test
+	public void testFailedFile() throws Exception {
+		final ExtractedTextCache cache = new ExtractedTextCache(cacheDir, 1000000, true);
+		final VFSLeaf leaf = createFile("test.pdf", "broken pdf", 1000000000000L);
+		assertFalse(cache.isFailed("/test.pdf", leaf));
+		cache.putFailure("/test.pdf", leaf);
+		assertTrue(cache.isFailed("/test.pdf", leaf));
+		assertNull("no text for a failure", cache.get("/test.pdf", leaf));
+		assertTrue("failures survive a restart", new ExtractedTextCache(cacheDir, 1000000, true).isFailed("/test.pdf", leaf));
+
+		// a changed file is tried again, also with the same content
+		assertFalse(cache.isFailed("/test.pdf", createFile("test.pdf", "broken pdf", 1000000001000L)));
+		final VFSLeaf repaired = createFile("test.pdf", "repaired pdf", 1000000002000L);
+		assertFalse(cache.isFailed("/test.pdf", repaired));
+		cache.put("/test.pdf", repaired, "text");
+		assertFalse(cache.isFailed("/test.pdf", repaired));
+		assertEquals("text", cache.get("/test.pdf", repaired));
+	}
+
+	@Test
+	public void testEvictLeastRecentlyUsed() throws Exception {
+		final StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			text.append('x');
+		}
+		final ExtractedTextCache cache = new ExtractedTextCache(cacheDir, 3500, false);
+		final VFSLeaf leaf = createFile("test.pdf", "binary pdf", 1000000000000L);
+		cache.put("/1.pdf", leaf, text.toString());
+		cache.put("/2.pdf", leaf, text.toString());
+		cache.put("/3.pdf", leaf, text.toString());
+		// the first entry is used last
+		assertEquals(text.toString(), cache.get("/1.pdf", leaf));
+		setLastUsed(cache, "/2.pdf", 1000);
+		setLastUsed(cache, "/3.pdf", 2000);
+
+		cache.put("/4.pdf", leaf, text.toString());
+		assertTrue(cache.getSize() <= 3500);
+		assertNull("least recently used", cache.get("/2.pdf", leaf));
+		assertEquals(text.toString(), cache.get("/1.pdf", leaf));
+		assertEquals(text.toString(), cache.get("/4.pdf", leaf));
+	}
+
+	private void setLastUsed(final ExtractedTextCache cache, final String path, final long time) {
+		final String name = Encoder.encrypt(path);
+		new File(new File(cacheDir, name.substring(0, 2)), name + ".txt").setLastModified(time);
+	}
+}
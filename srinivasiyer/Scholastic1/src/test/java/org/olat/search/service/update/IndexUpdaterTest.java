@@ -0,0 +1,146 @@
+/**
+ * OLAT - Online Learning and Training<br>
+ * http://www.olat.org
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); <br>
+ * you may not use this file except in compliance with the License.<br>
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,<br>
+ * software distributed under the License is distributed on an "AS IS" BASIS, <br>
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. <br>
+ * See the License for the specific language governing permissions and <br>
+ * limitations under the License.
+ * <p>
+ * Copyright (c) 1999-2007 at Multimedia- & E-Learning Services (MELS),<br>
+ * University of Zurich, Switzerland.
+ * <p>
+ */
+
+package org.olat.search.service.update;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.olat.core.commons.services.search.AbstractOlatDocument;
+
+/**
+ * Description:<br>
+ * Tests the coalescing of the changes in the queue of the IndexUpdater, the batches are taken before the updater thread writes them.
+ * <P>
+ * Initial Date: 18.10.2026 <br>
+ */
+@RunWith(JUnit4.class)
+public class IndexUpdaterTest {
+
+	private IndexUpdater updater;
+
+	@Before
+	public void setUp() {
+		// the updater thread sleeps an hour before writing, the batches are taken by the test
+		updater = new IndexUpdater(null, 3600000);
+	}
+
+	@After
+	public void tearDown() {
+		updater.stopUpdater();
+	}
+
+	private Document createDocument(final String resourceUrl) {
+		final Document document = new Document();
+		document.add(new Field(AbstractOlatDocument.RESOURCEURL_FIELD_NAME, resourceUrl, Field.Store.YES, Field.Index.NOT_ANALYZED));
+		return document;
+	}
+
+	@Test
+	public void testLatestUpdateWins() {
+		updater.addToIndex(createDocument("[BusinessGroup:1]"));
+		updater.addToIndex(createDocument("[BusinessGroup:2]"));
+		final Document latest = createDocument("[BusinessGroup:1]");
+		updater.addToIndex(latest);
+
+		assertEquals(2, updater.getQueueSize());
+		assertEquals(1.0 / 3.0, updater.getCoalesceRatio(), 0.0001);
+
+		final Map<String, IndexUpdater.PendingChange> batch = updater.takePendingChanges();
+		assertEquals(0, updater.getQueueSize());
+		final Iterator<String> resourceUrls = batch.keySet().iterator();
+		assertEquals("first changed first written", "[BusinessGroup:1]", resourceUrls.next());
+		assertEquals("[BusinessGroup:2]", resourceUrls.next());
+		assertSame(latest, batch.get("[BusinessGroup:1]").document);
+	}
+
+	@Test
+	public void testDeleteCancelsUpdate() {
+		updater.addToIndex(createDocument("[BusinessGroup:1]"));
+		updater.deleteFromIndex(createDocument("[BusinessGroup:1]"));
+
+		final Map<String, IndexUpdater.PendingChange> batch = updater.takePendingChanges();
+		assertEquals(1, batch.size());
+		assertTrue(batch.get("[BusinessGroup:1]").isDelete());
+	}
+
+	@Test
+	public void testUpdateAfterDelete() {
+		updater.deleteFromIndex(createDocument("[BusinessGroup:1]"));
+		updater.addToIndex("[BusinessGroup:1]", new Callable<Document>() {
+			@Override
+			public Document call() {
+				return createDocument("[BusinessGroup:1]");
+			}
+		});
+
+		final IndexUpdater.PendingChange change = updater.takePendingChanges().get("[BusinessGroup:1]");
+		assertFalse(change.isDelete());
+		assertNotNull("extracted when the batch is written", change.extraction);
+	}
+
+	@Test
+	public void testTimeToSearchableCountsFromFirstChange() throws Exception {
+		updater.addToIndex(createDocument("[BusinessGroup:1]"));
+		final long firstChangeTime = updater.takePendingChanges().get("[BusinessGroup:1]").firstChangeTime;
+
+		updater.addToIndex(createDocument("[BusinessGroup:1]"));
+		Thread.sleep(10);
+		updater.addToIndex(createDocument("[BusinessGroup:1]"));
+		final IndexUpdater.PendingChange change = updater.takePendingChanges().get("[BusinessGroup:1]");
+		assertTrue(change.firstChangeTime >= firstChangeTime);
+		assertTrue("the replaced change keeps its time", System.currentTimeMillis() - change.firstChangeTime >= 10);
+	}
+
+	@Test
+	public void testFailedBatchIsQueuedAgain() throws Exception {
+		updater.stopUpdater();
+		updater = new IndexUpdater(null, 3600000) {
+			@Override
+			boolean applyUpdates(final Map<String, Document> updates, final List<String> deletes) throws IOException {
+				throw new IOException("index is locked");
+			}
+		};
+		final Document failed = createDocument("[BusinessGroup:1]");
+		updater.addToIndex(failed);
+		updater.addToIndex(createDocument("[BusinessGroup:2]"));
+		updater.doUpdate();
+
+		assertEquals("the batch waits for the next interval", 2, updater.getQueueSize());
+		assertSame(failed, updater.takePendingChanges().get("[BusinessGroup:1]").document);
+	}
+}